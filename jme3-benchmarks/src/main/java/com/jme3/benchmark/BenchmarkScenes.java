@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.benchmark;
+
+import com.jme3.asset.AssetConfig;
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.RenderManager;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.NullRenderer;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Builds the synthetic scenes shared by the benchmark suites.
+ * <p>
+ * Every scene is generated from a fixed seed so that results are comparable
+ * between runs and between engine versions.
+ */
+final class BenchmarkScenes {
+
+    private static final long SEED = 0x6a4d45L;
+
+    /**
+     * A private constructor to inhibit instantiation of this class.
+     */
+    private BenchmarkScenes() {
+    }
+
+    /**
+     * Creates a headless asset manager able to load the stock material
+     * definitions.
+     *
+     * @return a new instance (not null)
+     */
+    static AssetManager createAssetManager() {
+        Logger.getLogger(AssetConfig.class.getName()).setLevel(Level.OFF);
+        return new DesktopAssetManager(true);
+    }
+
+    /**
+     * Creates a render manager backed by a {@link NullRenderer}, so that
+     * culling, queueing and material setup run without issuing GL calls.
+     *
+     * @return a new instance (not null)
+     */
+    static RenderManager createRenderManager() {
+        RenderManager rm = new RenderManager(new NullRenderer());
+        rm.setPassDrawBufferTargetIdToShaders(false);
+        return rm;
+    }
+
+    /**
+     * Creates a number of distinct materials so that the opaque comparator
+     * has real sort ids to compare.
+     *
+     * @param assetManager for loading material definitions (not null)
+     * @param renderManager for selecting the default technique (not null)
+     * @param count the number of materials to create (&gt;0)
+     * @return a new array of materials
+     */
+    static Material[] createMaterials(AssetManager assetManager, RenderManager renderManager, int count) {
+        String[] defs = {
+            "Common/MatDefs/Misc/Unshaded.j3md",
+            "Common/MatDefs/Light/Lighting.j3md",
+            "Common/MatDefs/Light/PBRLighting.j3md"
+        };
+        Material[] materials = new Material[count];
+        for (int i = 0; i < count; i++) {
+            Material mat = new Material(assetManager, defs[i % defs.length]);
+            if (i % defs.length == 0) {
+                mat.setColor("Color", new ColorRGBA(i / (float) count, 0.5f, 0.5f, 1f));
+            }
+            mat.selectTechnique("Default", renderManager);
+            materials[i] = mat;
+        }
+        return materials;
+    }
+
+    /**
+     * Creates a balanced tree of nodes with box geometries at its leaves.
+     * The total number of geometries is {@code fanout^depth}.
+     *
+     * @param depth the number of node levels below the root (&ge;1)
+     * @param fanout the number of children per node (&ge;1)
+     * @param materials the materials to assign round-robin, or null for none
+     * @return the root of the new tree (not null)
+     */
+    static Node createTree(int depth, int fanout, Material[] materials) {
+        Random random = new Random(SEED);
+        Mesh mesh = new Box(0.5f, 0.5f, 0.5f);
+        Node root = new Node("root");
+        int[] counter = new int[1];
+        populate(root, depth, fanout, mesh, materials, random, counter);
+        return root;
+    }
+
+    /**
+     * Creates a single node with all geometries as its direct children,
+     * scattered inside a cube of the given extent.
+     *
+     * @param count the number of geometries (&ge;0)
+     * @param extent the half-size of the cube that contains the geometries
+     * @param materials the materials to assign round-robin, or null for none
+     * @return the new node (not null)
+     */
+    static Node createFlat(int count, float extent, Material[] materials) {
+        Random random = new Random(SEED);
+        Mesh mesh = new Box(0.5f, 0.5f, 0.5f);
+        Node root = new Node("flat");
+        for (int i = 0; i < count; i++) {
+            Geometry geom = new Geometry("geom" + i, mesh);
+            geom.setLocalTranslation(
+                    (random.nextFloat() * 2f - 1f) * extent,
+                    (random.nextFloat() * 2f - 1f) * extent,
+                    (random.nextFloat() * 2f - 1f) * extent);
+            if (materials != null) {
+                geom.setMaterial(materials[i % materials.length]);
+            }
+            root.attachChild(geom);
+        }
+        return root;
+    }
+
+    private static void populate(Node parent, int depth, int fanout, Mesh mesh,
+            Material[] materials, Random random, int[] counter) {
+        for (int i = 0; i < fanout; i++) {
+            Spatial child;
+            if (depth == 1) {
+                Geometry geom = new Geometry("geom" + counter[0], mesh);
+                if (materials != null) {
+                    geom.setMaterial(materials[counter[0] % materials.length]);
+                }
+                counter[0]++;
+                child = geom;
+            } else {
+                Node node = new Node("node" + depth + "_" + i);
+                populate(node, depth - 1, fanout, mesh, materials, random, counter);
+                child = node;
+            }
+            child.setLocalTranslation(
+                    (random.nextFloat() * 2f - 1f) * depth * 4f,
+                    (random.nextFloat() * 2f - 1f) * depth * 4f,
+                    (random.nextFloat() * 2f - 1f) * depth * 4f);
+            child.setLocalRotation(new Quaternion().fromAngleAxis(
+                    random.nextFloat() * FastMath.TWO_PI, Vector3f.UNIT_Y));
+            parent.attachChild(child);
+        }
+    }
+}
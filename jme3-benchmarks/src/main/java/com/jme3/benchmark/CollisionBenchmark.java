@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.benchmark;
+
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.collision.CollisionResults;
+import com.jme3.collision.bih.BIHTree;
+import com.jme3.math.FastMath;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Ray;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.shape.Sphere;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures ray picking against a mesh through {@link BIHTree}, and the cost
+ * of building the tree itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+
+    private static final int RAY_COUNT = 256;
+
+    /**
+     * The number of radial and axial samples of the sphere mesh; 64 gives
+     * roughly 8,000 triangles and 256 roughly 130,000.
+     */
+    @Param({"64", "256"})
+    public int samples;
+
+    private Mesh mesh;
+    private BIHTree tree;
+    private BoundingVolume worldBound;
+    private final Matrix4f worldMatrix = new Matrix4f();
+    private final Ray[] rays = new Ray[RAY_COUNT];
+    private final CollisionResults results = new CollisionResults();
+    private int nextRay;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mesh = new Sphere(samples, samples, 10f);
+        mesh.updateBound();
+        worldBound = mesh.getBound();
+        tree = new BIHTree(mesh);
+        tree.construct();
+
+        // Rays start outside the sphere and aim at a jittered point near
+        // the center, so most of them hit and some of them graze or miss.
+        Random random = new Random(7);
+        for (int i = 0; i < RAY_COUNT; i++) {
+            Vector3f origin = randomDirection(random).multLocal(50f);
+            Vector3f target = randomDirection(random).multLocal(random.nextFloat() * 12f);
+            rays[i] = new Ray(origin, target.subtractLocal(origin).normalizeLocal());
+        }
+    }
+
+    @Benchmark
+    public int collideWithRay() {
+        results.clear();
+        Ray ray = rays[nextRay];
+        nextRay = (nextRay + 1) % RAY_COUNT;
+        return tree.collideWith(ray, worldMatrix, worldBound, results);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 10)
+    @Measurement(iterations = 20)
+    public BIHTree construct() {
+        BIHTree newTree = new BIHTree(mesh);
+        newTree.construct();
+        return newTree;
+    }
+
+    private static Vector3f randomDirection(Random random) {
+        float z = random.nextFloat() * 2f - 1f;
+        float angle = random.nextFloat() * FastMath.TWO_PI;
+        float r = FastMath.sqrt(1f - z * z);
+        return new Vector3f(r * FastMath.cos(angle), r * FastMath.sin(angle), z);
+    }
+}
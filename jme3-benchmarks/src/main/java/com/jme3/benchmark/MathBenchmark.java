@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.benchmark;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link Matrix4f} and {@link Quaternion} multiply paths used
+ * by transform propagation, skinning and the uniform bindings.
+ * <p>
+ * All variants write into pre-allocated storage, matching how the engine
+ * calls them on hot paths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MathBenchmark {
+
+    private final Matrix4f matA = new Matrix4f();
+    private final Matrix4f matB = new Matrix4f();
+    private final Matrix4f matStore = new Matrix4f();
+    private final Quaternion quatA = new Quaternion();
+    private final Quaternion quatB = new Quaternion();
+    private final Quaternion quatStore = new Quaternion();
+    private final Vector3f vec = new Vector3f(1f, 2f, 3f);
+    private final Vector3f vecStore = new Vector3f();
+
+    @Setup
+    public void setUp() {
+        quatA.fromAngles(0.3f, 1.1f, -0.4f);
+        quatB.fromAngles(-0.7f, 0.2f, FastMath.HALF_PI);
+        matA.setTransform(new Vector3f(1f, -2f, 3f), new Vector3f(1f, 2f, 1f), quatA.toRotationMatrix());
+        matB.setTransform(new Vector3f(-4f, 5f, 0.5f), Vector3f.UNIT_XYZ, quatB.toRotationMatrix());
+    }
+
+    @Benchmark
+    public Matrix4f matrixMultMatrix() {
+        return matA.mult(matB, matStore);
+    }
+
+    @Benchmark
+    public Vector3f matrixMultVector() {
+        return matA.mult(vec, vecStore);
+    }
+
+    @Benchmark
+    public Matrix4f matrixInvert() {
+        return matA.invert(matStore);
+    }
+
+    @Benchmark
+    public Quaternion quaternionMultQuaternion() {
+        return quatA.mult(quatB, quatStore);
+    }
+
+    @Benchmark
+    public Vector3f quaternionMultVector() {
+        return quatA.mult(vec, vecStore);
+    }
+
+    @Benchmark
+    public Quaternion quaternionSlerp() {
+        return quatStore.slerp(quatA, quatB, 0.35f);
+    }
+}
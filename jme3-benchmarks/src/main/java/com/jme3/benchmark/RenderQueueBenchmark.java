@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.benchmark;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.OpaqueComparator;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures render-queue construction: frustum culling plus
+ * {@link RenderQueue#addToQueue} via {@link RenderManager#renderScene},
+ * and sorting of the opaque bucket with {@link OpaqueComparator}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderQueueBenchmark {
+
+    /**
+     * The number of geometries in the scene.
+     */
+    @Param({"1000", "20000"})
+    public int geometryCount;
+
+    /**
+     * The number of distinct materials the geometries are spread across.
+     */
+    @Param({"16"})
+    public int materialCount;
+
+    /**
+     * Whether culling runs on the common ForkJoin pool.
+     */
+    @Param({"false", "true"})
+    public boolean parallelCulling;
+
+    /**
+     * Whether the opaque list is sorted by radix-sorted sort keys.
+     */
+    @Param({"false", "true"})
+    public boolean keySort;
+
+    private RenderManager renderManager;
+    private ViewPort viewPort;
+    private Node flatScene;
+    private Node treeScene;
+    private Geometry[] unsorted;
+    private GeometryList opaqueList;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AssetManager assetManager = BenchmarkScenes.createAssetManager();
+        renderManager = BenchmarkScenes.createRenderManager();
+        if (parallelCulling) {
+            renderManager.setCullingPool(ForkJoinPool.commonPool());
+        }
+        Material[] materials = BenchmarkScenes.createMaterials(assetManager, renderManager, materialCount);
+
+        Camera cam = new Camera(1280, 720);
+        cam.setFrustumPerspective(60f, 1280f / 720f, 1f, 1000f);
+        cam.setLocation(new Vector3f(0f, 0f, 100f));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        viewPort = renderManager.createMainView("Benchmark", cam);
+
+        flatScene = BenchmarkScenes.createFlat(geometryCount, 200f, materials);
+        flatScene.updateGeometricState();
+
+        // Pick a depth/fanout pair close to the requested geometry count.
+        int fanout = 10;
+        int depth = Math.max(1, (int) Math.round(Math.log(geometryCount) / Math.log(fanout)));
+        treeScene = BenchmarkScenes.createTree(depth, fanout, materials);
+        treeScene.updateGeometricState();
+
+        List<Geometry> geometries = new ArrayList<>(geometryCount);
+        for (int i = 0; i < geometryCount; i++) {
+            geometries.add((Geometry) flatScene.getChild(i));
+        }
+        Collections.shuffle(geometries, new Random(42));
+        unsorted = geometries.toArray(new Geometry[0]);
+
+        OpaqueComparator comparator = new OpaqueComparator();
+        comparator.setCamera(cam);
+        opaqueList = new GeometryList(comparator);
+        opaqueList.setKeySortEnabled(keySort);
+    }
+
+    @Benchmark
+    public RenderQueue cullAndQueueFlat() {
+        RenderQueue queue = viewPort.getQueue();
+        renderManager.renderScene(flatScene, viewPort);
+        queue.clear();
+        return queue;
+    }
+
+    @Benchmark
+    public RenderQueue cullAndQueueTree() {
+        RenderQueue queue = viewPort.getQueue();
+        renderManager.renderScene(treeScene, viewPort);
+        queue.clear();
+        return queue;
+    }
+
+    /**
+     * Sorts a shuffled opaque bucket, as happens on the first frame or
+     * after the camera jumps.
+     *
+     * @return the sorted list
+     */
+    @Benchmark
+    public GeometryList sortOpaqueShuffled() {
+        fill();
+        opaqueList.sort();
+        return opaqueList;
+    }
+
+    /**
+     * Sorts an opaque bucket whose geometries arrive in the same order as
+     * the previous frame, which is the common steady-state case.
+     *
+     * @return the sorted list
+     */
+    @Benchmark
+    public GeometryList sortOpaqueCoherent() {
+        fill();
+        opaqueList.sort();
+        for (int i = 0; i < unsorted.length; i++) {
+            unsorted[i] = opaqueList.get(i);
+        }
+        return opaqueList;
+    }
+
+    private void fill() {
+        opaqueList.clear();
+        for (Geometry geom : unsorted) {
+            // RenderQueue resets the cached distance after each frame.
+            geom.queueDistance = Float.NEGATIVE_INFINITY;
+            opaqueList.add(geom);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.benchmark;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.SceneGraphVisitorAdapter;
+import com.jme3.scene.control.AbstractControl;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the per-frame scene-graph passes: {@link Node#updateLogicalState(float)}
+ * and {@link Node#updateGeometricState()}.
+ * <p>
+ * The "full" variants move the root every invocation, so the whole tree
+ * must refresh its world transforms and bounds. The "leaf" variant moves a
+ * single geometry, which measures the cost of propagating the refresh flags
+ * up to the root and back down one branch. The "clean" variant measures the
+ * traversal overhead when nothing changed.
+ * <p>
+ * Each variant runs with the serial refresh and with the parallel refresh
+ * enabled by {@link Node#setGeometricUpdatePool(ForkJoinPool)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SceneGraphBenchmark {
+
+    /**
+     * Tree shapes as "depth x fanout": 4x10 gives 10,000 geometries in a
+     * deep hierarchy, 2x100 the same count in a shallow, wide one.
+     */
+    @Param({"4x10", "2x100"})
+    public String shape;
+
+    /**
+     * Whether dirty subtrees are refreshed on the common ForkJoin pool.
+     */
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private Node root;
+    private Geometry leaf;
+    private float angle;
+    private final Quaternion rotation = new Quaternion();
+    private final Vector3f translation = new Vector3f();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] dims = shape.split("x");
+        root = BenchmarkScenes.createTree(Integer.parseInt(dims[0]), Integer.parseInt(dims[1]), null);
+        root.depthFirstTraversal(new SceneGraphVisitorAdapter() {
+            @Override
+            public void visit(Geometry geom) {
+                geom.addControl(new SpinControl());
+                leaf = geom;
+            }
+        });
+        if (parallel) {
+            root.setGeometricUpdatePool(ForkJoinPool.commonPool());
+        }
+        root.updateLogicalState(0f);
+        root.updateGeometricState();
+    }
+
+    @Benchmark
+    public Node updateGeometricStateFull() {
+        angle += 0.01f;
+        root.setLocalRotation(rotation.fromAngles(0f, angle, 0f));
+        root.updateGeometricState();
+        return root;
+    }
+
+    @Benchmark
+    public Node updateGeometricStateLeaf() {
+        angle += 0.01f;
+        leaf.setLocalTranslation(translation.set(angle, 0f, 0f));
+        root.updateGeometricState();
+        return root;
+    }
+
+    @Benchmark
+    public Node updateGeometricStateClean() {
+        root.updateGeometricState();
+        return root;
+    }
+
+    @Benchmark
+    public Node updateLogicalState() {
+        root.updateLogicalState(0.016f);
+        return root;
+    }
+
+    /**
+     * A minimal control, so that the logical pass does representative work
+     * on each geometry without dirtying its transform.
+     */
+    private static class SpinControl extends AbstractControl {
+
+        private float time;
+
+        @Override
+        protected void controlUpdate(float tpf) {
+            time += tpf;
+        }
+
+        @Override
+        protected void controlRender(RenderManager rm, ViewPort vp) {
+        }
+    }
+}
@@ -33,6 +33,8 @@ package com.jme3.app;
 
 import com.jme3.profile.*;
 import com.jme3.renderer.Renderer;
+import com.jme3.renderer.Statistics;
+import com.jme3.renderer.Statistics.GLCallType;
 import com.jme3.renderer.ViewPort;
 import com.jme3.renderer.queue.RenderQueue;
 
@@ -44,6 +46,7 @@ import java.util.*;
 public class DetailedProfiler implements AppProfiler {
 
     private static final int MAX_FRAMES = 100;
+    private static final GLCallType[] GL_CALL_TYPES = GLCallType.values();
     private Map<String, StatLine> data;
     private Map<String, StatLine> pool;
     private long startFrame;
@@ -51,6 +54,8 @@ public class DetailedProfiler implements AppProfiler {
     private String prevPath = null;
     private boolean frameEnded = false;
     private Renderer renderer;
+    private Statistics statistics;
+    private final long[] glCallMark = new long[GL_CALL_TYPES.length];
     private boolean ongoingGpuProfiling = false;
 
 
@@ -71,6 +76,9 @@ public class DetailedProfiler implements AppProfiler {
     public void appStep(AppStep step) {
 
         curAppPath = step.name();
+        if (statistics != null) {
+            statistics.onVpStep(null);
+        }
 
         if (step == AppStep.BeginFrame) {
             if (data == null) {
@@ -149,6 +157,9 @@ public class DetailedProfiler implements AppProfiler {
 
     @Override
     public void vpStep(VpStep step, ViewPort vp, RenderQueue.Bucket bucket) {
+        if (statistics != null) {
+            statistics.onVpStep(step);
+        }
 
         if (data != null) {
             vpPath.setLength(0);
@@ -210,6 +221,16 @@ public class DetailedProfiler implements AppProfiler {
                 prevLine.setValueCpu(value - prevLine.getValueCpu());
             }
         }
+        if (statistics != null) {
+            StatLine prevLine = prevPath == null ? null : data.get(prevPath);
+            for (int i = 0; i < GL_CALL_TYPES.length; i++) {
+                long total = statistics.getTotalGLCalls(GL_CALL_TYPES[i]);
+                if (prevLine != null) {
+                    prevLine.glCalls[i] += (int) (total - glCallMark[i]);
+                }
+                glCallMark[i] = total;
+            }
+        }
 
         StatLine line = pool.get(path);
         if (line == null) {
@@ -240,6 +261,7 @@ public class DetailedProfiler implements AppProfiler {
 
     public void setRenderer(Renderer renderer) {
         this.renderer = renderer;
+        this.statistics = renderer.getStatistics();
         poolTaskIds(renderer);
     }
 
@@ -269,6 +291,8 @@ public class DetailedProfiler implements AppProfiler {
         private long lastValue = 0;
         private int nbFramesCpu;
         private int nbFramesGpu;
+        private final int[] glCalls = new int[GL_CALL_TYPES.length];
+        private final int[] lastGlCalls = new int[GL_CALL_TYPES.length];
         List<Integer> taskIds = new ArrayList<>();
 
 
@@ -301,9 +325,12 @@ public class DetailedProfiler implements AppProfiler {
                 cpuTimes[cpuCursor] = lastValue;
                 cpuSum += lastValue;
                 nbFramesCpu++;
+                System.arraycopy(glCalls, 0, lastGlCalls, 0, glCalls.length);
             } else {
                 nbFramesCpu = 0;
+                Arrays.fill(lastGlCalls, 0);
             }
+            Arrays.fill(glCalls, 0);
         }
 
         public void setValueGpu(long value) {
@@ -332,6 +359,33 @@ public class DetailedProfiler implements AppProfiler {
 
             return gpuSum / (double) Math.min(nbFramesGpu, MAX_FRAMES);
         }
+
+        /**
+         * Returns the number of GL calls of the given type made during this
+         * step in the last closed frame. The calls are only counted when the
+         * renderer's GL is wrapped by a
+         * {@link com.jme3.renderer.opengl.GLCallCounter}.
+         *
+         * @param type the category of calls (not null)
+         * @return the number of calls
+         */
+        public int getGLCalls(GLCallType type) {
+            return lastGlCalls[type.ordinal()];
+        }
+
+        /**
+         * Returns the number of GL calls of all types made during this step
+         * in the last closed frame.
+         *
+         * @return the number of calls
+         */
+        public int getGLCalls() {
+            int count = 0;
+            for (int calls : lastGlCalls) {
+                count += calls;
+            }
+            return count;
+        }
     }
 
 }
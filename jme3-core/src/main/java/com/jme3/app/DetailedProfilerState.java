@@ -40,6 +40,7 @@ import com.jme3.material.Material;
 import com.jme3.material.RenderState;
 import com.jme3.math.*;
 import com.jme3.profile.AppStep;
+import com.jme3.renderer.Statistics.GLCallType;
 import com.jme3.scene.*;
 import com.jme3.scene.shape.Quad;
 
@@ -55,11 +56,12 @@ public class DetailedProfilerState extends BaseAppState {
     private static final int PANEL_WIDTH = 400;
     private static final int PADDING = 10;
     private static final int LINE_HEIGHT = 12;
-    private static final int HEADER_HEIGHT = 100;
+    private static final int HEADER_HEIGHT = 112;
     private static final float REFRESH_TIME = 1.0f;
     private static final String TOGGLE_KEY = "Toggle_Detailed_Profiler";
     private static final String CLICK_KEY = "Click_Detailed_Profiler";
     private static final String INSIGNIFICANT = "Hide insignificant stat";
+    private static final GLCallType[] GL_CALL_TYPES = GLCallType.values();
     private final DetailedProfiler prof = new DetailedProfiler();
 
     private float time = 0;
@@ -77,8 +79,11 @@ public class DetailedProfilerState extends BaseAppState {
     private BitmapText hideInsignificantField;
 
     private BitmapText selectedField;
+    private BitmapText glCallsField;
     private double selectedValueCpu = 0;
     private double selectedValueGpu = 0;
+    private final int[] selectedGlCalls = new int[GL_CALL_TYPES.length];
+    private boolean anySelected = false;
     private boolean hideInsignificant = false;
 
     private StatLineView rootLine;
@@ -147,6 +152,10 @@ public class DetailedProfilerState extends BaseAppState {
         ui.attachChild(frameGpuTimeValue);
         ui.attachChild(selectedField);
 
+        glCallsField = new BitmapText(font);
+        glCallsField.setLocalTranslation(PADDING, -PADDING - 87, 0);
+        ui.attachChild(glCallsField);
+
         hideInsignificantField = new BitmapText(font);
         hideInsignificantField.setText("O " + INSIGNIFICANT);
         hideInsignificantField.setLocalTranslation(PADDING, -PADDING - 75, 0);
@@ -192,11 +201,11 @@ public class DetailedProfilerState extends BaseAppState {
             maxLevel = Math.max(maxLevel, path.split("/").length);
             StatLineView line = getStatLineView(path);
             DetailedProfiler.StatLine statLine = data.get(path);
-            line.updateValues(statLine.getAverageCpu(), statLine.getAverageGpu());
+            line.updateValues(statLine);
             String parent = getParent(path);
             while (parent != null) {
                 StatLineView parentView = getStatLineView(parent);
-                parentView.updateValues(statLine.getAverageCpu(), statLine.getAverageGpu());
+                parentView.updateValues(statLine);
                 parentView.children.add(line);
                 line.attachTo(ui);
                 line = parentView;
@@ -204,7 +213,7 @@ public class DetailedProfilerState extends BaseAppState {
             }
             rootLine.children.add(line);
             line.attachTo(ui);
-            rootLine.updateValues(statLine.getAverageCpu(), statLine.getAverageGpu());
+            rootLine.updateValues(statLine);
         }
 
         totalTimeCpu = rootLine.cpuValue;
@@ -218,6 +227,8 @@ public class DetailedProfilerState extends BaseAppState {
         height = 0;
         selectedValueCpu = 0;
         selectedValueGpu = 0;
+        Arrays.fill(selectedGlCalls, 0);
+        anySelected = false;
         rootLine.layout(0);
 
         frameTimeValue.setText(df.format(getMsFromNs(prof.getAverageFrameTime())) + "ms");
@@ -241,6 +252,19 @@ public class DetailedProfilerState extends BaseAppState {
 
         selectedField.setLocalTranslation(
                 3 * PANEL_WIDTH / 4 - font.getLineWidth(selectedField.getText()) / 2, -PADDING - 75, 0);
+
+        // the GL calls are only counted when the context wraps its GL
+        // with a GLCallCounter, see AppSettings.setGraphicsCallCounting()
+        if (rootLine.getGLCalls() > 0) {
+            int[] calls = anySelected ? selectedGlCalls : rootLine.glCalls;
+            StringBuilder sb = new StringBuilder(anySelected ? "Selected calls:" : "Frame calls:");
+            for (int i = 0; i < calls.length; i++) {
+                sb.append(' ').append(GL_CALL_TYPES[i].name(), 0, 2).append(' ').append(calls[i]);
+            }
+            glCallsField.setText(sb);
+        } else {
+            glCallsField.setText("");
+        }
     }
 
     private StatLineView getStatLineView(String path) {
@@ -338,11 +362,13 @@ public class DetailedProfilerState extends BaseAppState {
 
     private class StatLineView {
         BitmapText label;
+        BitmapText callsText;
         BitmapText cpuText;
         BitmapText gpuText;
         BitmapText checkBox;
         double cpuValue;
         double gpuValue;
+        final int[] glCalls = new int[GL_CALL_TYPES.length];
         private boolean expended = true;
         private boolean visible = true;
         private boolean selected = false;
@@ -356,6 +382,8 @@ public class DetailedProfilerState extends BaseAppState {
             this.checkBox = new BitmapText(font);
             this.checkBox.setText("O");
             this.label.setText("- " + label);
+            this.callsText = new BitmapText(font);
+            this.callsText.setColor(ColorRGBA.LightGray);
             this.cpuText = new BitmapText(font);
             this.gpuText = new BitmapText(font);
         }
@@ -417,6 +445,10 @@ public class DetailedProfilerState extends BaseAppState {
                 label.setColor(ColorRGBA.Yellow);
                 selectedValueCpu += cpuValue;
                 selectedValueGpu += gpuValue;
+                for (int i = 0; i < glCalls.length; i++) {
+                    selectedGlCalls[i] += glCalls[i];
+                }
+                anySelected = true;
             } else {
                 label.setColor(ColorRGBA.White);
             }
@@ -426,8 +458,12 @@ public class DetailedProfilerState extends BaseAppState {
             label.setLocalTranslation(PADDING + indent * PADDING, y, 0);
             float gpuPos = PANEL_WIDTH - font.getLineWidth(gpuText.getText())
                     - PADDING * (maxLevel - indent + 1);
-            cpuText.setLocalTranslation(gpuPos - font.getLineWidth(cpuText.getText()), y, 0);
+            float cpuPos = gpuPos - font.getLineWidth(cpuText.getText());
+            int calls = getGLCalls();
+            callsText.setText(calls > 0 ? calls + " calls " : "");
+            cpuText.setLocalTranslation(cpuPos, y, 0);
             gpuText.setLocalTranslation(gpuPos, y, 0);
+            callsText.setLocalTranslation(cpuPos - font.getLineWidth(callsText.getText()), y, 0);
 
             checkBox.setLocalTranslation(3, y, 0);
             height++;
@@ -436,13 +472,25 @@ public class DetailedProfilerState extends BaseAppState {
             }
         }
 
-        public void updateValues(double cpu, double gpu) {
-            cpuValue += cpu;
-            gpuValue += gpu;
+        public void updateValues(DetailedProfiler.StatLine statLine) {
+            cpuValue += statLine.getAverageCpu();
+            gpuValue += statLine.getAverageGpu();
+            for (int i = 0; i < glCalls.length; i++) {
+                glCalls[i] += statLine.getGLCalls(GL_CALL_TYPES[i]);
+            }
+        }
+
+        public int getGLCalls() {
+            int count = 0;
+            for (int calls : glCalls) {
+                count += calls;
+            }
+            return count;
         }
 
         public void attachTo(Node node) {
             node.attachChild(label);
+            node.attachChild(callsText);
             node.attachChild(cpuText);
             node.attachChild(gpuText);
             node.attachChild(checkBox);
@@ -450,6 +498,7 @@ public class DetailedProfilerState extends BaseAppState {
 
         public void removeFromParent() {
             label.removeFromParent();
+            callsText.removeFromParent();
             cpuText.removeFromParent();
             gpuText.removeFromParent();
             checkBox.removeFromParent();
@@ -459,11 +508,13 @@ public class DetailedProfilerState extends BaseAppState {
             children.clear();
             cpuValue = 0;
             gpuValue = 0;
+            Arrays.fill(glCalls, 0);
         }
 
         public void setVisible(boolean visible) {
             this.visible = visible;
             label.setCullHint(visible ? Spatial.CullHint.Dynamic : Spatial.CullHint.Always);
+            callsText.setCullHint(visible ? Spatial.CullHint.Dynamic : Spatial.CullHint.Always);
             cpuText.setCullHint(visible ? Spatial.CullHint.Dynamic : Spatial.CullHint.Always);
             gpuText.setCullHint(visible ? Spatial.CullHint.Dynamic : Spatial.CullHint.Always);
             checkBox.setCullHint(visible ? Spatial.CullHint.Dynamic : Spatial.CullHint.Always);
@@ -35,7 +35,9 @@ import com.jme3.app.Application;
 import com.jme3.renderer.RenderManager;
 import com.jme3.util.SafeArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -89,6 +91,12 @@ public class AppStateManager {
      */
     private final ConcurrentMap<String, AppState> stateIndex = new ConcurrentHashMap<>();
 
+    /**
+     *  Profiler sub-step arguments by state class, so that profiling a frame
+     *  does not allocate a new array for every state.
+     */
+    private final Map<Class<?>, String[]> profilerNames = new HashMap<>();
+
     // All of the above lists need to be thread-safe, but access will be
     // synchronized separately.... but always on the states list.  This
     // is to avoid deadlocking. Anyway, the most common use case
@@ -366,7 +374,7 @@ public class AppStateManager {
         for (AppState state : array) {
             if (state.isEnabled()) {
                 if (app.getAppProfiler() != null) {
-                    app.getAppProfiler().appSubStep(state.getClass().getSimpleName());
+                    app.getAppProfiler().appSubStep(getProfilerName(state));
                 }
                 state.update(tpf);
             }
@@ -382,13 +390,23 @@ public class AppStateManager {
         for (AppState state : array) {
             if (state.isEnabled()) {
                 if (app.getAppProfiler() != null) {
-                    app.getAppProfiler().appSubStep(state.getClass().getSimpleName());
+                    app.getAppProfiler().appSubStep(getProfilerName(state));
                 }
                 state.render(rm);
             }
         }
     }
 
+    private String[] getProfilerName(AppState state) {
+        Class<?> type = state.getClass();
+        String[] name = profilerNames.get(type);
+        if (name == null) {
+            name = new String[] { type.getSimpleName() };
+            profilerNames.put(type, name);
+        }
+        return name;
+    }
+
     /**
      * Calls render for all attached and initialized states, do not call directly.
      */
@@ -397,7 +415,7 @@ public class AppStateManager {
         for (AppState state : array) {
             if (state.isEnabled()) {
                 if (app.getAppProfiler() != null) {
-                    app.getAppProfiler().appSubStep(state.getClass().getSimpleName());
+                    app.getAppProfiler().appSubStep(getProfilerName(state));
                 }
                 state.postRender();
             }
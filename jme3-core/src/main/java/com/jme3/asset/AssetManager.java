@@ -49,6 +49,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * <code>AssetManager</code> provides an interface for managing the data assets
@@ -261,6 +262,33 @@ public interface AssetManager {
      */
     public Object loadAsset(String name);
 
+    /**
+     * Loads an asset without blocking the calling thread.
+     * <p>
+     * Concurrent requests for the same key are coalesced into a single
+     * load. Loaders may use this method to start loading their
+     * dependencies in parallel before they need them, since a later
+     * {@link #loadAsset(com.jme3.asset.AssetKey) } call for the same key
+     * waits for the running load instead of repeating it.
+     * <p>
+     * The default implementation loads the asset on the calling thread.
+     *
+     * @param <T> The object type that will be loaded from the AssetKey instance.
+     * @param key The AssetKey
+     * @return A future completed with the loaded asset, or exceptionally
+     * with the {@link AssetNotFoundException} or {@link AssetLoadException}
+     * that loading raised.
+     */
+    public default <T> CompletableFuture<T> loadAssetAsync(AssetKey<T> key) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(loadAsset(key));
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
     /**
      * Loads texture file, supported types are BMP, JPG, PNG, GIF,
      * TGA, DDS, PFM, and HDR.
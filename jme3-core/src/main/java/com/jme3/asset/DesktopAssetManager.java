@@ -32,6 +32,7 @@
 package com.jme3.asset;
 
 import com.jme3.asset.cache.AssetCache;
+import com.jme3.asset.cache.DiskAssetCache;
 import com.jme3.audio.AudioData;
 import com.jme3.audio.AudioKey;
 import com.jme3.font.BitmapFont;
@@ -53,7 +54,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -73,6 +77,24 @@ public class DesktopAssetManager implements AssetManager {
     final private CopyOnWriteArrayList<AssetEventListener> eventListeners =
             new CopyOnWriteArrayList<>();
 
+    /**
+     * Cacheable assets currently being loaded, so that concurrent requests
+     * for the same key wait for that load instead of running the loader
+     * again.
+     */
+    private final ConcurrentHashMap<AssetKey<?>, InFlightLoad> inFlight =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The in-flight load each thread is currently waiting for, used to
+     * detect threads waiting for each other's loads.
+     */
+    private final ConcurrentHashMap<Thread, InFlightLoad> waiting =
+            new ConcurrentHashMap<>();
+
+    private volatile ThreadingManager threadingManager;
+    private volatile DiskAssetCache diskCache;
+
     @Deprecated
     final private List<ClassLoader> classLoaders = Collections.synchronizedList(new ArrayList<>());
 
@@ -245,6 +267,56 @@ public class DesktopAssetManager implements AssetManager {
         }
     }
 
+    /**
+     * Replaces the cache used for the assets whose keys return
+     * <code>cacheType</code> from {@link AssetKey#getCacheType() }.
+     * For example, installing a {@link com.jme3.asset.cache.MemoryBudgetAssetCache} for
+     * {@link com.jme3.asset.cache.WeakRefCloneAssetCache} bounds the memory held by cached
+     * models, materials and textures.
+     * <p>
+     * Assets held by the previous cache are not moved to the new one.
+     *
+     * @param cacheType The cache type returned by the asset keys
+     * @param cache The cache to use instead, or null to restore a new
+     * instance of <code>cacheType</code>
+     */
+    public void setCache(Class<? extends AssetCache> cacheType, AssetCache cache) {
+        if (cacheType == null) {
+            throw new IllegalArgumentException("cacheType cannot be null");
+        }
+        handler.setCache(cacheType, cache);
+    }
+
+    /**
+     * Returns the cache used for the assets whose keys return
+     * <code>cacheType</code> from {@link AssetKey#getCacheType() }, creating
+     * it if needed.
+     *
+     * @param cacheType The cache type returned by the asset keys
+     * @return The cache in use, or null if <code>cacheType</code> is null
+     */
+    public AssetCache getCache(Class<? extends AssetCache> cacheType) {
+        return handler.getCache(cacheType);
+    }
+
+    /**
+     * Enables storing the results of the asset loaders on disk, so that
+     * later runs import them instead of loading the source files again.
+     * Disabled by default.
+     *
+     * @param diskCache The cache to use, or null to disable it
+     */
+    public void setDiskCache(DiskAssetCache diskCache) {
+        this.diskCache = diskCache;
+    }
+
+    /**
+     * @return The disk cache in use, or null if disabled (default).
+     */
+    public DiskAssetCache getDiskCache() {
+        return diskCache;
+    }
+
     @Override
     public void clearCache() {
         handler.clearCache();
@@ -265,13 +337,27 @@ public class DesktopAssetManager implements AssetManager {
      * @throws AssetLoadException If failed to load asset due to exception or
      * other error.
      */
-    @SuppressWarnings("unchecked")
     protected <T> T loadLocatedAsset(AssetKey<T> key, AssetInfo info, AssetProcessor proc, AssetCache cache) {
+        return loadLocatedAsset(key, info, null, proc, cache);
+    }
+
+    /**
+     * Loads an asset that has already been located by the given locator,
+     * see {@link DiskAssetCache#load(com.jme3.asset.AssetLoader, com.jme3.asset.AssetInfo, java.lang.String) }.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T loadLocatedAsset(AssetKey<T> key, AssetInfo info, String source,
+            AssetProcessor proc, AssetCache cache) {
         AssetLoader loader = handler.aquireLoader(key);
         Object obj;
         try {
             handler.establishParentKey(key);
-            obj = loader.load(info);
+            DiskAssetCache disk = diskCache;
+            if (disk != null && !(info instanceof StreamAssetInfo) && disk.accepts(key)) {
+                obj = disk.load(loader, info, source);
+            } else {
+                obj = loader.load(info);
+            }
         } catch (IOException ex) {
             throw new AssetLoadException("An exception has occurred while loading asset: " + key, ex);
         } finally {
@@ -367,27 +453,21 @@ public class DesktopAssetManager implements AssetManager {
             listener.assetRequested(key);
         }
 
+        if (diskCache != null) {
+            DiskAssetCache.dependencyRequested(key);
+        }
+
         AssetCache cache = handler.getCache(key.getCacheType());
         AssetProcessor proc = handler.getProcessor(key.getProcessorType());
 
         Object obj = cache != null ? cache.getFromCache(key) : null;
         if (obj == null) {
             // Asset not in cache, load it from file system.
-            AssetInfo info = handler.tryLocate(key);
-            if (info == null) {
-                if (handler.getParentKey() != null) {
-                    // Inform event listener that an asset has failed to load.
-                    // If the parent AssetLoader chooses not to propagate
-                    // the exception, this is the only means of finding
-                    // that something went wrong.
-                    for (AssetEventListener listener : eventListeners) {
-                        listener.assetDependencyNotFound(handler.getParentKey(), key);
-                    }
-                }
-                throw new AssetNotFoundException(key.toString());
+            if (cache != null) {
+                obj = loadOnce(key, proc, cache);
+            } else {
+                obj = locateAndLoad(key, proc, null);
             }
-
-            obj = loadLocatedAsset(key, info, proc, cache);
         }
 
         T clone = (T) obj;
@@ -399,6 +479,138 @@ public class DesktopAssetManager implements AssetManager {
         return clone;
     }
 
+    /**
+     * Locates and loads an asset that is not in the cache.
+     */
+    private <T> T locateAndLoad(AssetKey<T> key, AssetProcessor proc, AssetCache cache) {
+        StringBuilder source = diskCache != null ? new StringBuilder() : null;
+        AssetInfo info = handler.tryLocate(key, source);
+        if (info == null) {
+            if (handler.getParentKey() != null) {
+                // Inform event listener that an asset has failed to load.
+                // If the parent AssetLoader chooses not to propagate
+                // the exception, this is the only means of finding
+                // that something went wrong.
+                for (AssetEventListener listener : eventListeners) {
+                    listener.assetDependencyNotFound(handler.getParentKey(), key);
+                }
+            }
+            throw new AssetNotFoundException(key.toString());
+        }
+
+        return loadLocatedAsset(key, info, source != null ? source.toString() : null, proc, cache);
+    }
+
+    /**
+     * Loads a cacheable asset, making sure only one thread runs the loader
+     * for a given key at a time. Other threads requesting the key meanwhile
+     * wait for that load and then take the asset from the cache, the same
+     * way a cache hit does. If the load failed, they retry it themselves.
+     * <p>
+     * A thread that would close a cycle of waiting threads, e.g. one loading
+     * A that needs B while another loads B that needs A, loads the asset
+     * itself instead of waiting.
+     */
+    private <T> T loadOnce(AssetKey<T> key, AssetProcessor proc, AssetCache cache) {
+        while (true) {
+            InFlightLoad load = new InFlightLoad();
+            InFlightLoad running = inFlight.putIfAbsent(key, load);
+            if (running == null) {
+                try {
+                    // Another thread may have finished loading the asset
+                    // between the cache lookup and the registration above.
+                    T obj = cache.getFromCache(key);
+                    return obj != null ? obj : locateAndLoad(key, proc, cache);
+                } finally {
+                    inFlight.remove(key, load);
+                    load.done.countDown();
+                }
+            }
+
+            if (running.thread == Thread.currentThread()) {
+                // The asset depends on itself, load it like before rather
+                // than waiting forever on our own load.
+                return locateAndLoad(key, proc, cache);
+            }
+
+            // Register before looking for a cycle: of the threads closing
+            // one, the last to register is sure to see it.
+            Thread current = Thread.currentThread();
+            waiting.put(current, running);
+            try {
+                if (waitsFor(running.thread, current)) {
+                    // The owner of that load (indirectly) waits for us.
+                    return locateAndLoad(key, proc, cache);
+                }
+                running.done.await();
+            } catch (InterruptedException ex) {
+                current.interrupt();
+                throw new AssetLoadException("Interrupted while waiting for " + key, ex);
+            } finally {
+                waiting.remove(current);
+            }
+
+            T obj = cache.getFromCache(key);
+            if (obj != null) {
+                return obj;
+            }
+        }
+    }
+
+    /**
+     * Tests whether the given thread waits, directly or through the owners
+     * of the loads it waits for, for a load owned by the target thread.
+     */
+    private boolean waitsFor(Thread thread, Thread target) {
+        // bounded, the chain may change while it is walked
+        for (int i = 0; thread != null && i <= waiting.size(); i++) {
+            InFlightLoad load = waiting.get(thread);
+            if (load == null) {
+                return false;
+            }
+            if (load.thread == target) {
+                return true;
+            }
+            thread = load.thread;
+        }
+        return false;
+    }
+
+    /**
+     * Loads the asset on the loading thread pool, coalescing concurrent
+     * requests for the same key.
+     *
+     * @see ThreadingManager#loadAssetAsync(com.jme3.asset.AssetKey)
+     */
+    @Override
+    public <T> CompletableFuture<T> loadAssetAsync(AssetKey<T> key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key cannot be null");
+        }
+        return getThreadingManager().loadAssetAsync(key);
+    }
+
+    /**
+     * Returns the thread pool used by
+     * {@link #loadAssetAsync(com.jme3.asset.AssetKey) }, creating it on
+     * first use. It also reports the progress of asynchronous loads.
+     *
+     * @return The threading manager of this asset manager.
+     */
+    public ThreadingManager getThreadingManager() {
+        ThreadingManager manager = threadingManager;
+        if (manager == null) {
+            synchronized (this) {
+                manager = threadingManager;
+                if (manager == null) {
+                    manager = new ThreadingManager(this);
+                    threadingManager = manager;
+                }
+            }
+        }
+        return manager;
+    }
+
     @Override
     public Object loadAsset(String name) {
         return loadAsset(new AssetKey<>(name));
@@ -480,4 +692,13 @@ public class DesktopAssetManager implements AssetManager {
     public void setShaderGenerator(ShaderGenerator shaderGenerator) {
         this.shaderGenerator = shaderGenerator;
     }
+
+    /**
+     * A cacheable asset being loaded by {@link #thread}.
+     */
+    private static final class InFlightLoad {
+
+        final Thread thread = Thread.currentThread();
+        final CountDownLatch done = new CountDownLatch(1);
+    }
 }
@@ -161,6 +161,19 @@ final class ImplHandler {
      * access, or null if not found.
      */
     public AssetInfo tryLocate(AssetKey key) {
+        return tryLocate(key, null);
+    }
+
+    /**
+     * Attempts to locate the given resource name, and tells which locator
+     * found it.
+     * @param key The full name of the resource.
+     * @param source If not null, receives the class name and root path of
+     * the locator that found the resource.
+     * @return The AssetInfo containing resource information required for
+     * access, or null if not found.
+     */
+    public AssetInfo tryLocate(AssetKey key, StringBuilder source) {
         if (locatorsList.isEmpty()) {
             logger.warning("There are no locators currently"
                     + " registered. Use AssetManager."
@@ -172,6 +185,9 @@ final class ImplHandler {
         for (ImplThreadLocal<AssetLocator> local : locatorsList) {
             AssetInfo info = local.get().locate(assetManager, key);
             if (info != null) {
+                if (source != null) {
+                    source.append(local.getTypeClass().getName()).append(':').append(local.getPath());
+                }
                 return info;
             }
         }
@@ -208,6 +224,29 @@ final class ImplHandler {
         }
     }
 
+    /**
+     * Replaces the cache used for keys whose cache type is the given class.
+     * The cache given does not need to be an instance of that class.
+     *
+     * @param cacheClass The cache type returned by the asset keys
+     * @param cache The cache to use, or null to create one from
+     * <code>cacheClass</code> again on next use
+     */
+    public void setCache(Class<? extends AssetCache> cacheClass, AssetCache cache) {
+        synchronized (classToCacheMap) {
+            if (cache == null) {
+                classToCacheMap.remove(cacheClass);
+            } else {
+                classToCacheMap.put(cacheClass, cache);
+            }
+        }
+    }
+
+    /**
+     * Note that the returned cache may have been replaced with
+     * {@link #setCache(java.lang.Class, com.jme3.asset.cache.AssetCache) }
+     * and be of another class than <code>cacheClass</code>.
+     */
     @SuppressWarnings("unchecked")
     public <T extends AssetCache> T getCache(Class<T> cacheClass) {
         if (cacheClass == null) {
@@ -31,13 +31,21 @@
  */
 package com.jme3.asset;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <code>ThreadingManager</code> manages the threads used to load content
  * within the Content Manager system. A pool of threads and a task queue
  * is used to load resource data and perform I/O while the application's
  * render thread is active.
+ * <p>
+ * Requests made through {@link #loadAssetAsync(com.jme3.asset.AssetKey) }
+ * are coalesced: while a key is queued or loading, further requests for
+ * the same key share its future instead of submitting another task.
  */
 public class ThreadingManager {
 
@@ -48,6 +56,11 @@ public class ThreadingManager {
     protected final AssetManager owner;
     protected int nextThreadId = 0;
 
+    private final ConcurrentHashMap<AssetKey<?>, CompletableFuture<?>> inFlight =
+            new ConcurrentHashMap<>();
+    private final AtomicInteger submitted = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+
     public ThreadingManager(AssetManager owner) {
         this.owner = owner;
     }
@@ -76,8 +89,136 @@ public class ThreadingManager {
         }
     }
 
+    /**
+     * Loads the asset on the loading thread pool.
+     * <p>
+     * Cancelling the returned future only cancels this request; it does
+     * not interrupt the load, which other requests for the same key may
+     * still be waiting for.
+     *
+     * @param <T> The asset type
+     * @param assetKey The key of the asset to load
+     * @return A future completed with the loaded asset.
+     * @see #loadAssetAsync(com.jme3.asset.AssetKey)
+     */
     public <T> Future<T> loadAsset(AssetKey<T> assetKey) {
-        return executor.submit(new LoadingTask<>(assetKey));
+        return loadAssetAsync(assetKey);
+    }
+
+    /**
+     * Loads the asset on the loading thread pool.
+     * <p>
+     * If the same key is already queued or loading, the returned future
+     * completes with that load instead of loading the asset again.
+     * Assets implementing {@link CloneableSmartAsset} are fetched again
+     * from the owner for every coalesced request, so each caller receives
+     * its own clone.
+     * <p>
+     * Every caller receives its own future, so cancelling or completing it
+     * does not affect other requests for the same key, nor the load itself.
+     *
+     * @param <T> The asset type
+     * @param assetKey The key of the asset to load
+     * @return A future completed with the loaded asset, or exceptionally
+     * with the error raised by the loader.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> loadAssetAsync(AssetKey<T> assetKey) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<T> running = (CompletableFuture<T>) inFlight.putIfAbsent(assetKey, future);
+        if (running != null) {
+            return running.thenApply(asset -> asset instanceof CloneableSmartAsset
+                    ? owner.loadAsset(assetKey) : asset);
+        }
+        // The shared future stays internal, the first caller gets a
+        // dependent one like every coalesced caller.
+        CompletableFuture<T> result = future.thenApply(asset -> asset);
+
+        submitted.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                T asset = null;
+                Throwable error = null;
+                try {
+                    asset = new LoadingTask<>(assetKey).call();
+                } catch (Throwable t) {
+                    error = t;
+                }
+                // Stop coalescing before completing, so that a request made
+                // from a completion callback goes through the cache again.
+                inFlight.remove(assetKey, future);
+                completed.incrementAndGet();
+                if (error != null) {
+                    future.completeExceptionally(error);
+                } else {
+                    future.complete(asset);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(assetKey, future);
+            completed.incrementAndGet();
+            future.completeExceptionally(ex);
+        }
+        return result;
+    }
+
+    /**
+     * Loads all the given assets in parallel on the loading thread pool.
+     *
+     * @param keys The keys of the assets to load
+     * @return A future completed with the loaded assets, in the order of
+     * the given keys, once all of them have been loaded. If any asset fails
+     * to load, the future completes exceptionally.
+     */
+    public CompletableFuture<List<Object>> loadAssetsAsync(Collection<? extends AssetKey<?>> keys) {
+        List<CompletableFuture<?>> futures = new ArrayList<>(keys.size());
+        for (AssetKey<?> key : keys) {
+            futures.add(loadAssetAsync(key));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> {
+                    List<Object> assets = new ArrayList<>(futures.size());
+                    for (CompletableFuture<?> future : futures) {
+                        assets.add(future.join());
+                    }
+                    return assets;
+                });
+    }
+
+    /**
+     * @return The number of loads submitted to the thread pool so far.
+     * Coalesced requests are not counted.
+     */
+    public int getSubmittedCount() {
+        return submitted.get();
+    }
+
+    /**
+     * @return The number of submitted loads that have finished, whether
+     * they succeeded or failed.
+     */
+    public int getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * @return The number of submitted loads that are queued or loading.
+     */
+    public int getPendingCount() {
+        int done = completed.get();
+        return submitted.get() - done;
+    }
+
+    /**
+     * Returns the fraction of submitted loads that have finished, meant to
+     * drive a loading screen.
+     *
+     * @return A value between 0 and 1, 1 if nothing was submitted.
+     */
+    public float getProgress() {
+        int done = completed.get();
+        int total = submitted.get();
+        return total == 0 ? 1f : done / (float) total;
     }
 
     public static boolean isLoadingThread() {
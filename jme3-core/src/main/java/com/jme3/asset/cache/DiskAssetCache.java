@@ -0,0 +1,386 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.asset.cache;
+
+import com.jme3.asset.AssetInfo;
+import com.jme3.asset.AssetKey;
+import com.jme3.asset.AssetLoader;
+import com.jme3.asset.AssetManager;
+import com.jme3.audio.AudioKey;
+import com.jme3.export.Savable;
+import com.jme3.export.binary.BinaryExporter;
+import com.jme3.export.binary.BinaryImporter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <code>DiskAssetCache</code> stores the results of asset loaders on disk
+ * in the jME binary format, so that later runs can import them instead of
+ * parsing and decoding the source files again.
+ * <p>
+ * An entry is found by the class and options of the asset key (see
+ * {@link AssetKey#write(com.jme3.export.JmeExporter) }) and by the locator
+ * that found the source, and is only used if
+ * the content hash of the located source still matches, as well as the
+ * hashes of the assets the loader requested while loading it, e.g. the
+ * material library of an OBJ model. Otherwise the asset is loaded and the
+ * entry is replaced.
+ * <p>
+ * Only loader results that are {@link Savable} are stored. Loaders that
+ * returned anything else are remembered, so that their assets are not
+ * hashed again for nothing. Textures
+ * and models referenced by the result are saved by key, the same way J3O
+ * files reference them, and go through the asset manager when imported.
+ * <p>
+ * The cache is opt-in, see
+ * {@link com.jme3.asset.DesktopAssetManager#setDiskCache(com.jme3.asset.cache.DiskAssetCache) }.
+ */
+public class DiskAssetCache {
+
+    private static final Logger logger = Logger.getLogger(DiskAssetCache.class.getName());
+
+    private static final int MAGIC = 0x4A4D4443; // "JMDC"
+    private static final int FORMAT_VERSION = 1;
+    private static final String EXTENSION = ".jmc";
+
+    /**
+     * Extensions of the assets never stored: J3O files are already in the
+     * cache format, and shader sources, material definitions and glTF
+     * buffers do not load into a {@link Savable}.
+     */
+    private static final Set<String> SKIPPED_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "j3o", "j3f", "j3md", "j3sn", "bin",
+            "vert", "frag", "geom", "tsctrl", "tseval", "glsl", "glsllib", "comp"));
+
+    /**
+     * Dependencies requested by the loads running on each thread, innermost
+     * load last.
+     */
+    private static final ThreadLocal<ArrayList<LinkedHashSet<AssetKey<?>>>> recording
+            = new ThreadLocal<ArrayList<LinkedHashSet<AssetKey<?>>>>() {
+        @Override
+        protected ArrayList<LinkedHashSet<AssetKey<?>>> initialValue() {
+            return new ArrayList<>();
+        }
+    };
+
+    private final File directory;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Set<Class<?>> unstorableLoaders = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a cache storing its entries in the given directory, which is
+     * created if needed.
+     *
+     * @param directory The cache directory
+     */
+    public DiskAssetCache(File directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory cannot be null");
+        }
+        this.directory = directory;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return The number of assets imported from the cache.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of cacheable assets that had to be loaded from
+     * their source.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Tells whether assets with the given key go through this cache.
+     * By default, everything except J3O files, which are already in the
+     * format the cache would store, streamed audio and the assets that do
+     * not load into a {@link Savable}, like shader sources.
+     *
+     * @param key The key of the asset to load
+     * @return True to use the cache for the key
+     */
+    public boolean accepts(AssetKey<?> key) {
+        if (key instanceof AudioKey && ((AudioKey) key).isStream()) {
+            return false;
+        }
+        return !SKIPPED_EXTENSIONS.contains(key.getExtension().toLowerCase());
+    }
+
+    /**
+     * Deletes all the entries of the cache.
+     */
+    public void clear() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(EXTENSION) && !file.delete()) {
+                    logger.log(Level.WARNING, "Cannot delete asset cache entry {0}", file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Must be called by the asset manager for every asset requested while
+     * a load started by {@link #load(com.jme3.asset.AssetLoader, com.jme3.asset.AssetInfo) }
+     * runs on the current thread.
+     *
+     * @param key The key of the requested asset
+     */
+    public static void dependencyRequested(AssetKey<?> key) {
+        ArrayList<LinkedHashSet<AssetKey<?>>> stack = recording.get();
+        if (!stack.isEmpty()) {
+            stack.get(stack.size() - 1).add(key);
+        }
+    }
+
+    /**
+     * Imports the asset from the cache if the entry is up to date, otherwise
+     * loads it with the loader and stores the result.
+     *
+     * @param loader The loader of the asset
+     * @param info The located asset
+     * @return The asset, as the loader would have returned it
+     * @throws IOException If the loader fails
+     */
+    public Object load(AssetLoader loader, AssetInfo info) throws IOException {
+        return load(loader, info, null);
+    }
+
+    /**
+     * Imports the asset from the cache if the entry is up to date, otherwise
+     * loads it with the loader and stores the result.
+     *
+     * @param loader The loader of the asset
+     * @param info The located asset
+     * @param source Identifies the locator that found the asset, e.g. its
+     * class and root path, so that assets of the same name from different
+     * roots get their own entries. May be null.
+     * @return The asset, as the loader would have returned it
+     * @throws IOException If the loader fails
+     */
+    public Object load(AssetLoader loader, AssetInfo info, String source) throws IOException {
+        if (unstorableLoaders.contains(loader.getClass())) {
+            return loader.load(info);
+        }
+        AssetKey<?> key = info.getKey();
+        File file;
+        String sourceHash;
+        try {
+            file = new File(directory, hash(serializeKey(key, source)) + EXTENSION);
+            sourceHash = hash(info);
+        } catch (IOException ex) {
+            logger.log(Level.FINE, "Cannot hash " + key + ", loading it directly", ex);
+            return loader.load(info);
+        }
+
+        if (file.isFile()) {
+            Object asset = read(file, sourceHash, info.getManager());
+            if (asset != null) {
+                hits.incrementAndGet();
+                return asset;
+            }
+        }
+        misses.incrementAndGet();
+
+        ArrayList<LinkedHashSet<AssetKey<?>>> stack = recording.get();
+        LinkedHashSet<AssetKey<?>> dependencies = new LinkedHashSet<>();
+        stack.add(dependencies);
+        Object asset;
+        try {
+            asset = loader.load(info);
+        } finally {
+            stack.remove(stack.size() - 1);
+            if (!stack.isEmpty()) {
+                // Whatever the dependency needed, its parent needs as well
+                stack.get(stack.size() - 1).addAll(dependencies);
+            }
+        }
+
+        if (asset instanceof Savable) {
+            write(file, sourceHash, dependencies, (Savable) asset, info.getManager());
+        } else if (asset != null) {
+            unstorableLoaders.add(loader.getClass());
+        }
+        return asset;
+    }
+
+    private Object read(File file, String sourceHash, AssetManager assetManager) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || !in.readUTF().equals(sourceHash)) {
+                return null;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                String dependencyHash = in.readUTF();
+                AssetInfo dependency = assetManager.locateAsset(new AssetKey<>(name));
+                if (dependency == null || !hash(dependency).equals(dependencyHash)) {
+                    return null;
+                }
+            }
+            BinaryImporter importer = new BinaryImporter();
+            importer.setAssetManager(assetManager);
+            return importer.load(in);
+        } catch (IOException | RuntimeException ex) {
+            logger.log(Level.WARNING, "Cannot read asset cache entry " + file + ", reloading the asset", ex);
+            return null;
+        }
+    }
+
+    private void write(File file, String sourceHash, LinkedHashSet<AssetKey<?>> dependencies,
+            Savable asset, AssetManager assetManager) {
+        File temp = null;
+        try {
+            List<String> names = new ArrayList<>();
+            List<String> hashes = new ArrayList<>();
+            for (AssetKey<?> dependency : dependencies) {
+                AssetInfo info = assetManager.locateAsset(dependency);
+                if (info == null) {
+                    // The loader coped without it, so will the cached asset
+                    continue;
+                }
+                names.add(dependency.getName());
+                hashes.add(hash(info));
+            }
+
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                throw new IOException("Cannot create directory " + directory);
+            }
+            // Write to a temporary file first, so that concurrent loads and
+            // crashes never leave a partial entry behind.
+            temp = File.createTempFile("asset", ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(sourceHash);
+                out.writeInt(names.size());
+                for (int i = 0; i < names.size(); i++) {
+                    out.writeUTF(names.get(i));
+                    out.writeUTF(hashes.get(i));
+                }
+                new BinaryExporter().save(asset, out);
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+        } catch (IOException | RuntimeException ex) {
+            logger.log(Level.WARNING, "Cannot store " + file + " in the asset cache", ex);
+        } finally {
+            if (temp != null) {
+                temp.delete();
+            }
+        }
+    }
+
+    private static byte[] serializeKey(AssetKey<?> key, String source) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (source != null) {
+            bytes.write(source.getBytes(StandardCharsets.UTF_8));
+            bytes.write(0);
+        }
+        bytes.write(key.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        new BinaryExporter().save(key, bytes);
+        return bytes.toByteArray();
+    }
+
+    private static String hash(AssetInfo info) throws IOException {
+        MessageDigest digest = createDigest();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = info.openStream()) {
+            for (int read; (read = in.read(buffer)) != -1;) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static String hash(byte[] data) {
+        return toHex(createDigest().digest(data));
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-1
+            throw new AssertionError(ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
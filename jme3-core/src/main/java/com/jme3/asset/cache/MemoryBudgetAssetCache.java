@@ -0,0 +1,447 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.asset.cache;
+
+import com.jme3.asset.AssetKey;
+import com.jme3.asset.CloneableSmartAsset;
+import com.jme3.audio.AudioBuffer;
+import com.jme3.material.MatParam;
+import com.jme3.material.Material;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <code>MemoryBudgetAssetCache</code> is an asset cache that keeps assets
+ * strongly referenced until the memory they hold exceeds a budget.
+ * <p>
+ * The size of each asset is estimated when it is added: the bytes of its
+ * image, vertex and audio buffers, split between the Java heap and native
+ * memory (direct buffers). Each kind of memory has its own budget. When
+ * either is exceeded, the least recently used (or least frequently used,
+ * see {@link EvictionPolicy}) assets are evicted, except the pinned ones.
+ * <p>
+ * The cache works with cloneable assets as well, each clone receives the
+ * key it was loaded with. To use it in place of one of the default caches,
+ * see {@link com.jme3.asset.DesktopAssetManager#setCache(java.lang.Class, com.jme3.asset.cache.AssetCache) }.
+ */
+public class MemoryBudgetAssetCache implements AssetCache {
+
+    private static final Logger logger = Logger.getLogger(MemoryBudgetAssetCache.class.getName());
+
+    /**
+     * Heap budget used by the no-argument constructor, a quarter of the
+     * maximum heap size.
+     */
+    public static final long DEFAULT_HEAP_BUDGET = Runtime.getRuntime().maxMemory() / 4;
+
+    /**
+     * Native memory budget used by the no-argument constructor, 512 MiB.
+     */
+    public static final long DEFAULT_NATIVE_BUDGET = 512L * 1024 * 1024;
+
+    /**
+     * Rough per-object overhead counted on the heap for every asset, mesh,
+     * texture, etc. on top of its buffers.
+     */
+    private static final long OBJECT_OVERHEAD = 64;
+
+    /**
+     * Chooses which asset is evicted first when the budget is exceeded.
+     */
+    public enum EvictionPolicy {
+        /**
+         * Evicts the asset that was least recently added or retrieved.
+         */
+        LeastRecentlyUsed,
+        /**
+         * Evicts the asset that was retrieved the fewest times since it was
+         * added, the least recently used one among equals.
+         */
+        LeastFrequentlyUsed
+    }
+
+    private static final class Entry {
+
+        final Object asset;
+        final long heapBytes;
+        final long nativeBytes;
+        long uses;
+
+        Entry(Object asset, long heapBytes, long nativeBytes) {
+            this.asset = asset;
+            this.heapBytes = heapBytes;
+            this.nativeBytes = nativeBytes;
+        }
+    }
+
+    // Access order, so iteration starts from the least recently used entry
+    private final LinkedHashMap<AssetKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<AssetKey> pinned = new HashSet<>();
+
+    private EvictionPolicy policy = EvictionPolicy.LeastRecentlyUsed;
+    private long heapBudget;
+    private long nativeBudget;
+    private long heapBytes;
+    private long nativeBytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache with {@link #DEFAULT_HEAP_BUDGET} and
+     * {@link #DEFAULT_NATIVE_BUDGET}.
+     */
+    public MemoryBudgetAssetCache() {
+        this(DEFAULT_HEAP_BUDGET, DEFAULT_NATIVE_BUDGET);
+    }
+
+    /**
+     * Creates a cache with the given budgets.
+     *
+     * @param heapBudget The maximum estimated heap bytes held by the cache
+     * @param nativeBudget The maximum estimated native bytes held by the cache
+     */
+    public MemoryBudgetAssetCache(long heapBudget, long nativeBudget) {
+        setBudget(heapBudget, nativeBudget);
+    }
+
+    /**
+     * Sets the budgets, evicting assets right away if they are exceeded.
+     *
+     * @param heapBudget The maximum estimated heap bytes held by the cache
+     * @param nativeBudget The maximum estimated native bytes held by the cache
+     */
+    public synchronized void setBudget(long heapBudget, long nativeBudget) {
+        if (heapBudget < 0 || nativeBudget < 0) {
+            throw new IllegalArgumentException("Budgets cannot be negative");
+        }
+        this.heapBudget = heapBudget;
+        this.nativeBudget = nativeBudget;
+        evict(null);
+    }
+
+    public synchronized long getHeapBudget() {
+        return heapBudget;
+    }
+
+    public synchronized long getNativeBudget() {
+        return nativeBudget;
+    }
+
+    public synchronized void setEvictionPolicy(EvictionPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("policy cannot be null");
+        }
+        this.policy = policy;
+    }
+
+    public synchronized EvictionPolicy getEvictionPolicy() {
+        return policy;
+    }
+
+    /**
+     * Prevents the asset with the given key from being evicted, whether it
+     * is already cached or not. Pinned assets still count against the
+     * budget and can still be deleted explicitly.
+     *
+     * @param key The key of the asset to keep
+     */
+    public synchronized void pin(AssetKey key) {
+        pinned.add(key);
+    }
+
+    /**
+     * Allows the asset with the given key to be evicted again, evicting
+     * assets right away if the budget is exceeded.
+     *
+     * @param key The key of the asset to release
+     */
+    public synchronized void unpin(AssetKey key) {
+        if (pinned.remove(key)) {
+            evict(null);
+        }
+    }
+
+    public synchronized boolean isPinned(AssetKey key) {
+        return pinned.contains(key);
+    }
+
+    /**
+     * @return The estimated heap bytes held by the cached assets.
+     */
+    public synchronized long getHeapBytes() {
+        return heapBytes;
+    }
+
+    /**
+     * @return The estimated native bytes held by the cached assets.
+     */
+    public synchronized long getNativeBytes() {
+        return nativeBytes;
+    }
+
+    /**
+     * @return The number of cached assets.
+     */
+    public synchronized int getAssetCount() {
+        return entries.size();
+    }
+
+    /**
+     * @return The number of {@link #getFromCache(com.jme3.asset.AssetKey) }
+     * calls that found their asset.
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return The number of {@link #getFromCache(com.jme3.asset.AssetKey) }
+     * calls that did not find their asset.
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * @return The number of assets evicted to stay within the budget.
+     * Explicit deletions are not counted.
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Resets the hit, miss and eviction counts.
+     */
+    public synchronized void resetStatistics() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    @Override
+    public <T> void addToCache(AssetKey<T> key, T obj) {
+        // Measure outside of the lock, models can be large
+        long[] size = estimateSize(obj);
+        synchronized (this) {
+            remove(key);
+            entries.put(key, new Entry(obj, size[0], size[1]));
+            heapBytes += size[0];
+            nativeBytes += size[1];
+            evict(key);
+        }
+    }
+
+    @Override
+    public <T> void registerAssetClone(AssetKey<T> key, T clone) {
+        ((CloneableSmartAsset) clone).setKey(key);
+    }
+
+    @Override
+    public void notifyNoAssetClone() {
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T getFromCache(AssetKey<T> key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        entry.uses++;
+        return (T) entry.asset;
+    }
+
+    @Override
+    public synchronized boolean deleteFromCache(AssetKey key) {
+        return remove(key);
+    }
+
+    @Override
+    public synchronized void clearCache() {
+        entries.clear();
+        heapBytes = 0;
+        nativeBytes = 0;
+    }
+
+    private boolean remove(AssetKey key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        heapBytes -= entry.heapBytes;
+        nativeBytes -= entry.nativeBytes;
+        return true;
+    }
+
+    private boolean isOverBudget() {
+        return heapBytes > heapBudget || nativeBytes > nativeBudget;
+    }
+
+    /**
+     * Evicts assets until the budget is met. The asset just added is only
+     * evicted last, when it does not fit in the budget by itself, otherwise
+     * it would always be the least frequently used one.
+     */
+    private void evict(AssetKey added) {
+        while (isOverBudget()) {
+            AssetKey victim = null;
+            long victimUses = Long.MAX_VALUE;
+            for (Map.Entry<AssetKey, Entry> e : entries.entrySet()) {
+                if (pinned.contains(e.getKey()) || e.getKey().equals(added)) {
+                    continue;
+                }
+                if (policy == EvictionPolicy.LeastRecentlyUsed) {
+                    victim = e.getKey();
+                    break;
+                }
+                if (e.getValue().uses < victimUses) {
+                    victim = e.getKey();
+                    victimUses = e.getValue().uses;
+                }
+            }
+            if (victim == null) {
+                if (added == null || pinned.contains(added) || !entries.containsKey(added)) {
+                    // Only pinned assets are left
+                    return;
+                }
+                victim = added;
+            }
+            remove(victim);
+            evictions++;
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "MemoryBudgetAssetCache: evicted {0}", victim);
+            }
+        }
+    }
+
+    /**
+     * Estimates the memory held by an asset. Buffers and textures shared
+     * between parts of the asset are counted once.
+     * <p>
+     * Override to account for asset types this cache doesn't know about.
+     *
+     * @param asset The asset to measure
+     * @return The estimated heap bytes at index 0, and the estimated native
+     * bytes at index 1.
+     */
+    protected long[] estimateSize(Object asset) {
+        long[] size = new long[2];
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        ArrayDeque<Object> pending = new ArrayDeque<>();
+        pending.add(asset);
+        while (!pending.isEmpty()) {
+            Object obj = pending.poll();
+            if (!visited.add(obj)) {
+                continue;
+            }
+            size[0] += OBJECT_OVERHEAD;
+            if (obj instanceof Buffer) {
+                Buffer buffer = (Buffer) obj;
+                size[buffer.isDirect() ? 1 : 0] += (long) buffer.capacity() * getElementSize(buffer);
+            } else if (obj instanceof byte[]) {
+                size[0] += ((byte[]) obj).length;
+            } else if (obj instanceof CharSequence) {
+                size[0] += 2L * ((CharSequence) obj).length();
+            } else if (obj instanceof Node) {
+                pending.addAll(((Node) obj).getChildren());
+            } else if (obj instanceof Geometry) {
+                Geometry geom = (Geometry) obj;
+                addIfNotNull(pending, geom.getMesh());
+                addIfNotNull(pending, geom.getMaterial());
+            } else if (obj instanceof Mesh) {
+                for (VertexBuffer vb : ((Mesh) obj).getBufferList().getArray()) {
+                    addIfNotNull(pending, vb.getData());
+                }
+            } else if (obj instanceof Material) {
+                for (MatParam param : ((Material) obj).getParamsMap().values()) {
+                    if (param.getValue() instanceof Texture) {
+                        pending.add(param.getValue());
+                    }
+                }
+            } else if (obj instanceof Texture) {
+                addIfNotNull(pending, ((Texture) obj).getImage());
+            } else if (obj instanceof Image) {
+                for (ByteBuffer data : ((Image) obj).getData()) {
+                    addIfNotNull(pending, data);
+                }
+            } else if (obj instanceof AudioBuffer) {
+                addIfNotNull(pending, ((AudioBuffer) obj).getData());
+            }
+        }
+        return size;
+    }
+
+    private static void addIfNotNull(ArrayDeque<Object> pending, Object obj) {
+        if (obj != null) {
+            pending.add(obj);
+        }
+    }
+
+    private static int getElementSize(Buffer buffer) {
+        if (buffer instanceof ByteBuffer) {
+            return 1;
+        } else if (buffer instanceof ShortBuffer || buffer instanceof CharBuffer) {
+            return 2;
+        } else if (buffer instanceof IntBuffer || buffer instanceof FloatBuffer) {
+            return 4;
+        } else if (buffer instanceof LongBuffer || buffer instanceof DoubleBuffer) {
+            return 8;
+        }
+        return 1;
+    }
+}
@@ -42,7 +42,7 @@ import com.jme3.export.OutputCapsule;
 import com.jme3.math.*;
 import com.jme3.scene.Mesh;
 import com.jme3.scene.Spatial;
-import com.jme3.util.TempVars;
+import com.jme3.util.MathArena;
 import java.io.IOException;
 import java.nio.FloatBuffer;
 //import com.jme.scene.TriMesh;
@@ -145,31 +145,29 @@ public class BoundingBox extends BoundingVolume {
             return;
         }
 
-        TempVars vars = TempVars.get();
-
-        Vector3f min = vars.vect1.set(new Vector3f(Float.POSITIVE_INFINITY,
-                Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY));
-        Vector3f max = vars.vect2.set(new Vector3f(Float.NEGATIVE_INFINITY,
-                Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY));
-
-        Vector3f point;
-        for (int i = start; i < end; i++) {
-            point = tris[i].get(0);
-            checkMinMax(min, max, point);
-            point = tris[i].get(1);
-            checkMinMax(min, max, point);
-            point = tris[i].get(2);
-            checkMinMax(min, max, point);
-        }
-
-        center.set(min.addLocal(max));
-        center.multLocal(0.5f);
+        try (MathArena arena = MathArena.open()) {
+            Vector3f min = arena.vector3f(Float.POSITIVE_INFINITY,
+                    Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+            Vector3f max = arena.vector3f(Float.NEGATIVE_INFINITY,
+                    Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+
+            Vector3f point;
+            for (int i = start; i < end; i++) {
+                point = tris[i].get(0);
+                checkMinMax(min, max, point);
+                point = tris[i].get(1);
+                checkMinMax(min, max, point);
+                point = tris[i].get(2);
+                checkMinMax(min, max, point);
+            }
 
-        xExtent = max.x - center.x;
-        yExtent = max.y - center.y;
-        zExtent = max.z - center.z;
+            center.set(min.addLocal(max));
+            center.multLocal(0.5f);
 
-        vars.release();
+            xExtent = max.x - center.x;
+            yExtent = max.y - center.y;
+            zExtent = max.z - center.z;
+        }
     }
 
     public void computeFromTris(int[] indices, Mesh mesh, int start, int end) {
@@ -177,34 +175,29 @@ public class BoundingBox extends BoundingVolume {
             return;
         }
 
-        TempVars vars = TempVars.get();
-
-        Vector3f vect1 = vars.vect1;
-        Vector3f vect2 = vars.vect2;
-        Triangle triangle = vars.triangle;
+        try (MathArena arena = MathArena.open()) {
+            Vector3f min = arena.vector3f(Float.POSITIVE_INFINITY,
+                    Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+            Vector3f max = arena.vector3f(Float.NEGATIVE_INFINITY,
+                    Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+            Vector3f v1 = arena.vector3f();
+            Vector3f v2 = arena.vector3f();
+            Vector3f v3 = arena.vector3f();
+
+            for (int i = start; i < end; i++) {
+                mesh.getTriangle(indices[i], v1, v2, v3);
+                checkMinMax(min, max, v1);
+                checkMinMax(min, max, v2);
+                checkMinMax(min, max, v3);
+            }
 
-        Vector3f min = vect1.set(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
-        Vector3f max = vect2.set(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
-        Vector3f point;
+            center.set(min.addLocal(max));
+            center.multLocal(0.5f);
 
-        for (int i = start; i < end; i++) {
-            mesh.getTriangle(indices[i], triangle);
-            point = triangle.get(0);
-            checkMinMax(min, max, point);
-            point = triangle.get(1);
-            checkMinMax(min, max, point);
-            point = triangle.get(2);
-            checkMinMax(min, max, point);
+            xExtent = max.x - center.x;
+            yExtent = max.y - center.y;
+            zExtent = max.z - center.z;
         }
-
-        center.set(min.addLocal(max));
-        center.multLocal(0.5f);
-
-        xExtent = max.x - center.x;
-        yExtent = max.y - center.y;
-        zExtent = max.z - center.z;
-
-        vars.release();
     }
 
     public static void checkMinMax(Vector3f min, Vector3f max, Vector3f point) {
@@ -247,10 +240,6 @@ public class BoundingBox extends BoundingVolume {
             return;
         }
 
-        TempVars vars = TempVars.get();
-
-        float[] tmpArray = vars.skinPositions;
-
         float minX = Float.POSITIVE_INFINITY,
                 minY = Float.POSITIVE_INFINITY,
                 minZ = Float.POSITIVE_INFINITY;
@@ -258,41 +247,35 @@ public class BoundingBox extends BoundingVolume {
                 maxY = Float.NEGATIVE_INFINITY,
                 maxZ = Float.NEGATIVE_INFINITY;
 
-        int iterations = (int) FastMath.ceil(points.limit() / ((float) tmpArray.length));
-        for (int i = iterations - 1; i >= 0; i--) {
-            int bufLength = Math.min(tmpArray.length, points.remaining());
-            points.get(tmpArray, 0, bufLength);
-
-            for (int j = 0; j < bufLength; j += 3) {
-                vars.vect1.x = tmpArray[j];
-                vars.vect1.y = tmpArray[j + 1];
-                vars.vect1.z = tmpArray[j + 2];
+        // absolute reads, no scratch array is needed to walk the buffer
+        int limit = points.limit() - 2;
+        for (int j = 0; j < limit; j += 3) {
+            float x = points.get(j);
+            float y = points.get(j + 1);
+            float z = points.get(j + 2);
 
-                if (vars.vect1.x < minX) {
-                    minX = vars.vect1.x;
-                }
-                if (vars.vect1.x > maxX) {
-                    maxX = vars.vect1.x;
-                }
+            if (x < minX) {
+                minX = x;
+            }
+            if (x > maxX) {
+                maxX = x;
+            }
 
-                if (vars.vect1.y < minY) {
-                    minY = vars.vect1.y;
-                }
-                if (vars.vect1.y > maxY) {
-                    maxY = vars.vect1.y;
-                }
+            if (y < minY) {
+                minY = y;
+            }
+            if (y > maxY) {
+                maxY = y;
+            }
 
-                if (vars.vect1.z < minZ) {
-                    minZ = vars.vect1.z;
-                }
-                if (vars.vect1.z > maxZ) {
-                    maxZ = vars.vect1.z;
-                }
+            if (z < minZ) {
+                minZ = z;
+            }
+            if (z > maxZ) {
+                maxZ = z;
             }
         }
 
-        vars.release();
-
         center.set(minX + maxX, minY + maxY, minZ + maxZ);
         center.multLocal(0.5f);
 
@@ -324,24 +307,22 @@ public class BoundingBox extends BoundingVolume {
         trans.getRotation().mult(box.center, box.center);
         box.center.addLocal(trans.getTranslation());
 
-        TempVars vars = TempVars.get();
-
-        Matrix3f transMatrix = vars.tempMat3;
-        transMatrix.set(trans.getRotation());
-        // Make the rotation matrix all positive to get the maximum x/y/z extent
-        transMatrix.absoluteLocal();
-
-        Vector3f scale = trans.getScale();
-        vars.vect1.set(xExtent * FastMath.abs(scale.x),
-                yExtent * FastMath.abs(scale.y),
-                zExtent * FastMath.abs(scale.z));
-        transMatrix.mult(vars.vect1, vars.vect2);
-        // Assign the biggest rotations after scales.
-        box.xExtent = FastMath.abs(vars.vect2.getX());
-        box.yExtent = FastMath.abs(vars.vect2.getY());
-        box.zExtent = FastMath.abs(vars.vect2.getZ());
-
-        vars.release();
+        try (MathArena arena = MathArena.open()) {
+            Matrix3f transMatrix = arena.matrix3f();
+            transMatrix.set(trans.getRotation());
+            // Make the rotation matrix all positive to get the maximum x/y/z extent
+            transMatrix.absoluteLocal();
+
+            Vector3f scale = trans.getScale();
+            Vector3f extents = arena.vector3f(xExtent * FastMath.abs(scale.x),
+                    yExtent * FastMath.abs(scale.y),
+                    zExtent * FastMath.abs(scale.z));
+            transMatrix.mult(extents, extents);
+            // Assign the biggest rotations after scales.
+            box.xExtent = FastMath.abs(extents.getX());
+            box.yExtent = FastMath.abs(extents.getY());
+            box.zExtent = FastMath.abs(extents.getZ());
+        }
 
         return box;
     }
@@ -354,26 +335,24 @@ public class BoundingBox extends BoundingVolume {
         } else {
             box = (BoundingBox) store;
         }
-        TempVars vars = TempVars.get();
-
         float w = trans.multProj(center, box.center);
         box.center.divideLocal(w);
 
-        Matrix3f transMatrix = vars.tempMat3;
-        trans.toRotationMatrix(transMatrix);
-
-        // Make the rotation matrix all positive to get the maximum x/y/z extent
-        transMatrix.absoluteLocal();
+        try (MathArena arena = MathArena.open()) {
+            Matrix3f transMatrix = arena.matrix3f();
+            trans.toRotationMatrix(transMatrix);
 
-        vars.vect1.set(xExtent, yExtent, zExtent);
-        transMatrix.mult(vars.vect1, vars.vect1);
+            // Make the rotation matrix all positive to get the maximum x/y/z extent
+            transMatrix.absoluteLocal();
 
-        // Assign the biggest rotations after scales.
-        box.xExtent = FastMath.abs(vars.vect1.getX());
-        box.yExtent = FastMath.abs(vars.vect1.getY());
-        box.zExtent = FastMath.abs(vars.vect1.getZ());
+            Vector3f extents = arena.vector3f(xExtent, yExtent, zExtent);
+            transMatrix.mult(extents, extents);
 
-        vars.release();
+            // Assign the biggest rotations after scales.
+            box.xExtent = FastMath.abs(extents.getX());
+            box.yExtent = FastMath.abs(extents.getY());
+            box.zExtent = FastMath.abs(extents.getZ());
+        }
 
         return box;
     }
@@ -739,85 +718,61 @@ public class BoundingBox extends BoundingVolume {
 
         float rhs;
 
-        TempVars vars = TempVars.get();
-
-        Vector3f diff = ray.origin.subtract(getCenter(vars.vect2), vars.vect1);
+        try (MathArena arena = MathArena.open()) {
+            Vector3f diff = ray.origin.subtract(center, arena.vector3f());
+            Vector3f direction = ray.getDirection();
 
-        final float[] fWdU = vars.fWdU;
-        final float[] fAWdU = vars.fAWdU;
-        final float[] fDdU = vars.fDdU;
-        final float[] fADdU = vars.fADdU;
-        final float[] fAWxDdU = vars.fAWxDdU;
-
-        fWdU[0] = ray.getDirection().dot(Vector3f.UNIT_X);
-        fAWdU[0] = FastMath.abs(fWdU[0]);
-        fDdU[0] = diff.dot(Vector3f.UNIT_X);
-        fADdU[0] = FastMath.abs(fDdU[0]);
-        if (fADdU[0] > xExtent && fDdU[0] * fWdU[0] >= 0.0) {
-            vars.release();
-            return false;
-        }
+            // the dot products with the box axes are the plain components
+            float wdU0 = direction.x;
+            float awdU0 = FastMath.abs(wdU0);
+            float ddU0 = diff.x;
+            if (FastMath.abs(ddU0) > xExtent && ddU0 * wdU0 >= 0.0) {
+                return false;
+            }
 
-        fWdU[1] = ray.getDirection().dot(Vector3f.UNIT_Y);
-        fAWdU[1] = FastMath.abs(fWdU[1]);
-        fDdU[1] = diff.dot(Vector3f.UNIT_Y);
-        fADdU[1] = FastMath.abs(fDdU[1]);
-        if (fADdU[1] > yExtent && fDdU[1] * fWdU[1] >= 0.0) {
-            vars.release();
-            return false;
-        }
+            float wdU1 = direction.y;
+            float awdU1 = FastMath.abs(wdU1);
+            float ddU1 = diff.y;
+            if (FastMath.abs(ddU1) > yExtent && ddU1 * wdU1 >= 0.0) {
+                return false;
+            }
 
-        fWdU[2] = ray.getDirection().dot(Vector3f.UNIT_Z);
-        fAWdU[2] = FastMath.abs(fWdU[2]);
-        fDdU[2] = diff.dot(Vector3f.UNIT_Z);
-        fADdU[2] = FastMath.abs(fDdU[2]);
-        if (fADdU[2] > zExtent && fDdU[2] * fWdU[2] >= 0.0) {
-            vars.release();
-            return false;
-        }
+            float wdU2 = direction.z;
+            float awdU2 = FastMath.abs(wdU2);
+            float ddU2 = diff.z;
+            if (FastMath.abs(ddU2) > zExtent && ddU2 * wdU2 >= 0.0) {
+                return false;
+            }
 
-        Vector3f wCrossD = ray.getDirection().cross(diff, vars.vect2);
+            Vector3f wCrossD = direction.cross(diff, arena.vector3f());
 
-        fAWxDdU[0] = FastMath.abs(wCrossD.dot(Vector3f.UNIT_X));
-        rhs = yExtent * fAWdU[2] + zExtent * fAWdU[1];
-        if (fAWxDdU[0] > rhs) {
-            vars.release();
-            return false;
-        }
+            rhs = yExtent * awdU2 + zExtent * awdU1;
+            if (FastMath.abs(wCrossD.x) > rhs) {
+                return false;
+            }
 
-        fAWxDdU[1] = FastMath.abs(wCrossD.dot(Vector3f.UNIT_Y));
-        rhs = xExtent * fAWdU[2] + zExtent * fAWdU[0];
-        if (fAWxDdU[1] > rhs) {
-            vars.release();
-            return false;
-        }
+            rhs = xExtent * awdU2 + zExtent * awdU0;
+            if (FastMath.abs(wCrossD.y) > rhs) {
+                return false;
+            }
 
-        fAWxDdU[2] = FastMath.abs(wCrossD.dot(Vector3f.UNIT_Z));
-        rhs = xExtent * fAWdU[1] + yExtent * fAWdU[0];
-        if (fAWxDdU[2] > rhs) {
-            vars.release();
-            return false;
+            rhs = xExtent * awdU1 + yExtent * awdU0;
+            return FastMath.abs(wCrossD.z) <= rhs;
         }
-
-        vars.release();
-        return true;
     }
 
     /**
      * @see com.jme3.bounding.BoundingVolume#intersects(com.jme3.math.Ray)
      */
     private int collideWithRay(Ray ray, CollisionResults results) {
-        TempVars vars = TempVars.get();
-        try {
-            Vector3f diff = vars.vect1.set(ray.origin).subtractLocal(center);
-            Vector3f direction = vars.vect2.set(ray.direction);
+        try (MathArena arena = MathArena.open()) {
+            Vector3f diff = arena.vector3f(ray.origin).subtractLocal(center);
+            Vector3f direction = ray.direction;
 
-            //float[] t = {0f, Float.POSITIVE_INFINITY};
-            float[] t = vars.fWdU; // use one of the tempvars arrays
-            t[0] = 0;
-            t[1] = Float.POSITIVE_INFINITY;
+            // the entry and exit distances, x and y
+            Vector2f t = arena.vector2f(0f, Float.POSITIVE_INFINITY);
 
-            float saveT0 = t[0], saveT1 = t[1];
+            float saveT0 = t.x, saveT1 = t.y;
             boolean notEntirelyClipped = clip(+direction.x, -diff.x - xExtent, t)
                     && clip(-direction.x, +diff.x - xExtent, t)
                     && clip(+direction.y, -diff.y - yExtent, t)
@@ -825,42 +780,36 @@ public class BoundingBox extends BoundingVolume {
                     && clip(+direction.z, -diff.z - zExtent, t)
                     && clip(-direction.z, +diff.z - zExtent, t);
 
-            if (notEntirelyClipped && (t[0] != saveT0 || t[1] != saveT1)) {
-                if (t[1] > t[0]) {
-                    float[] distances = t;
-                    Vector3f point0 = new Vector3f(ray.direction).multLocal(distances[0]).addLocal(ray.origin);
-                    Vector3f point1 = new Vector3f(ray.direction).multLocal(distances[1]).addLocal(ray.origin);
+            if (notEntirelyClipped && (t.x != saveT0 || t.y != saveT1)) {
+                if (t.y > t.x) {
+                    Vector3f point0 = new Vector3f(ray.direction).multLocal(t.x).addLocal(ray.origin);
+                    Vector3f point1 = new Vector3f(ray.direction).multLocal(t.y).addLocal(ray.origin);
 
-                    CollisionResult result = new CollisionResult(point0, distances[0]);
+                    CollisionResult result = new CollisionResult(point0, t.x);
                     results.addCollision(result);
-                    result = new CollisionResult(point1, distances[1]);
+                    result = new CollisionResult(point1, t.y);
                     results.addCollision(result);
                     return 2;
                 }
 
-                Vector3f point = new Vector3f(ray.direction).multLocal(t[0]).addLocal(ray.origin);
-                CollisionResult result = new CollisionResult(point, t[0]);
+                Vector3f point = new Vector3f(ray.direction).multLocal(t.x).addLocal(ray.origin);
+                CollisionResult result = new CollisionResult(point, t.x);
                 results.addCollision(result);
                 return 1;
             }
             return 0;
-        } finally {
-            vars.release();
         }
     }
 
     private int collideWithRay(Ray ray) {
-        TempVars vars = TempVars.get();
-        try {
-            Vector3f diff = vars.vect1.set(ray.origin).subtractLocal(center);
-            Vector3f direction = vars.vect2.set(ray.direction);
+        try (MathArena arena = MathArena.open()) {
+            Vector3f diff = arena.vector3f(ray.origin).subtractLocal(center);
+            Vector3f direction = ray.direction;
 
-            //float[] t = {0f, Float.POSITIVE_INFINITY};
-            float[] t = vars.fWdU; // use one of the tempvars arrays
-            t[0] = 0;
-            t[1] = Float.POSITIVE_INFINITY;
+            // the entry and exit distances, x and y
+            Vector2f t = arena.vector2f(0f, Float.POSITIVE_INFINITY);
 
-            float saveT0 = t[0], saveT1 = t[1];
+            float saveT0 = t.x, saveT1 = t.y;
             boolean notEntirelyClipped = clip(+direction.x, -diff.x - xExtent, t)
                     && clip(-direction.x, +diff.x - xExtent, t)
                     && clip(+direction.y, -diff.y - yExtent, t)
@@ -868,16 +817,14 @@ public class BoundingBox extends BoundingVolume {
                     && clip(+direction.z, -diff.z - zExtent, t)
                     && clip(-direction.z, +diff.z - zExtent, t);
 
-            if (notEntirelyClipped && (t[0] != saveT0 || t[1] != saveT1)) {
-                if (t[1] > t[0]) {
+            if (notEntirelyClipped && (t.x != saveT0 || t.y != saveT1)) {
+                if (t.y > t.x) {
                     return 2;
                 } else {
                     return 1;
                 }
             }
             return 0;
-        } finally {
-            vars.release();
         }
     }
 
@@ -957,46 +904,38 @@ public class BoundingBox extends BoundingVolume {
     @Override
     public float distanceToEdge(Vector3f point) {
         // compute coordinates of point in box coordinate system
-        TempVars vars = TempVars.get();
-        Vector3f closest = vars.vect1;
-
-        point.subtract(center, closest);
+        float dx = point.x - center.x;
+        float dy = point.y - center.y;
+        float dz = point.z - center.z;
 
         // project test point onto box
         float sqrDistance = 0.0f;
         float delta;
 
-        if (closest.x < -xExtent) {
-            delta = closest.x + xExtent;
+        if (dx < -xExtent) {
+            delta = dx + xExtent;
             sqrDistance += delta * delta;
-            closest.x = -xExtent;
-        } else if (closest.x > xExtent) {
-            delta = closest.x - xExtent;
+        } else if (dx > xExtent) {
+            delta = dx - xExtent;
             sqrDistance += delta * delta;
-            closest.x = xExtent;
         }
 
-        if (closest.y < -yExtent) {
-            delta = closest.y + yExtent;
+        if (dy < -yExtent) {
+            delta = dy + yExtent;
             sqrDistance += delta * delta;
-            closest.y = -yExtent;
-        } else if (closest.y > yExtent) {
-            delta = closest.y - yExtent;
+        } else if (dy > yExtent) {
+            delta = dy - yExtent;
             sqrDistance += delta * delta;
-            closest.y = yExtent;
         }
 
-        if (closest.z < -zExtent) {
-            delta = closest.z + zExtent;
+        if (dz < -zExtent) {
+            delta = dz + zExtent;
             sqrDistance += delta * delta;
-            closest.z = -zExtent;
-        } else if (closest.z > zExtent) {
-            delta = closest.z - zExtent;
+        } else if (dz > zExtent) {
+            delta = dz - zExtent;
             sqrDistance += delta * delta;
-            closest.z = zExtent;
         }
 
-        vars.release();
         return FastMath.sqrt(sqrDistance);
     }
 
@@ -1012,7 +951,7 @@ public class BoundingBox extends BoundingVolume {
      *            test values of the plane.
      * @return true if the line segment intersects the plane, false otherwise.
      */
-    private boolean clip(float denom, float numerator, float[] t) {
+    private boolean clip(float denom, float numerator, Vector2f t) {
         // Return value is 'true' if line segment intersects the current test
         // plane. Otherwise, 'false' is returned, in which case the line segment
         // is entirely clipped.
@@ -1046,11 +985,11 @@ public class BoundingBox extends BoundingVolume {
             // Many Bothans died bring you this fix.
             //    -pspeed
             float newT = numerator / denom;
-            if (newT > t[1]) {
+            if (newT > t.y) {
                 return false;
             }
-            if (newT > t[0]) {
-                t[0] = newT;
+            if (newT > t.x) {
+                t.x = newT;
             }
             return true;
         } else if (denom < 0.0f) {
@@ -1061,11 +1000,11 @@ public class BoundingBox extends BoundingVolume {
             // When we move it over to the other side we have to flip
             // the comparison.  Algebra for the win.
             float newT = numerator / denom;
-            if (newT < t[0]) {
+            if (newT < t.x) {
                 return false;
             }
-            if (newT < t[1]) {
-                t[1] = newT;
+            if (newT < t.y) {
+                t.y = newT;
             }
             return true;
         } else {
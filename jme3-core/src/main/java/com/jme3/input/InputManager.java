@@ -210,6 +210,11 @@ public class InputManager implements RawInputListener {
     }
 
     private void invokeUpdateActions() {
+        // IntMap iterators are allocated, so skip the loops when idle.
+        if (pressedButtons.size() == 0 && axisValues.size() == 0) {
+            return;
+        }
+
         for (Entry<Long> pressedButton : pressedButtons) {
             int hash = pressedButton.getKey();
 
@@ -81,9 +81,14 @@ public class DirectionalLight extends Light {
 
     @Override
     public void computeLastDistance(Spatial owner) {
+        lastDistance = computeDistance(owner);
+    }
+
+    @Override
+    protected float computeDistance(Spatial owner) {
         // directional lights are after ambient lights
         // but before all other lights.
-        lastDistance = -1; 
+        return -1;
     }
 
     /**
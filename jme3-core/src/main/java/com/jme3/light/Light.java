@@ -281,6 +281,21 @@ public abstract class Light implements Savable, Cloneable {
      * @param owner the Spatial whose distance is to be determined
      */
     protected abstract void computeLastDistance(Spatial owner);
+
+    /**
+     * Used internally to compute the sort distance to the given spatial
+     * without storing it on the light, so lists sharing the light can be
+     * sorted concurrently. The default implementation goes through
+     * {@link #computeLastDistance(com.jme3.scene.Spatial)}; light types
+     * sorted in parallel world updates should override it.
+     *
+     * @param owner the Spatial whose distance is to be determined
+     * @return the distance used to sort the light lists of the spatial
+     */
+    protected float computeDistance(Spatial owner) {
+        computeLastDistance(owner);
+        return lastDistance;
+    }
     
     /**
      * Returns the light type
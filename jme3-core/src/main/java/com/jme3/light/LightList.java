@@ -35,7 +35,6 @@ import com.jme3.export.*;
 import com.jme3.scene.Spatial;
 import com.jme3.util.clone.Cloner;
 import com.jme3.util.clone.JmeCloneable;
-import com.jme3.util.SortUtil;
 import java.io.IOException;
 import java.util.*;
 
@@ -47,28 +46,17 @@ import java.util.*;
  */
 public final class LightList implements Iterable<Light>, Savable, Cloneable, JmeCloneable {
 
-    private Light[] list, tlist;
+    private Light[] list;
+    /**
+     * The sort distance of each light to the owner, kept per list because
+     * the lights are shared between the lists of many spatials.
+     */
     private float[] distToOwner;
     private int listSize;
     private Spatial owner;
 
     private static final int DEFAULT_SIZE = 1;
 
-    private static final Comparator<Light> c = new Comparator<Light>() {
-        /**
-         * This assumes lastDistance have been computed in a previous step.
-         */
-        @Override
-        public int compare(Light l1, Light l2) {
-            if (l1.lastDistance < l2.lastDistance)
-                return -1;
-            else if (l1.lastDistance > l2.lastDistance)
-                return 1;
-            else
-                return 0;
-        }
-    };
-
     /**
      * constructor for serialization. Do not use
      */
@@ -137,6 +125,7 @@ public final class LightList implements Iterable<Light>, Savable, Cloneable, Jme
 
         for (int i = index; i < listSize; i++) {
             list[i] = list[i+1];
+            distToOwner[i] = distToOwner[i+1];
         }
         list[listSize] = null;
     }
@@ -184,14 +173,11 @@ public final class LightList implements Iterable<Light>, Savable, Cloneable, Jme
         for (int i = 0; i < listSize; i++)
             list[i] = null;
 
-        if (tlist != null)
-            Arrays.fill(tlist, null);
-
         listSize = 0;
     }
 
     /**
-     * Sorts the elements in the list according to their Comparator.
+     * Sorts the elements in the list according to their distance to the owner.
      * There are two reasons why lights should be resorted.
      * First, if the lights have moved, that means their distance to
      * the spatial changed.
@@ -203,22 +189,27 @@ public final class LightList implements Iterable<Light>, Savable, Cloneable, Jme
      */
     public void sort(boolean transformChanged) {
         if (listSize > 1) {
-            // resize or populate our temporary array as necessary
-            if (tlist == null || tlist.length != list.length) {
-                tlist = list.clone();
-            } else {
-                System.arraycopy(list, 0, tlist, 0, list.length);
+            // The distances are kept in this list rather than on the shared
+            // lights, so lists can be sorted in parallel world updates.
+            for (int i = 0; i < listSize; i++) {
+                if (transformChanged || distToOwner[i] == Float.NEGATIVE_INFINITY) {
+                    distToOwner[i] = list[i].computeDistance(owner);
+                }
             }
 
-            if (transformChanged) {
-                // check distance of each light
-                for (int i = 0; i < listSize; i++) {
-                    list[i].computeLastDistance(owner);
+            // stable insertion sort, the order rarely changes between frames
+            for (int i = 1; i < listSize; i++) {
+                Light light = list[i];
+                float dist = distToOwner[i];
+                int j = i - 1;
+                while (j >= 0 && distToOwner[j] > dist) {
+                    list[j + 1] = list[j];
+                    distToOwner[j + 1] = distToOwner[j];
+                    j--;
                 }
+                list[j + 1] = light;
+                distToOwner[j + 1] = dist;
             }
-
-            // now merge sort tlist into list
-            SortUtil.msort(tlist, list, 0, listSize - 1, c);
         }
     }
 
@@ -303,7 +294,6 @@ public final class LightList implements Iterable<Light>, Savable, Cloneable, Jme
             clone.owner = null;
             clone.list = list.clone();
             clone.distToOwner = distToOwner.clone();
-            clone.tlist = null; // list used for sorting only
 
             return clone;
         } catch (CloneNotSupportedException ex) {
@@ -314,9 +304,7 @@ public final class LightList implements Iterable<Light>, Savable, Cloneable, Jme
     @Override
     public LightList jmeClone() {
         try {
-            LightList clone = (LightList)super.clone();
-            clone.tlist = null; // list used for sorting only
-            return clone;
+            return (LightList)super.clone();
         } catch (CloneNotSupportedException ex) {
             throw new AssertionError();
         }
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.material;
+
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.Matrix3f;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector2f;
+import com.jme3.math.Vector3f;
+import com.jme3.math.Vector4f;
+import com.jme3.shader.VarType;
+import com.jme3.shader.bufferobject.BufferObject;
+import com.jme3.shader.bufferobject.layout.Std140Layout;
+import com.jme3.util.SafeArrayList;
+import com.jme3.util.struct.StructField;
+import com.jme3.util.struct.StructUtils;
+import com.jme3.util.struct.fields.BooleanField;
+import com.jme3.util.struct.fields.FloatField;
+import com.jme3.util.struct.fields.IntField;
+import com.jme3.util.struct.fields.Matrix3fField;
+import com.jme3.util.struct.fields.Matrix4fField;
+import com.jme3.util.struct.fields.Vector2fField;
+import com.jme3.util.struct.fields.Vector3fField;
+import com.jme3.util.struct.fields.Vector4fField;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The per-material std140 uniform buffer holding the parameters of a
+ * {@link MaterialDef#setParamBlock(java.lang.String, java.util.List) parameter block}.
+ * <p>
+ * Parameter values are compared with the buffer contents on every
+ * {@link #update(Material, SafeArrayList, SafeArrayList) update}, so only
+ * the regions of changed parameters are rewritten and uploaded. Unset
+ * parameters are written as zero.
+ */
+final class MatParamBlock {
+
+    private static final Std140Layout LAYOUT = new Std140Layout();
+    private static final Matrix3f ZERO_MATRIX3 = new Matrix3f().zero();
+    private static final Matrix4f ZERO_MATRIX4 = new Matrix4f().zero();
+
+    private final String prefixedName;
+    private final String[] paramNames;
+    private final VarType[] types;
+    private final List<StructField<?>> fields;
+    private final BufferObject bufferObject = new BufferObject();
+
+    MatParamBlock(MaterialDef def) {
+        List<String> names = def.getParamBlockParams();
+        prefixedName = "m_" + def.getParamBlockName();
+        paramNames = names.toArray(new String[names.size()]);
+        types = new VarType[paramNames.length];
+        fields = new ArrayList<>(paramNames.length);
+        for (int i = 0; i < paramNames.length; i++) {
+            types[i] = def.getMaterialParam(paramNames[i]).getVarType();
+            fields.add(createField(i, paramNames[i], types[i]));
+        }
+        bufferObject.setName(prefixedName);
+        StructUtils.setStd140BufferLayout(fields, LAYOUT, bufferObject);
+        StructUtils.updateBufferData(fields, true, LAYOUT, bufferObject);
+    }
+
+    /**
+     * @param type the type of a material parameter
+     * @return true if parameters of this type can be packed into a block
+     */
+    static boolean isSupported(VarType type) {
+        switch (type) {
+            case Float:
+            case Int:
+            case Boolean:
+            case Vector2:
+            case Vector3:
+            case Vector4:
+            case Matrix3:
+            case Matrix4:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static StructField<?> createField(int position, String name, VarType type) {
+        switch (type) {
+            case Float:
+                return new FloatField(position, name, 0f);
+            case Int:
+                return new IntField(position, name, 0);
+            case Boolean:
+                return new BooleanField(position, name, false);
+            case Vector2:
+                return new Vector2fField(position, name, new Vector2f());
+            case Vector3:
+                return new Vector3fField(position, name, new Vector3f());
+            case Vector4:
+                return new Vector4fField(position, name, new Vector4f());
+            case Matrix3:
+                return new Matrix3fField(position, name, new Matrix3f().zero());
+            case Matrix4:
+                return new Matrix4fField(position, name, new Matrix4f().zero());
+            default:
+                throw new IllegalArgumentException("Unsupported parameter block type: " + type);
+        }
+    }
+
+    /**
+     * @return the name of the uniform block in the shader
+     */
+    String getPrefixedName() {
+        return prefixedName;
+    }
+
+    /**
+     * @return the uniform buffer backing the block
+     */
+    BufferObject getBufferObject() {
+        return bufferObject;
+    }
+
+    /**
+     * @param name the name of a material parameter
+     * @return true if the parameter is packed into this block
+     */
+    boolean contains(String name) {
+        for (String paramName : paramNames) {
+            if (paramName.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the current parameter values of the material into the buffer,
+     * marking only the regions whose value changed as dirty.
+     * <p>
+     * Enabled overrides matching a block parameter by name and type take the
+     * place of the material value, forced overrides winning over world
+     * overrides, the same precedence the individual uniforms get.
+     *
+     * @param material the material owning this block
+     * @param worldOverrides the geometry's world overrides (may be null)
+     * @param forcedOverrides the render manager's forced overrides (may be null)
+     */
+    void update(Material material, SafeArrayList<MatParamOverride> worldOverrides,
+                SafeArrayList<MatParamOverride> forcedOverrides) {
+        for (int i = 0; i < paramNames.length; i++) {
+            MatParamOverride override = findOverride(forcedOverrides, paramNames[i], types[i]);
+            if (override == null) {
+                override = findOverride(worldOverrides, paramNames[i], types[i]);
+            }
+            Object value;
+            if (override != null) {
+                value = override.getValue();
+            } else {
+                MatParam param = material.getParam(paramNames[i]);
+                value = param != null ? param.getValue() : null;
+            }
+            copyValue(fields.get(i), types[i], value);
+        }
+        StructUtils.updateBufferData(fields, false, LAYOUT, bufferObject);
+    }
+
+    /**
+     * @return the last enabled override of the given parameter, or null
+     */
+    private static MatParamOverride findOverride(SafeArrayList<MatParamOverride> overrides,
+                                                 String name, VarType type) {
+        if (overrides == null) {
+            return null;
+        }
+        MatParamOverride[] array = overrides.getArray();
+        for (int i = array.length - 1; i >= 0; i--) {
+            MatParamOverride override = array[i];
+            if (override.isEnabled() && override.getVarType() == type && override.getName().equals(name)) {
+                return override;
+            }
+        }
+        return null;
+    }
+
+    private static void copyValue(StructField<?> field, VarType type, Object value) {
+        switch (type) {
+            case Float: {
+                // compare unboxed, only a changed value is boxed into the field
+                float f = value != null ? ((Float) value).floatValue() : 0f;
+                FloatField floatField = (FloatField) field;
+                if (Float.floatToIntBits(floatField.getValue().floatValue()) != Float.floatToIntBits(f)) {
+                    floatField.setValue(f);
+                }
+                break;
+            }
+            case Int: {
+                int n = value != null ? ((Integer) value).intValue() : 0;
+                IntField intField = (IntField) field;
+                if (intField.getValue().intValue() != n) {
+                    intField.setValue(n);
+                }
+                break;
+            }
+            case Boolean: {
+                boolean b = value != null && ((Boolean) value).booleanValue();
+                BooleanField booleanField = (BooleanField) field;
+                if (booleanField.getValue().booleanValue() != b) {
+                    booleanField.setValue(b);
+                }
+                break;
+            }
+            case Vector2: {
+                Vector2f v = value != null ? (Vector2f) value : Vector2f.ZERO;
+                if (!v.equals(field.getValue())) {
+                    ((Vector2fField) field).getValueForUpdate().set(v);
+                }
+                break;
+            }
+            case Vector3: {
+                Vector3f v = value != null ? (Vector3f) value : Vector3f.ZERO;
+                if (!v.equals(field.getValue())) {
+                    ((Vector3fField) field).getValueForUpdate().set(v);
+                }
+                break;
+            }
+            case Vector4:
+                copyVector4((Vector4fField) field, value);
+                break;
+            case Matrix3: {
+                Matrix3f m = value != null ? (Matrix3f) value : ZERO_MATRIX3;
+                if (!m.equals(field.getValue())) {
+                    ((Matrix3fField) field).getValueForUpdate().set(m);
+                }
+                break;
+            }
+            case Matrix4: {
+                Matrix4f m = value != null ? (Matrix4f) value : ZERO_MATRIX4;
+                if (!m.equals(field.getValue())) {
+                    ((Matrix4fField) field).getValueForUpdate().set(m);
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported parameter block type: " + type);
+        }
+    }
+
+    private static void copyVector4(Vector4fField field, Object value) {
+        float x = 0, y = 0, z = 0, w = 0;
+        if (value instanceof ColorRGBA) {
+            ColorRGBA c = (ColorRGBA) value;
+            x = c.r; y = c.g; z = c.b; w = c.a;
+        } else if (value instanceof Vector4f) {
+            Vector4f v = (Vector4f) value;
+            x = v.x; y = v.y; z = v.z; w = v.w;
+        } else if (value instanceof Quaternion) {
+            Quaternion q = (Quaternion) value;
+            x = q.getX(); y = q.getY(); z = q.getZ(); w = q.getW();
+        } else if (value != null) {
+            throw new IllegalArgumentException("Unsupported Vector4 value: " + value.getClass());
+        }
+        Vector4f v = field.getValue();
+        if (v.x != x || v.y != y || v.z != z || v.w != w) {
+            field.getValueForUpdate().set(x, y, z, w);
+        }
+    }
+}
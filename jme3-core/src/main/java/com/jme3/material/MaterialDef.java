@@ -55,6 +55,8 @@ public class MaterialDef{
 
     private Map<String, List<TechniqueDef>> techniques;
     private Map<String, MatParam> matParams;
+    private String paramBlockName;
+    private List<String> paramBlockParams = Collections.emptyList();
 
     /**
      * Serialization only. Do not use.
@@ -194,4 +196,64 @@ public class MaterialDef{
         return techniques.keySet();
     }
 
+    /**
+     * Packs the given material parameters into a uniform block.
+     * <p>
+     * When the renderer supports uniform buffer objects, materials using
+     * this definition upload the parameters into a std140 uniform buffer
+     * named <code>m_&lt;blockName&gt;</code> instead of setting one uniform
+     * per parameter. The buffer is only re-uploaded when one of the values
+     * changes. The shader must declare the block members in the same order
+     * as <code>paramNames</code>, e.g.
+     * <pre>
+     * layout(std140) uniform m_Params {
+     *     vec4 m_Color;
+     *     float m_Shininess;
+     * };
+     * </pre>
+     * Only scalar, vector and matrix parameters can be part of a block.
+     *
+     * @param blockName the name of the block, without the "m_" prefix
+     * @param paramNames the names of the parameters to pack, in layout order
+     * @throws IllegalArgumentException if a parameter is not declared or
+     * has a type that cannot be packed
+     */
+    public void setParamBlock(String blockName, List<String> paramNames) {
+        if (blockName == null || paramNames.isEmpty()) {
+            throw new IllegalArgumentException("A parameter block needs a name and at least one parameter");
+        }
+        for (String paramName : paramNames) {
+            MatParam param = matParams.get(paramName);
+            if (param == null) {
+                throw new IllegalArgumentException("Material parameter is not defined: " + paramName);
+            }
+            if (!MatParamBlock.isSupported(param.getVarType())) {
+                throw new IllegalArgumentException("Material parameter " + paramName + " of type "
+                        + param.getVarType() + " cannot be part of a parameter block");
+            }
+        }
+        this.paramBlockName = blockName;
+        this.paramBlockParams = Collections.unmodifiableList(new ArrayList<>(paramNames));
+    }
+
+    /**
+     * Returns the name of the parameter block, without the "m_" prefix.
+     *
+     * @return the block name, or null if this definition has no block
+     * @see #setParamBlock(java.lang.String, java.util.List)
+     */
+    public String getParamBlockName() {
+        return paramBlockName;
+    }
+
+    /**
+     * Returns the names of the parameters packed into the parameter block,
+     * in layout order.
+     *
+     * @return an unmodifiable list, empty if this definition has no block
+     */
+    public List<String> getParamBlockParams() {
+        return paramBlockParams;
+    }
+
 }
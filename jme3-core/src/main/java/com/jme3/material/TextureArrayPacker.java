@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.material;
+
+import com.jme3.shader.VarType;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture.WrapAxis;
+import com.jme3.texture.Texture2D;
+import com.jme3.texture.TextureArray;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs the 2D textures of materials into {@link TextureArray} pages at
+ * runtime, so that geometries using different textures of the same format
+ * and size bind the same texture and only differ by a layer index.
+ * <p>
+ * A material is packed by {@link #apply(com.jme3.material.Material) } when
+ * its definition declares, next to a <code>Texture2D X</code> parameter, a
+ * <code>TextureArray XArray</code> and an <code>Int XLayer</code>
+ * parameter, like <code>ColorMap</code> of <code>Unshaded.j3md</code>.
+ * The texture parameter is cleared, so every technique that samples it,
+ * including the shadow and normal passes, must sample the array instead.
+ * Materials sharing a page get the same sort id, so the opaque bucket draws
+ * them one after another without rebinding the texture.
+ * <p>
+ * Textures are only packed together when their format, size, color space,
+ * mipmaps, filtering and wrapping match; the page uses the sampler state of
+ * its textures. The renderer must support {@link com.jme3.renderer.Caps#TextureArray}.
+ */
+public class TextureArrayPacker {
+
+    /**
+     * Layer count of the pages by default, the minimum
+     * GL_MAX_ARRAY_TEXTURE_LAYERS of OpenGL 3.
+     */
+    public static final int DEFAULT_MAX_LAYERS = 256;
+
+    private final int maxLayers;
+    private final Map<List<Object>, TextureArray> openPages = new HashMap<>();
+    /**
+     * Layers of the packed images, by page key: the same image is packed
+     * again for textures with a different sampler state.
+     */
+    private final Map<Image, Map<List<Object>, Layer>> layers = new IdentityHashMap<>();
+    private final List<TextureArray> pages = new ArrayList<>();
+
+    /**
+     * Creates a packer with pages of {@link #DEFAULT_MAX_LAYERS} layers.
+     */
+    public TextureArrayPacker() {
+        this(DEFAULT_MAX_LAYERS);
+    }
+
+    /**
+     * Creates a packer.
+     *
+     * @param maxLayers the maximum number of layers of a page (&gt;0)
+     */
+    public TextureArrayPacker(int maxLayers) {
+        if (maxLayers <= 0) {
+            throw new IllegalArgumentException("maxLayers must be greater than 0.");
+        }
+        this.maxLayers = maxLayers;
+    }
+
+    /**
+     * Packs the textures of the material that its definition allows to
+     * sample from a texture array.
+     *
+     * @param material the material to pack (not null)
+     * @return true if at least one texture was replaced by a page
+     */
+    public boolean apply(Material material) {
+        MaterialDef def = material.getMaterialDef();
+        boolean packed = false;
+        for (MatParam param : new ArrayList<>(material.getParams())) {
+            if (param.getVarType() != VarType.Texture2D || !(param.getValue() instanceof Texture2D)) {
+                continue;
+            }
+            String name = param.getName();
+            MatParam arrayParam = def.getMaterialParam(name + "Array");
+            MatParam layerParam = def.getMaterialParam(name + "Layer");
+            if (arrayParam == null || arrayParam.getVarType() != VarType.TextureArray
+                    || layerParam == null || layerParam.getVarType() != VarType.Int) {
+                continue;
+            }
+            Layer layer = pack((Texture2D) param.getValue());
+            if (layer == null) {
+                continue;
+            }
+            material.clearParam(name);
+            material.setTexture(name + "Array", layer.getPage());
+            material.setInt(name + "Layer", layer.getIndex());
+            packed = true;
+        }
+        return packed;
+    }
+
+    /**
+     * Packs a texture into a page with the same format, or a new page if
+     * none has room. A texture whose image was already packed with the same
+     * sampler state returns the existing layer.
+     *
+     * @param texture the texture to pack (not null)
+     * @return the layer of the texture, or null if its image data is not
+     * available
+     */
+    public Layer pack(Texture2D texture) {
+        Image image = texture.getImage();
+        if (image == null || image.getData() == null || image.getData().size() != 1
+                || image.getData(0) == null) {
+            return null;
+        }
+        List<Object> key = Arrays.asList(image.getFormat(), image.getWidth(), image.getHeight(),
+                image.getColorSpace(), Arrays.toString(image.getMipMapSizes()),
+                texture.getMinFilter(), texture.getMagFilter(), texture.getAnisotropicFilter(),
+                texture.getWrap(WrapAxis.S), texture.getWrap(WrapAxis.T));
+        Map<List<Object>, Layer> imageLayers = layers.computeIfAbsent(image, i -> new HashMap<>(2));
+        Layer layer = imageLayers.get(key);
+        if (layer != null) {
+            return layer;
+        }
+
+        TextureArray page = openPages.get(key);
+        if (page == null) {
+            page = new TextureArray(Collections.singletonList(image));
+            page.setName("TextureArrayPage" + pages.size());
+            page.setMinFilter(texture.getMinFilter());
+            page.setMagFilter(texture.getMagFilter());
+            page.setAnisotropicFilter(texture.getAnisotropicFilter());
+            page.setWrap(WrapAxis.S, texture.getWrap(WrapAxis.S));
+            page.setWrap(WrapAxis.T, texture.getWrap(WrapAxis.T));
+            pages.add(page);
+            openPages.put(key, page);
+        } else {
+            page.getImage().addData(image.getData(0));
+        }
+
+        int index = page.getImage().getData().size() - 1;
+        if (index + 1 == maxLayers) {
+            openPages.remove(key);
+        }
+        layer = new Layer(page, index);
+        imageLayers.put(key, layer);
+        return layer;
+    }
+
+    /**
+     * @return the pages created so far (not null, read-only)
+     */
+    public List<TextureArray> getPages() {
+        return Collections.unmodifiableList(pages);
+    }
+
+    /**
+     * The location of a packed texture.
+     */
+    public static final class Layer {
+
+        private final TextureArray page;
+        private final int index;
+
+        private Layer(TextureArray page, int index) {
+            this.page = page;
+            this.index = index;
+        }
+
+        /**
+         * @return the texture array holding the texture
+         */
+        public TextureArray getPage() {
+            return page;
+        }
+
+        /**
+         * @return the layer of the texture in the page
+         */
+        public int getIndex() {
+            return index;
+        }
+    }
+}
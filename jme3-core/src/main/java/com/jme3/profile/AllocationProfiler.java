@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.profile;
+
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ *  An AppProfiler that measures how many bytes of heap the render
+ *  thread allocates during each AppStep and VpStep, using the JVM's
+ *  per-thread allocation counters.
+ *
+ *  <p>Bytes are attributed to the step that was current when they were
+ *  allocated, so the count for an AppStep does not include the
+ *  VpSteps that ran inside it. Only allocations between
+ *  AppStep.BeginFrame and AppStep.EndFrame are counted. SpSteps and
+ *  sub-steps are counted as part of the enclosing step.</p>
+ *
+ *  <p>Another profiler can be chained behind this one so that it keeps
+ *  receiving every callback; its own allocations are not counted.</p>
+ *
+ *  <p>The counters require a HotSpot-compatible JVM; see
+ *  {@link #isSupported()}. On other platforms nothing is measured.</p>
+ */
+public class AllocationProfiler implements AppProfiler {
+
+    private static final Logger logger = Logger.getLogger(AllocationProfiler.class.getName());
+
+    private static final AppStep[] APP_STEPS = AppStep.values();
+    private static final VpStep[] VP_STEPS = VpStep.values();
+
+    private final AppProfiler delegate;
+    private final com.sun.management.ThreadMXBean threads;
+    private final long overhead;
+
+    private final long[] appBytes = new long[APP_STEPS.length];
+    private final long[] vpBytes = new long[VP_STEPS.length];
+    private long[] current;
+    private int currentIndex;
+    private long mark;
+
+    private long frameCount;
+    private long totalBytes;
+    private long lastFrameBytes;
+    private long maxFrameBytes;
+
+    public AllocationProfiler() {
+        this(null);
+    }
+
+    /**
+     *  Creates a profiler that forwards every callback to the specified
+     *  profiler after taking its own measurements.
+     *
+     * @param delegate the profiler to chain, or null for none
+     */
+    public AllocationProfiler(AppProfiler delegate) {
+        this.delegate = delegate;
+        this.threads = lookupThreadBean();
+        this.overhead = threads == null ? 0 : measureOverhead(threads);
+    }
+
+    private static com.sun.management.ThreadMXBean lookupThreadBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+                if (sunBean.isThreadAllocatedMemorySupported()) {
+                    if (!sunBean.isThreadAllocatedMemoryEnabled()) {
+                        sunBean.setThreadAllocatedMemoryEnabled(true);
+                    }
+                    return sunBean;
+                }
+            }
+        } catch (LinkageError | RuntimeException ex) {
+            logger.log(Level.FINE, "Thread allocation counters are unavailable", ex);
+        }
+        logger.warning("Thread allocation counters are not supported by this JVM");
+        return null;
+    }
+
+    /**
+     *  Returns the number of bytes that reading the counter allocates by
+     *  itself, so that it can be subtracted from every measurement.
+     */
+    private static long measureOverhead(com.sun.management.ThreadMXBean threads) {
+        long id = Thread.currentThread().getId();
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 16; i++) {
+            long before = threads.getThreadAllocatedBytes(id);
+            long after = threads.getThreadAllocatedBytes(id);
+            min = Math.min(min, after - before);
+        }
+        return Math.max(0, min);
+    }
+
+    /**
+     *  Tests whether this JVM provides per-thread allocation counters.
+     *
+     * @return true if allocations can be measured
+     */
+    public boolean isSupported() {
+        return threads != null;
+    }
+
+    /**
+     *  Returns the chained profiler.
+     *
+     * @return the profiler passed to the constructor, or null
+     */
+    public AppProfiler getDelegate() {
+        return delegate;
+    }
+
+    /**
+     *  Discards everything measured so far. Can be called from the render
+     *  thread at any time, for example once a scene has warmed up.
+     */
+    public void reset() {
+        for (int i = 0; i < appBytes.length; i++) {
+            appBytes[i] = 0;
+        }
+        for (int i = 0; i < vpBytes.length; i++) {
+            vpBytes[i] = 0;
+        }
+        frameCount = 0;
+        totalBytes = 0;
+        lastFrameBytes = 0;
+        maxFrameBytes = 0;
+        if (current != null) {
+            mark = allocatedBytes();
+        }
+    }
+
+    /**
+     *  Returns the bytes allocated during the specified step, summed over
+     *  all frames since the last reset.
+     *
+     * @param step the step to query (not null)
+     * @return the number of bytes (&ge;0)
+     */
+    public long getBytes(AppStep step) {
+        return appBytes[step.ordinal()];
+    }
+
+    /**
+     *  Returns the bytes allocated during the specified step, summed over
+     *  all frames, viewports and buckets since the last reset.
+     *
+     * @param step the step to query (not null)
+     * @return the number of bytes (&ge;0)
+     */
+    public long getBytes(VpStep step) {
+        return vpBytes[step.ordinal()];
+    }
+
+    /**
+     *  Returns the number of frames completed since the last reset.
+     *
+     * @return the count (&ge;0)
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     *  Returns the bytes allocated by all frames completed since the last
+     *  reset.
+     *
+     * @return the number of bytes (&ge;0)
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     *  Returns the bytes allocated by the most recently completed frame.
+     *
+     * @return the number of bytes (&ge;0)
+     */
+    public long getLastFrameBytes() {
+        return lastFrameBytes;
+    }
+
+    /**
+     *  Returns the bytes allocated by the worst frame since the last reset.
+     *
+     * @return the number of bytes (&ge;0)
+     */
+    public long getMaxFrameBytes() {
+        return maxFrameBytes;
+    }
+
+    /**
+     *  Returns the average bytes allocated per frame since the last reset.
+     *
+     * @return the number of bytes (&ge;0)
+     */
+    public long getAverageFrameBytes() {
+        return frameCount == 0 ? 0 : totalBytes / frameCount;
+    }
+
+    private long allocatedBytes() {
+        if (threads == null) {
+            return 0;
+        }
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     *  Charges the bytes allocated since the last mark to the current
+     *  step and makes the specified step current.
+     */
+    private void switchTo(long[] counters, int index) {
+        if (current != null) {
+            long now = allocatedBytes();
+            current[currentIndex] += Math.max(0, now - mark - overhead);
+        }
+        current = counters;
+        currentIndex = index;
+    }
+
+    @Override
+    public void appStep(AppStep step) {
+        if (step == AppStep.BeginFrame) {
+            current = null;
+        } else if (current == null) {
+            // Frame not started while we were attached.
+            if (delegate != null) {
+                delegate.appStep(step);
+            }
+            return;
+        }
+
+        switchTo(appBytes, step.ordinal());
+
+        if (step == AppStep.EndFrame) {
+            long frameBytes = 0;
+            for (int i = 0; i < appBytes.length; i++) {
+                frameBytes += appBytes[i];
+            }
+            for (int i = 0; i < vpBytes.length; i++) {
+                frameBytes += vpBytes[i];
+            }
+            lastFrameBytes = frameBytes - totalBytes;
+            maxFrameBytes = Math.max(maxFrameBytes, lastFrameBytes);
+            totalBytes = frameBytes;
+            frameCount++;
+            current = null;
+        }
+
+        if (delegate != null) {
+            delegate.appStep(step);
+        }
+        if (current != null) {
+            mark = allocatedBytes();
+        }
+    }
+
+    @Override
+    public void appSubStep(String... additionalInfo) {
+        if (delegate != null) {
+            // Keep the delegate's allocations out of the current step.
+            long before = allocatedBytes();
+            delegate.appSubStep(additionalInfo);
+            mark += allocatedBytes() - before;
+        }
+    }
+
+    @Override
+    public void vpStep(VpStep step, ViewPort vp, Bucket bucket) {
+        if (current == null) {
+            if (delegate != null) {
+                delegate.vpStep(step, vp, bucket);
+            }
+            return;
+        }
+        switchTo(vpBytes, step.ordinal());
+        if (delegate != null) {
+            delegate.vpStep(step, vp, bucket);
+        }
+        mark = allocatedBytes();
+    }
+
+    @Override
+    public void spStep(SpStep step, String... additionalInfo) {
+        if (delegate != null) {
+            // Keep the delegate's allocations out of the current step.
+            long before = allocatedBytes();
+            delegate.spStep(step, additionalInfo);
+            mark += allocatedBytes() - before;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("AllocationProfiler[frames=").append(frameCount)
+                .append(", bytesPerFrame=").append(getAverageFrameBytes());
+        for (AppStep step : APP_STEPS) {
+            if (appBytes[step.ordinal()] > 0) {
+                sb.append(", ").append(step).append('=').append(appBytes[step.ordinal()]);
+            }
+        }
+        for (VpStep step : VP_STEPS) {
+            if (vpBytes[step.ordinal()] > 0) {
+                sb.append(", ").append(step).append('=').append(vpBytes[step.ordinal()]);
+            }
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -46,7 +46,7 @@ import com.jme3.math.Ray;
 import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
 import com.jme3.math.Vector4f;
-import com.jme3.util.TempVars;
+import com.jme3.util.MathArena;
 import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -438,19 +438,18 @@ public class Camera implements Savable, Cloneable {
             return;
         }
 
-        TempVars vars = TempVars.get();
-        try {
+        try (MathArena arena = MathArena.open()) {
             Matrix4f p = projectionMatrixOverride.set(projectionMatrix);
 
             Matrix4f ivm = viewMatrix;
 
-            Vector3f point = clipPlane.getNormal().mult(clipPlane.getConstant(), vars.vect1);
-            Vector3f pp = ivm.mult(point, vars.vect2);
-            Vector3f pn = ivm.multNormal(clipPlane.getNormal(), vars.vect3);
-            Vector4f clipPlaneV = vars.vect4f1.set(pn.x * sideFactor, pn.y * sideFactor, pn.z * sideFactor,
+            Vector3f point = clipPlane.getNormal().mult(clipPlane.getConstant(), arena.vector3f());
+            Vector3f pp = ivm.mult(point, arena.vector3f());
+            Vector3f pn = ivm.multNormal(clipPlane.getNormal(), arena.vector3f());
+            Vector4f clipPlaneV = arena.vector4f().set(pn.x * sideFactor, pn.y * sideFactor, pn.z * sideFactor,
                     -(pp.dot(pn)) * sideFactor);
 
-            Vector4f v = vars.vect4f2.set(0, 0, 0, 0);
+            Vector4f v = arena.vector4f();
 
             v.x = (Math.signum(clipPlaneV.x) + p.m02) / p.m00;
             v.y = (Math.signum(clipPlaneV.y) + p.m12) / p.m11;
@@ -466,8 +465,6 @@ public class Camera implements Savable, Cloneable {
             p.m22 = c.z - p.m32;
             p.m23 = c.w - p.m33;
             setProjectionMatrix(p);
-        } finally {
-            vars.release();
         }
     }
 
@@ -927,32 +924,28 @@ public class Camera implements Savable, Cloneable {
      *                      (typically {0, 1, 0} in jME.)
      */
     public void lookAt(Vector3f pos, Vector3f worldUpVector) {
-        TempVars vars = TempVars.get();
-        Vector3f newDirection = vars.vect1;
-        Vector3f newUp = vars.vect2;
-        Vector3f newLeft = vars.vect3;
-
-        newDirection.set(pos).subtractLocal(location).normalizeLocal();
+        try (MathArena arena = MathArena.open()) {
+            Vector3f newDirection = arena.vector3f(pos).subtractLocal(location).normalizeLocal();
 
-        newUp.set(worldUpVector).normalizeLocal();
-        if (newUp.equals(Vector3f.ZERO)) {
-            newUp.set(Vector3f.UNIT_Y);
-        }
+            Vector3f newUp = arena.vector3f(worldUpVector).normalizeLocal();
+            if (newUp.equals(Vector3f.ZERO)) {
+                newUp.set(Vector3f.UNIT_Y);
+            }
 
-        newLeft.set(newUp).crossLocal(newDirection).normalizeLocal();
-        if (newLeft.equals(Vector3f.ZERO)) {
-            if (newDirection.x != 0) {
-                newLeft.set(newDirection.y, -newDirection.x, 0f);
-            } else {
-                newLeft.set(0f, newDirection.z, -newDirection.y);
+            Vector3f newLeft = arena.vector3f(newUp).crossLocal(newDirection).normalizeLocal();
+            if (newLeft.equals(Vector3f.ZERO)) {
+                if (newDirection.x != 0) {
+                    newLeft.set(newDirection.y, -newDirection.x, 0f);
+                } else {
+                    newLeft.set(0f, newDirection.z, -newDirection.y);
+                }
             }
-        }
 
-        newUp.set(newDirection).crossLocal(newLeft).normalizeLocal();
+            newUp.set(newDirection).crossLocal(newLeft).normalizeLocal();
 
-        this.rotation.fromAxes(newLeft, newUp, newDirection);
-        this.rotation.normalizeLocal();
-        vars.release();
+            this.rotation.fromAxes(newLeft, newUp, newDirection);
+            this.rotation.normalizeLocal();
+        }
 
         onFrameChange();
     }
@@ -1370,69 +1363,67 @@ public class Camera implements Savable, Cloneable {
      * Updates the view frame of the camera.
      */
     public void onFrameChange() {
-        TempVars vars = TempVars.get();
-
-        Vector3f left = getLeft(vars.vect1);
-        Vector3f direction = getDirection(vars.vect2);
-        Vector3f up = getUp(vars.vect3);
-
-        float dirDotLocation = direction.dot(location);
-
-        // left plane
-        Vector3f leftPlaneNormal = worldPlane[LEFT_PLANE].getNormal();
-        leftPlaneNormal.x = left.x * coeffLeft[0];
-        leftPlaneNormal.y = left.y * coeffLeft[0];
-        leftPlaneNormal.z = left.z * coeffLeft[0];
-        leftPlaneNormal.addLocal(direction.x * coeffLeft[1], direction.y
-                * coeffLeft[1], direction.z * coeffLeft[1]);
-        worldPlane[LEFT_PLANE].setConstant(location.dot(leftPlaneNormal));
-
-        // right plane
-        Vector3f rightPlaneNormal = worldPlane[RIGHT_PLANE].getNormal();
-        rightPlaneNormal.x = left.x * coeffRight[0];
-        rightPlaneNormal.y = left.y * coeffRight[0];
-        rightPlaneNormal.z = left.z * coeffRight[0];
-        rightPlaneNormal.addLocal(direction.x * coeffRight[1], direction.y
-                * coeffRight[1], direction.z * coeffRight[1]);
-        worldPlane[RIGHT_PLANE].setConstant(location.dot(rightPlaneNormal));
-
-        // bottom plane
-        Vector3f bottomPlaneNormal = worldPlane[BOTTOM_PLANE].getNormal();
-        bottomPlaneNormal.x = up.x * coeffBottom[0];
-        bottomPlaneNormal.y = up.y * coeffBottom[0];
-        bottomPlaneNormal.z = up.z * coeffBottom[0];
-        bottomPlaneNormal.addLocal(direction.x * coeffBottom[1], direction.y
-                * coeffBottom[1], direction.z * coeffBottom[1]);
-        worldPlane[BOTTOM_PLANE].setConstant(location.dot(bottomPlaneNormal));
-
-        // top plane
-        Vector3f topPlaneNormal = worldPlane[TOP_PLANE].getNormal();
-        topPlaneNormal.x = up.x * coeffTop[0];
-        topPlaneNormal.y = up.y * coeffTop[0];
-        topPlaneNormal.z = up.z * coeffTop[0];
-        topPlaneNormal.addLocal(direction.x * coeffTop[1], direction.y
-                * coeffTop[1], direction.z * coeffTop[1]);
-        worldPlane[TOP_PLANE].setConstant(location.dot(topPlaneNormal));
-
-        if (isParallelProjection()) {
-            worldPlane[LEFT_PLANE].setConstant(worldPlane[LEFT_PLANE].getConstant() + frustumLeft);
-            worldPlane[RIGHT_PLANE].setConstant(worldPlane[RIGHT_PLANE].getConstant() - frustumRight);
-            worldPlane[TOP_PLANE].setConstant(worldPlane[TOP_PLANE].getConstant() - frustumTop);
-            worldPlane[BOTTOM_PLANE].setConstant(worldPlane[BOTTOM_PLANE].getConstant() + frustumBottom);
-        }
-
-        // far plane
-        worldPlane[FAR_PLANE].setNormal(left);
-        worldPlane[FAR_PLANE].setNormal(-direction.x, -direction.y, -direction.z);
-        worldPlane[FAR_PLANE].setConstant(-(dirDotLocation + frustumFar));
+        try (MathArena arena = MathArena.open()) {
+            Vector3f left = getLeft(arena.vector3f());
+            Vector3f direction = getDirection(arena.vector3f());
+            Vector3f up = getUp(arena.vector3f());
+
+            float dirDotLocation = direction.dot(location);
+
+            // left plane
+            Vector3f leftPlaneNormal = worldPlane[LEFT_PLANE].getNormal();
+            leftPlaneNormal.x = left.x * coeffLeft[0];
+            leftPlaneNormal.y = left.y * coeffLeft[0];
+            leftPlaneNormal.z = left.z * coeffLeft[0];
+            leftPlaneNormal.addLocal(direction.x * coeffLeft[1], direction.y
+                    * coeffLeft[1], direction.z * coeffLeft[1]);
+            worldPlane[LEFT_PLANE].setConstant(location.dot(leftPlaneNormal));
+
+            // right plane
+            Vector3f rightPlaneNormal = worldPlane[RIGHT_PLANE].getNormal();
+            rightPlaneNormal.x = left.x * coeffRight[0];
+            rightPlaneNormal.y = left.y * coeffRight[0];
+            rightPlaneNormal.z = left.z * coeffRight[0];
+            rightPlaneNormal.addLocal(direction.x * coeffRight[1], direction.y
+                    * coeffRight[1], direction.z * coeffRight[1]);
+            worldPlane[RIGHT_PLANE].setConstant(location.dot(rightPlaneNormal));
+
+            // bottom plane
+            Vector3f bottomPlaneNormal = worldPlane[BOTTOM_PLANE].getNormal();
+            bottomPlaneNormal.x = up.x * coeffBottom[0];
+            bottomPlaneNormal.y = up.y * coeffBottom[0];
+            bottomPlaneNormal.z = up.z * coeffBottom[0];
+            bottomPlaneNormal.addLocal(direction.x * coeffBottom[1], direction.y
+                    * coeffBottom[1], direction.z * coeffBottom[1]);
+            worldPlane[BOTTOM_PLANE].setConstant(location.dot(bottomPlaneNormal));
+
+            // top plane
+            Vector3f topPlaneNormal = worldPlane[TOP_PLANE].getNormal();
+            topPlaneNormal.x = up.x * coeffTop[0];
+            topPlaneNormal.y = up.y * coeffTop[0];
+            topPlaneNormal.z = up.z * coeffTop[0];
+            topPlaneNormal.addLocal(direction.x * coeffTop[1], direction.y
+                    * coeffTop[1], direction.z * coeffTop[1]);
+            worldPlane[TOP_PLANE].setConstant(location.dot(topPlaneNormal));
+
+            if (isParallelProjection()) {
+                worldPlane[LEFT_PLANE].setConstant(worldPlane[LEFT_PLANE].getConstant() + frustumLeft);
+                worldPlane[RIGHT_PLANE].setConstant(worldPlane[RIGHT_PLANE].getConstant() - frustumRight);
+                worldPlane[TOP_PLANE].setConstant(worldPlane[TOP_PLANE].getConstant() - frustumTop);
+                worldPlane[BOTTOM_PLANE].setConstant(worldPlane[BOTTOM_PLANE].getConstant() + frustumBottom);
+            }
 
-        // near plane
-        worldPlane[NEAR_PLANE].setNormal(direction.x, direction.y, direction.z);
-        worldPlane[NEAR_PLANE].setConstant(dirDotLocation + frustumNear);
+            // far plane
+            worldPlane[FAR_PLANE].setNormal(left);
+            worldPlane[FAR_PLANE].setNormal(-direction.x, -direction.y, -direction.z);
+            worldPlane[FAR_PLANE].setConstant(-(dirDotLocation + frustumFar));
 
-        viewMatrix.fromFrame(location, direction, up, left);
+            // near plane
+            worldPlane[NEAR_PLANE].setNormal(direction.x, direction.y, direction.z);
+            worldPlane[NEAR_PLANE].setConstant(dirDotLocation + frustumNear);
 
-        vars.release();
+            viewMatrix.fromFrame(location, direction, up, left);
+        }
 
 //        viewMatrix.transposeLocal();
         updateViewProjection();
@@ -1510,16 +1501,18 @@ public class Camera implements Savable, Cloneable {
             store = new Vector3f();
         }
 
-        Matrix4f inverseMat = new Matrix4f(viewProjectionMatrix);
-        inverseMat.invertLocal();
+        try (MathArena arena = MathArena.open()) {
+            Matrix4f inverseMat = arena.matrix4f().set(viewProjectionMatrix);
+            inverseMat.invertLocal();
 
-        store.set(
-                (screenPosition.x / getWidth() - viewPortLeft) / (viewPortRight - viewPortLeft) * 2 - 1,
-                (screenPosition.y / getHeight() - viewPortBottom) / (viewPortTop - viewPortBottom) * 2 - 1,
-                projectionZPos * 2 - 1);
+            store.set(
+                    (screenPosition.x / getWidth() - viewPortLeft) / (viewPortRight - viewPortLeft) * 2 - 1,
+                    (screenPosition.y / getHeight() - viewPortBottom) / (viewPortTop - viewPortBottom) * 2 - 1,
+                    projectionZPos * 2 - 1);
 
-        float w = inverseMat.multProj(store, store);
-        store.multLocal(1f / w);
+            float w = inverseMat.multProj(store, store);
+            store.multLocal(1f / w);
+        }
 
         return store;
     }
@@ -1586,20 +1579,18 @@ public class Camera implements Savable, Cloneable {
      * }</pre>
      */
     public Ray screenPointToRay(Vector2f pos) {
-        TempVars vars = TempVars.get();
-        Vector3f nearPoint = vars.vect1;
-        Vector3f farPoint = vars.vect2;
+        try (MathArena arena = MathArena.open()) {
+            Vector3f nearPoint = arena.vector3f();
+            Vector3f farPoint = arena.vector3f();
 
-        // Get the world coordinates for the near and far points
-        getWorldCoordinates(pos, 0, nearPoint);
-        getWorldCoordinates(pos, 1, farPoint);
+            // Get the world coordinates for the near and far points
+            getWorldCoordinates(pos, 0, nearPoint);
+            getWorldCoordinates(pos, 1, farPoint);
 
-        // Calculate direction and normalize
-        Vector3f direction = farPoint.subtractLocal(nearPoint).normalizeLocal();
-        Ray ray = new Ray(nearPoint, direction);
-
-        vars.release();
-        return ray;
+            // Calculate direction and normalize
+            Vector3f direction = farPoint.subtractLocal(nearPoint).normalizeLocal();
+            return new Ray(nearPoint, direction);
+        }
     }
 
     /**
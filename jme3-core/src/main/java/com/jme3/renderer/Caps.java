@@ -459,7 +459,33 @@ public enum Caps {
     /**
      * Supports debugging capabilities
      */
-    GLDebug
+    GLDebug,
+
+    /**
+     * Supports immutable buffer storage that stays mapped while the GPU reads
+     * it (OpenGL 4.4 or GL_ARB_buffer_storage).
+     */
+    BufferStorage,
+
+    /**
+     * Supports retrieving and loading linked shader programs as binaries,
+     * with at least one binary format (OpenGL 4.1 or GL_ARB_get_program_binary).
+     */
+    ProgramBinary,
+
+    /**
+     * Supports compiling shaders in background threads of the driver and
+     * polling their completion (GL_KHR_parallel_shader_compile or
+     * GL_ARB_parallel_shader_compile).
+     */
+    ParallelShaderCompile,
+
+    /**
+     * Supports drawing several index ranges of a mesh, each with its own
+     * base vertex and base instance, from a buffer of draw commands
+     * (OpenGL 4.3 or GL_ARB_multi_draw_indirect with base instances).
+     */
+    MultiDrawIndirect
     ;
 
     /**
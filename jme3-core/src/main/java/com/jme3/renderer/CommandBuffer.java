@@ -0,0 +1,612 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.material.RenderState;
+import com.jme3.math.ColorRGBA;
+import com.jme3.renderer.opengl.GLFence;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.shader.Shader;
+import com.jme3.shader.Shader.ShaderSource;
+import com.jme3.shader.Uniform;
+import com.jme3.shader.bufferobject.BufferObject;
+import com.jme3.texture.FrameBuffer;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import com.jme3.texture.TextureImage;
+import com.jme3.util.ListMap;
+import com.jme3.util.NativeObject;
+import java.util.Arrays;
+
+/**
+ * A list of {@link Renderer} commands recorded by a {@link RecordingRenderer}
+ * for later submission.
+ * <p>
+ * Commands are stored in primitive arrays: an opcode followed by its integer
+ * arguments, floating-point arguments in a separate array, and references to
+ * the engine objects used by the command. Mutable arguments are copied when
+ * recorded: render states, and the values of all uniforms of a shader when
+ * it is set. The copies are pooled and reused after {@link #reset()}, so a
+ * buffer that records the same kind of frame over and over stops allocating.
+ * <p>
+ * {@link #replay(com.jme3.renderer.Renderer) } restores the uniform values
+ * and issues the commands, in order, to another renderer. Meshes, textures,
+ * frame buffers and the other referenced objects are not copied, so they
+ * must not change between recording and replay.
+ *
+ * @see RecordingRenderer
+ */
+public final class CommandBuffer {
+
+    private static final int APPLY_RENDER_STATE = 0;
+    private static final int SET_SHADER = 1;
+    private static final int SET_TEXTURE = 2;
+    private static final int SET_TEXTURE_IMAGE = 3;
+    private static final int RENDER_MESH = 4;
+    private static final int SET_VIEW_PORT = 5;
+    private static final int SET_CLIP_RECT = 6;
+    private static final int CLEAR_CLIP_RECT = 7;
+    private static final int CLEAR_BUFFERS = 8;
+    private static final int SET_BACKGROUND_COLOR = 9;
+    private static final int SET_DEPTH_RANGE = 10;
+    private static final int SET_FRAME_BUFFER = 11;
+    private static final int SET_MAIN_FRAME_BUFFER_OVERRIDE = 12;
+    private static final int COPY_FRAME_BUFFER = 13;
+    private static final int MODIFY_TEXTURE = 14;
+    private static final int UPDATE_BUFFER_DATA = 15;
+    private static final int UPDATE_SHADER_STORAGE_BUFFER_DATA = 16;
+    private static final int UPDATE_UNIFORM_BUFFER_DATA = 17;
+    private static final int SET_SHADER_STORAGE_BUFFER = 18;
+    private static final int SET_UNIFORM_BUFFER = 19;
+    private static final int DELETE_SHADER = 20;
+    private static final int DELETE_SHADER_SOURCE = 21;
+    private static final int DELETE_FRAME_BUFFER = 22;
+    private static final int DELETE_IMAGE = 23;
+    private static final int DELETE_VERTEX_BUFFER = 24;
+    private static final int DELETE_BUFFER_OBJECT = 25;
+    private static final int DELETE_FENCE = 26;
+    private static final int REGISTER_NATIVE_OBJECT = 27;
+    private static final int INVALIDATE_STATE = 28;
+    private static final int RESET_GL_OBJECTS = 29;
+    private static final int POST_FRAME = 30;
+    private static final int START_PROFILING = 31;
+    private static final int STOP_PROFILING = 32;
+    private static final int PUSH_DEBUG_GROUP = 33;
+    private static final int POP_DEBUG_GROUP = 34;
+    private static final int SET_ALPHA_TO_COVERAGE = 35;
+    private static final int SET_DEFAULT_ANISOTROPIC_FILTER = 36;
+    private static final int SET_MAIN_FRAME_BUFFER_SRGB = 37;
+    private static final int SET_LINEARIZE_SRGB_IMAGES = 38;
+    private static final int RENDER_MESH_INDIRECT = 39;
+    private static final int SET_UNIFORM_BUFFER_RANGE = 40;
+
+    private static final int COLOR = 1, DEPTH = 2, STENCIL = 4;
+
+    private int[] ops = new int[256];
+    private int opCount;
+    private float[] floats = new float[16];
+    private int floatCount;
+    private Object[] refs = new Object[128];
+    private int refCount;
+
+    private RenderState[] states = new RenderState[16];
+    private int stateCount;
+    private Uniform[] uniformTargets = new Uniform[64];
+    private Uniform[] uniformValues = new Uniform[64];
+    private int uniformCount;
+
+    private int commandCount;
+    private final ColorRGBA color = new ColorRGBA();
+
+    /**
+     * Creates an empty command buffer.
+     */
+    public CommandBuffer() {
+    }
+
+    /**
+     * Returns the number of recorded commands.
+     *
+     * @return the command count
+     */
+    public int size() {
+        return commandCount;
+    }
+
+    /**
+     * Tests whether no command has been recorded since the last reset.
+     *
+     * @return true if the buffer is empty
+     */
+    public boolean isEmpty() {
+        return commandCount == 0;
+    }
+
+    /**
+     * Discards the recorded commands. The copies of render states and
+     * uniform values are kept for reuse.
+     */
+    public void reset() {
+        Arrays.fill(refs, 0, refCount, null);
+        for (int i = 0; i < uniformCount; i++) {
+            uniformTargets[i] = null;
+        }
+        opCount = 0;
+        floatCount = 0;
+        refCount = 0;
+        stateCount = 0;
+        uniformCount = 0;
+        commandCount = 0;
+    }
+
+    /**
+     * Issues the recorded commands, in order, to the given renderer. Must be
+     * called on the thread that owns the renderer. A buffer can be replayed
+     * any number of times until it is reset.
+     * <p>
+     * The uniform values captured with each shader are copied back to the
+     * shader before it is set, so the shaders referenced by this buffer must
+     * not be used by other threads during the replay.
+     *
+     * @param renderer the renderer to submit to (not null)
+     */
+    public void replay(Renderer renderer) {
+        int op = 0;
+        int f = 0;
+        int r = 0;
+        while (op < opCount) {
+            switch (ops[op++]) {
+                case APPLY_RENDER_STATE:
+                    renderer.applyRenderState(states[ops[op++]]);
+                    break;
+                case SET_SHADER: {
+                    int first = ops[op++];
+                    int end = first + ops[op++];
+                    for (int i = first; i < end; i++) {
+                        uniformTargets[i].copyValueFrom(uniformValues[i]);
+                    }
+                    renderer.setShader((Shader) refs[r++]);
+                    break;
+                }
+                case SET_TEXTURE:
+                    try {
+                        renderer.setTexture(ops[op++], (Texture) refs[r++]);
+                    } catch (TextureUnitException exception) {
+                        throw new RendererException(exception);
+                    }
+                    break;
+                case SET_TEXTURE_IMAGE:
+                    try {
+                        renderer.setTextureImage(ops[op++], (TextureImage) refs[r++]);
+                    } catch (TextureUnitException exception) {
+                        throw new RendererException(exception);
+                    }
+                    break;
+                case RENDER_MESH:
+                    renderer.renderMesh((Mesh) refs[r++], ops[op++], ops[op++], (VertexBuffer[]) refs[r++]);
+                    break;
+                case SET_VIEW_PORT:
+                    renderer.setViewPort(ops[op++], ops[op++], ops[op++], ops[op++]);
+                    break;
+                case SET_CLIP_RECT:
+                    renderer.setClipRect(ops[op++], ops[op++], ops[op++], ops[op++]);
+                    break;
+                case CLEAR_CLIP_RECT:
+                    renderer.clearClipRect();
+                    break;
+                case CLEAR_BUFFERS: {
+                    int flags = ops[op++];
+                    renderer.clearBuffers((flags & COLOR) != 0, (flags & DEPTH) != 0, (flags & STENCIL) != 0);
+                    break;
+                }
+                case SET_BACKGROUND_COLOR:
+                    color.set(floats[f++], floats[f++], floats[f++], floats[f++]);
+                    renderer.setBackgroundColor(color);
+                    break;
+                case SET_DEPTH_RANGE:
+                    renderer.setDepthRange(floats[f++], floats[f++]);
+                    break;
+                case SET_FRAME_BUFFER:
+                    renderer.setFrameBuffer((FrameBuffer) refs[r++]);
+                    break;
+                case SET_MAIN_FRAME_BUFFER_OVERRIDE:
+                    renderer.setMainFrameBufferOverride((FrameBuffer) refs[r++]);
+                    break;
+                case COPY_FRAME_BUFFER: {
+                    int flags = ops[op++];
+                    renderer.copyFrameBuffer((FrameBuffer) refs[r++], (FrameBuffer) refs[r++],
+                            (flags & COLOR) != 0, (flags & DEPTH) != 0);
+                    break;
+                }
+                case MODIFY_TEXTURE:
+                    renderer.modifyTexture((Texture) refs[r++], (Image) refs[r++], ops[op++], ops[op++]);
+                    break;
+                case UPDATE_BUFFER_DATA:
+                    renderer.updateBufferData((VertexBuffer) refs[r++]);
+                    break;
+                case UPDATE_SHADER_STORAGE_BUFFER_DATA:
+                    renderer.updateShaderStorageBufferObjectData((BufferObject) refs[r++]);
+                    break;
+                case UPDATE_UNIFORM_BUFFER_DATA:
+                    renderer.updateUniformBufferObjectData((BufferObject) refs[r++]);
+                    break;
+                case SET_SHADER_STORAGE_BUFFER:
+                    renderer.setShaderStorageBufferObject(ops[op++], (BufferObject) refs[r++]);
+                    break;
+                case SET_UNIFORM_BUFFER:
+                    renderer.setUniformBufferObject(ops[op++], (BufferObject) refs[r++]);
+                    break;
+                case SET_UNIFORM_BUFFER_RANGE:
+                    renderer.setUniformBufferObject(ops[op++], (BufferObject) refs[r++], ops[op++], ops[op++]);
+                    break;
+                case DELETE_SHADER:
+                    renderer.deleteShader((Shader) refs[r++]);
+                    break;
+                case DELETE_SHADER_SOURCE:
+                    renderer.deleteShaderSource((ShaderSource) refs[r++]);
+                    break;
+                case DELETE_FRAME_BUFFER:
+                    renderer.deleteFrameBuffer((FrameBuffer) refs[r++]);
+                    break;
+                case DELETE_IMAGE:
+                    renderer.deleteImage((Image) refs[r++]);
+                    break;
+                case DELETE_VERTEX_BUFFER:
+                    renderer.deleteBuffer((VertexBuffer) refs[r++]);
+                    break;
+                case DELETE_BUFFER_OBJECT:
+                    renderer.deleteBuffer((BufferObject) refs[r++]);
+                    break;
+                case DELETE_FENCE:
+                    renderer.deleteFence((GLFence) refs[r++]);
+                    break;
+                case REGISTER_NATIVE_OBJECT:
+                    renderer.registerNativeObject((NativeObject) refs[r++]);
+                    break;
+                case INVALIDATE_STATE:
+                    renderer.invalidateState();
+                    break;
+                case RESET_GL_OBJECTS:
+                    renderer.resetGLObjects();
+                    break;
+                case POST_FRAME:
+                    renderer.postFrame();
+                    break;
+                case START_PROFILING:
+                    renderer.startProfiling(ops[op++]);
+                    break;
+                case STOP_PROFILING:
+                    renderer.stopProfiling();
+                    break;
+                case PUSH_DEBUG_GROUP:
+                    renderer.pushDebugGroup((String) refs[r++]);
+                    break;
+                case POP_DEBUG_GROUP:
+                    renderer.popDebugGroup();
+                    break;
+                case SET_ALPHA_TO_COVERAGE:
+                    renderer.setAlphaToCoverage(ops[op++] != 0);
+                    break;
+                case SET_DEFAULT_ANISOTROPIC_FILTER:
+                    renderer.setDefaultAnisotropicFilter(ops[op++]);
+                    break;
+                case SET_MAIN_FRAME_BUFFER_SRGB:
+                    renderer.setMainFrameBufferSrgb(ops[op++] != 0);
+                    break;
+                case SET_LINEARIZE_SRGB_IMAGES:
+                    renderer.setLinearizeSrgbImages(ops[op++] != 0);
+                    break;
+                case RENDER_MESH_INDIRECT:
+                    renderer.renderMeshIndirect((Mesh) refs[r++], (BufferObject) refs[r++], ops[op++],
+                            (VertexBuffer[]) refs[r++]);
+                    break;
+                default:
+                    throw new IllegalStateException("Corrupt command buffer at " + (op - 1));
+            }
+        }
+    }
+
+    void applyRenderState(RenderState state) {
+        if (stateCount == states.length) {
+            states = Arrays.copyOf(states, stateCount * 2);
+        }
+        RenderState copy = states[stateCount];
+        if (copy == null) {
+            copy = new RenderState();
+            states[stateCount] = copy;
+        }
+        copy.copyFrom(state);
+        begin(APPLY_RENDER_STATE, 1);
+        ops[opCount++] = stateCount++;
+    }
+
+    void setShader(Shader shader) {
+        ListMap<String, Uniform> uniforms = shader.getUniformMap();
+        int first = uniformCount;
+        for (int i = 0; i < uniforms.size(); i++) {
+            Uniform uniform = uniforms.getValue(i);
+            if (uniform.getVarType() == null || uniform.getLocation() == Uniform.LOC_NOT_DEFINED) {
+                continue;
+            }
+            if (uniformCount == uniformValues.length) {
+                uniformValues = Arrays.copyOf(uniformValues, uniformCount * 2);
+                uniformTargets = Arrays.copyOf(uniformTargets, uniformCount * 2);
+            }
+            Uniform copy = uniformValues[uniformCount];
+            if (copy == null || (copy.getVarType() != null && copy.getVarType() != uniform.getVarType())) {
+                copy = new Uniform();
+                uniformValues[uniformCount] = copy;
+            }
+            copy.copyValueFrom(uniform);
+            uniformTargets[uniformCount++] = uniform;
+        }
+        begin(SET_SHADER, 2);
+        ops[opCount++] = first;
+        ops[opCount++] = uniformCount - first;
+        ref(shader);
+    }
+
+    void setTexture(int unit, Texture texture) {
+        begin(SET_TEXTURE, 1);
+        ops[opCount++] = unit;
+        ref(texture);
+    }
+
+    void setTextureImage(int unit, TextureImage image) {
+        begin(SET_TEXTURE_IMAGE, 1);
+        ops[opCount++] = unit;
+        ref(image);
+    }
+
+    void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData) {
+        begin(RENDER_MESH, 2);
+        ops[opCount++] = lod;
+        ops[opCount++] = count;
+        ref(mesh);
+        ref(instanceData);
+    }
+
+    void renderMeshIndirect(Mesh mesh, BufferObject commands, int drawCount, VertexBuffer[] instanceData) {
+        begin(RENDER_MESH_INDIRECT, 1);
+        ops[opCount++] = drawCount;
+        ref(mesh);
+        ref(commands);
+        ref(instanceData);
+    }
+
+    void setViewPort(int x, int y, int width, int height) {
+        rect(SET_VIEW_PORT, x, y, width, height);
+    }
+
+    void setClipRect(int x, int y, int width, int height) {
+        rect(SET_CLIP_RECT, x, y, width, height);
+    }
+
+    void clearClipRect() {
+        begin(CLEAR_CLIP_RECT, 0);
+    }
+
+    void clearBuffers(boolean color, boolean depth, boolean stencil) {
+        begin(CLEAR_BUFFERS, 1);
+        ops[opCount++] = (color ? COLOR : 0) | (depth ? DEPTH : 0) | (stencil ? STENCIL : 0);
+    }
+
+    void setBackgroundColor(ColorRGBA color) {
+        begin(SET_BACKGROUND_COLOR, 0);
+        floats(4);
+        floats[floatCount++] = color.r;
+        floats[floatCount++] = color.g;
+        floats[floatCount++] = color.b;
+        floats[floatCount++] = color.a;
+    }
+
+    void setDepthRange(float start, float end) {
+        begin(SET_DEPTH_RANGE, 0);
+        floats(2);
+        floats[floatCount++] = start;
+        floats[floatCount++] = end;
+    }
+
+    void setFrameBuffer(FrameBuffer frameBuffer) {
+        object(SET_FRAME_BUFFER, frameBuffer);
+    }
+
+    void setMainFrameBufferOverride(FrameBuffer frameBuffer) {
+        object(SET_MAIN_FRAME_BUFFER_OVERRIDE, frameBuffer);
+    }
+
+    void copyFrameBuffer(FrameBuffer src, FrameBuffer dst, boolean copyColor, boolean copyDepth) {
+        begin(COPY_FRAME_BUFFER, 1);
+        ops[opCount++] = (copyColor ? COLOR : 0) | (copyDepth ? DEPTH : 0);
+        ref(src);
+        ref(dst);
+    }
+
+    void modifyTexture(Texture texture, Image pixels, int x, int y) {
+        begin(MODIFY_TEXTURE, 2);
+        ops[opCount++] = x;
+        ops[opCount++] = y;
+        ref(texture);
+        ref(pixels);
+    }
+
+    void updateBufferData(VertexBuffer vb) {
+        object(UPDATE_BUFFER_DATA, vb);
+    }
+
+    void updateShaderStorageBufferObjectData(BufferObject bo) {
+        object(UPDATE_SHADER_STORAGE_BUFFER_DATA, bo);
+    }
+
+    void updateUniformBufferObjectData(BufferObject bo) {
+        object(UPDATE_UNIFORM_BUFFER_DATA, bo);
+    }
+
+    void setShaderStorageBufferObject(int bindingPoint, BufferObject bo) {
+        begin(SET_SHADER_STORAGE_BUFFER, 1);
+        ops[opCount++] = bindingPoint;
+        ref(bo);
+    }
+
+    void setUniformBufferObject(int bindingPoint, BufferObject bo) {
+        begin(SET_UNIFORM_BUFFER, 1);
+        ops[opCount++] = bindingPoint;
+        ref(bo);
+    }
+
+    void setUniformBufferObject(int bindingPoint, BufferObject bo, int offset, int size) {
+        begin(SET_UNIFORM_BUFFER_RANGE, 3);
+        ops[opCount++] = bindingPoint;
+        ops[opCount++] = offset;
+        ops[opCount++] = size;
+        ref(bo);
+    }
+
+    void deleteShader(Shader shader) {
+        object(DELETE_SHADER, shader);
+    }
+
+    void deleteShaderSource(ShaderSource source) {
+        object(DELETE_SHADER_SOURCE, source);
+    }
+
+    void deleteFrameBuffer(FrameBuffer frameBuffer) {
+        object(DELETE_FRAME_BUFFER, frameBuffer);
+    }
+
+    void deleteImage(Image image) {
+        object(DELETE_IMAGE, image);
+    }
+
+    void deleteBuffer(VertexBuffer vb) {
+        object(DELETE_VERTEX_BUFFER, vb);
+    }
+
+    void deleteBuffer(BufferObject bo) {
+        object(DELETE_BUFFER_OBJECT, bo);
+    }
+
+    void deleteFence(GLFence fence) {
+        object(DELETE_FENCE, fence);
+    }
+
+    void registerNativeObject(NativeObject nativeObject) {
+        object(REGISTER_NATIVE_OBJECT, nativeObject);
+    }
+
+    void invalidateState() {
+        begin(INVALIDATE_STATE, 0);
+    }
+
+    void resetGLObjects() {
+        begin(RESET_GL_OBJECTS, 0);
+    }
+
+    void postFrame() {
+        begin(POST_FRAME, 0);
+    }
+
+    void startProfiling(int taskId) {
+        flag(START_PROFILING, taskId);
+    }
+
+    void stopProfiling() {
+        begin(STOP_PROFILING, 0);
+    }
+
+    void pushDebugGroup(String name) {
+        object(PUSH_DEBUG_GROUP, name);
+    }
+
+    void popDebugGroup() {
+        begin(POP_DEBUG_GROUP, 0);
+    }
+
+    void setAlphaToCoverage(boolean value) {
+        flag(SET_ALPHA_TO_COVERAGE, value ? 1 : 0);
+    }
+
+    void setDefaultAnisotropicFilter(int level) {
+        flag(SET_DEFAULT_ANISOTROPIC_FILTER, level);
+    }
+
+    void setMainFrameBufferSrgb(boolean srgb) {
+        flag(SET_MAIN_FRAME_BUFFER_SRGB, srgb ? 1 : 0);
+    }
+
+    void setLinearizeSrgbImages(boolean linearize) {
+        flag(SET_LINEARIZE_SRGB_IMAGES, linearize ? 1 : 0);
+    }
+
+    /**
+     * Appends an opcode and makes room for its integer arguments.
+     */
+    private void begin(int opcode, int argCount) {
+        if (opCount + 1 + argCount > ops.length) {
+            ops = Arrays.copyOf(ops, Math.max(ops.length * 2, opCount + 1 + argCount));
+        }
+        ops[opCount++] = opcode;
+        commandCount++;
+    }
+
+    private void floats(int count) {
+        if (floatCount + count > floats.length) {
+            floats = Arrays.copyOf(floats, floats.length * 2);
+        }
+    }
+
+    private void ref(Object object) {
+        if (refCount == refs.length) {
+            refs = Arrays.copyOf(refs, refCount * 2);
+        }
+        refs[refCount++] = object;
+    }
+
+    private void object(int opcode, Object object) {
+        begin(opcode, 0);
+        ref(object);
+    }
+
+    private void flag(int opcode, int value) {
+        begin(opcode, 1);
+        ops[opCount++] = value;
+    }
+
+    private void rect(int opcode, int x, int y, int width, int height) {
+        begin(opcode, 4);
+        ops[opCount++] = x;
+        ops[opCount++] = y;
+        ops[opCount++] = width;
+        ops[opCount++] = height;
+    }
+}
@@ -116,6 +116,11 @@ public enum Limits {
      * Maximum block size of a UBO.
      */
     UniformBufferObjectMaxBlockSize,
+    /**
+     * Alignment of the offset of a UBO range bound with
+     * {@link Renderer#setUniformBufferObject(int, com.jme3.shader.bufferobject.BufferObject, int, int)}.
+     */
+    UniformBufferObjectOffsetAlignment,
 
     // SSBO
     /**
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.SpatialIndex;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Flattens a scene graph into a {@link RenderQueue} using the threads of a
+ * {@link ForkJoinPool}.
+ * <p>
+ * Frustum culling of independent branches runs concurrently. Each task
+ * culls against its own thread's copy of the camera (the plane state of a
+ * camera is mutable) and records the visible geometries in an ordered
+ * segment. Once all tasks are done, the segments are appended to the queue
+ * on the calling thread, in scene-graph order, so that the queue content is
+ * the same as with {@link RenderManager#renderScene(Spatial, ViewPort)}.
+ * <p>
+ * Spatials with controls are never culled on a worker thread because
+ * {@link com.jme3.scene.control.Control#render} may modify the scene graph.
+ * They (and their branch) are recorded instead, and handled by the serial
+ * code path on the calling thread when the segments are merged.
+ *
+ * @see RenderManager#setCullingPool(java.util.concurrent.ForkJoinPool)
+ */
+final class ParallelCuller {
+
+    /**
+     * Children are split into ranges of at most this many entries.
+     */
+    private static final int BATCH_SIZE = 64;
+    /**
+     * Nodes with at least this many children are culled by their own task.
+     * Smaller nodes are culled inline by the task of their parent.
+     */
+    private static final int FORK_THRESHOLD = 4;
+    /**
+     * Segment state of a geometry that only needs to be queued.
+     */
+    private static final int QUEUED = -1;
+
+    private final RenderManager renderManager;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<CameraCopy> cameras = new ThreadLocal<CameraCopy>() {
+        @Override
+        protected CameraCopy initialValue() {
+            return new CameraCopy();
+        }
+    };
+    private Camera source;
+    private int generation;
+
+    ParallelCuller(RenderManager renderManager, ForkJoinPool pool) {
+        this.renderManager = renderManager;
+        this.pool = pool;
+    }
+
+    ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Tests whether the given scene is worth culling in parallel.
+     *
+     * @param scene the scene to test (not null)
+     * @return true if the scene is a node without controls or spatial index
+     *     that has several children
+     */
+    boolean accepts(Spatial scene) {
+        return scene instanceof Node
+                && scene.getNumControls() == 0
+                && ((Node) scene).getSpatialIndex() == null
+                && ((Node) scene).getQuantity() > 1;
+    }
+
+    /**
+     * Culls the given scene and queues its visible geometries.
+     *
+     * @param scene the scene to flatten (not null, accepted by
+     *     {@link #accepts(Spatial)})
+     * @param vp the view port whose camera and queue are used (not null)
+     */
+    void renderScene(Spatial scene, ViewPort vp) {
+        Camera cam = vp.getCamera();
+        // The root is culled here, exactly like in the serial path.
+        if (!scene.checkCulling(cam)) {
+            return;
+        }
+
+        source = cam;
+        generation++;
+        List<Spatial> children = ((Node) scene).getChildren();
+        CullTask root = new CullTask(children, 0, children.size(), cam.getPlaneState());
+        try {
+            pool.invoke(root);
+        } finally {
+            source = null;
+        }
+        root.flush(vp);
+    }
+
+    /**
+     * Returns the current thread's copy of the camera being culled against,
+     * synchronized with it if necessary.
+     */
+    private Camera getCamera() {
+        CameraCopy copy = cameras.get();
+        if (copy.generation != generation || copy.camera == null) {
+            if (copy.camera == null) {
+                copy.camera = source.clone();
+            } else {
+                copy.camera.copyFrom(source);
+            }
+            copy.generation = generation;
+        }
+        return copy.camera;
+    }
+
+    private static final class CameraCopy {
+        private Camera camera;
+        private int generation = -1;
+    }
+
+    /**
+     * Culls a range of sibling spatials and records the result as an ordered
+     * segment: geometries to queue, spatials deferred to the calling thread,
+     * and the sub-tasks that culled nested branches.
+     */
+    private final class CullTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Spatial> children;
+        private final int from;
+        private final int to;
+        private final int planeState;
+        private Object[] items;
+        private int[] states;
+        private int count;
+
+        CullTask(List<Spatial> children, int from, int to, int planeState) {
+            this.children = children;
+            this.from = from;
+            this.to = to;
+            this.planeState = planeState;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BATCH_SIZE) {
+                int mid = (from + to) >>> 1;
+                CullTask left = new CullTask(children, from, mid, planeState);
+                CullTask right = new CullTask(children, mid, to, planeState);
+                add(left, QUEUED);
+                add(right, QUEUED);
+                invokeAll(left, right);
+                return;
+            }
+
+            Camera cam = getCamera();
+            for (int i = from; i < to; i++) {
+                cull(children.get(i), cam, planeState);
+            }
+
+            // Wait for the branches forked while culling this range.
+            for (int i = count - 1; i >= 0; i--) {
+                if (items[i] instanceof CullTask) {
+                    ((CullTask) items[i]).join();
+                }
+            }
+        }
+
+        private void cull(Spatial spatial, Camera cam, int state) {
+            if (spatial.getNumControls() > 0) {
+                add(spatial, state);
+                return;
+            }
+
+            cam.setPlaneState(state);
+            if (!spatial.checkCulling(cam)) {
+                return;
+            }
+
+            if (spatial instanceof Node) {
+                Node node = (Node) spatial;
+                SpatialIndex index = node.getSpatialIndex();
+                if (index != null
+                        && node.getLastFrustumIntersection() == Camera.FrustumIntersect.Intersects) {
+                    index.cull(cam, (child, childState) -> cull(child, cam, childState));
+                    return;
+                }
+                List<Spatial> nodeChildren = node.getChildren();
+                int childState = cam.getPlaneState();
+                if (nodeChildren.size() >= FORK_THRESHOLD) {
+                    CullTask task = new CullTask(nodeChildren, 0, nodeChildren.size(), childState);
+                    add(task, QUEUED);
+                    task.fork();
+                } else {
+                    for (int i = 0; i < nodeChildren.size(); i++) {
+                        cull(nodeChildren.get(i), cam, childState);
+                    }
+                }
+            } else if (spatial instanceof Geometry) {
+                if (((Geometry) spatial).getMaterial() == null) {
+                    throw new IllegalStateException("No material is set for Geometry: " + spatial.getName());
+                }
+                add(spatial, QUEUED);
+            }
+        }
+
+        private void add(Object item, int state) {
+            if (items == null) {
+                int capacity = Math.min(to - from, 16);
+                items = new Object[capacity];
+                states = new int[capacity];
+            } else if (count == items.length) {
+                int capacity = count * 2;
+                Object[] newItems = new Object[capacity];
+                int[] newStates = new int[capacity];
+                System.arraycopy(items, 0, newItems, 0, count);
+                System.arraycopy(states, 0, newStates, 0, count);
+                items = newItems;
+                states = newStates;
+            }
+            items[count] = item;
+            states[count] = state;
+            count++;
+        }
+
+        /**
+         * Appends this segment to the queue of the view port. Must be called
+         * on the render thread once all tasks have completed.
+         */
+        void flush(ViewPort vp) {
+            RenderQueue queue = vp.getQueue();
+            for (int i = 0; i < count; i++) {
+                Object item = items[i];
+                if (item instanceof CullTask) {
+                    ((CullTask) item).flush(vp);
+                } else if (states[i] == QUEUED) {
+                    Geometry geom = (Geometry) item;
+                    queue.addToQueue(geom, geom.getQueueBucket());
+                } else {
+                    // Deferred branch: restore the culling state of its
+                    // parent and let the serial path handle it, controls
+                    // included.
+                    vp.getCamera().setPlaneState(states[i]);
+                    renderManager.renderSubScene((Spatial) item, vp);
+                }
+            }
+        }
+    }
+}
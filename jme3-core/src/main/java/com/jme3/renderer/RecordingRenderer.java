@@ -0,0 +1,420 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.material.RenderState;
+import com.jme3.math.ColorRGBA;
+import com.jme3.renderer.opengl.GLFence;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.shader.Shader;
+import com.jme3.shader.Shader.ShaderSource;
+import com.jme3.shader.bufferobject.BufferObject;
+import com.jme3.texture.FrameBuffer;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import com.jme3.texture.TextureImage;
+import com.jme3.util.NativeObject;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.EnumSet;
+
+/**
+ * A <code>Renderer</code> that records the calls it receives into a
+ * {@link CommandBuffer} instead of executing them.
+ * <p>
+ * A {@link RenderManager} created over a recording renderer can render view
+ * ports or queues on any thread: queue traversal, material setup and uniform
+ * updates happen on that thread, and the resulting commands are submitted
+ * later by calling {@link CommandBuffer#replay(com.jme3.renderer.Renderer) }
+ * on the thread that owns the target renderer.
+ * <p>
+ * Capabilities, limits, statistics and settings are read from the target
+ * renderer. Calls that need a result from the GPU, such as reading a frame
+ * buffer or profiling results, cannot be recorded and throw
+ * <code>UnsupportedOperationException</code>.
+ * <p>
+ * Several recording renderers, each with its own render manager, may be used
+ * on different threads at the same time. Materials can be shared between
+ * them, but spatials cannot, because culling and sorting store per-view state
+ * in the spatials. The recorded buffers must be replayed after all recording
+ * threads are done, because replaying writes the recorded uniform values
+ * back to the shared shaders.
+ *
+ * @see CommandBuffer
+ */
+public class RecordingRenderer implements Renderer {
+
+    private final Renderer target;
+    private CommandBuffer buffer;
+    private FrameBuffer mainFrameBufferOverride;
+    private FrameBuffer currentFrameBuffer;
+
+    /**
+     * Creates a renderer that records into the given command buffer.
+     *
+     * @param target the renderer the commands will be submitted to (not null)
+     * @param buffer the buffer to record into (not null)
+     */
+    public RecordingRenderer(Renderer target, CommandBuffer buffer) {
+        this.target = target;
+        this.buffer = buffer;
+        this.currentFrameBuffer = target.getCurrentFrameBuffer();
+    }
+
+    /**
+     * Returns the renderer the commands are recorded for.
+     *
+     * @return the target renderer
+     */
+    public Renderer getTarget() {
+        return target;
+    }
+
+    /**
+     * Returns the buffer that receives the recorded commands.
+     *
+     * @return the command buffer
+     */
+    public CommandBuffer getCommandBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Changes the buffer that receives the recorded commands, for example to
+     * alternate between two buffers while one of them is being replayed.
+     *
+     * @param buffer the buffer to record into (not null)
+     */
+    public void setCommandBuffer(CommandBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void initialize() {
+        throw new UnsupportedOperationException("Initialize the target renderer instead");
+    }
+
+    @Override
+    public EnumSet<Caps> getCaps() {
+        return target.getCaps();
+    }
+
+    @Override
+    public EnumMap<Limits, Integer> getLimits() {
+        return target.getLimits();
+    }
+
+    @Override
+    public Statistics getStatistics() {
+        return target.getStatistics();
+    }
+
+    @Override
+    public void invalidateState() {
+        buffer.invalidateState();
+    }
+
+    @Override
+    public void clearBuffers(boolean color, boolean depth, boolean stencil) {
+        buffer.clearBuffers(color, depth, stencil);
+    }
+
+    @Override
+    public void setBackgroundColor(ColorRGBA color) {
+        buffer.setBackgroundColor(color);
+    }
+
+    @Override
+    public void applyRenderState(RenderState state) {
+        buffer.applyRenderState(state);
+    }
+
+    @Override
+    public void setDepthRange(float start, float end) {
+        buffer.setDepthRange(start, end);
+    }
+
+    @Override
+    public void postFrame() {
+        buffer.postFrame();
+    }
+
+    @Override
+    public void setViewPort(int x, int y, int width, int height) {
+        buffer.setViewPort(x, y, width, height);
+    }
+
+    @Override
+    public void setClipRect(int x, int y, int width, int height) {
+        buffer.setClipRect(x, y, width, height);
+    }
+
+    @Override
+    public void clearClipRect() {
+        buffer.clearClipRect();
+    }
+
+    @Override
+    public void setShader(Shader shader) {
+        buffer.setShader(shader);
+    }
+
+    @Override
+    public void deleteShader(Shader shader) {
+        buffer.deleteShader(shader);
+    }
+
+    @Override
+    public void deleteShaderSource(ShaderSource source) {
+        buffer.deleteShaderSource(source);
+    }
+
+    @Override
+    @Deprecated
+    public void copyFrameBuffer(FrameBuffer src, FrameBuffer dst, boolean copyDepth) {
+        buffer.copyFrameBuffer(src, dst, true, copyDepth);
+    }
+
+    @Override
+    public void copyFrameBuffer(FrameBuffer src, FrameBuffer dst, boolean copyColor, boolean copyDepth) {
+        buffer.copyFrameBuffer(src, dst, copyColor, copyDepth);
+    }
+
+    @Override
+    public void setFrameBuffer(FrameBuffer fb) {
+        buffer.setFrameBuffer(fb);
+        currentFrameBuffer = fb == null ? mainFrameBufferOverride : fb;
+    }
+
+    @Override
+    public void setMainFrameBufferOverride(FrameBuffer fb) {
+        buffer.setMainFrameBufferOverride(fb);
+        mainFrameBufferOverride = fb;
+    }
+
+    @Override
+    public void readFrameBuffer(FrameBuffer fb, ByteBuffer byteBuf) {
+        throw new UnsupportedOperationException("Frame buffers cannot be read while recording");
+    }
+
+    @Override
+    public void readFrameBufferWithFormat(FrameBuffer fb, ByteBuffer byteBuf, Image.Format format) {
+        throw new UnsupportedOperationException("Frame buffers cannot be read while recording");
+    }
+
+    @Override
+    public void deleteFrameBuffer(FrameBuffer fb) {
+        buffer.deleteFrameBuffer(fb);
+    }
+
+    @Override
+    public void setTexture(int unit, Texture tex) throws TextureUnitException {
+        buffer.setTexture(unit, tex);
+    }
+
+    @Override
+    public void setTextureImage(int unit, TextureImage tex) throws TextureUnitException {
+        buffer.setTextureImage(unit, tex);
+    }
+
+    @Override
+    public void modifyTexture(Texture tex, Image pixels, int x, int y) {
+        buffer.modifyTexture(tex, pixels, x, y);
+    }
+
+    @Override
+    public void deleteImage(Image image) {
+        buffer.deleteImage(image);
+    }
+
+    @Override
+    public void updateBufferData(VertexBuffer vb) {
+        buffer.updateBufferData(vb);
+    }
+
+    @Override
+    public void updateShaderStorageBufferObjectData(BufferObject bo) {
+        buffer.updateShaderStorageBufferObjectData(bo);
+    }
+
+    @Override
+    public void updateUniformBufferObjectData(BufferObject bo) {
+        buffer.updateUniformBufferObjectData(bo);
+    }
+
+    @Override
+    public void deleteBuffer(VertexBuffer vb) {
+        buffer.deleteBuffer(vb);
+    }
+
+    @Override
+    public void deleteBuffer(BufferObject bo) {
+        buffer.deleteBuffer(bo);
+    }
+
+    @Override
+    public void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData) {
+        buffer.renderMesh(mesh, lod, count, instanceData);
+    }
+
+    @Override
+    public void renderMeshIndirect(Mesh mesh, BufferObject commands, int drawCount,
+            VertexBuffer[] instanceData) {
+        buffer.renderMeshIndirect(mesh, commands, drawCount, instanceData);
+    }
+
+    @Override
+    public void resetGLObjects() {
+        buffer.resetGLObjects();
+    }
+
+    @Override
+    public void cleanup() {
+        throw new UnsupportedOperationException("Clean up the target renderer instead");
+    }
+
+    @Override
+    public void setDefaultAnisotropicFilter(int level) {
+        buffer.setDefaultAnisotropicFilter(level);
+    }
+
+    @Override
+    public void setAlphaToCoverage(boolean value) {
+        buffer.setAlphaToCoverage(value);
+    }
+
+    @Override
+    public void setMainFrameBufferSrgb(boolean srgb) {
+        buffer.setMainFrameBufferSrgb(srgb);
+    }
+
+    @Override
+    public void setLinearizeSrgbImages(boolean linearize) {
+        buffer.setLinearizeSrgbImages(linearize);
+    }
+
+    @Override
+    public int[] generateProfilingTasks(int numTasks) {
+        throw new UnsupportedOperationException("Profiling tasks cannot be created while recording");
+    }
+
+    @Override
+    public void startProfiling(int taskId) {
+        buffer.startProfiling(taskId);
+    }
+
+    @Override
+    public void stopProfiling() {
+        buffer.stopProfiling();
+    }
+
+    @Override
+    public long getProfilingTime(int taskId) {
+        throw new UnsupportedOperationException("Profiling results cannot be read while recording");
+    }
+
+    @Override
+    public boolean isTaskResultAvailable(int taskId) {
+        throw new UnsupportedOperationException("Profiling results cannot be read while recording");
+    }
+
+    @Override
+    public boolean getAlphaToCoverage() {
+        return target.getAlphaToCoverage();
+    }
+
+    @Override
+    public int getDefaultAnisotropicFilter() {
+        return target.getDefaultAnisotropicFilter();
+    }
+
+    @Override
+    public float getMaxLineWidth() {
+        return target.getMaxLineWidth();
+    }
+
+    @Override
+    public boolean isLinearizeSrgbImages() {
+        return target.isLinearizeSrgbImages();
+    }
+
+    @Override
+    public boolean isMainFrameBufferSrgb() {
+        return target.isMainFrameBufferSrgb();
+    }
+
+    @Override
+    public void popDebugGroup() {
+        buffer.popDebugGroup();
+    }
+
+    @Override
+    public void pushDebugGroup(String name) {
+        buffer.pushDebugGroup(name);
+    }
+
+    /**
+     * Returns the frame buffer selected by the recorded commands.
+     *
+     * @return the FrameBuffer or null if rendering to the screen
+     */
+    @Override
+    public FrameBuffer getCurrentFrameBuffer() {
+        return currentFrameBuffer;
+    }
+
+    @Override
+    public void setShaderStorageBufferObject(int bindingPoint, BufferObject bufferObject) {
+        buffer.setShaderStorageBufferObject(bindingPoint, bufferObject);
+    }
+
+    @Override
+    public void setUniformBufferObject(int bindingPoint, BufferObject bufferObject) {
+        buffer.setUniformBufferObject(bindingPoint, bufferObject);
+    }
+
+    @Override
+    public void setUniformBufferObject(int bindingPoint, BufferObject bufferObject, int offset, int size) {
+        buffer.setUniformBufferObject(bindingPoint, bufferObject, offset, size);
+    }
+
+    @Override
+    public void deleteFence(GLFence fence) {
+        buffer.deleteFence(fence);
+    }
+
+    @Override
+    public void registerNativeObject(NativeObject nativeObject) {
+        buffer.registerNativeObject(nativeObject);
+    }
+}
@@ -271,6 +271,21 @@ public class RenderContext {
      */
     public final WeakReference<BufferObject>[] boundBO = new WeakReference[maxBufferObjectUnits];
 
+    /**
+     * Offset of the range bound to each buffer object unit.
+     *
+     * @see Renderer#setUniformBufferObject(int, BufferObject, int, int)
+     */
+    public final int[] boundBOOffset = new int[maxBufferObjectUnits];
+
+    /**
+     * Size of the range bound to each buffer object unit, 0 when the whole
+     * buffer is bound.
+     *
+     * @see Renderer#setUniformBufferObject(int, BufferObject, int, int)
+     */
+    public final int[] boundBOSize = new int[maxBufferObjectUnits];
+
     /**
      * IDList for texture units.
      *
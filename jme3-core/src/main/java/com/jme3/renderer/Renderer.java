@@ -177,6 +177,20 @@ public interface Renderer {
      */
     public void setShader(Shader shader);
 
+    /**
+     * Tests whether the shader can be set without waiting for its
+     * compilation. Renderers compiling shaders asynchronously submit the
+     * compilation of a shader that is not uploaded yet and return false
+     * until it is finished; the others always return true.
+     *
+     * @param shader the shader to test
+     * @return true if {@link #setShader(com.jme3.shader.Shader) } does not
+     * block on compiling the shader
+     */
+    public default boolean isShaderReady(Shader shader) {
+        return true;
+    }
+
     /**
      * Deletes a shader. This method also deletes
      * the attached shader sources.
@@ -359,6 +373,25 @@ public interface Renderer {
      */
     public void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData);
 
+    /**
+     * Renders several index ranges of a mesh in a single call, with the
+     * draw commands stored in a buffer. Each command holds 5 ints: the
+     * number of indices, the number of instances, the first index, the base
+     * vertex added to the indices and the base instance, i.e. the first row
+     * of the per-instance data used by the command.
+     * <p>
+     * Only available if the renderer supports {@link Caps#MultiDrawIndirect}.
+     *
+     * @param mesh The mesh holding the vertices and indices of all draws
+     * @param commands The draw commands
+     * @param drawCount Number of commands to draw
+     * @param instanceData Per-instance attributes, or null
+     */
+    public default void renderMeshIndirect(Mesh mesh, BufferObject commands, int drawCount,
+            VertexBuffer[] instanceData) {
+        throw new UnsupportedOperationException("Indirect draws are not supported by this renderer");
+    }
+
     /**
      * Resets all previously used {@link NativeObject Native Objects} on this Renderer.
      * The state of the native objects is reset in such way, that using
@@ -554,6 +587,22 @@ public interface Renderer {
     public void setShaderStorageBufferObject(int bindingPoint, BufferObject bufferObject) ;
     public void setUniformBufferObject(int bindingPoint, BufferObject bufferObject) ;
 
+    /**
+     * Binds a range of a uniform buffer, so one buffer can hold the blocks
+     * of many draws. The dirty regions of the buffer are uploaded first.
+     * <p>
+     * Only available if the renderer supports {@link Caps#UniformBufferObject}.
+     *
+     * @param bindingPoint The binding point to bind the range to
+     * @param bufferObject The buffer holding the range
+     * @param offset Start of the range in bytes, a multiple of
+     * {@link Limits#UniformBufferObjectOffsetAlignment}
+     * @param size Size of the range in bytes
+     */
+    public default void setUniformBufferObject(int bindingPoint, BufferObject bufferObject, int offset, int size) {
+        throw new UnsupportedOperationException("Uniform buffer ranges are not supported by this renderer");
+    }
+
     public void deleteFence(GLFence fence);
 
     /**
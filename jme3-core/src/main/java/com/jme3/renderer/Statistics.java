@@ -31,11 +31,13 @@
  */
 package com.jme3.renderer;
 
+import com.jme3.profile.VpStep;
 import com.jme3.scene.Mesh;
 import com.jme3.shader.Shader;
 import com.jme3.texture.FrameBuffer;
 import com.jme3.texture.Image;
 import com.jme3.util.IntMap;
+import java.util.Arrays;
 
 /**
  * Allows tracking of real-time rendering statistics.
@@ -46,6 +48,48 @@ import com.jme3.util.IntMap;
  */
 public class Statistics {
 
+    /**
+     * Categories of GL calls, see {@link #onGLCall(GLCallType)}.
+     */
+    public enum GLCallType {
+        /**
+         * Draw calls.
+         */
+        Draw,
+        /**
+         * Fixed-function state changes: capabilities, blending, depth,
+         * stencil, culling, viewport and scissor.
+         */
+        State,
+        /**
+         * Shader program binds.
+         */
+        Shader,
+        /**
+         * Texture unit and texture binds.
+         */
+        Texture,
+        /**
+         * Uniform uploads.
+         */
+        Uniform,
+        /**
+         * Buffer binds and uploads, and vertex attribute setup.
+         */
+        Buffer,
+        /**
+         * Frame buffer and render buffer calls.
+         */
+        FrameBuffer,
+        /**
+         * Everything else: queries, object creation, texture uploads, clears.
+         */
+        Other
+    }
+
+    private static final int GL_CALL_TYPES = GLCallType.values().length;
+    private static final VpStep[] VP_STEPS = VpStep.values();
+
     /**
      * Enables or disables updates.
      */
@@ -92,6 +136,10 @@ public class Statistics {
      * Number of active textures.
      */
     protected int memoryTextures;
+    /**
+     * Number of shaders whose asynchronous compilation is not finished.
+     */
+    protected int pendingShaderCompiles;
 
     /**
      * IDs of all shaders in use.
@@ -111,6 +159,20 @@ public class Statistics {
      */
     protected int lastShader = -1;
 
+    /**
+     * Number of GL calls of each type during the current frame, per viewport
+     * step. The last row counts the calls made outside of any step.
+     */
+    protected final int[][] numGLCalls = new int[VP_STEPS.length + 1][GL_CALL_TYPES];
+    /**
+     * Number of GL calls of each type since the statistics were created.
+     */
+    protected final long[] totalGLCalls = new long[GL_CALL_TYPES];
+    /**
+     * Row of {@link #numGLCalls} that receives the calls.
+     */
+    protected int currentVpStep = VP_STEPS.length;
+
     /**
      * Returns a list of labels corresponding to each statistic.
      *
@@ -135,7 +197,10 @@ public class Statistics {
 
                              "FrameBuffers (S)",
                              "FrameBuffers (F)",
-                             "FrameBuffers (M)" };
+                             "FrameBuffers (M)",
+
+                             // appended so existing indices keep their meaning
+                             "Shaders (P)" };
 
     }
 
@@ -163,6 +228,8 @@ public class Statistics {
         data[10] = numFboSwitches;
         data[11] = fbosUsed.size();
         data[12] = memoryFrameBuffers;
+
+        data[13] = pendingShaderCompiles;
     }
 
     /**
@@ -192,6 +259,23 @@ public class Statistics {
         onMeshDrawn(mesh, lod, 1);
     }
 
+    /**
+     * Called by the Renderer when it submitted several draws in one call,
+     * see {@link Renderer#renderMeshIndirect}. The vertices are not
+     * counted.
+     *
+     * @param drawCount the number of draws
+     * @param triangleCount the number of triangles of all draws
+     */
+    public void onIndirectDraw(int drawCount, int triangleCount) {
+        if (!enabled) {
+            return;
+        }
+
+        numObjects += drawCount;
+        numTriangles += triangleCount;
+    }
+
     /**
      * Called by the Renderer when a shader has been utilized.
      *
@@ -275,6 +359,71 @@ public class Statistics {
         }
     }
 
+    /**
+     * Called when the renderer makes a GL call. The calls are only reported
+     * when the GL interfaces are wrapped with
+     * {@link com.jme3.renderer.opengl.GLCallCounter}, and they are counted
+     * even if the statistics are disabled.
+     *
+     * @param type the category of the call (not null)
+     */
+    public void onGLCall(GLCallType type) {
+        int index = type.ordinal();
+        numGLCalls[currentVpStep][index]++;
+        totalGLCalls[index]++;
+    }
+
+    /**
+     * Called by a profiler when a viewport step begins, so that the next GL
+     * calls are attributed to it.
+     *
+     * @param step the step, or null when rendering leaves the viewports
+     */
+    public void onVpStep(VpStep step) {
+        currentVpStep = step == null ? VP_STEPS.length : step.ordinal();
+    }
+
+    /**
+     * Returns the number of GL calls of the given type made during the
+     * current frame in the given viewport step, for all viewports.
+     *
+     * @param step the viewport step, or null for the calls made outside of
+     * any step
+     * @param type the category of calls (not null)
+     * @return the number of calls
+     */
+    public int getGLCalls(VpStep step, GLCallType type) {
+        return numGLCalls[step == null ? VP_STEPS.length : step.ordinal()][type.ordinal()];
+    }
+
+    /**
+     * Returns the number of GL calls of the given type made during the
+     * current frame.
+     *
+     * @param type the category of calls (not null)
+     * @return the number of calls
+     */
+    public int getGLCalls(GLCallType type) {
+        int count = 0;
+        for (int[] step : numGLCalls) {
+            count += step[type.ordinal()];
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of GL calls of the given type made since the
+     * statistics were created. Unlike the per-frame counts, this value is
+     * never cleared, so profilers can attribute calls to their own steps by
+     * taking differences.
+     *
+     * @param type the category of calls (not null)
+     * @return the number of calls
+     */
+    public long getTotalGLCalls(GLCallType type) {
+        return totalGLCalls[type.ordinal()];
+    }
+
     /**
      * Clears all frame-specific statistics such as objects used per frame.
      */
@@ -291,6 +440,10 @@ public class Statistics {
         numFboSwitches = 0;
         numUniformsSet = 0;
 
+        for (int[] step : numGLCalls) {
+            Arrays.fill(step, 0);
+        }
+
         lastShader = -1;
     }
 
@@ -304,6 +457,31 @@ public class Statistics {
         memoryShaders++;
     }
 
+    /**
+     * Called by the Renderer when it submits the asynchronous compilation of
+     * a shader. Counted even when the statistics are disabled, to stay
+     * balanced with {@link #onShaderCompileFinished() }.
+     */
+    public void onShaderCompileStarted() {
+        pendingShaderCompiles++;
+    }
+
+    /**
+     * Called by the Renderer when an asynchronous shader compilation is
+     * finished or abandoned.
+     */
+    public void onShaderCompileFinished() {
+        pendingShaderCompiles--;
+    }
+
+    /**
+     * @return the number of shaders whose asynchronous compilation is not
+     * finished
+     */
+    public int getPendingShaderCompiles() {
+        return pendingShaderCompiles;
+    }
+
     /**
      * Called by the Renderer when it creates a new texture.
      */
@@ -361,6 +539,7 @@ public class Statistics {
         memoryFrameBuffers = 0;
         memoryShaders = 0;
         memoryTextures = 0;
+        pendingShaderCompiles = 0;
     }
 
     /**
@@ -208,6 +208,21 @@ public interface GL3 extends GL2 {
      */
     public void glBindBufferBase(int target, int index, int buffer);
 
+    /**
+     * Binds a range of a buffer object to an indexed buffer target.
+     *
+     * @param target the target of the bind operation. One of:
+     *  {@link #GL_TRANSFORM_FEEDBACK_BUFFER TRANSFORM_FEEDBACK_BUFFER}
+     *  {@link #GL_UNIFORM_BUFFER UNIFORM_BUFFER}
+     *  {@link GL4#GL_ATOMIC_COUNTER_BUFFER ATOMIC_COUNTER_BUFFER}
+     *  {@link GL4#GL_SHADER_STORAGE_BUFFER SHADER_STORAGE_BUFFER}
+     * @param index  the index of the binding point within the array specified by {@code target}
+     * @param buffer a buffer object to bind to the specified binding point
+     * @param offset the starting offset in basic machine units into the buffer object
+     * @param size   the amount of data in basic machine units that can be read from the buffer object while used as an indexed target
+     */
+    public void glBindBufferRange(int target, int index, int buffer, long offset, long size);
+
     /**
      * Binding points for active uniform blocks are assigned using glUniformBlockBinding. Each of a program's active
      * uniform blocks has a corresponding uniform buffer binding point. program is the name of a program object for
@@ -31,6 +31,9 @@
  */
 package com.jme3.renderer.opengl;
 
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
 /**
  * GL functions only available on vanilla desktop OpenGL 4.0.
  * 
@@ -66,6 +69,34 @@ public interface GL4 extends GL3 {
     public static final int GL_CONDITION_SATISFIED = 0x911C;
     public static final int GL_WAIT_FAILED = 0x911D;
 
+    /**
+     * Accepted by the {@code flags} parameter of ClientWaitSync.
+     */
+    public static final int GL_SYNC_FLUSH_COMMANDS_BIT = 0x1;
+
+    /**
+     * Accepted by the {@code flags} parameter of BufferStorage and the
+     * {@code access} parameter of MapBufferRange.
+     */
+    public static final int GL_MAP_WRITE_BIT = 0x2;
+    public static final int GL_MAP_PERSISTENT_BIT = 0x40;
+    public static final int GL_MAP_COHERENT_BIT = 0x80;
+
+    /**
+     * Accepted by the {@code pname} parameter of ProgramParameteri.
+     */
+    public static final int GL_PROGRAM_BINARY_RETRIEVABLE_HINT = 0x8257;
+
+    /**
+     * Accepted by the {@code pname} parameter of GetProgramiv.
+     */
+    public static final int GL_PROGRAM_BINARY_LENGTH = 0x8741;
+
+    /**
+     * Accepted by the {@code pname} parameter of GetIntegerv.
+     */
+    public static final int GL_NUM_PROGRAM_BINARY_FORMATS = 0x87FE;
+
     /**
      * Accepted by the {@code target} parameter of BindBufferBase and BindBufferRange.
      */
@@ -75,6 +106,11 @@ public interface GL4 extends GL3 {
      * Accepted by the {@code target} parameters of BindBuffer, BufferData, BufferSubData, MapBuffer, UnmapBuffer, GetBufferSubData, and GetBufferPointerv.
      */
     public static final int GL_SHADER_STORAGE_BUFFER = 0x90D2;
+
+    /**
+     * Accepted by the {@code target} parameters of BindBuffer, BufferData and BufferSubData.
+     */
+    public static final int GL_DRAW_INDIRECT_BUFFER = 0x8F3F;
     public static final int GL_SHADER_STORAGE_BLOCK = 0x92E6;
 
     /**
@@ -195,4 +231,80 @@ public interface GL4 extends GL3 {
      */
     public void glDeleteSync(GLFence sync);
 
+    /**
+     * <p><a target="_blank" href="http://docs.gl/gl4/glBufferStorage">Reference Page</a></p>
+     * <p>
+     * Creates the immutable data store of the buffer bound to the target.
+     *
+     * @param target the target to which the buffer is bound
+     * @param size   the size of the data store in bytes
+     * @param flags  the intended usage of the data store, for example
+     *               {@link #GL_MAP_WRITE_BIT} | {@link #GL_MAP_PERSISTENT_BIT}
+     */
+    public void glBufferStorage(int target, long size, int flags);
+
+    /**
+     * <p><a target="_blank" href="http://docs.gl/gl4/glMapBufferRange">Reference Page</a></p>
+     * <p>
+     * Maps a range of the data store of the buffer bound to the target.
+     *
+     * @param target the target to which the buffer is bound
+     * @param offset the start of the range in bytes
+     * @param length the length of the range in bytes
+     * @param access the access policy, for example {@link #GL_MAP_WRITE_BIT}
+     * @return the mapped memory
+     */
+    public ByteBuffer glMapBufferRange(int target, long offset, long length, int access);
+
+    /**
+     * <p><a target="_blank" href="http://docs.gl/gl4/glProgramParameter">Reference Page</a></p>
+     * <p>
+     * Sets a parameter of a program object.
+     *
+     * @param program the program object
+     * @param pname   the parameter, for example {@link #GL_PROGRAM_BINARY_RETRIEVABLE_HINT}
+     * @param value   the new value of the parameter
+     */
+    public void glProgramParameteri(int program, int pname, int value);
+
+    /**
+     * <p><a target="_blank" href="http://docs.gl/gl4/glGetProgramBinary">Reference Page</a></p>
+     * <p>
+     * Returns the binary representation of a linked program object.
+     *
+     * @param program      the program object
+     * @param length       receives the number of bytes written to the binary
+     * @param binaryFormat receives the format of the binary
+     * @param binary       receives the binary, from its position
+     */
+    public void glGetProgramBinary(int program, IntBuffer length, IntBuffer binaryFormat, ByteBuffer binary);
+
+    /**
+     * <p><a target="_blank" href="http://docs.gl/gl4/glProgramBinary">Reference Page</a></p>
+     * <p>
+     * Loads a program object with a binary returned by glGetProgramBinary.
+     * Check GL_LINK_STATUS afterwards, the driver may reject the binary.
+     *
+     * @param program      the program object
+     * @param binaryFormat the format of the binary
+     * @param binary       the binary, from its position to its limit
+     */
+    public void glProgramBinary(int program, int binaryFormat, ByteBuffer binary);
+
+    /**
+     * <p><a target="_blank" href="http://docs.gl/gl4/glMultiDrawElementsIndirect">Reference Page</a></p>
+     * <p>
+     * Renders several sets of indexed primitives with the draw commands
+     * stored in the buffer bound to GL_DRAW_INDIRECT_BUFFER. Each command
+     * holds 5 unsigned ints: count, instanceCount, firstIndex, baseVertex
+     * and baseInstance.
+     *
+     * @param mode      the primitive type
+     * @param type      the type of the indices
+     * @param indirect  the offset of the first command in the indirect buffer
+     * @param drawCount the number of commands to draw
+     * @param stride    the distance in bytes between commands, 0 if packed
+     */
+    public void glMultiDrawElementsIndirect(int mode, int type, long indirect, int drawCount, int stride);
+
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.opengl;
+
+import com.jme3.renderer.Statistics;
+import com.jme3.renderer.Statistics.GLCallType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the GL calls made by the renderer, by category, into its
+ * {@link Statistics}.
+ * <p>
+ * Like {@link GLDebug} and {@link GLTiming}, the counter wraps the GL
+ * interfaces in proxies. The same counter should wrap all of them:
+ * <pre>
+ * GLCallCounter counter = new GLCallCounter();
+ * gl = (GL) counter.wrap(gl, GL.class, GL2.class, GL3.class, GL4.class);
+ * glext = (GLExt) counter.wrap(glext, GLExt.class);
+ * glfbo = (GLFbo) counter.wrap(glfbo, GLFbo.class);
+ * GLRenderer renderer = new GLRenderer(gl, glext, glfbo);
+ * counter.setStatistics(renderer.getStatistics());
+ * </pre>
+ * Calls made before the statistics are set are not counted.
+ *
+ * @see Statistics#getGLCalls(com.jme3.profile.VpStep, com.jme3.renderer.Statistics.GLCallType)
+ */
+public final class GLCallCounter {
+
+    private final Map<Method, GLCallType> types = new HashMap<>();
+    private Statistics statistics;
+
+    /**
+     * Creates a counter that does not report anywhere yet.
+     */
+    public GLCallCounter() {
+    }
+
+    /**
+     * Sets the statistics that receive the calls.
+     *
+     * @param statistics the renderer statistics, or null to stop counting
+     */
+    public void setStatistics(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Returns the statistics that receive the calls.
+     *
+     * @return the statistics, or null if not set
+     */
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Creates a proxy that counts the calls made to the given GL object.
+     *
+     * @param glInterface the object to wrap (not null)
+     * @param glInterfaceClasses the interfaces of the object to proxy
+     * @return the proxy
+     */
+    public Object wrap(final Object glInterface, Class<?>... glInterfaceClasses) {
+        return Proxy.newProxyInstance(glInterface.getClass().getClassLoader(), glInterfaceClasses,
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        Statistics stats = statistics;
+                        if (stats != null) {
+                            GLCallType type = types.get(method);
+                            if (type == null) {
+                                type = getType(method.getName());
+                                types.put(method, type);
+                            }
+                            stats.onGLCall(type);
+                        }
+                        try {
+                            return method.invoke(glInterface, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getCause();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Returns the category of a GL function.
+     *
+     * @param name the name of the function, for example "glUseProgram"
+     * @return the category (not null)
+     */
+    public static GLCallType getType(String name) {
+        if (name.contains("Framebuffer") || name.contains("Renderbuffer")
+                || name.startsWith("glDrawBuffer") || name.startsWith("glReadBuffer")
+                || name.equals("glBlitFramebuffer")) {
+            return GLCallType.FrameBuffer;
+        }
+        if (name.startsWith("glDraw") || name.startsWith("glMultiDraw")) {
+            return GLCallType.Draw;
+        }
+        if (name.equals("glUseProgram")) {
+            return GLCallType.Shader;
+        }
+        if (name.startsWith("glUniform")) {
+            return GLCallType.Uniform;
+        }
+        if (name.equals("glBindTexture") || name.equals("glActiveTexture")
+                || name.equals("glBindImageTexture") || name.equals("glBindSampler")) {
+            return GLCallType.Texture;
+        }
+        if (name.startsWith("glBindBuffer") || name.startsWith("glBufferData")
+                || name.startsWith("glBufferSubData") || name.startsWith("glMapBuffer")
+                || name.startsWith("glUnmapBuffer") || name.startsWith("glVertexAttrib")
+                || name.endsWith("VertexAttribArray") || name.equals("glBindVertexArray")) {
+            return GLCallType.Buffer;
+        }
+        if (name.equals("glEnable") || name.equals("glDisable") || name.startsWith("glBlend")
+                || name.startsWith("glDepth") || name.startsWith("glStencil")
+                || name.equals("glCullFace") || name.equals("glFrontFace") || name.equals("glColorMask")
+                || name.startsWith("glPolygon") || name.equals("glLineWidth") || name.equals("glPointSize")
+                || name.equals("glViewport") || name.equals("glScissor") || name.equals("glClearColor")
+                || name.equals("glSampleCoverage")) {
+            return GLCallType.State;
+        }
+        return GLCallType.Other;
+    }
+}
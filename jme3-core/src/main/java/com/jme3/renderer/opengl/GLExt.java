@@ -45,6 +45,7 @@ public interface GLExt {
 
     public static final int GL_ALREADY_SIGNALED = 0x911A;
     public static final int GL_COMPRESSED_RGB8_ETC2 = 0x9274;
+    public static final int GL_COMPLETION_STATUS_KHR = 0x91B1;
     public static final int GL_COMPRESSED_SRGB8_ETC2 = 0x9275;
     public static final int GL_COMPRESSED_RGBA8_ETC2_EAC = 0x9278;
     public static final int GL_COMPRESSED_SRGB8_ALPHA8_ETC2_EAC = 0x9279;
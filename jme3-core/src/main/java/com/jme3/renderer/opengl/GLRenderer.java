@@ -64,6 +64,7 @@ import com.jme3.texture.Texture.WrapAxis;
 import com.jme3.texture.TextureImage;
 import com.jme3.texture.image.LastTextureState;
 import com.jme3.util.BufferUtils;
+import com.jme3.util.IntMap;
 import com.jme3.util.ListMap;
 import com.jme3.util.MipMapGenerator;
 import com.jme3.util.NativeObject;
@@ -72,6 +73,7 @@ import com.jme3.util.NativeObjectManager;
 import jme3tools.shader.ShaderDebug;
 
 import java.lang.ref.WeakReference;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
@@ -96,6 +98,11 @@ public final class GLRenderer implements Renderer {
     private final IntBuffer intBuf16 = BufferUtils.createIntBuffer(16);
     private final RenderContext context = new RenderContext();
     private final NativeObjectManager objManager = new NativeObjectManager();
+    /**
+     * Persistently mapped rings of the stream vertex buffers, by vertex
+     * buffer id.
+     */
+    private final IntMap<StreamBufferRing> streamBuffers = new IntMap<>();
     private final EnumSet<Caps> caps = EnumSet.noneOf(Caps.class);
     private final EnumMap<Limits, Integer> limits = new EnumMap<>(Limits.class);
 
@@ -118,6 +125,18 @@ public final class GLRenderer implements Renderer {
     private final TextureUtil texUtil;
     private boolean debug = false;
     private int debugGroupId = 0;
+    private ProgramBinaryCache programBinaryCache;
+    /**
+     * Vendor, renderer and version of the driver, part of the program
+     * binary keys.
+     */
+    private String driverId;
+    private boolean asyncShaderCompile;
+    /**
+     * Programs compiled asynchronously whose status is not checked yet, by
+     * program id.
+     */
+    private final IntMap<PendingProgram> pendingPrograms = new IntMap<>();
 
 
     public GLRenderer(GL gl, GLExt glext, GLFbo glfbo) {
@@ -143,6 +162,49 @@ public final class GLRenderer implements Renderer {
         debug = v;
     }
 
+    /**
+     * Sets the cache used to store linked shader programs as binaries and
+     * restore them instead of compiling them again. Only used when the
+     * context supports {@link Caps#ProgramBinary}.
+     *
+     * @param cache the cache, or null to always compile shaders
+     */
+    public void setProgramBinaryCache(ProgramBinaryCache cache) {
+        programBinaryCache = cache;
+        if (cache != null && driverId != null) {
+            cache.setDriver(driverId);
+        }
+    }
+
+    /**
+     * @return the program binary cache, or null if none is set
+     * @see #setProgramBinaryCache(com.jme3.renderer.opengl.ProgramBinaryCache)
+     */
+    public ProgramBinaryCache getProgramBinaryCache() {
+        return programBinaryCache;
+    }
+
+    /**
+     * Enables compiling shaders in the background of the driver. When
+     * enabled and the context supports {@link Caps#ParallelShaderCompile},
+     * {@link #isShaderReady(com.jme3.shader.Shader) } only submits the
+     * compilation and reports the shader as not ready until the driver
+     * finished it, instead of stalling the frame.
+     *
+     * @param enabled true to compile shaders asynchronously
+     */
+    public void setAsyncShaderCompile(boolean enabled) {
+        asyncShaderCompile = enabled;
+    }
+
+    /**
+     * @return true if shaders are compiled asynchronously when supported
+     * @see #setAsyncShaderCompile(boolean)
+     */
+    public boolean isAsyncShaderCompile() {
+        return asyncShaderCompile;
+    }
+
     @Override
     public void popDebugGroup() {
         if (debug && caps.contains(Caps.GLDebug)) {
@@ -612,6 +674,8 @@ public final class GLRenderer implements Renderer {
             caps.add(Caps.UniformBufferObject);
             limits.put(Limits.UniformBufferObjectMaxBlockSize,
                     getInteger(GL3.GL_MAX_UNIFORM_BLOCK_SIZE));
+            limits.put(Limits.UniformBufferObjectOffsetAlignment,
+                    getInteger(GL3.GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT));
             if (caps.contains(Caps.GeometryShader)) {
                 limits.put(Limits.UniformBufferObjectMaxGeometryBlocks,
                         getInteger(GL3.GL_MAX_GEOMETRY_UNIFORM_BLOCKS));
@@ -630,6 +694,30 @@ public final class GLRenderer implements Renderer {
             caps.add(Caps.GLDebug);
         }
 
+        if (gl4 != null && (caps.contains(Caps.OpenGL44) || hasExtension("GL_ARB_buffer_storage"))) {
+            caps.add(Caps.BufferStorage);
+        }
+
+        if (gl4 != null && (caps.contains(Caps.OpenGL41) || hasExtension("GL_ARB_get_program_binary"))) {
+            if (getInteger(GL4.GL_NUM_PROGRAM_BINARY_FORMATS) > 0) {
+                caps.add(Caps.ProgramBinary);
+            }
+        }
+
+        if (hasExtension("GL_KHR_parallel_shader_compile") || hasExtension("GL_ARB_parallel_shader_compile")) {
+            caps.add(Caps.ParallelShaderCompile);
+        }
+
+        if (gl4 != null && (caps.contains(Caps.OpenGL43) || hasExtension("GL_ARB_multi_draw_indirect")
+                && (caps.contains(Caps.OpenGL42) || hasExtension("GL_ARB_base_instance")))) {
+            caps.add(Caps.MultiDrawIndirect);
+        }
+        driverId = gl.glGetString(GL.GL_VENDOR) + "|" + gl.glGetString(GL.GL_RENDERER)
+                + "|" + gl.glGetString(GL.GL_VERSION);
+        if (programBinaryCache != null) {
+            programBinaryCache.setDriver(driverId);
+        }
+
         // Print context information
         logger.log(Level.INFO, "OpenGL Renderer Information\n" +
                         " * Vendor: {0}\n" +
@@ -748,6 +836,8 @@ public final class GLRenderer implements Renderer {
     public void resetGLObjects() {
         logger.log(Level.FINE, "Resetting objects and invalidating state");
         objManager.resetObjects();
+        streamBuffers.clear();
+        pendingPrograms.clear();
         statistics.clearMemory();
         invalidateState();
     }
@@ -757,6 +847,7 @@ public final class GLRenderer implements Renderer {
         logger.log(Level.FINE, "Deleting objects and invalidating state");
         objManager.deleteAllObjects(this);
         OpenCLObjectManager.getInstance().deleteAllObjects();
+        pendingPrograms.clear();
         statistics.clearMemory();
         invalidateState();
     }
@@ -1477,7 +1568,11 @@ public final class GLRenderer implements Renderer {
 
         switch (bufferType) {
             case UniformBufferObject: {
-                setUniformBufferObject(bindingPoint, bufferObject); // rebind buffer if needed
+                WeakReference<BufferObject> bound = context.boundBO[bindingPoint];
+                if (bound == null || bound.get() != bufferObject) {
+                    // keeps a range bound with setUniformBufferObject(int, BufferObject, int, int)
+                    setUniformBufferObject(bindingPoint, bufferObject); // rebind buffer if needed
+                }
                 if (bufferBlock.isUpdateNeeded()) {
                     int blockIndex = bufferBlock.getLocation();
                     if (blockIndex < 0) {
@@ -1560,6 +1655,15 @@ public final class GLRenderer implements Renderer {
     }
 
     public void updateShaderSourceData(ShaderSource source) {
+        compileShaderSource(source);
+        checkShaderSource(source);
+    }
+
+    /**
+     * Creates the shader object of a source and submits its compilation,
+     * without waiting for the result.
+     */
+    private void compileShaderSource(ShaderSource source) {
         int id = source.getId();
         if (id == -1) {
             // Create id
@@ -1585,6 +1689,63 @@ public final class GLRenderer implements Renderer {
                     + "Only GLSL 1.00 shaders are supported.");
         }
 
+        String sourceCode = buildShaderSource(source);
+        intBuf1.clear();
+        intBuf1.put(0, sourceCode.length());
+        gl.glShaderSource(id, new String[]{ sourceCode }, intBuf1);
+        gl.glCompileShader(id);
+    }
+
+    /**
+     * Checks the result of a submitted compilation, waiting for it if
+     * needed.
+     */
+    private void checkShaderSource(ShaderSource source) {
+        int id = source.getId();
+        gl.glGetShader(id, GL.GL_COMPILE_STATUS, intBuf1);
+
+        boolean compiledOK = intBuf1.get(0) == GL.GL_TRUE;
+        String infoLog = null;
+
+        if (VALIDATE_SHADER || !compiledOK) {
+            // even if compile succeeded, check
+            // log for warnings
+            gl.glGetShader(id, GL.GL_INFO_LOG_LENGTH, intBuf1);
+            int length = intBuf1.get(0);
+            if (length > 3) {
+                // get infos
+                infoLog = gl.glGetShaderInfoLog(id, length);
+            }
+        }
+
+        if (compiledOK) {
+            if (infoLog != null) {
+                logger.log(Level.WARNING, "{0} compiled successfully, compiler warnings: \n{1}",
+                        new Object[]{source.getName(), infoLog});
+            } else if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "{0} compiled successfully.", source.getName());
+            }
+            source.clearUpdateNeeded();
+        } else {
+            logger.log(Level.WARNING, "Bad compile of:\n{0}",
+                    new Object[]{ShaderDebug.formatShaderSource(buildShaderSource(source))});
+            if (infoLog != null) {
+                throw new RendererException("compile error in: " + source + "\n" + infoLog);
+            } else {
+                throw new RendererException("compile error in: " + source + "\nerror: <not provided>");
+            }
+        }
+    }
+
+    /**
+     * Merges the version header, the defines and the code of a shader
+     * source into the string passed to the driver.
+     */
+    private String buildShaderSource(ShaderSource source) {
+        boolean gles3 = caps.contains(Caps.OpenGLES30);
+        boolean gles2 = caps.contains(Caps.OpenGLES20);
+        String language = source.getLanguage();
+
         // Upload shader source.
         // Merge the defines and source code.
         stringBuf.setLength(0);
@@ -1625,48 +1786,81 @@ public final class GLRenderer implements Renderer {
         stringBuf.append(source.getDefines());
         stringBuf.append(source.getSource());
 
+        return stringBuf.toString();
+    }
 
-        intBuf1.clear();
-        intBuf1.put(0, stringBuf.length());
-        gl.glShaderSource(id, new String[]{ stringBuf.toString() }, intBuf1);
-        gl.glCompileShader(id);
-
-        gl.glGetShader(id, GL.GL_COMPILE_STATUS, intBuf1);
+    /**
+     * Computes the program binary cache key of a shader from the final
+     * sources of its stages, the fragment output bindings and the driver.
+     */
+    private String getProgramBinaryKey(Shader shader) {
+        List<String> sources = new ArrayList<>();
+        for (ShaderSource source : shader.getSources()) {
+            sources.add(source.getType().name());
+            sources.add(buildShaderSource(source));
+        }
+        sources.add("MRT" + limits.get(Limits.FrameBufferMrtAttachments));
+        return ProgramBinaryCache.computeKey(driverId, sources);
+    }
 
-        boolean compiledOK = intBuf1.get(0) == GL.GL_TRUE;
-        String infoLog = null;
+    /**
+     * Loads the cached binary of a program, if any.
+     *
+     * @return true if the program is linked from the binary
+     */
+    private boolean loadProgramBinary(int id, String key) {
+        ProgramBinaryCache.ProgramBinary binary = programBinaryCache.load(key);
+        if (binary == null) {
+            return false;
+        }
+        gl4.glProgramBinary(id, binary.getFormat(), binary.getData());
+        BufferUtils.destroyDirectBuffer(binary.getData());
+        gl.glGetProgram(id, GL.GL_LINK_STATUS, intBuf1);
+        if (intBuf1.get(0) == GL.GL_TRUE) {
+            return true;
+        }
+        // e.g. the driver was updated, the binary gets replaced after compiling
+        logger.log(Level.FINE, "Program binary {0} rejected by the driver.", key);
+        programBinaryCache.remove(key);
+        return false;
+    }
 
-        if (VALIDATE_SHADER || !compiledOK) {
-            // even if compile succeeded, check
-            // log for warnings
-            gl.glGetShader(id, GL.GL_INFO_LOG_LENGTH, intBuf1);
-            int length = intBuf1.get(0);
-            if (length > 3) {
-                // get infos
-                infoLog = gl.glGetShaderInfoLog(id, length);
-            }
+    private void saveProgramBinary(int id, String key) {
+        gl.glGetProgram(id, GL4.GL_PROGRAM_BINARY_LENGTH, intBuf1);
+        int length = intBuf1.get(0);
+        if (length <= 0) {
+            return;
         }
+        ByteBuffer binary = BufferUtils.createByteBuffer(length);
+        intBuf1.clear();
+        intBuf16.clear();
+        gl4.glGetProgramBinary(id, intBuf1, intBuf16, binary);
+        binary.limit(intBuf1.get(0));
+        programBinaryCache.save(key, intBuf16.get(0), binary);
+        BufferUtils.destroyDirectBuffer(binary);
+    }
 
-        if (compiledOK) {
-            if (infoLog != null) {
-                logger.log(Level.WARNING, "{0} compiled successfully, compiler warnings: \n{1}",
-                        new Object[]{source.getName(), infoLog});
-            } else if (logger.isLoggable(Level.FINE)) {
-                logger.log(Level.FINE, "{0} compiled successfully.", source.getName());
-            }
-            source.clearUpdateNeeded();
+    public void updateShaderData(Shader shader) {
+        PendingProgram pending = pendingPrograms.remove(shader.getId());
+        if (pending != null) {
+            statistics.onShaderCompileFinished();
         } else {
-            logger.log(Level.WARNING, "Bad compile of:\n{0}",
-                    new Object[]{ShaderDebug.formatShaderSource(stringBuf.toString())});
-            if (infoLog != null) {
-                throw new RendererException("compile error in: " + source + "\n" + infoLog);
-            } else {
-                throw new RendererException("compile error in: " + source + "\nerror: <not provided>");
+            pending = submitShaderData(shader);
+            if (pending == null) {
+                return;
             }
         }
+        checkShaderData(shader, pending);
     }
 
-    public void updateShaderData(Shader shader) {
+    /**
+     * Creates the program of a shader and submits the compilation of its
+     * sources and its link, without waiting for the result.
+     *
+     * @return the state to check the program with, or null if the program
+     * was restored from its binary and is ready
+     */
+    private PendingProgram submitShaderData(Shader shader) {
         int id = shader.getId();
         boolean needRegister = false;
         if (id == -1) {
@@ -1680,13 +1874,25 @@ public final class GLRenderer implements Renderer {
             needRegister = true;
         }
 
+        String binaryKey = null;
+        if (needRegister && programBinaryCache != null && caps.contains(Caps.ProgramBinary)) {
+            binaryKey = getProgramBinaryKey(shader);
+            if (loadProgramBinary(id, binaryKey)) {
+                shader.clearUpdateNeeded();
+                objManager.registerObject(shader);
+                statistics.onNewShader();
+                return null;
+            }
+            gl4.glProgramParameteri(id, GL4.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL.GL_TRUE);
+        }
+
         // If using GLSL 1.5, we bind the outputs for the user
         // For versions 3.3 and up, user should use layout qualifiers instead.
         boolean bindFragDataRequired = false;
 
         for (ShaderSource source : shader.getSources()) {
             if (source.isUpdateNeeded()) {
-                updateShaderSourceData(source);
+                compileShaderSource(source);
             }
             if (source.getType() == ShaderType.Fragment
                     && source.getLanguage().equals("GLSL150")) {
@@ -1706,6 +1912,20 @@ public final class GLRenderer implements Renderer {
 
         // Link shaders to program
         gl.glLinkProgram(id);
+        return new PendingProgram(binaryKey, needRegister);
+    }
+
+    /**
+     * Checks the compilation and link of a submitted program, waiting for
+     * them if needed, and finishes its setup.
+     */
+    private void checkShaderData(Shader shader, PendingProgram pending) {
+        int id = shader.getId();
+        for (ShaderSource source : shader.getSources()) {
+            if (source.isUpdateNeeded()) {
+                checkShaderSource(source);
+            }
+        }
 
         // Check link status
         gl.glGetProgram(id, GL.GL_LINK_STATUS, intBuf1);
@@ -1727,8 +1947,11 @@ public final class GLRenderer implements Renderer {
             } else {
                 logger.fine("Shader linked successfully.");
             }
+            if (pending.binaryKey != null) {
+                saveProgramBinary(id, pending.binaryKey);
+            }
             shader.clearUpdateNeeded();
-            if (needRegister) {
+            if (pending.needRegister) {
                 // Register shader for clean up if it was created in this method.
                 objManager.registerObject(shader);
                 statistics.onNewShader();
@@ -1745,6 +1968,25 @@ public final class GLRenderer implements Renderer {
         }
     }
 
+    @Override
+    public boolean isShaderReady(Shader shader) {
+        if (!shader.isUpdateNeeded() || !asyncShaderCompile
+                || !caps.contains(Caps.ParallelShaderCompile)) {
+            return true;
+        }
+        if (shader.getId() == -1 || !pendingPrograms.containsKey(shader.getId())) {
+            PendingProgram pending = submitShaderData(shader);
+            if (pending == null) {
+                return true;
+            }
+            pendingPrograms.put(shader.getId(), pending);
+            statistics.onShaderCompileStarted();
+            return false;
+        }
+        gl.glGetProgram(shader.getId(), GLExt.GL_COMPLETION_STATUS_KHR, intBuf1);
+        return intBuf1.get(0) == GL.GL_TRUE;
+    }
+
     @Override
     public void setShader(Shader shader) {
         if (shader == null) {
@@ -1782,6 +2024,9 @@ public final class GLRenderer implements Renderer {
             logger.warning("Shader is not uploaded to GPU, cannot delete.");
             return;
         }
+        if (pendingPrograms.remove(shader.getId()) != null) {
+            statistics.onShaderCompileFinished();
+        }
 
         for (ShaderSource source : shader.getSources()) {
             if (source.getId() != -1) {
@@ -2776,10 +3021,12 @@ public final class GLRenderer implements Renderer {
             updateUniformBufferObjectData(bufferObject);
         }
 
-        if (context.boundBO[bindingPoint] == null || context.boundBO[bindingPoint].get() != bufferObject) {
+        if (context.boundBO[bindingPoint] == null || context.boundBO[bindingPoint].get() != bufferObject
+                || context.boundBOSize[bindingPoint] != 0) {
             gl3.glBindBufferBase(GL3.GL_UNIFORM_BUFFER, bindingPoint, bufferObject.getId());
             bufferObject.setBinding(bindingPoint);
             context.boundBO[bindingPoint] = bufferObject.getWeakRef();
+            context.boundBOSize[bindingPoint] = 0;
         }
 
         bufferObject.setBinding(bindingPoint);
@@ -2790,15 +3037,38 @@ public final class GLRenderer implements Renderer {
 
     }
 
+    @Override
+    public void setUniformBufferObject(int bindingPoint, BufferObject bufferObject, int offset, int size) {
+        if (bufferObject.isUpdateNeeded()) {
+            updateUniformBufferObjectData(bufferObject);
+        }
+
+        if (context.boundBO[bindingPoint] == null || context.boundBO[bindingPoint].get() != bufferObject
+                || context.boundBOOffset[bindingPoint] != offset || context.boundBOSize[bindingPoint] != size) {
+            gl3.glBindBufferRange(GL3.GL_UNIFORM_BUFFER, bindingPoint, bufferObject.getId(), offset, size);
+            context.boundBO[bindingPoint] = bufferObject.getWeakRef();
+            context.boundBOOffset[bindingPoint] = offset;
+            context.boundBOSize[bindingPoint] = size;
+        }
+
+        bufferObject.setBinding(bindingPoint);
+
+        if (debug && caps.contains(Caps.GLDebug)) {
+            if (bufferObject.getName() != null) glext.glObjectLabel(GLExt.GL_BUFFER, bufferObject.getId(), bufferObject.getName());
+        }
+    }
+
     @Override
     public void setShaderStorageBufferObject(int bindingPoint, BufferObject bufferObject) {
         if (bufferObject.isUpdateNeeded()) {
             updateShaderStorageBufferObjectData(bufferObject);
         }
-        if (context.boundBO[bindingPoint] == null || context.boundBO[bindingPoint].get() != bufferObject) {
+        if (context.boundBO[bindingPoint] == null || context.boundBO[bindingPoint].get() != bufferObject
+                || context.boundBOSize[bindingPoint] != 0) {
             gl4.glBindBufferBase(GL4.GL_SHADER_STORAGE_BUFFER, bindingPoint, bufferObject.getId());
             bufferObject.setBinding(bindingPoint);
             context.boundBO[bindingPoint] = bufferObject.getWeakRef();
+            context.boundBOSize[bindingPoint] = 0;
         }
         bufferObject.setBinding(bindingPoint);
 
@@ -2925,31 +3195,50 @@ public final class GLRenderer implements Renderer {
             created = true;
         }
 
-        // bind buffer
-        int target;
-        if (vb.getBufferType() == VertexBuffer.Type.Index) {
-            target = GL.GL_ELEMENT_ARRAY_BUFFER;
-            if (context.boundElementArrayVBO != bufId) {
-                gl.glBindBuffer(target, bufId);
-                context.boundElementArrayVBO = bufId;
-                //statistics.onVertexBufferUse(vb, true);
-            } else {
-                //statistics.onVertexBufferUse(vb, false);
-            }
-        } else {
-            target = GL.GL_ARRAY_BUFFER;
-            if (context.boundArrayVBO != bufId) {
-                gl.glBindBuffer(target, bufId);
-                context.boundArrayVBO = bufId;
-                //statistics.onVertexBufferUse(vb, true);
-            } else {
-                //statistics.onVertexBufferUse(vb, false);
-            }
+        boolean stream = !created && vb.getUsage() == Usage.Stream;
+        if (stream && caps.contains(Caps.BufferStorage)) {
+            updateStreamBuffer(vb);
+            return;
         }
 
+        // bind buffer
+        int target = bindBuffer(vb, bufId);
+
         int usage = convertUsage(vb.getUsage());
         vb.getData().rewind();
 
+        if (stream) {
+            // Orphan the old storage, so that the driver does not wait for
+            // the draws that still read it before accepting the new data.
+            gl.glBufferData(target, (long) vb.getData().limit() * vb.getFormat().getComponentSize(), usage);
+            switch (vb.getFormat()) {
+                case Byte:
+                case UnsignedByte:
+                    gl.glBufferSubData(target, 0, (ByteBuffer) vb.getData());
+                    break;
+                case Short:
+                case UnsignedShort:
+                    gl.glBufferSubData(target, 0, (ShortBuffer) vb.getData());
+                    break;
+                case Int:
+                case UnsignedInt:
+                    glext.glBufferSubData(target, 0, (IntBuffer) vb.getData());
+                    break;
+                case Float:
+                    gl.glBufferSubData(target, 0, (FloatBuffer) vb.getData());
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unknown buffer format.");
+            }
+            vb.clearUpdateNeeded();
+            return;
+        }
+
+        if (!created && vb.getNumDirtyRanges() > 0) {
+            updateBufferRanges(vb, target);
+            return;
+        }
+
         switch (vb.getFormat()) {
             case Byte:
             case UnsignedByte:
@@ -2973,6 +3262,135 @@ public final class GLRenderer implements Renderer {
         vb.clearUpdateNeeded();
     }
 
+    /**
+     * Uploads the ranges of elements marked with
+     * {@link VertexBuffer#updateData(int, int)}.
+     *
+     * @param vb the vertex buffer, bound to the target
+     * @param target the target
+     */
+    private void updateBufferRanges(VertexBuffer vb, int target) {
+        Buffer data = vb.getData();
+        int limit = data.limit();
+        int components = vb.getNumComponents();
+        int componentSize = vb.getFormat().getComponentSize();
+        for (int i = 0; i < vb.getNumDirtyRanges(); i++) {
+            int start = vb.getDirtyRangeStart(i) * components;
+            data.limit(vb.getDirtyRangeEnd(i) * components).position(start);
+            long offset = (long) start * componentSize;
+            switch (vb.getFormat()) {
+                case Byte:
+                case UnsignedByte:
+                    gl.glBufferSubData(target, offset, (ByteBuffer) data);
+                    break;
+                case Short:
+                case UnsignedShort:
+                    gl.glBufferSubData(target, offset, (ShortBuffer) data);
+                    break;
+                case Int:
+                case UnsignedInt:
+                    glext.glBufferSubData(target, offset, (IntBuffer) data);
+                    break;
+                case Float:
+                    gl.glBufferSubData(target, offset, (FloatBuffer) data);
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unknown buffer format.");
+            }
+            data.limit(limit);
+        }
+        data.rewind();
+        vb.clearUpdateNeeded();
+    }
+
+    /**
+     * Binds a vertex buffer to the target matching its type.
+     *
+     * @param vb the vertex buffer
+     * @param bufId the GL name of the buffer to bind
+     * @return the target
+     */
+    private int bindBuffer(VertexBuffer vb, int bufId) {
+        int target;
+        if (vb.getBufferType() == VertexBuffer.Type.Index) {
+            target = GL.GL_ELEMENT_ARRAY_BUFFER;
+            if (context.boundElementArrayVBO != bufId) {
+                gl.glBindBuffer(target, bufId);
+                context.boundElementArrayVBO = bufId;
+                //statistics.onVertexBufferUse(vb, true);
+            } else {
+                //statistics.onVertexBufferUse(vb, false);
+            }
+        } else {
+            target = GL.GL_ARRAY_BUFFER;
+            if (context.boundArrayVBO != bufId) {
+                gl.glBindBuffer(target, bufId);
+                context.boundArrayVBO = bufId;
+                //statistics.onVertexBufferUse(vb, true);
+            } else {
+                //statistics.onVertexBufferUse(vb, false);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Updates a stream vertex buffer through its persistently mapped ring,
+     * creating the ring on the first update after the initial upload.
+     *
+     * @param vb the vertex buffer, which already has an id
+     */
+    private void updateStreamBuffer(VertexBuffer vb) {
+        int size = vb.getData().limit() * vb.getFormat().getComponentSize();
+        StreamBufferRing ring = streamBuffers.get(vb.getId());
+        if (ring == null || !ring.fits(vb.getFormat(), size)) {
+            if (ring != null) {
+                deleteStreamBuffer(ring);
+            } else {
+                // the initial storage is not read anymore
+                int target = bindBuffer(vb, vb.getId());
+                gl.glBufferData(target, 0L, convertUsage(vb.getUsage()));
+            }
+            intBuf1.clear();
+            gl.glGenBuffers(intBuf1);
+            int ringId = intBuf1.get(0);
+            int target = bindBuffer(vb, ringId);
+            ring = new StreamBufferRing(gl4, target, ringId, vb.getFormat(), size);
+            streamBuffers.put(vb.getId(), ring);
+        }
+        ring.write(vb.getData());
+        vb.clearUpdateNeeded();
+    }
+
+    /**
+     * Returns the persistently mapped ring that holds the data of a vertex
+     * buffer.
+     *
+     * @param vb the vertex buffer
+     * @return the ring, or null if the data is in the buffer named by the id
+     * of the vertex buffer
+     */
+    private StreamBufferRing getStreamBuffer(VertexBuffer vb) {
+        if (vb.getUsage() != Usage.Stream || streamBuffers.size() == 0) {
+            return null;
+        }
+        return streamBuffers.get(vb.getId());
+    }
+
+    private void deleteStreamBuffer(StreamBufferRing ring) {
+        ring.deleteFences();
+        int ringId = ring.getBufferId();
+        intBuf1.put(0, ringId);
+        intBuf1.position(0).limit(1);
+        gl.glDeleteBuffers(intBuf1);
+        if (context.boundArrayVBO == ringId) {
+            context.boundArrayVBO = 0;
+        }
+        if (context.boundElementArrayVBO == ringId) {
+            context.boundElementArrayVBO = 0;
+        }
+    }
+
     private int resolveUsageHint(BufferObject.AccessHint ah, BufferObject.NatureHint nh) {
         switch (ah) {
             case Dynamic: {
@@ -3072,6 +3490,11 @@ public final class GLRenderer implements Renderer {
     public void deleteBuffer(VertexBuffer vb) {
         int bufId = vb.getId();
         if (bufId != -1) {
+            StreamBufferRing ring = streamBuffers.remove(bufId);
+            if (ring != null) {
+                deleteStreamBuffer(ring);
+            }
+
             // delete buffer
             intBuf1.put(0, bufId);
             intBuf1.position(0).limit(1);
@@ -3169,9 +3592,12 @@ public final class GLRenderer implements Renderer {
                 gl.glEnableVertexAttribArray(loc + i);
             }
         }
-        if (attribs[loc]==null||attribs[loc].get() != vb) {
-            // NOTE: Use id from interleaved buffer if specified
-            int bufId = idb != null ? idb.getId() : vb.getId();
+        // NOTE: Use id from interleaved buffer if specified
+        StreamBufferRing ring = getStreamBuffer(idb != null ? idb : vb);
+        // the segment of a stream buffer changes with each update
+        if (ring != null || attribs[loc]==null||attribs[loc].get() != vb) {
+            int bufId = ring != null ? ring.getBufferId() : idb != null ? idb.getId() : vb.getId();
+            int ringOffset = ring != null ? ring.getOffset() : 0;
             assert bufId != -1;
             if (context.boundArrayVBO != bufId) {
                 gl.glBindBuffer(GL.GL_ARRAY_BUFFER, bufId);
@@ -3187,7 +3613,7 @@ public final class GLRenderer implements Renderer {
                         convertFormat(vb.getFormat()),
                         vb.isNormalized(),
                         vb.getStride(),
-                        vb.getOffset());
+                        ringOffset + vb.getOffset());
             } else {
                 for (int i = 0; i < slotsRequired; i++) {
                     // The pointer maps the next 4 floats in the slot.
@@ -3203,7 +3629,7 @@ public final class GLRenderer implements Renderer {
                             convertFormat(vb.getFormat()),
                             vb.isNormalized(),
                             4 * 4 * slotsRequired,
-                            4 * 4 * i);
+                            ringOffset + 4 * 4 * i);
                 }
             }
 
@@ -3263,7 +3689,9 @@ public final class GLRenderer implements Renderer {
             updateBufferData(indexBuf);
         }
 
-        int bufId = indexBuf.getId();
+        StreamBufferRing ring = getStreamBuffer(indexBuf);
+        int bufId = ring != null ? ring.getBufferId() : indexBuf.getId();
+        int ringOffset = ring != null ? ring.getOffset() : 0;
         assert bufId != -1;
 
         if (context.boundElementArrayVBO != bufId) {
@@ -3287,7 +3715,7 @@ public final class GLRenderer implements Renderer {
             int listStart = modeStart[0];
             int stripStart = modeStart[1];
             int fanStart = modeStart[2];
-            int curOffset = 0;
+            int curOffset = ringOffset;
             for (int i = 0; i < elementLengths.length; i++) {
                 if (i == stripStart) {
                     elMode = convertElementMode(Mode.TriangleStrip);
@@ -3318,7 +3746,7 @@ public final class GLRenderer implements Renderer {
                 glext.glDrawElementsInstancedARB(convertElementMode(mesh.getMode()),
                         indexBuf.getData().limit(),
                         convertFormat(indexBuf.getFormat()),
-                        0,
+                        ringOffset,
                         count);
             } else {
                 gl.glDrawRangeElements(convertElementMode(mesh.getMode()),
@@ -3326,7 +3754,7 @@ public final class GLRenderer implements Renderer {
                         vertCount,
                         indexBuf.getData().limit(),
                         convertFormat(indexBuf.getFormat()),
-                        0);
+                        ringOffset);
             }
         }
     }
@@ -3410,11 +3838,6 @@ public final class GLRenderer implements Renderer {
         // the method is collapsed again.  -pspeed
         count = Math.max(mesh.getInstanceCount(), count);
 
-        VertexBuffer interleavedData = mesh.getBuffer(Type.InterleavedData);
-        if (interleavedData != null && interleavedData.isUpdateNeeded()) {
-            updateBufferData(interleavedData);
-        }
-
         VertexBuffer indices;
         if (mesh.getNumLodLevels() > 0) {
             indices = mesh.getLodLevel(lod);
@@ -3422,6 +3845,25 @@ public final class GLRenderer implements Renderer {
             indices = mesh.getBuffer(Type.Index);
         }
 
+        setVertexAttribs(mesh, instanceData);
+
+        if (indices != null) {
+            drawTriangleList(indices, mesh, count);
+        } else {
+            drawTriangleArray(mesh.getMode(), count, mesh.getVertexCount());
+        }
+    }
+
+    /**
+     * Sets the vertex attributes of the mesh and of the per-instance data,
+     * and disables the attributes left from the previous draw.
+     */
+    private void setVertexAttribs(Mesh mesh, VertexBuffer[] instanceData) {
+        VertexBuffer interleavedData = mesh.getBuffer(Type.InterleavedData);
+        if (interleavedData != null && interleavedData.isUpdateNeeded()) {
+            updateBufferData(interleavedData);
+        }
+
         if (instanceData != null) {
             for (VertexBuffer vb : instanceData) {
                 setVertexAttrib(vb, null);
@@ -3445,12 +3887,6 @@ public final class GLRenderer implements Renderer {
         }
 
         clearVertexAttribs();
-
-        if (indices != null) {
-            drawTriangleList(indices, mesh, count);
-        } else {
-            drawTriangleArray(mesh.getMode(), count, mesh.getVertexCount());
-        }
     }
 
     @Override
@@ -3479,6 +3915,50 @@ public final class GLRenderer implements Renderer {
 //        }
     }
 
+    @Override
+    public void renderMeshIndirect(Mesh mesh, BufferObject commands, int drawCount,
+            VertexBuffer[] instanceData) {
+        if (drawCount == 0) {
+            return;
+        }
+        if (!caps.contains(Caps.MultiDrawIndirect)) {
+            throw new RendererException("Multi-draw indirect is not supported by the video hardware");
+        }
+        VertexBuffer indexBuf = mesh.getBuffer(Type.Index);
+        if (indexBuf == null) {
+            throw new IllegalArgumentException("Indirect draws require an index buffer.");
+        }
+
+        setVertexAttribs(mesh, instanceData);
+
+        if (indexBuf.isUpdateNeeded()) {
+            updateBufferData(indexBuf);
+        }
+        if (context.boundElementArrayVBO != indexBuf.getId()) {
+            gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, indexBuf.getId());
+            context.boundElementArrayVBO = indexBuf.getId();
+        }
+
+        if (commands.isUpdateNeeded()) {
+            updateBufferData(GL4.GL_DRAW_INDIRECT_BUFFER, commands);
+        }
+        gl.glBindBuffer(GL4.GL_DRAW_INDIRECT_BUFFER, commands.getId());
+        gl4.glMultiDrawElementsIndirect(convertElementMode(mesh.getMode()),
+                convertFormat(indexBuf.getFormat()), 0, drawCount, 0);
+
+        if (statistics.isEnabled()) {
+            int triangles = 0;
+            if (mesh.getMode() == Mode.Triangles) {
+                ByteBuffer data = commands.getData();
+                for (int i = 0; i < drawCount; i++) {
+                    // index count of each 5 int command
+                    triangles += data.getInt(i * 20) / 3;
+                }
+            }
+            statistics.onIndirectDraw(drawCount, triangles);
+        }
+    }
+
     @Override
     public void setMainFrameBufferSrgb(boolean enableSrgb) {
         // Gamma correction
@@ -3616,4 +4096,18 @@ public final class GLRenderer implements Renderer {
     public void registerNativeObject(NativeObject nativeObject) {
         objManager.registerObject(nativeObject);
     }
+
+    /**
+     * A program whose compilation and link were submitted but not checked.
+     */
+    private static final class PendingProgram {
+
+        private final String binaryKey;
+        private final boolean needRegister;
+
+        PendingProgram(String binaryKey, boolean needRegister) {
+            this.binaryKey = binaryKey;
+            this.needRegister = needRegister;
+        }
+    }
 }
@@ -0,0 +1,404 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.opengl;
+
+import com.jme3.util.BufferUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores linked shader programs on disk as driver program binaries
+ * (<code>glGetProgramBinary</code>), so variants linked in a previous run
+ * can be restored with <code>glProgramBinary</code> instead of being
+ * compiled again.
+ * <p>
+ * Entries are keyed by a hash of the driver identification and of the
+ * final GLSL sources of the program. The sources include the version
+ * header, which depends on the renderer capabilities, and the define list
+ * of the variant, so each variant gets its own entry. Binaries the driver
+ * rejects anyway are removed by {@link GLRenderer} and recompiled.
+ * <p>
+ * Once the renderer knows the driver, see {@link #setDriver(java.lang.String) },
+ * entries are stored in a folder of that driver. The folders of other
+ * drivers can never match again after a driver update, so they are deleted,
+ * as are entries that have not been used for
+ * {@link #setMaxUnusedAge(long) a while}.
+ * <p>
+ * Every program stored in the cache is a variant that was used before,
+ * so {@link #preload(java.util.concurrent.Executor)} can read all of them
+ * in the background at startup. The first use of each variant then skips
+ * the disk read as well as the compilation.
+ *
+ * @see GLRenderer#setProgramBinaryCache(com.jme3.renderer.opengl.ProgramBinaryCache)
+ */
+public class ProgramBinaryCache {
+
+    private static final Logger logger = Logger.getLogger(ProgramBinaryCache.class.getName());
+
+    private static final int MAGIC = 0x4A4D5042; // JMPB
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".bin";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final int DRIVER_FOLDER_LENGTH = 16;
+
+    /**
+     * Entries unused for this long are deleted by default: 30 days.
+     */
+    public static final long DEFAULT_MAX_UNUSED_AGE = 30L * 24 * 60 * 60 * 1000;
+
+    /**
+     * A program binary and its driver specific format.
+     */
+    public static final class ProgramBinary {
+
+        private final int format;
+        private final ByteBuffer data;
+
+        public ProgramBinary(int format, ByteBuffer data) {
+            this.format = format;
+            this.data = data;
+        }
+
+        /**
+         * @return the binary format, as returned by glGetProgramBinary
+         */
+        public int getFormat() {
+            return format;
+        }
+
+        /**
+         * @return the binary, a direct buffer
+         */
+        public ByteBuffer getData() {
+            return data;
+        }
+    }
+
+    private final File directory;
+    private final ConcurrentHashMap<String, ProgramBinary> preloaded = new ConcurrentHashMap<>();
+    private volatile File entries;
+    private long maxUnusedAge = DEFAULT_MAX_UNUSED_AGE;
+
+    /**
+     * Creates a cache storing its entries in the given directory. The
+     * directory is created when the first entry is saved.
+     *
+     * @param directory the cache directory (not null)
+     */
+    public ProgramBinaryCache(File directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory cannot be null");
+        }
+        this.directory = directory;
+        this.entries = directory;
+    }
+
+    /**
+     * @return the directory holding the cache entries
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Sets how long an entry is kept without being used. Takes effect the
+     * next time the driver is set.
+     *
+     * @param maxUnusedAge the age in milliseconds
+     * (default={@link #DEFAULT_MAX_UNUSED_AGE})
+     */
+    public void setMaxUnusedAge(long maxUnusedAge) {
+        this.maxUnusedAge = maxUnusedAge;
+    }
+
+    /**
+     * @return the age in milliseconds after which unused entries are deleted
+     */
+    public long getMaxUnusedAge() {
+        return maxUnusedAge;
+    }
+
+    /**
+     * Selects the driver whose binaries are stored and loaded, called by
+     * {@link GLRenderer} once it is initialized. Until then, entries are
+     * stored directly in the cache directory.
+     * <p>
+     * Deletes the entries of every other driver, the entries stored
+     * without a driver, and the entries of this driver unused for longer
+     * than {@link #getMaxUnusedAge() }. Preloaded entries are released.
+     *
+     * @param driver identifies the driver, e.g. vendor, renderer and version
+     */
+    public void setDriver(String driver) {
+        String name = computeKey(driver, Collections.<String>emptyList()).substring(0, DRIVER_FOLDER_LENGTH);
+        File folder = new File(directory, name);
+        if (folder.equals(entries)) {
+            return;
+        }
+        releasePreloaded();
+        entries = folder;
+
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    if (!file.equals(folder) && file.getName().length() == DRIVER_FOLDER_LENGTH) {
+                        deleteEntries(file, Long.MAX_VALUE);
+                        file.delete();
+                    }
+                } else if (isEntry(file)) {
+                    file.delete();
+                }
+            }
+        }
+        deleteEntries(folder, System.currentTimeMillis() - maxUnusedAge);
+    }
+
+    private static boolean isEntry(File file) {
+        String name = file.getName();
+        return name.endsWith(EXTENSION) || name.endsWith(TEMP_EXTENSION);
+    }
+
+    /**
+     * Deletes the entries of a folder last used before the given time.
+     */
+    private static void deleteEntries(File folder, long before) {
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (isEntry(file) && file.lastModified() < before) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Computes the key of a program.
+     *
+     * @param driver identifies the driver, e.g. vendor, renderer and version
+     * @param sources the final sources of every stage, in attach order
+     * @return a key usable as a file name
+     */
+    public static String computeKey(String driver, List<String> sources) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(driver.getBytes(StandardCharsets.UTF_8));
+            for (String source : sources) {
+                digest.update((byte) 0);
+                digest.update(source.getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder sb = new StringBuilder(40);
+            for (byte b : digest.digest()) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private File getFile(String key) {
+        return new File(entries, key + EXTENSION);
+    }
+
+    /**
+     * Returns the program binary stored under the given key.
+     *
+     * @param key the program key
+     * @return the binary, or null if there is none or it cannot be read
+     */
+    public ProgramBinary load(String key) {
+        File file = getFile(key);
+        ProgramBinary binary = preloaded.remove(key);
+        if (binary != null) {
+            // The modification time records the last use of the entry
+            file.setLastModified(System.currentTimeMillis());
+            return binary;
+        }
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            binary = read(file);
+            file.setLastModified(System.currentTimeMillis());
+            return binary;
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Cannot read program binary " + file, ex);
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a program binary under the given key. Failures are logged, the
+     * program then simply gets compiled again in the next run.
+     *
+     * @param key the program key
+     * @param format the binary format
+     * @param data the binary, from its position to its limit
+     */
+    public void save(String key, int format, ByteBuffer data) {
+        File folder = entries;
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            logger.log(Level.WARNING, "Cannot create program binary cache directory {0}", folder);
+            return;
+        }
+        File file = new File(folder, key + EXTENSION);
+        File temp = new File(folder, key + TEMP_EXTENSION);
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(format);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Cannot write program binary " + file, ex);
+            temp.delete();
+            return;
+        }
+        file.delete();
+        if (!temp.renameTo(file)) {
+            logger.log(Level.WARNING, "Cannot write program binary {0}", file);
+            temp.delete();
+        }
+    }
+
+    /**
+     * Removes the entry stored under the given key, e.g. because the driver
+     * rejected the binary.
+     *
+     * @param key the program key
+     */
+    public void remove(String key) {
+        ProgramBinary binary = preloaded.remove(key);
+        if (binary != null) {
+            BufferUtils.destroyDirectBuffer(binary.getData());
+        }
+        getFile(key).delete();
+    }
+
+    /**
+     * Reads every entry of the current driver into memory on the given
+     * executor, so the programs used at startup are restored without
+     * touching the disk. Entries loaded this way are released once they are
+     * used. Entries that are not used during startup, e.g. those of levels
+     * not loaded yet, are released by {@link #releasePreloaded() }, which
+     * should be called once warm-up is over.
+     *
+     * @param executor the executor to read the entries on
+     * @return a future completing once all entries are read
+     */
+    public CompletableFuture<Void> preload(Executor executor) {
+        return CompletableFuture.runAsync(new Runnable() {
+            @Override
+            public void run() {
+                File[] files = entries.listFiles();
+                if (files == null) {
+                    return;
+                }
+                for (File file : files) {
+                    String name = file.getName();
+                    if (!name.endsWith(EXTENSION) || !file.isFile()) {
+                        continue;
+                    }
+                    try {
+                        String key = name.substring(0, name.length() - EXTENSION.length());
+                        preloaded.putIfAbsent(key, read(file));
+                    } catch (IOException ex) {
+                        logger.log(Level.WARNING, "Cannot read program binary " + file, ex);
+                        file.delete();
+                    }
+                }
+            }
+        }, executor);
+    }
+
+    /**
+     * Releases the preloaded entries that have not been used, freeing their
+     * native memory. They are read from the disk if requested later. Call
+     * it after the future returned by {@link #preload(java.util.concurrent.Executor) }
+     * has completed.
+     */
+    public void releasePreloaded() {
+        for (String key : preloaded.keySet()) {
+            ProgramBinary binary = preloaded.remove(key);
+            if (binary != null) {
+                BufferUtils.destroyDirectBuffer(binary.getData());
+            }
+        }
+    }
+
+    private static ProgramBinary read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a program binary");
+            }
+            int format = in.readInt();
+            int length = in.readInt();
+            // the header is four ints, a truncated or corrupt entry must not
+            // make us allocate whatever length it claims
+            long available = file.length() - 4 * Integer.BYTES;
+            if (length < 0 || length > available) {
+                throw new IOException("Invalid program binary length " + length
+                        + ", " + available + " bytes available");
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            ByteBuffer data = BufferUtils.createByteBuffer(bytes.length);
+            data.put(bytes).flip();
+            return new ProgramBinary(format, data);
+        }
+    }
+}
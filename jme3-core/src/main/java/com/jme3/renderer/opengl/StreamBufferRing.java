@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.opengl;
+
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.VertexBuffer.Format;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * A persistently mapped GL buffer split into {@link #SEGMENTS} segments,
+ * which backs a {@link VertexBuffer.Usage#Stream} vertex buffer once it is
+ * updated after its first upload.
+ * <p>
+ * Each update writes the next segment through the mapping, and the draws
+ * read that segment at {@link #getOffset()}. A fence is inserted when a
+ * segment is retired and waited on before the segment is written again, so
+ * the CPU only blocks when the GPU is more than two updates behind.
+ */
+final class StreamBufferRing {
+
+    /**
+     * Number of segments: one written by the CPU while the GPU may still read
+     * the two previous ones.
+     */
+    static final int SEGMENTS = 3;
+
+    /**
+     * Segments start at multiples of this many bytes, which satisfies the
+     * alignment of every attribute and index format.
+     */
+    private static final int ALIGNMENT = 256;
+
+    private static final int FLAGS = GL4.GL_MAP_WRITE_BIT | GL4.GL_MAP_PERSISTENT_BIT
+            | GL4.GL_MAP_COHERENT_BIT;
+
+    private final GL4 gl4;
+    private final int bufferId;
+    private final Format format;
+    private final int segmentSize;
+    private final Buffer[] segments = new Buffer[SEGMENTS];
+    private final GLFence[] fences = new GLFence[SEGMENTS];
+    private int current = -1;
+
+    /**
+     * Creates the storage of the given buffer and maps it.
+     *
+     * @param gl4 the GL used to map the buffer and to wait on the fences
+     * @param target the target the buffer is bound to
+     * @param bufferId the GL name of the buffer, without storage yet
+     * @param format the format of the vertex buffer
+     * @param size the size of one update in bytes
+     */
+    StreamBufferRing(GL4 gl4, int target, int bufferId, Format format, int size) {
+        this.gl4 = gl4;
+        this.bufferId = bufferId;
+        this.format = format;
+        this.segmentSize = (Math.max(size, 1) + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+
+        gl4.glBufferStorage(target, (long) segmentSize * SEGMENTS, FLAGS);
+        ByteBuffer mapped = gl4.glMapBufferRange(target, 0, (long) segmentSize * SEGMENTS, FLAGS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            mapped.limit((i + 1) * segmentSize).position(i * segmentSize);
+            ByteBuffer segment = mapped.slice().order(ByteOrder.nativeOrder());
+            switch (format) {
+                case Byte:
+                case UnsignedByte:
+                    segments[i] = segment;
+                    break;
+                case Short:
+                case UnsignedShort:
+                    segments[i] = segment.asShortBuffer();
+                    break;
+                case Int:
+                case UnsignedInt:
+                    segments[i] = segment.asIntBuffer();
+                    break;
+                case Float:
+                    segments[i] = segment.asFloatBuffer();
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unknown buffer format.");
+            }
+        }
+    }
+
+    /**
+     * Returns the GL name of the buffer.
+     *
+     * @return the buffer name
+     */
+    int getBufferId() {
+        return bufferId;
+    }
+
+    /**
+     * Returns the offset in bytes of the segment written last, where the
+     * draws must read the data.
+     *
+     * @return the offset in bytes
+     */
+    int getOffset() {
+        return current * segmentSize;
+    }
+
+    /**
+     * Tests whether an update fits in a segment of this ring.
+     *
+     * @param format the format of the vertex buffer
+     * @param size the size of the update in bytes
+     * @return true if the update can be written
+     */
+    boolean fits(Format format, int size) {
+        return this.format == format && size <= segmentSize;
+    }
+
+    /**
+     * Retires the current segment and copies the data into the next one,
+     * waiting for the GPU to finish reading it if necessary.
+     *
+     * @param data the data of the vertex buffer, from 0 to its limit
+     */
+    void write(Buffer data) {
+        if (current >= 0) {
+            fences[current] = gl4.glFenceSync(GL4.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        }
+        current = (current + 1) % SEGMENTS;
+
+        GLFence fence = fences[current];
+        if (fence != null) {
+            int status;
+            do {
+                status = gl4.glClientWaitSync(fence, GL4.GL_SYNC_FLUSH_COMMANDS_BIT, 1000000L);
+            } while (status == GL4.GL_TIMEOUT_EXPIRED);
+            gl4.glDeleteSync(fence);
+            fences[current] = null;
+        }
+
+        Buffer segment = segments[current];
+        segment.clear();
+        data.rewind();
+        switch (format) {
+            case Byte:
+            case UnsignedByte:
+                ((ByteBuffer) segment).put((ByteBuffer) data);
+                break;
+            case Short:
+            case UnsignedShort:
+                ((ShortBuffer) segment).put((ShortBuffer) data);
+                break;
+            case Int:
+            case UnsignedInt:
+                ((IntBuffer) segment).put((IntBuffer) data);
+                break;
+            default:
+                ((FloatBuffer) segment).put((FloatBuffer) data);
+                break;
+        }
+        data.rewind();
+    }
+
+    /**
+     * Deletes the pending fences. The buffer itself is deleted by the
+     * renderer, which also unmaps it.
+     */
+    void deleteFences() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            if (fences[i] != null) {
+                gl4.glDeleteSync(fences[i]);
+                fences[i] = null;
+            }
+        }
+    }
+}
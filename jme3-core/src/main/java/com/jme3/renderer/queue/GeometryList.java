@@ -31,6 +31,7 @@
  */
 package com.jme3.renderer.queue;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -49,12 +50,32 @@ import com.jme3.util.ListSort;
 public class GeometryList implements Iterable<Geometry>{
 
     private static final int DEFAULT_SIZE = 32;
+    /**
+     * Lists up to this size are key sorted with an insertion sort.
+     */
+    private static final int INSERTION_SORT_SIZE = 32;
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int RADIX_PASSES = Long.SIZE / RADIX_BITS;
 
     private Geometry[] geometries;
     private final ListSort listSort;
     private int size;
     private GeometryComparator comparator;
 
+    private boolean keySortEnabled;
+    private long[] sortKeys;
+    private long[] sortKeysTmp;
+    /**
+     * Indices into the unsorted list, in sorted order. Kept between frames
+     * so it can be reused when the same geometries are queued again.
+     */
+    private int[] sortOrder;
+    private int[] sortOrderTmp;
+    private Geometry[] lastInput;
+    private int lastSize;
+    private int[] histograms;
+
     /**
      * Initializes the GeometryList to use the given {@link GeometryComparator}
      * to use for comparing geometries.
@@ -72,6 +93,42 @@ public class GeometryList implements Iterable<Geometry>{
         this.comparator = comparator;
     }
 
+    /**
+     * Enables or disables sorting by primitive sort keys.
+     * <p>
+     * When enabled and the comparator is a {@link SortKeyComparator}, each
+     * geometry's key is computed once per sort and the keys are radix
+     * sorted, instead of comparing geometries pairwise. If the list holds
+     * the same geometries in the same order as at the previous sort, the
+     * previous order is tried first and kept when it is still sorted. The
+     * resulting order is the same as with the comparator. Other comparators
+     * are unaffected.
+     * <p>
+     * Key sorting is disabled by default.
+     *
+     * @param enabled true to enable key sorting
+     */
+    public void setKeySortEnabled(boolean enabled) {
+        keySortEnabled = enabled;
+        if (!enabled) {
+            sortKeys = sortKeysTmp = null;
+            sortOrder = sortOrderTmp = null;
+            lastInput = null;
+            lastSize = 0;
+            histograms = null;
+        }
+    }
+
+    /**
+     * Tests whether sorting by primitive sort keys is enabled.
+     *
+     * @return true if enabled
+     * @see #setKeySortEnabled(boolean)
+     */
+    public boolean isKeySortEnabled() {
+        return keySortEnabled;
+    }
+
     /**
      * Returns the GeometryComparator that this Geometry list uses
      * for sorting.
@@ -154,12 +211,172 @@ public class GeometryList implements Iterable<Geometry>{
     @SuppressWarnings("unchecked")
     public void sort() {
         if (size > 1) {
+            if (keySortEnabled && comparator instanceof SortKeyComparator) {
+                sortByKey((SortKeyComparator) comparator);
+                return;
+            }
+            forgetLastOrder();
             // sort the spatial list using the comparator
             if (listSort.getLength() != size) {
                 listSort.allocateStack(size);
             }
             listSort.sort(geometries,comparator);
+        } else {
+            forgetLastOrder();
+        }
+    }
+
+    /**
+     * Drops the geometries remembered from the previous key sort, so that
+     * they do not stay reachable once they are no longer queued.
+     */
+    private void forgetLastOrder() {
+        if (lastSize > 0) {
+            Arrays.fill(lastInput, 0, lastSize, null);
+            lastSize = 0;
+        }
+    }
+
+    private void sortByKey(SortKeyComparator keyComparator) {
+        if (sortKeys == null || sortKeys.length < size) {
+            int capacity = geometries.length;
+            sortKeys = new long[capacity];
+            sortKeysTmp = new long[capacity];
+            sortOrder = new int[capacity];
+            sortOrderTmp = new int[capacity];
+            lastInput = new Geometry[capacity];
+            lastSize = 0;
+        }
+        long[] keys = sortKeys;
+        for (int i = 0; i < size; i++) {
+            keys[i] = keyComparator.getSortKey(geometries[i]);
+        }
+
+        if (!isLastOrderValid()) {
+            int[] order = sortOrder;
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            if (size <= INSERTION_SORT_SIZE) {
+                insertionSort();
+            } else {
+                radixSort();
+            }
+        }
+
+        // Remember the input for the next sort, then reorder the list.
+        System.arraycopy(geometries, 0, lastInput, 0, size);
+        if (lastSize > size) {
+            Arrays.fill(lastInput, size, lastSize, null);
+        }
+        lastSize = size;
+        int[] order = sortOrder;
+        for (int i = 0; i < size; i++) {
+            geometries[i] = lastInput[order[i]];
+        }
+    }
+
+    /**
+     * Checks whether the order of the previous sort still applies: the list
+     * holds the same geometries in the same order and their new keys are
+     * still sorted under it, ties included.
+     */
+    private boolean isLastOrderValid() {
+        if (lastSize != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (lastInput[i] != geometries[i]) {
+                return false;
+            }
+        }
+        long[] keys = sortKeys;
+        int[] order = sortOrder;
+        for (int i = 1; i < size; i++) {
+            long previous = keys[order[i - 1]];
+            long current = keys[order[i]];
+            if (previous > current || (previous == current && order[i - 1] > order[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stable insertion sort of {@link #sortOrder} by key, for short lists.
+     */
+    private void insertionSort() {
+        long[] keys = sortKeys;
+        int[] order = sortOrder;
+        for (int i = 1; i < size; i++) {
+            int index = order[i];
+            long key = keys[index];
+            int j = i - 1;
+            while (j >= 0 && keys[order[j]] > key) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+    }
+
+    /**
+     * Stable LSD radix sort of {@link #sortOrder} by key. Digits that are
+     * the same for every key are skipped, so typically only the passes over
+     * the material id bits that vary and the depth bits are performed.
+     */
+    private void radixSort() {
+        if (histograms == null) {
+            histograms = new int[RADIX_PASSES * RADIX];
+        } else {
+            Arrays.fill(histograms, 0);
+        }
+        int[] counts = histograms;
+        long[] keys = sortKeys;
+        for (int i = 0; i < size; i++) {
+            // Flip the sign bit so signed keys sort as unsigned.
+            long key = keys[i] ^ Long.MIN_VALUE;
+            for (int pass = 0; pass < RADIX_PASSES; pass++) {
+                counts[pass * RADIX + ((int) (key >>> (pass * RADIX_BITS)) & (RADIX - 1))]++;
+            }
+        }
+
+        // Sort the keys along with the order so each pass reads them sequentially.
+        long[] srcKeys = keys;
+        long[] dstKeys = sortKeysTmp;
+        int[] srcOrder = sortOrder;
+        int[] dstOrder = sortOrderTmp;
+        for (int pass = 0; pass < RADIX_PASSES; pass++) {
+            int base = pass * RADIX;
+            int shift = pass * RADIX_BITS;
+            int firstDigit = (int) ((srcKeys[0] ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1);
+            if (counts[base + firstDigit] == size) {
+                continue;
+            }
+            int offset = 0;
+            for (int digit = 0; digit < RADIX; digit++) {
+                int count = counts[base + digit];
+                counts[base + digit] = offset;
+                offset += count;
+            }
+            for (int i = 0; i < size; i++) {
+                long key = srcKeys[i];
+                int position = counts[base + ((int) ((key ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1))]++;
+                dstKeys[position] = key;
+                dstOrder[position] = srcOrder[i];
+            }
+            long[] swapKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = swapKeys;
+            int[] swapOrder = srcOrder;
+            srcOrder = dstOrder;
+            dstOrder = swapOrder;
         }
+        // Keep whichever buffers hold the result.
+        sortKeys = srcKeys;
+        sortKeysTmp = dstKeys;
+        sortOrder = srcOrder;
+        sortOrderTmp = dstOrder;
     }
 
     @Override
@@ -40,7 +40,7 @@ import com.jme3.scene.Geometry;
  *
  * @author Kirill Vainer
  */
-public class GuiComparator implements GeometryComparator {
+public class GuiComparator implements SortKeyComparator {
 
     @Override
     public int compare(Geometry o1, Geometry o2) {
@@ -54,6 +54,11 @@ public class GuiComparator implements GeometryComparator {
             return 0;
     }
 
+    @Override
+    public long getSortKey(Geometry geom) {
+        return SortKeyComparator.toSortableBits(geom.getWorldTranslation().getZ()) & 0xFFFFFFFFL;
+    }
+
     @Override
     public void setCamera(Camera cam) {
     }
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.queue;
+
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.VertexBuffer.Format;
+import com.jme3.scene.VertexBuffer.Type;
+import com.jme3.scene.VertexBuffer.Usage;
+import com.jme3.scene.mesh.IndexBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+/**
+ * A mesh that holds the vertices and indices of meshes sharing the same
+ * vertex format, so that they can be drawn by one multi-draw-indirect call.
+ * Meshes are appended the first time they are requested and are expected to
+ * stay unmodified afterwards. Indices are stored relative to the first
+ * vertex of their mesh, which the draw commands pass as base vertex.
+ * <p>
+ * Meshes that have not been requested for a while are released by
+ * {@link #releaseUnused(long)}, and the arena is compacted once most of the
+ * data it stores belongs to released meshes.
+ */
+final class MultiDrawArena {
+
+    private static final int INITIAL_VERTICES = 1024;
+
+    private final Mesh mesh = new Mesh();
+    private final ArrayList<VertexBuffer> attributes = new ArrayList<>();
+    private final VertexBuffer indices = new VertexBuffer(Type.Index);
+    private final IdentityHashMap<Mesh, Entry> entries = new IdentityHashMap<>();
+    private int vertexCount;
+    private int indexCount;
+    private int liveVertexCount;
+    private int liveIndexCount;
+    private int vertexCapacity;
+    private int indexCapacity;
+
+    private static final class Entry {
+
+        final int[] range;
+        final int numVertices;
+        long lastUsed;
+
+        Entry(int[] range, int numVertices) {
+            this.range = range;
+            this.numVertices = numVertices;
+        }
+    }
+
+    /**
+     * Creates an empty arena with the vertex format of the given mesh.
+     *
+     * @param format a mesh supported by {@link #getFormatKey(Mesh)}
+     */
+    MultiDrawArena(Mesh format) {
+        vertexCapacity = INITIAL_VERTICES;
+        indexCapacity = INITIAL_VERTICES * 3;
+        for (VertexBuffer vb : format.getBufferList().getArray()) {
+            if (vb.getBufferType() == Type.Index || vb.getUsage() == Usage.CpuOnly) {
+                continue;
+            }
+            VertexBuffer attribute = new VertexBuffer(vb.getBufferType());
+            attribute.setupData(Usage.Static, vb.getNumComponents(), vb.getFormat(),
+                    VertexBuffer.createBuffer(vb.getFormat(), vb.getNumComponents(), vertexCapacity));
+            attribute.setNormalized(vb.isNormalized());
+            attributes.add(attribute);
+            mesh.setBuffer(attribute);
+        }
+        indices.setupData(Usage.Static, 1, Format.UnsignedInt,
+                VertexBuffer.createBuffer(Format.UnsignedInt, 1, indexCapacity));
+        mesh.setBuffer(indices);
+        mesh.updateCounts();
+    }
+
+    /**
+     * Returns a key identifying the vertex format of a mesh, or null if the
+     * mesh can't be merged: it must be an indexed triangle mesh without LOD
+     * levels whose attributes are static, separate and not instanced.
+     *
+     * @param mesh the mesh to test
+     * @return the key, or null
+     */
+    static String getFormatKey(Mesh mesh) {
+        if (mesh.getMode() != Mesh.Mode.Triangles || mesh.getBuffer(Type.Index) == null
+                || mesh.getBuffer(Type.InterleavedData) != null || mesh.getNumLodLevels() > 0) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder();
+        for (Type type : Type.values()) {
+            VertexBuffer vb = mesh.getBuffer(type);
+            if (vb == null || type == Type.Index || vb.getUsage() == Usage.CpuOnly) {
+                continue;
+            }
+            if (vb.getUsage() != Usage.Static || vb.isInstanced() || vb.getStride() != 0) {
+                return null;
+            }
+            key.append(type.ordinal()).append(':').append(vb.getFormat().ordinal())
+                    .append(':').append(vb.getNumComponents()).append(vb.isNormalized() ? 'n' : 'u')
+                    .append(',');
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return the mesh holding the merged vertices and indices
+     */
+    Mesh getMesh() {
+        return mesh;
+    }
+
+    /**
+     * @return the number of vertices stored, including those of released
+     * meshes not yet compacted away
+     */
+    int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * @return the number of meshes stored
+     */
+    int getMeshCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns where a mesh is stored in the arena, appending it first if
+     * needed.
+     *
+     * @param source a mesh with the vertex format of the arena
+     * @param render the current render, see {@link #releaseUnused(long)}
+     * @return the first index, index count and base vertex of the mesh
+     */
+    int[] getRange(Mesh source, long render) {
+        Entry entry = entries.get(source);
+        if (entry == null) {
+            entry = new Entry(append(source), source.getVertexCount());
+            entries.put(source, entry);
+            liveVertexCount += entry.numVertices;
+            liveIndexCount += entry.range[1];
+        }
+        entry.lastUsed = render;
+        return entry.range;
+    }
+
+    /**
+     * Releases the meshes last requested before the given render, then
+     * compacts the arena if at least half of its data is unused.
+     *
+     * @param before the oldest render whose meshes are kept
+     */
+    void releaseUnused(long before) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.lastUsed < before) {
+                liveVertexCount -= entry.numVertices;
+                liveIndexCount -= entry.range[1];
+                it.remove();
+            }
+        }
+        if (vertexCount - liveVertexCount > liveVertexCount
+                || indexCount - liveIndexCount > liveIndexCount) {
+            compact();
+        }
+    }
+
+    /**
+     * Moves the data of the stored meshes to the start of new buffers,
+     * sized for them, and updates their ranges.
+     */
+    private void compact() {
+        vertexCapacity = Math.max(INITIAL_VERTICES, liveVertexCount * 2);
+        indexCapacity = Math.max(INITIAL_VERTICES * 3, liveIndexCount * 2);
+        for (VertexBuffer attribute : attributes) {
+            VertexBuffer compacted = new VertexBuffer(attribute.getBufferType());
+            compacted.setupData(Usage.Static, attribute.getNumComponents(), attribute.getFormat(),
+                    VertexBuffer.createBuffer(attribute.getFormat(), attribute.getNumComponents(), vertexCapacity));
+            int vertex = 0;
+            for (Entry entry : entries.values()) {
+                attribute.copyElements(entry.range[2], compacted, vertex, entry.numVertices);
+                vertex += entry.numVertices;
+            }
+            attribute.updateData(compacted.getData());
+        }
+        IntBuffer data = (IntBuffer) indices.getData();
+        IntBuffer compactedIndices = (IntBuffer) VertexBuffer.createBuffer(Format.UnsignedInt, 1, indexCapacity);
+        int vertex = 0;
+        int index = 0;
+        for (Entry entry : entries.values()) {
+            int[] range = entry.range;
+            for (int i = 0; i < range[1]; i++) {
+                compactedIndices.put(index + i, data.get(range[0] + i));
+            }
+            range[0] = index;
+            range[2] = vertex;
+            index += range[1];
+            vertex += entry.numVertices;
+        }
+        indices.updateData(compactedIndices);
+        vertexCount = vertex;
+        indexCount = index;
+        mesh.updateCounts();
+    }
+
+    private int[] append(Mesh source) {
+        int numVertices = source.getVertexCount();
+        IndexBuffer sourceIndices = source.getIndexBuffer();
+        int numIndices = sourceIndices.size();
+        ensureCapacity(vertexCount + numVertices, indexCount + numIndices);
+
+        for (VertexBuffer attribute : attributes) {
+            source.getBuffer(attribute.getBufferType())
+                    .copyElements(0, attribute, vertexCount, numVertices);
+            attribute.updateData(vertexCount, numVertices);
+        }
+        IntBuffer data = (IntBuffer) indices.getData();
+        for (int i = 0; i < numIndices; i++) {
+            data.put(indexCount + i, sourceIndices.get(i));
+        }
+        indices.updateData(indexCount, numIndices);
+
+        int[] range = {indexCount, numIndices, vertexCount};
+        vertexCount += numVertices;
+        indexCount += numIndices;
+        return range;
+    }
+
+    private void ensureCapacity(int numVertices, int numIndices) {
+        boolean grown = false;
+        if (numVertices > vertexCapacity) {
+            vertexCapacity = Math.max(numVertices, vertexCapacity * 2);
+            for (VertexBuffer attribute : attributes) {
+                grow(attribute, vertexCapacity, vertexCount);
+            }
+            grown = true;
+        }
+        if (numIndices > indexCapacity) {
+            indexCapacity = Math.max(numIndices, indexCapacity * 2);
+            grow(indices, indexCapacity, indexCount);
+            grown = true;
+        }
+        if (grown) {
+            mesh.updateCounts();
+        }
+    }
+
+    private static void grow(VertexBuffer vb, int capacity, int used) {
+        VertexBuffer grown = new VertexBuffer(vb.getBufferType());
+        grown.setupData(Usage.Static, vb.getNumComponents(), vb.getFormat(),
+                VertexBuffer.createBuffer(vb.getFormat(), vb.getNumComponents(), capacity));
+        if (used > 0) {
+            vb.copyElements(0, grown, 0, used);
+        }
+        vb.updateData(grown.getData());
+    }
+}
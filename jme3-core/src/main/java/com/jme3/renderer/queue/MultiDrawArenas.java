@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.queue;
+
+import com.jme3.scene.Mesh;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+/**
+ * The {@link MultiDrawArena arenas} of a {@link com.jme3.renderer.RenderManager},
+ * one per vertex format, shared by the render queues of all its viewports.
+ * Static content seen by several viewports, e.g. split screen or reflection
+ * views, is thus only stored once, on the CPU and the GPU. Internal use only.
+ *
+ * @see com.jme3.renderer.RenderManager#setMultiDrawIndirect(boolean)
+ */
+public final class MultiDrawArenas {
+
+    /**
+     * Meshes not drawn for this many renders, of any viewport, are released
+     * from their arena.
+     */
+    private static final int UNUSED_RENDERS = 600;
+
+    /**
+     * Number of renders between two checks for unused meshes.
+     */
+    private static final int RELEASE_INTERVAL = 60;
+
+    private final HashMap<String, MultiDrawArena> arenas = new HashMap<>();
+    /**
+     * Arena of each mesh seen so far, null for meshes that can't be merged.
+     * Meshes are weakly referenced, their arena releases them once unused.
+     */
+    private final WeakHashMap<Mesh, MultiDrawArena> meshArenas = new WeakHashMap<>();
+    private long renders;
+
+    /**
+     * Starts the render of a geometry list, releasing the meshes that are
+     * no longer drawn from time to time.
+     *
+     * @return the number of the render, see {@link MultiDrawArena#getRange(Mesh, long)}
+     */
+    long beginRender() {
+        renders++;
+        if (renders % RELEASE_INTERVAL == 0) {
+            for (MultiDrawArena arena : arenas.values()) {
+                arena.releaseUnused(renders - UNUSED_RENDERS);
+            }
+        }
+        return renders;
+    }
+
+    /**
+     * Returns the arena storing meshes of the format of the given one,
+     * creating it if needed.
+     *
+     * @param mesh the mesh to look up
+     * @return the arena, or null if the mesh can't be merged
+     */
+    MultiDrawArena getArena(Mesh mesh) {
+        MultiDrawArena arena = meshArenas.get(mesh);
+        if (arena == null && !meshArenas.containsKey(mesh)) {
+            String key = MultiDrawArena.getFormatKey(mesh);
+            if (key != null) {
+                arena = arenas.get(key);
+                if (arena == null) {
+                    arena = new MultiDrawArena(mesh);
+                    arenas.put(key, arena);
+                }
+            }
+            meshArenas.put(mesh, arena);
+        }
+        return arena;
+    }
+
+    /**
+     * @return the number of arenas, one per vertex format
+     */
+    int getArenaCount() {
+        return arenas.size();
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.queue;
+
+import com.jme3.light.LightFilter;
+import com.jme3.light.LightList;
+import com.jme3.material.Material;
+import com.jme3.renderer.RenderManager;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.instancing.MultiDrawGeometry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * Draws geometries of a sorted {@link GeometryList} that share the same
+ * material, vertex format and lights with one multi-draw-indirect call,
+ * even when their meshes differ.
+ * <p>
+ * Candidates are the geometries accepted by runtime instancing whose mesh
+ * is an indexed triangle mesh with static attributes. Their meshes are
+ * copied once into a {@link MultiDrawArena} per vertex format, shared with
+ * the other viewports through {@link MultiDrawArenas}; each frame
+ * only the draw commands and the world transforms of the visible members
+ * are written. Each set of candidates is drawn through a
+ * {@link MultiDrawGeometry} at the position of its first member in the
+ * list, with <code>UseInstancing</code> enabled by a parameter override on
+ * that geometry.
+ *
+ * @see RenderManager#setMultiDrawIndirect(boolean)
+ */
+final class MultiDrawBatcher {
+
+    /**
+     * Sets of fewer candidates are rendered one by one.
+     */
+    private static final int MIN_DRAWS = 2;
+
+    private static final class BatchKey {
+
+        Material material;
+        MultiDrawArena arena;
+
+        BatchKey() {
+        }
+
+        BatchKey(BatchKey other) {
+            this.material = other.material;
+            this.arena = other.arena;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 5;
+            hash = 41 * hash + System.identityHashCode(material);
+            hash = 41 * hash + System.identityHashCode(arena);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof BatchKey)) {
+                return false;
+            }
+            BatchKey other = (BatchKey) obj;
+            return material == other.material && arena == other.arena;
+        }
+    }
+
+    private static final class Batch {
+
+        final MultiDrawGeometry geometry;
+        Geometry[] draws = new Geometry[MIN_DRAWS];
+        int[] ranges = new int[MIN_DRAWS * 3];
+        int count;
+        boolean rendered;
+
+        Batch(BatchKey key) {
+            geometry = new MultiDrawGeometry("multi-draw-" + key.material);
+            geometry.setMesh(key.arena.getMesh());
+            geometry.setMaterial(key.material);
+            RuntimeInstancer.enableInstancing(geometry);
+        }
+
+        void add(Geometry geom, int[] range) {
+            if (count == draws.length) {
+                Geometry[] temp = new Geometry[count * 2];
+                System.arraycopy(draws, 0, temp, 0, count);
+                draws = temp;
+                int[] tempRanges = new int[count * 6];
+                System.arraycopy(ranges, 0, tempRanges, 0, count * 3);
+                ranges = tempRanges;
+            }
+            draws[count] = geom;
+            System.arraycopy(range, 0, ranges, count * 3, 3);
+            count++;
+        }
+
+        void reset() {
+            for (int i = 0; i < count; i++) {
+                draws[i] = null;
+            }
+            count = 0;
+            rendered = false;
+        }
+    }
+
+    private final HashMap<BatchKey, ArrayList<Batch>> batches = new HashMap<>();
+    private final BatchKey lookUp = new BatchKey();
+    private final LightList filteredLights = new LightList(null);
+    private Batch[] batchOf = new Batch[32];
+    private MultiDrawArenas arenas;
+    private long render;
+
+    /**
+     * Renders the given (sorted) list, merging draws where possible.
+     *
+     * @param list the list to render (not null)
+     * @param rm the render manager to render with (not null)
+     */
+    void render(GeometryList list, RenderManager rm) {
+        MultiDrawArenas shared = rm.getMultiDrawArenas();
+        if (shared != arenas) {
+            // the batches refer to the arenas of the previous set
+            batches.clear();
+            arenas = shared;
+        }
+        render = arenas.beginRender();
+        int size = list.size();
+        if (batchOf.length < size) {
+            batchOf = new Batch[Math.max(size, batchOf.length * 2)];
+        }
+        for (int i = 0; i < size; i++) {
+            Geometry geom = list.get(i);
+            MultiDrawArena arena = null;
+            if (geom.getLodLevel() == 0 && RuntimeInstancer.isCandidate(geom)) {
+                arena = arenas.getArena(geom.getMesh());
+            }
+            batchOf[i] = arena != null ? assign(geom, arena, rm) : null;
+        }
+
+        for (int i = 0; i < size; i++) {
+            Geometry geom = list.get(i);
+            Batch batch = batchOf[i];
+            batchOf[i] = null;
+            if (batch == null || batch.count < MIN_DRAWS) {
+                rm.renderGeometry(geom);
+            } else if (!batch.rendered) {
+                batch.rendered = true;
+                batch.geometry.setDraws(batch.draws, batch.ranges, batch.count);
+                rm.renderGeometry(batch.geometry, batch.geometry.getWorldLightList());
+            }
+            geom.queueDistance = Float.NEGATIVE_INFINITY;
+        }
+
+        // Drop batches that were not used, reset the others for the next frame.
+        Iterator<ArrayList<Batch>> it = batches.values().iterator();
+        while (it.hasNext()) {
+            ArrayList<Batch> variants = it.next();
+            for (int i = variants.size() - 1; i >= 0; i--) {
+                Batch batch = variants.get(i);
+                if (batch.count == 0) {
+                    variants.remove(i);
+                } else {
+                    batch.reset();
+                }
+            }
+            if (variants.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    private Batch assign(Geometry geom, MultiDrawArena arena, RenderManager rm) {
+        LightList lights = geom.getWorldLightList();
+        LightFilter lightFilter = rm.getLightFilter();
+        if (lightFilter != null) {
+            filteredLights.clear();
+            lightFilter.filterLights(geom, filteredLights);
+            lights = filteredLights;
+        }
+
+        lookUp.material = geom.getMaterial();
+        lookUp.arena = arena;
+        ArrayList<Batch> variants = batches.get(lookUp);
+        if (variants == null) {
+            variants = new ArrayList<>(1);
+            batches.put(new BatchKey(lookUp), variants);
+        }
+
+        // Geometries lit differently can't share a draw.
+        Batch target = null;
+        for (int i = 0; i < variants.size(); i++) {
+            Batch batch = variants.get(i);
+            if (batch.count == 0) {
+                target = batch;
+                RuntimeInstancer.setLights(batch.geometry.getWorldLightList(), lights);
+                break;
+            } else if (RuntimeInstancer.isSameLights(batch.geometry.getWorldLightList(), lights)) {
+                target = batch;
+                break;
+            }
+        }
+        if (target == null) {
+            target = new Batch(lookUp);
+            RuntimeInstancer.setLights(target.geometry.getWorldLightList(), lights);
+            variants.add(target);
+        }
+        target.add(geom, arena.getRange(geom.getMesh(), render));
+        return target;
+    }
+}
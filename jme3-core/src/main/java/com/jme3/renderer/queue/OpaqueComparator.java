@@ -36,7 +36,7 @@ import com.jme3.math.Vector3f;
 import com.jme3.renderer.Camera;
 import com.jme3.scene.Geometry;
 
-public class OpaqueComparator implements GeometryComparator {
+public class OpaqueComparator implements SortKeyComparator {
 
     private Camera cam;
     private final Vector3f tempVec  = new Vector3f();
@@ -92,4 +92,18 @@ public class OpaqueComparator implements GeometryComparator {
             return compareResult;
         }
     }
+
+    /**
+     * Packs the material sort id into the high 32 bits and the distance to
+     * the camera into the low 32 bits, matching {@link #compare}.
+     *
+     * @param geom the geometry to compute the key for (not null)
+     * @return the sort key
+     */
+    @Override
+    public long getSortKey(Geometry geom) {
+        long sortId = geom.getMaterial().getSortId();
+        int depth = SortKeyComparator.toSortableBits(distanceToCam(geom));
+        return (sortId << 32) | (depth & 0xFFFFFFFFL);
+    }
 }
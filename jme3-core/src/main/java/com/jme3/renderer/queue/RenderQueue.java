@@ -33,6 +33,7 @@ package com.jme3.renderer.queue;
 
 import com.jme3.post.SceneProcessor;
 import com.jme3.renderer.Camera;
+import com.jme3.renderer.Caps;
 import com.jme3.renderer.RenderManager;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Spatial;
@@ -50,6 +51,8 @@ public class RenderQueue {
     private GeometryList transparentList;
     private GeometryList translucentList;
     private GeometryList skyList;
+    private RuntimeInstancer instancer;
+    private MultiDrawBatcher multiDrawBatcher;
 
     /**
      * Creates a new RenderQueue, the default {@link GeometryComparator comparators}
@@ -278,6 +281,30 @@ public class RenderQueue {
         }
     }
 
+    private void renderInstanced(GeometryList list, RenderManager rm, Camera cam, boolean flush) {
+        list.setCamera(cam); // select camera for sorting
+        list.sort();
+        if (instancer == null) {
+            instancer = new RuntimeInstancer();
+        }
+        instancer.render(list, rm);
+        if (flush) {
+            list.clear();
+        }
+    }
+
+    private void renderMultiDraw(GeometryList list, RenderManager rm, Camera cam, boolean flush) {
+        list.setCamera(cam); // select camera for sorting
+        list.sort();
+        if (multiDrawBatcher == null) {
+            multiDrawBatcher = new MultiDrawBatcher();
+        }
+        multiDrawBatcher.render(list, rm);
+        if (flush) {
+            list.clear();
+        }
+    }
+
     public void renderShadowQueue(GeometryList list, RenderManager rm, Camera cam, boolean clear) {
         rm.getRenderer().pushDebugGroup("ShadowQueue");
         renderGeometryList(list, rm, cam, clear);
@@ -312,7 +339,20 @@ public class RenderQueue {
                 renderGeometryList(guiList, rm, cam, clear);
                 break;
             case Opaque:
-                renderGeometryList(opaqueList, rm, cam, clear);
+                boolean unforced = rm.getForcedMaterial() == null
+                        && rm.getForcedTechnique() == null && rm.getRenderFilter() == null;
+                if (!rm.isMultiDrawIndirect()) {
+                    // release the batches, the render manager releases the arenas
+                    multiDrawBatcher = null;
+                }
+                if (unforced && rm.isMultiDrawIndirect()
+                        && rm.getRenderer().getCaps().contains(Caps.MultiDrawIndirect)) {
+                    renderMultiDraw(opaqueList, rm, cam, clear);
+                } else if (unforced && rm.isRuntimeInstancing()) {
+                    renderInstanced(opaqueList, rm, cam, clear);
+                } else {
+                    renderGeometryList(opaqueList, rm, cam, clear);
+                }
                 break;
             case Sky:
                 renderGeometryList(skyList, rm, cam, clear);
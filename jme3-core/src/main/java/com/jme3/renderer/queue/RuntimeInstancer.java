@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.queue;
+
+import com.jme3.light.LightFilter;
+import com.jme3.light.LightList;
+import com.jme3.material.MatParam;
+import com.jme3.material.MatParamOverride;
+import com.jme3.material.Material;
+import com.jme3.renderer.RenderManager;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Spatial.BatchHint;
+import com.jme3.scene.VertexBuffer.Type;
+import com.jme3.scene.instancing.InstancedGeometry;
+import com.jme3.shader.VarType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * Draws geometries of a sorted {@link GeometryList} that share the same
+ * mesh, material, LOD level and lights as one instanced draw.
+ * <p>
+ * A geometry is a candidate if its material definition has a
+ * <code>UseInstancing</code> parameter that is not already enabled, it is
+ * not grouped, instanced, skinned or morphed, and its batch hint is not
+ * {@link BatchHint#Never}. Each set of candidates is drawn through an
+ * {@link InstancedGeometry} at the position of its first member in the list.
+ * <code>UseInstancing</code> is enabled by a parameter override on that
+ * geometry, the material itself is never modified.
+ *
+ * @see RenderManager#setRuntimeInstancing(boolean)
+ */
+final class RuntimeInstancer {
+
+    private static final String USE_INSTANCING = "UseInstancing";
+
+    /**
+     * Sets of fewer candidates are rendered one by one.
+     */
+    private static final int MIN_INSTANCES = 2;
+
+    private static final class BatchKey {
+
+        Mesh mesh;
+        Material material;
+        int lodLevel;
+
+        BatchKey() {
+        }
+
+        BatchKey(BatchKey other) {
+            this.mesh = other.mesh;
+            this.material = other.material;
+            this.lodLevel = other.lodLevel;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 3;
+            hash = 41 * hash + System.identityHashCode(mesh);
+            hash = 41 * hash + System.identityHashCode(material);
+            hash = 41 * hash + lodLevel;
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof BatchKey)) {
+                return false;
+            }
+            BatchKey other = (BatchKey) obj;
+            return mesh == other.mesh && material == other.material && lodLevel == other.lodLevel;
+        }
+    }
+
+    private static final class Batch {
+
+        final InstancedGeometry geometry;
+        Geometry[] instances = new Geometry[MIN_INSTANCES];
+        int count;
+        boolean rendered;
+
+        Batch(BatchKey key) {
+            geometry = new InstancedGeometry("runtime-instanced-" + key.mesh + "," + key.material);
+            geometry.setMesh(key.mesh);
+            geometry.setMaterial(key.material);
+            if (key.lodLevel > 0) {
+                geometry.setLodLevel(key.lodLevel);
+            }
+            enableInstancing(geometry);
+        }
+
+        void add(Geometry geom) {
+            if (count == instances.length) {
+                Geometry[] temp = new Geometry[count * 2];
+                System.arraycopy(instances, 0, temp, 0, count);
+                instances = temp;
+            }
+            instances[count++] = geom;
+        }
+
+        void reset() {
+            for (int i = 0; i < count; i++) {
+                instances[i] = null;
+            }
+            count = 0;
+            rendered = false;
+        }
+    }
+
+    private final HashMap<BatchKey, ArrayList<Batch>> batches = new HashMap<>();
+    private final BatchKey lookUp = new BatchKey();
+    private final LightList filteredLights = new LightList(null);
+    private Batch[] batchOf = new Batch[32];
+
+    /**
+     * Renders the given (sorted) list, instancing where possible.
+     *
+     * @param list the list to render (not null)
+     * @param rm the render manager to render with (not null)
+     */
+    void render(GeometryList list, RenderManager rm) {
+        int size = list.size();
+        if (batchOf.length < size) {
+            batchOf = new Batch[Math.max(size, batchOf.length * 2)];
+        }
+        for (int i = 0; i < size; i++) {
+            Geometry geom = list.get(i);
+            batchOf[i] = isCandidate(geom) ? assign(geom, rm) : null;
+        }
+
+        for (int i = 0; i < size; i++) {
+            Geometry geom = list.get(i);
+            Batch batch = batchOf[i];
+            batchOf[i] = null;
+            if (batch == null || batch.count < MIN_INSTANCES) {
+                rm.renderGeometry(geom);
+            } else if (!batch.rendered) {
+                batch.rendered = true;
+                renderBatch(batch, rm);
+            }
+            geom.queueDistance = Float.NEGATIVE_INFINITY;
+        }
+
+        // Drop batches that were not used, reset the others for the next frame.
+        Iterator<ArrayList<Batch>> it = batches.values().iterator();
+        while (it.hasNext()) {
+            ArrayList<Batch> variants = it.next();
+            for (int i = variants.size() - 1; i >= 0; i--) {
+                Batch batch = variants.get(i);
+                if (batch.count == 0) {
+                    variants.remove(i);
+                } else {
+                    batch.reset();
+                }
+            }
+            if (variants.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    static boolean isCandidate(Geometry geom) {
+        if (geom instanceof InstancedGeometry || geom.isGrouped() || geom.isIgnoreTransform()
+                || geom.getBatchHint() == BatchHint.Never) {
+            return false;
+        }
+        Mesh mesh = geom.getMesh();
+        if (mesh.hasMorphTargets() || mesh.getBuffer(Type.BoneIndex) != null
+                || !geom.getWorldMatParamOverrides().isEmpty()) {
+            return false;
+        }
+        Material material = geom.getMaterial();
+        if (material.getMaterialDef().getMaterialParam(USE_INSTANCING) == null) {
+            return false;
+        }
+        MatParam param = material.getParam(USE_INSTANCING);
+        return param == null || !Boolean.TRUE.equals(param.getValue());
+    }
+
+    private Batch assign(Geometry geom, RenderManager rm) {
+        LightList lights = geom.getWorldLightList();
+        LightFilter lightFilter = rm.getLightFilter();
+        if (lightFilter != null) {
+            filteredLights.clear();
+            lightFilter.filterLights(geom, filteredLights);
+            lights = filteredLights;
+        }
+
+        lookUp.mesh = geom.getMesh();
+        lookUp.material = geom.getMaterial();
+        lookUp.lodLevel = geom.getLodLevel();
+        ArrayList<Batch> variants = batches.get(lookUp);
+        if (variants == null) {
+            variants = new ArrayList<>(1);
+            batches.put(new BatchKey(lookUp), variants);
+        }
+
+        // Geometries lit differently can't share a draw.
+        Batch target = null;
+        for (int i = 0; i < variants.size(); i++) {
+            Batch batch = variants.get(i);
+            if (batch.count == 0) {
+                target = batch;
+                setLights(batch.geometry.getWorldLightList(), lights);
+                break;
+            } else if (isSameLights(batch.geometry.getWorldLightList(), lights)) {
+                target = batch;
+                break;
+            }
+        }
+        if (target == null) {
+            target = new Batch(lookUp);
+            setLights(target.geometry.getWorldLightList(), lights);
+            variants.add(target);
+        }
+        target.add(geom);
+        return target;
+    }
+
+    static void setLights(LightList batchLights, LightList lights) {
+        batchLights.clear();
+        for (int i = 0; i < lights.size(); i++) {
+            batchLights.add(lights.get(i));
+        }
+    }
+
+    static boolean isSameLights(LightList a, LightList b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void renderBatch(Batch batch, RenderManager rm) {
+        InstancedGeometry geometry = batch.geometry;
+        geometry.setInstances(batch.instances, batch.count);
+        rm.renderGeometry(geometry, geometry.getWorldLightList());
+    }
+
+    /**
+     * Enables <code>UseInstancing</code> on a new instanced geometry with a
+     * parameter override, so that the shared material is left untouched and
+     * the define does not change from one draw to the next. The geometry is
+     * not part of a scene graph, so its world overrides are updated here,
+     * before any lights are set on it.
+     */
+    static void enableInstancing(InstancedGeometry geometry) {
+        geometry.addMatParamOverride(new MatParamOverride(VarType.Boolean, USE_INSTANCING, true));
+        geometry.updateGeometricState();
+    }
+}
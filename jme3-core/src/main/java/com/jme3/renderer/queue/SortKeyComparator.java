@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.queue;
+
+import com.jme3.scene.Geometry;
+
+/**
+ * A {@link GeometryComparator} that can also express its ordering as a
+ * primitive sort key per geometry.
+ * <p>
+ * When key sorting is enabled on a {@link GeometryList}, the list computes
+ * one key per geometry and radix sorts the keys instead of calling
+ * {@link #compare(java.lang.Object, java.lang.Object) compare()} for every
+ * pair. Implementations must ensure that comparing two keys as signed
+ * longs gives the same result as comparing the geometries with
+ * <code>compare()</code>.
+ *
+ * @see GeometryList#setKeySortEnabled(boolean)
+ */
+public interface SortKeyComparator extends GeometryComparator {
+
+    /**
+     * Computes the sort key of the given geometry for the current camera.
+     *
+     * @param geom the geometry to compute the key for (not null)
+     * @return the sort key
+     */
+    public long getSortKey(Geometry geom);
+
+    /**
+     * Maps a float to an int whose unsigned order matches the float order,
+     * so it can be packed into the low bits of a sort key. Negative and
+     * positive zero map to the same value.
+     *
+     * @param value the value to map
+     * @return the mapped bits, to be compared as an unsigned int
+     */
+    public static int toSortableBits(float value) {
+        int bits = Float.floatToIntBits(value + 0f);
+        return bits < 0 ? ~bits : bits ^ Integer.MIN_VALUE;
+    }
+}
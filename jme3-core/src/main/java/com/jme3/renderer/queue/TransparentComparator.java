@@ -35,7 +35,7 @@ import com.jme3.math.Vector3f;
 import com.jme3.renderer.Camera;
 import com.jme3.scene.Geometry;
 
-public class TransparentComparator implements GeometryComparator {
+public class TransparentComparator implements SortKeyComparator {
 
     private Camera cam;
     private final Vector3f tempVec = new Vector3f();
@@ -63,4 +63,16 @@ public class TransparentComparator implements GeometryComparator {
         else
             return -1;
     }
+
+    /**
+     * Inverts the distance to the camera so that farther geometries get
+     * smaller keys, matching {@link #compare}.
+     *
+     * @param geom the geometry to compute the key for (not null)
+     * @return the sort key
+     */
+    @Override
+    public long getSortKey(Geometry geom) {
+        return ~SortKeyComparator.toSortableBits(distanceToCam(geom)) & 0xFFFFFFFFL;
+    }
 }
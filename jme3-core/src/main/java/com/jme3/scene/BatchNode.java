@@ -31,6 +31,8 @@
  */
 package com.jme3.scene;
 
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingVolume;
 import com.jme3.collision.Collidable;
 import com.jme3.collision.CollisionResults;
 import com.jme3.material.Material;
@@ -45,6 +47,7 @@ import java.nio.Buffer;
 import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -62,6 +65,11 @@ import java.util.logging.Logger;
  * Sub geoms can be added after the batch() method has been called but won't be batched and will just be rendered as normal geometries.
  * To integrate them in the batch you have to call the batch() method again on the batchNode.
  * <p>
+ * With {@link #setIncrementalBatching(boolean) incremental batching} enabled, the batched meshes are allocated with
+ * slack so that geometries added later are appended in place by batch(), and removed geometries are tombstoned
+ * instead of triggering a full rebatch. Batches with too many tombstoned vertices are compacted during
+ * {@link #updateLogicalState(float)}, one batch per frame.
+ * <p>
  * TODO more automagic (batch when needed in the updateLogicalState)
  *
  * @author Nehon
@@ -86,6 +94,15 @@ public class BatchNode extends GeometryGroupNode {
     int maxVertCount = 0;
     boolean useTangents = false;
     boolean needsFullRebatch = true;
+    /**
+     * extra capacity allocated in incremental batches, relative to the used size
+     */
+    private static final float SLACK = 0.5f;
+    /**
+     * fraction of tombstoned vertices in a batch above which it is compacted
+     */
+    private static final float COMPACT_RATIO = 0.25f;
+    private boolean incremental = false;
 
     /**
      * Construct a batchNode
@@ -105,6 +122,11 @@ public class BatchNode extends GeometryGroupNode {
 
     @Override
     public void onMaterialChange(Geometry geom) {
+        if (incremental) {
+            // rendered on its own until the next batch()
+            geom.unassociateFromGroupNode();
+            return;
+        }
         throw new UnsupportedOperationException(
                 "Cannot set the material of a batched geometry, "
                         + "change the material of the parent BatchNode.");
@@ -112,15 +134,73 @@ public class BatchNode extends GeometryGroupNode {
 
     @Override
     public void onMeshChange(Geometry geom) {
+        if (incremental) {
+            geom.unassociateFromGroupNode();
+            return;
+        }
         throw new UnsupportedOperationException(
                 "Cannot set the mesh of a batched geometry");
     }
 
     @Override
     public void onGeometryUnassociated(Geometry geom) {
+        if (incremental) {
+            Batch batch = batchesByGeom.remove(geom);
+            if (batch != null) {
+                tombstone(batch, geom);
+            }
+            return;
+        }
         setNeedsFullRebatch(true);
     }
 
+    /**
+     * Enables or disables incremental batching.
+     * <p>
+     * When enabled, calling {@link #batch()} after geometries were attached appends them to the existing batches
+     * instead of rebuilding them, as long as the batches have room left, and removing a batched geometry only
+     * blanks out its primitives. Changing the mesh or material of a batched geometry removes it from its batch
+     * until the next call to batch(). This trades some memory for much cheaper updates of large, changing
+     * batches. Changing the mode triggers a full rebatch on the next call to batch().
+     *
+     * @param incremental true to batch incrementally (default=false)
+     */
+    public void setIncrementalBatching(boolean incremental) {
+        if (this.incremental != incremental) {
+            this.incremental = incremental;
+            setNeedsFullRebatch(true);
+        }
+    }
+
+    /**
+     * Tests whether incremental batching is enabled.
+     *
+     * @return true if enabled
+     * @see #setIncrementalBatching(boolean)
+     */
+    public boolean isIncrementalBatching() {
+        return incremental;
+    }
+
+    @Override
+    protected void updateWorldBound() {
+        if (incremental) {
+            // geometries appended after a batch geometry refresh its bound after it was visited
+            for (Batch batch : batches.getArray()) {
+                batch.geometry.updateGeometricState();
+            }
+        }
+        super.updateWorldBound();
+    }
+
+    @Override
+    public void updateLogicalState(float tpf) {
+        super.updateLogicalState(tpf);
+        if (incremental) {
+            compactOneBatch();
+        }
+    }
+
     protected Matrix4f getTransformMatrix(Geometry g) {
         return g.cachedWorldMat;
     }
@@ -150,16 +230,17 @@ public class BatchNode extends GeometryGroupNode {
             Matrix4f transformMat = getTransformMatrix(bg);
             doTransforms(oposBuf, onormBuf, otanBuf, posBuf, normBuf, tanBuf, bg.startIndex, bg.startIndex + bg.getVertexCount(), transformMat);
 
-            pvb.updateData(posBuf);
+            // only the vertices of this geometry are sent again
+            pvb.updateData(bg.startIndex, bg.getVertexCount());
 
             if (nvb != null) {
-                nvb.updateData(normBuf);
+                nvb.updateData(bg.startIndex, bg.getVertexCount());
             }
             if (tvb != null) {
-                tvb.updateData(tanBuf);
+                tvb.updateData(bg.startIndex, bg.getVertexCount());
             }
 
-            batch.geometry.updateModelBound();
+            updateBatchBound(batch);
         }
     }
 
@@ -175,7 +256,11 @@ public class BatchNode extends GeometryGroupNode {
      * every geometry of the sub scene graph of this node will be batched into a single mesh that will be rendered in one call
      */
     public void batch() {
-        doBatch();
+        if (incremental && !needsFullRebatch) {
+            doIncrementalBatch();
+        } else {
+            doBatch();
+        }
         //we set the batch geometries to ignore transforms to avoid transforms of parent nodes to be applied twice
         for (Batch batch : batches.getArray()) {
             batch.geometry.setIgnoreTransform(true);
@@ -220,10 +305,13 @@ public class BatchNode extends GeometryGroupNode {
             } else {
                 batch = new Batch();
             }
-            mergeGeometries(m, list);
+            mergeGeometries(m, list, incremental ? SLACK : 0f);
             m.setDynamic();
 
             batch.updateGeomList(list);
+            if (incremental) {
+                batch.resetSlots(list, m);
+            }
 
             batch.geometry = new Geometry(batchName);
             batch.geometry.setMaterial(material);
@@ -232,7 +320,7 @@ public class BatchNode extends GeometryGroupNode {
 
             batch.geometry.setMesh(m);
             batch.geometry.getMesh().updateCounts();
-            batch.geometry.updateModelBound();
+            updateBatchBound(batch);
             batches.add(batch);
         }
         if (batches.size() > 0) {
@@ -250,6 +338,315 @@ public class BatchNode extends GeometryGroupNode {
         }
     }
 
+    /**
+     * Appends the geometries of the sub scene graph that are not batched yet to the batch of their material,
+     * creating batches only for new materials.
+     */
+    protected void doIncrementalBatch() {
+        Map<Material, List<Geometry>> matMap = new HashMap<>();
+        int nbGeoms = 0;
+
+        int oldMaxVertCount = maxVertCount;
+        maxVertCount = 0;
+        gatherGeometries(matMap, this, false);
+
+        for (Map.Entry<Material, List<Geometry>> entry : matMap.entrySet()) {
+            Material material = entry.getKey();
+            List<Geometry> list = entry.getValue();
+            nbGeoms += list.size();
+            Batch batch = findBatchByMaterial(material);
+            if (batch == null) {
+                createBatch(material, list);
+            } else {
+                for (Geometry geom : list) {
+                    appendGeometry(batch, geom);
+                }
+            }
+        }
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "Appended {0} geometries to {1} batches.", new Object[]{nbGeoms, batches.size()});
+        }
+
+        //init the temp arrays if the size has changed
+        if (oldMaxVertCount != maxVertCount || (useTangents && tmpFloatT == null)) {
+            initTempFloatArrays();
+        }
+    }
+
+    private void createBatch(Material material, List<Geometry> list) {
+        Mesh m = new Mesh();
+        mergeGeometries(m, list, SLACK);
+        m.setDynamic();
+
+        Batch batch = new Batch();
+        batch.updateGeomList(list);
+        batch.resetSlots(list, m);
+        batch.geometry = new Geometry(name + "-batch" + batches.size());
+        batch.geometry.setMaterial(material);
+        this.attachChild(batch.geometry);
+
+        batch.geometry.setMesh(m);
+        m.updateCounts();
+        updateBatchBound(batch);
+        batches.add(batch);
+    }
+
+    /**
+     * Appends a geometry to the free space at the end of a batch, growing the batch first if there is not enough
+     * room left.
+     */
+    private void appendGeometry(Batch batch, Geometry geom) {
+        Mesh mesh = batch.geometry.getMesh();
+        Mesh inMesh = geom.getMesh();
+        if (!canAppend(mesh, inMesh)) {
+            // let the merge add the missing buffers, or report the mismatch
+            rebuildBatch(batch, geom);
+            return;
+        }
+
+        int components = getIndexComponents(mesh.getMode());
+        int vertCount = inMesh.getVertexCount();
+        int indexCount = inMesh.getTriangleCount() * components;
+        VertexBuffer ib = mesh.getBuffer(VertexBuffer.Type.Index);
+        int vertexCapacity = mesh.getBuffer(VertexBuffer.Type.Position).getData().capacity() / 3;
+        if (batch.vertexCount + vertCount > vertexCapacity
+                || batch.indexCount + indexCount > ib.getData().capacity()) {
+            reallocate(batch, vertCount, indexCount);
+            mesh = batch.geometry.getMesh();
+            ib = mesh.getBuffer(VertexBuffer.Type.Index);
+        }
+
+        int firstVertex = batch.vertexCount;
+        int firstIndex = batch.indexCount;
+        ib.getData().limit(firstIndex + indexCount);
+        copyGeometry(geom, mesh, components, firstVertex, firstIndex / components);
+        for (VertexBuffer vb : mesh.getBufferList().getArray()) {
+            if (vb.getBufferType() == VertexBuffer.Type.Index) {
+                // the drawn part of the index buffer grew, it is sent again with its new size
+                vb.updateData(vb.getData());
+            } else {
+                vb.updateData(firstVertex, vertCount);
+            }
+        }
+        mesh.updateCounts();
+
+        geom.associateWithGroupNode(this, firstVertex);
+        batchesByGeom.put(geom, batch);
+        batch.slots.put(geom, new Slot(firstVertex, vertCount, firstIndex, indexCount));
+        batch.vertexCount += vertCount;
+        batch.indexCount += indexCount;
+        // the copied positions are in model space until the transform is applied
+        geom.setTransformRefresh();
+        updateBatchBound(batch);
+    }
+
+    private static boolean canAppend(Mesh batchMesh, Mesh inMesh) {
+        if (batchMesh.getMode() != getBatchMode(inMesh.getMode())) {
+            return false;
+        }
+        for (VertexBuffer outBuf : batchMesh.getBufferList().getArray()) {
+            if (outBuf.getBufferType() == VertexBuffer.Type.Index) {
+                continue;
+            }
+            VertexBuffer inBuf = inMesh.getBuffer(outBuf.getBufferType());
+            if (inBuf == null || inBuf.getNumComponents() != outBuf.getNumComponents()
+                    || inBuf.getFormat() != outBuf.getFormat()) {
+                return false;
+            }
+        }
+        for (VertexBuffer inBuf : inMesh.getBufferList().getArray()) {
+            if (inBuf.getBufferType() != VertexBuffer.Type.Index
+                    && batchMesh.getBuffer(inBuf.getBufferType()) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rebuilds a batch from the meshes of its live geometries plus the given one.
+     */
+    private void rebuildBatch(Batch batch, Geometry geom) {
+        List<Geometry> list = new ArrayList<>(batch.slots.keySet());
+        for (Geometry g : list) {
+            // re-associating them must not tombstone them
+            batchesByGeom.remove(g);
+        }
+        list.add(geom);
+
+        Mesh m = new Mesh();
+        mergeGeometries(m, list, SLACK);
+        m.setDynamic();
+        batch.updateGeomList(list);
+        batch.resetSlots(list, m);
+        batch.geometry.setMesh(m);
+        m.updateCounts();
+        for (Geometry g : list) {
+            g.setTransformRefresh();
+        }
+        updateBatchBound(batch);
+    }
+
+    /**
+     * Moves the live geometries of a batch to new buffers with room for the given extra vertices and indices,
+     * dropping tombstoned ranges.
+     */
+    private void reallocate(Batch batch, int extraVertices, int extraIndices) {
+        Mesh oldMesh = batch.geometry.getMesh();
+        int components = getIndexComponents(oldMesh.getMode());
+        int liveVertices = batch.vertexCount - batch.deadVertices + extraVertices;
+        int livePrimitives = (batch.indexCount - batch.deadIndices + extraIndices) / components;
+        int vertCapacity = Math.max(1, liveVertices + (int) (liveVertices * SLACK));
+        int primCapacity = Math.max(1, livePrimitives + (int) (livePrimitives * SLACK));
+
+        Mesh newMesh = new Mesh();
+        newMesh.setMode(oldMesh.getMode());
+        newMesh.setMaxNumWeights(oldMesh.getMaxNumWeights());
+        for (VertexBuffer oldVb : oldMesh.getBufferList().getArray()) {
+            VertexBuffer.Format format = oldVb.getFormat();
+            Buffer data;
+            if (oldVb.getBufferType() == VertexBuffer.Type.Index) {
+                format = vertCapacity >= 65536 ? VertexBuffer.Format.UnsignedInt : VertexBuffer.Format.UnsignedShort;
+                data = VertexBuffer.createBuffer(format, components, primCapacity);
+            } else {
+                data = VertexBuffer.createBuffer(format, oldVb.getNumComponents(), vertCapacity);
+            }
+            VertexBuffer vb = new VertexBuffer(oldVb.getBufferType());
+            vb.setupData(VertexBuffer.Usage.Dynamic, oldVb.getNumComponents(), format, data);
+            vb.setNormalized(oldVb.isNormalized());
+            newMesh.setBuffer(vb);
+        }
+
+        IndexBuffer oldIdx = oldMesh.getIndexBuffer();
+        VertexBuffer newIb = newMesh.getBuffer(VertexBuffer.Type.Index);
+        newIb.getData().limit(batch.indexCount - batch.deadIndices);
+        IndexBuffer newIdx = IndexBuffer.wrapIndexBuffer(newIb.getData());
+
+        LinkedHashMap<Geometry, Slot> slots = new LinkedHashMap<>();
+        int vertex = 0;
+        int index = 0;
+        for (Map.Entry<Geometry, Slot> entry : batch.slots.entrySet()) {
+            Slot slot = entry.getValue();
+            for (VertexBuffer oldVb : oldMesh.getBufferList().getArray()) {
+                if (oldVb.getBufferType() != VertexBuffer.Type.Index) {
+                    oldVb.copyElements(slot.firstVertex, newMesh.getBuffer(oldVb.getBufferType()), vertex, slot.vertexCount);
+                }
+            }
+            for (int i = 0; i < slot.indexCount; i++) {
+                newIdx.put(index + i, oldIdx.get(slot.firstIndex + i) - slot.firstVertex + vertex);
+            }
+            setGeometryStartIndex(entry.getKey(), vertex);
+            slots.put(entry.getKey(), new Slot(vertex, slot.vertexCount, index, slot.indexCount));
+            vertex += slot.vertexCount;
+            index += slot.indexCount;
+        }
+        newIb.updateData(newIb.getData());
+
+        batch.slots = slots;
+        batch.vertexCount = vertex;
+        batch.indexCount = index;
+        batch.deadVertices = 0;
+        batch.deadIndices = 0;
+        newMesh.updateCounts();
+        batch.geometry.setMesh(newMesh);
+        updateBatchBound(batch);
+    }
+
+    /**
+     * Removes a geometry from a batch by turning its primitives into degenerate ones. Degenerate points and
+     * lines may still be drawn, so for those modes the positions of the removed vertices are also set to NaN,
+     * which culls them.
+     */
+    private void tombstone(Batch batch, Geometry geom) {
+        Slot slot = batch.slots.remove(geom);
+        if (slot == null) {
+            return;
+        }
+        Mesh mesh = batch.geometry.getMesh();
+        VertexBuffer ib = mesh.getBuffer(VertexBuffer.Type.Index);
+        if (slot.firstVertex + slot.vertexCount == batch.vertexCount
+                && slot.firstIndex + slot.indexCount == batch.indexCount) {
+            // last one in, the space can be reused right away
+            batch.vertexCount = slot.firstVertex;
+            batch.indexCount = slot.firstIndex;
+            ib.getData().limit(batch.indexCount);
+        } else {
+            IndexBuffer indices = mesh.getIndexBuffer();
+            for (int i = 0; i < slot.indexCount; i++) {
+                indices.put(slot.firstIndex + i, slot.firstVertex);
+            }
+            if (mesh.getMode() != Mesh.Mode.Triangles) {
+                VertexBuffer pvb = mesh.getBuffer(VertexBuffer.Type.Position);
+                FloatBuffer positions = (FloatBuffer) pvb.getData();
+                int end = (slot.firstVertex + slot.vertexCount) * 3;
+                for (int i = slot.firstVertex * 3; i < end; i++) {
+                    positions.put(i, Float.NaN);
+                }
+                pvb.updateData(slot.firstVertex, slot.vertexCount);
+            }
+            batch.deadVertices += slot.vertexCount;
+            batch.deadIndices += slot.indexCount;
+        }
+        ib.updateData(ib.getData());
+        mesh.updateCounts();
+        updateBatchBound(batch);
+    }
+
+    /**
+     * Removes one empty batch or compacts one batch with too many tombstoned vertices.
+     */
+    private void compactOneBatch() {
+        for (Batch batch : batches.getArray()) {
+            if (batch.slots.isEmpty()) {
+                batches.remove(batch);
+                batch.geometry.removeFromParent();
+                return;
+            }
+            if (batch.deadVertices > 0 && batch.deadVertices >= batch.vertexCount * COMPACT_RATIO) {
+                reallocate(batch, 0, 0);
+                return;
+            }
+        }
+    }
+
+    private void updateBatchBound(Batch batch) {
+        if (!incremental) {
+            batch.geometry.updateModelBound();
+            return;
+        }
+        // only the live ranges count, the free and tombstoned vertices are stale
+        Mesh mesh = batch.geometry.getMesh();
+        FloatBuffer positions = (FloatBuffer) mesh.getBuffer(VertexBuffer.Type.Position).getData();
+        TempVars vars = TempVars.get();
+        Vector3f min = vars.vect1.set(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+        Vector3f max = vars.vect2.set(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+        for (Slot slot : batch.slots.values()) {
+            int end = (slot.firstVertex + slot.vertexCount) * 3;
+            for (int i = slot.firstVertex * 3; i < end; i += 3) {
+                float x = positions.get(i);
+                float y = positions.get(i + 1);
+                float z = positions.get(i + 2);
+                min.x = Math.min(min.x, x);
+                min.y = Math.min(min.y, y);
+                min.z = Math.min(min.z, z);
+                max.x = Math.max(max.x, x);
+                max.y = Math.max(max.y, y);
+                max.z = Math.max(max.z, z);
+            }
+        }
+        if (batch.slots.isEmpty()) {
+            min.set(Vector3f.ZERO);
+            max.set(Vector3f.ZERO);
+        }
+        BoundingVolume bound = mesh.getBound();
+        BoundingBox box = bound instanceof BoundingBox ? (BoundingBox) bound : new BoundingBox();
+        box.setMinMax(min, max);
+        vars.release();
+        mesh.setBound(box);
+        batch.geometry.setBoundRefresh();
+    }
+
     //in case the detached spatial is a node, we unbatch all geometries in its subgraph
     @Override
     public Spatial detachChildAt(int index) {
@@ -376,8 +773,9 @@ public class BatchNode extends GeometryGroupNode {
      *
      * @param geometries
      * @param outMesh
+     * @param slack the extra capacity to allocate, relative to the merged size
      */
-    private void mergeGeometries(Mesh outMesh, List<Geometry> geometries) {
+    private void mergeGeometries(Mesh outMesh, List<Geometry> geometries, float slack) {
         int[] compsForBuf = new int[VertexBuffer.Type.values().length];
         VertexBuffer.Format[] formatForBuf = new VertexBuffer.Format[compsForBuf.length];
         boolean[] normForBuf = new boolean[VertexBuffer.Type.values().length];
@@ -393,29 +791,8 @@ public class BatchNode extends GeometryGroupNode {
             totalTris += geom.getTriangleCount();
             totalLodLevels = Math.min(totalLodLevels, geom.getMesh().getNumLodLevels());
 
-            Mesh.Mode listMode;
-            int components;
-            switch (geom.getMesh().getMode()) {
-                case Points:
-                    listMode = Mesh.Mode.Points;
-                    components = 1;
-                    break;
-                case LineLoop:
-                case LineStrip:
-                case Lines:
-                    listMode = Mesh.Mode.Lines;
-                    //listLineWidth = geom.getMesh().getLineWidth();
-                    components = 2;
-                    break;
-                case TriangleFan:
-                case TriangleStrip:
-                case Triangles:
-                    listMode = Mesh.Mode.Triangles;
-                    components = 3;
-                    break;
-                default:
-                    throw new UnsupportedOperationException();
-            }
+            Mesh.Mode listMode = getBatchMode(geom.getMesh().getMode());
+            int components = getIndexComponents(listMode);
 
             for (VertexBuffer vb : geom.getMesh().getBufferList().getArray()) {
                 int currentCompsForBuf = compsForBuf[vb.getBufferType().ordinal()];
@@ -442,7 +819,9 @@ public class BatchNode extends GeometryGroupNode {
         outMesh.setMaxNumWeights(maxWeights);
         outMesh.setMode(mode);
         //outMesh.setLineWidth(lineWidth);
-        if (totalVerts >= 65536) {
+        int vertCapacity = totalVerts + (int) (totalVerts * slack);
+        int triCapacity = totalTris + (int) (totalTris * slack);
+        if (vertCapacity >= 65536) {
             // Make sure we create an UnsignedInt buffer, so we can fit all of the meshes.
             formatForBuf[VertexBuffer.Type.Index.ordinal()] = VertexBuffer.Format.UnsignedInt;
         } else {
@@ -457,9 +836,9 @@ public class BatchNode extends GeometryGroupNode {
 
             Buffer data;
             if (i == VertexBuffer.Type.Index.ordinal()) {
-                data = VertexBuffer.createBuffer(formatForBuf[i], compsForBuf[i], totalTris);
+                data = VertexBuffer.createBuffer(formatForBuf[i], compsForBuf[i], triCapacity);
             } else {
-                data = VertexBuffer.createBuffer(formatForBuf[i], compsForBuf[i], totalVerts);
+                data = VertexBuffer.createBuffer(formatForBuf[i], compsForBuf[i], vertCapacity);
             }
 
             VertexBuffer vb = new VertexBuffer(VertexBuffer.Type.values()[i]);
@@ -477,54 +856,95 @@ public class BatchNode extends GeometryGroupNode {
                 geom.associateWithGroupNode(this, globalVertIndex);
             }
 
-            int geomVertCount = inMesh.getVertexCount();
-            int geomTriCount = inMesh.getTriangleCount();
+            copyGeometry(geom, outMesh, compsForBuf[VertexBuffer.Type.Index.ordinal()], globalVertIndex, globalTriIndex);
 
-            for (int bufType = 0; bufType < compsForBuf.length; bufType++) {
-                VertexBuffer inBuf = inMesh.getBuffer(VertexBuffer.Type.values()[bufType]);
+            globalVertIndex += inMesh.getVertexCount();
+            globalTriIndex += inMesh.getTriangleCount();
+        }
 
-                VertexBuffer outBuf = outMesh.getBuffer(VertexBuffer.Type.values()[bufType]);
+        if (triCapacity != totalTris) {
+            // only draw the used part of the index buffer
+            VertexBuffer ib = outMesh.getBuffer(VertexBuffer.Type.Index);
+            ib.getData().limit(totalTris * compsForBuf[VertexBuffer.Type.Index.ordinal()]);
+            ib.updateData(ib.getData());
+        }
+    }
 
-                if (outBuf == null) {
-                    continue;
-                }
+    /**
+     * Copies the buffers of a geometry's mesh into the output mesh, starting at the given vertex and primitive.
+     */
+    private void copyGeometry(Geometry geom, Mesh outMesh, int components, int globalVertIndex, int globalTriIndex) {
+        Mesh inMesh = geom.getMesh();
+        int geomVertCount = inMesh.getVertexCount();
+        int geomTriCount = inMesh.getTriangleCount();
+        for (int bufType = 0; bufType < VertexBuffer.Type.values().length; bufType++) {
+            VertexBuffer inBuf = inMesh.getBuffer(VertexBuffer.Type.values()[bufType]);
 
-                if (VertexBuffer.Type.Index.ordinal() == bufType) {
-                    int components = compsForBuf[bufType];
+            VertexBuffer outBuf = outMesh.getBuffer(VertexBuffer.Type.values()[bufType]);
 
-                    IndexBuffer inIdx = inMesh.getIndicesAsList();
-                    IndexBuffer outIdx = outMesh.getIndexBuffer();
+            if (outBuf == null) {
+                continue;
+            }
 
-                    for (int tri = 0; tri < geomTriCount; tri++) {
-                        for (int comp = 0; comp < components; comp++) {
-                            int idx = inIdx.get(tri * components + comp) + globalVertIndex;
-                            outIdx.put((globalTriIndex + tri) * components + comp, idx);
-                        }
-                    }
-                } else if (VertexBuffer.Type.Position.ordinal() == bufType) {
-                    FloatBuffer inPos = (FloatBuffer) inBuf.getData();
-                    FloatBuffer outPos = (FloatBuffer) outBuf.getData();
-                    doCopyBuffer(inPos, globalVertIndex, outPos, 3);
-                } else if (VertexBuffer.Type.Normal.ordinal() == bufType || VertexBuffer.Type.Tangent.ordinal() == bufType) {
-                    FloatBuffer inPos = (FloatBuffer) inBuf.getData();
-                    FloatBuffer outPos = (FloatBuffer) outBuf.getData();
-                    doCopyBuffer(inPos, globalVertIndex, outPos, compsForBuf[bufType]);
-                    if (VertexBuffer.Type.Tangent.ordinal() == bufType) {
-                        useTangents = true;
+            if (VertexBuffer.Type.Index.ordinal() == bufType) {
+                IndexBuffer inIdx = inMesh.getIndicesAsList();
+                IndexBuffer outIdx = outMesh.getIndexBuffer();
+
+                for (int tri = 0; tri < geomTriCount; tri++) {
+                    for (int comp = 0; comp < components; comp++) {
+                        int idx = inIdx.get(tri * components + comp) + globalVertIndex;
+                        outIdx.put((globalTriIndex + tri) * components + comp, idx);
                     }
+                }
+            } else if (VertexBuffer.Type.Position.ordinal() == bufType) {
+                FloatBuffer inPos = (FloatBuffer) inBuf.getData();
+                FloatBuffer outPos = (FloatBuffer) outBuf.getData();
+                doCopyBuffer(inPos, globalVertIndex, outPos, 3);
+            } else if (VertexBuffer.Type.Normal.ordinal() == bufType || VertexBuffer.Type.Tangent.ordinal() == bufType) {
+                FloatBuffer inPos = (FloatBuffer) inBuf.getData();
+                FloatBuffer outPos = (FloatBuffer) outBuf.getData();
+                doCopyBuffer(inPos, globalVertIndex, outPos, outBuf.getNumComponents());
+                if (VertexBuffer.Type.Tangent.ordinal() == bufType) {
+                    useTangents = true;
+                }
+            } else {
+                if (inBuf == null) {
+                    throw new IllegalArgumentException("Geometry " + geom.getName() + " has no " + outBuf.getBufferType() + " buffer whereas other geoms have. all geometries should have the same types of buffers.\n Try to use GeometryBatchFactory.alignBuffer() on the BatchNode before batching");
+                } else if (outBuf == null) {
+                    throw new IllegalArgumentException("Geometry " + geom.getName() + " has a " + outBuf.getBufferType() + " buffer whereas other geoms don't. all geometries should have the same types of buffers.\n Try to use GeometryBatchFactory.alignBuffer() on the BatchNode before batching");
                 } else {
-                    if (inBuf == null) {
-                        throw new IllegalArgumentException("Geometry " + geom.getName() + " has no " + outBuf.getBufferType() + " buffer whereas other geoms have. all geometries should have the same types of buffers.\n Try to use GeometryBatchFactory.alignBuffer() on the BatchNode before batching");
-                    } else if (outBuf == null) {
-                        throw new IllegalArgumentException("Geometry " + geom.getName() + " has a " + outBuf.getBufferType() + " buffer whereas other geoms don't. all geometries should have the same types of buffers.\n Try to use GeometryBatchFactory.alignBuffer() on the BatchNode before batching");
-                    } else {
-                        inBuf.copyElements(0, outBuf, globalVertIndex, geomVertCount);
-                    }
+                    inBuf.copyElements(0, outBuf, globalVertIndex, geomVertCount);
                 }
             }
+        }
+    }
+
+    private static Mesh.Mode getBatchMode(Mesh.Mode mode) {
+        switch (mode) {
+            case Points:
+                return Mesh.Mode.Points;
+            case LineLoop:
+            case LineStrip:
+            case Lines:
+                //listLineWidth = geom.getMesh().getLineWidth();
+                return Mesh.Mode.Lines;
+            case TriangleFan:
+            case TriangleStrip:
+            case Triangles:
+                return Mesh.Mode.Triangles;
+            default:
+                throw new UnsupportedOperationException();
+        }
+    }
 
-            globalVertIndex += geomVertCount;
-            globalTriIndex += geomTriCount;
+    private static int getIndexComponents(Mesh.Mode batchMode) {
+        switch (batchMode) {
+            case Points:
+                return 1;
+            case Lines:
+                return 2;
+            default:
+                return 3;
         }
     }
 
@@ -643,6 +1063,24 @@ public class BatchNode extends GeometryGroupNode {
         vars.release();
     }
 
+    /**
+     * The vertex and index range of a geometry in an incremental batch.
+     */
+    private static final class Slot {
+
+        final int firstVertex;
+        final int vertexCount;
+        final int firstIndex;
+        final int indexCount;
+
+        Slot(int firstVertex, int vertexCount, int firstIndex, int indexCount) {
+            this.firstVertex = firstVertex;
+            this.vertexCount = vertexCount;
+            this.firstIndex = firstIndex;
+            this.indexCount = indexCount;
+        }
+    }
+
     protected class Batch implements JmeCloneable {
         /**
          * update the batchesByGeom map for this batch with the given List of geometries
@@ -657,6 +1095,36 @@ public class BatchNode extends GeometryGroupNode {
             }
         }
 
+        /**
+         * incremental batching only: the ranges of the live geometries in buffer order, the number of vertices
+         * and indices in use and how many of those are tombstoned
+         */
+        LinkedHashMap<Geometry, Slot> slots = new LinkedHashMap<>();
+        int vertexCount;
+        int indexCount;
+        int deadVertices;
+        int deadIndices;
+
+        void resetSlots(List<Geometry> list, Mesh mesh) {
+            slots.clear();
+            int components = getIndexComponents(mesh.getMode());
+            int vertex = 0;
+            int index = 0;
+            for (Geometry geom : list) {
+                int vertCount = geom.getVertexCount();
+                int idxCount = geom.getTriangleCount() * components;
+                if (!isBatch(geom)) {
+                    slots.put(geom, new Slot(vertex, vertCount, index, idxCount));
+                }
+                vertex += vertCount;
+                index += idxCount;
+            }
+            vertexCount = vertex;
+            indexCount = index;
+            deadVertices = 0;
+            deadIndices = 0;
+        }
+
         Geometry geometry;
 
         public final Geometry getGeometry() {
@@ -675,6 +1143,12 @@ public class BatchNode extends GeometryGroupNode {
         @Override
         public void cloneFields(Cloner cloner, Object original) {
             this.geometry = cloner.clone(geometry);
+
+            LinkedHashMap<Geometry, Slot> newSlots = new LinkedHashMap<>();
+            for (Map.Entry<Geometry, Slot> e : slots.entrySet()) {
+                newSlots.put(cloner.clone(e.getKey()), e.getValue());
+            }
+            this.slots = newSlots;
         }
 
     }
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Refreshes the geometric state of a scene graph branch on a
+ * {@link java.util.concurrent.ForkJoinPool}.
+ * <p>
+ * Mirrors {@link Node#updateGeometricState()}: a node's
+ * {@link TransformStore} and inherited state are refreshed first, then its
+ * dirty children, then its world bound. The
+ * children of plain {@link Node}s are independent of one another, so each
+ * dirty child node is forked as its own task while the other children
+ * (geometries, node subclasses and {@link GeometryGroupNode}s) are refreshed
+ * inline by the current task.
+ *
+ * @see Node#setGeometricUpdatePool(java.util.concurrent.ForkJoinPool)
+ */
+final class GeometricStateTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Children are split into ranges of at most this many entries, so that
+     * wide, flat nodes are spread across threads as well.
+     */
+    private static final int BATCH_SIZE = 64;
+
+    private final Node node;
+    private final Spatial[] children;
+    private final int from;
+    private final int to;
+    /**
+     * Links the tasks forked by the same parent task, to join them without
+     * allocating a list.
+     */
+    private GeometricStateTask next;
+
+    /**
+     * Creates a task to refresh the given node and its dirty descendants.
+     *
+     * @param node the node to refresh (not null)
+     */
+    GeometricStateTask(Node node) {
+        this.node = node;
+        this.children = null;
+        this.from = 0;
+        this.to = 0;
+    }
+
+    private GeometricStateTask(Spatial[] children, int from, int to) {
+        this.node = null;
+        this.children = children;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (node != null) {
+            node.updateTransformStore();
+            node.updateLocalGeometricState();
+            Spatial[] array = node.children.getArray();
+            refreshRange(array, 0, array.length);
+            node.updateWorldBoundIfNeeded();
+        } else {
+            refreshRange(children, from, to);
+        }
+    }
+
+    private static void refreshRange(Spatial[] array, int from, int to) {
+        if (to - from > BATCH_SIZE) {
+            int mid = (from + to) >>> 1;
+            invokeAll(new GeometricStateTask(array, from, mid),
+                    new GeometricStateTask(array, mid, to));
+            return;
+        }
+
+        GeometricStateTask forked = null;
+        for (int i = from; i < to; i++) {
+            Spatial child = array[i];
+            if (child.refreshFlags == 0) {
+                continue;
+            }
+            if (child.getClass() == Node.class && ((Node) child).getQuantity() > 0) {
+                GeometricStateTask task = new GeometricStateTask((Node) child);
+                task.next = forked;
+                forked = task;
+                task.fork();
+            } else {
+                child.updateGeometricState();
+            }
+        }
+
+        while (forked != null) {
+            forked.join();
+            forked = forked.next;
+        }
+    }
+}
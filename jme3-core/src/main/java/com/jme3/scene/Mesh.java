@@ -1112,7 +1112,8 @@ public class Mesh implements Savable, Cloneable, JmeCloneable {
                 throw new UnsupportedOperationException("The buffer already set "
                         + "is incompatible with the given parameters");
             }
-            vb.updateData(buf);
+            // only the elements that changed are sent to the GPU again
+            vb.updateChangedData(buf);
             updateCounts();
         }
     }
@@ -45,6 +45,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -78,6 +79,21 @@ public class Node extends Spatial {
      * a whole list every time the scene graph changes.
      */
     private boolean updateListValid = false;
+    /**
+     * If not null, dirty children of this node are refreshed in parallel
+     * on this pool during updateGeometricState().
+     */
+    private transient ForkJoinPool geometricUpdatePool = null;
+    /**
+     * If not null, a bounding volume hierarchy over the children, used to
+     * cull them in less than linear time.
+     */
+    private transient SpatialIndex spatialIndex = null;
+    /**
+     * If not null, contiguous storage for the world transforms of this
+     * branch.
+     */
+    private transient TransformStore ownTransformStore = null;
 
     /**
      * Instantiate a <code>Node</code> with no name, no parent, and no children.
@@ -170,6 +186,10 @@ public class Node extends Spatial {
             resultBound = new BoundingBox(getWorldTranslation(), 0f, 0f, 0f);
         }
         this.worldBound = resultBound;
+
+        if (spatialIndex != null) {
+            spatialIndex.update();
+        }
     }
 
     @Override
@@ -248,6 +268,45 @@ public class Node extends Spatial {
             // This branch has no geometric state that requires updates.
             return;
         }
+        if (geometricUpdatePool != null && children.size() > 1) {
+            // Only the refresh itself runs on the pool, the scene graph
+            // must still be driven (and mutated) from the render thread.
+            assert SceneGraphThreadWarden.assertOnCorrectThread(this);
+            geometricUpdatePool.invoke(new GeometricStateTask(this));
+            return;
+        }
+        updateTransformStore();
+        updateLocalGeometricState();
+
+        if (!children.isEmpty()) {
+            // the important part- make sure child geometric state is refreshed
+            // first before updating own world bound. This saves
+            // a round-trip later on.
+            // NOTE 9/19/09
+            // Although it does save a round trip,
+            for (Spatial child : children.getArray()) {
+                child.updateGeometricState();
+            }
+        }
+
+        updateWorldBoundIfNeeded();
+    }
+
+    /**
+     * Recomputes the world transforms kept in this node's
+     * {@link TransformStore}, if it has one.
+     */
+    void updateTransformStore() {
+        if (ownTransformStore != null) {
+            ownTransformStore.update();
+        }
+    }
+
+    /**
+     * Refreshes the state this node inherits from its parent: lights,
+     * transforms and material parameter overrides. Children are not visited.
+     */
+    void updateLocalGeometricState() {
         if ((refreshFlags & RF_LIGHTLIST) != 0) {
             updateWorldLightList();
         }
@@ -261,17 +320,13 @@ public class Node extends Spatial {
         }
 
         refreshFlags &= ~RF_CHILD_LIGHTLIST;
-        if (!children.isEmpty()) {
-            // the important part- make sure child geometric state is refreshed
-            // first before updating own world bound. This saves
-            // a round-trip later on.
-            // NOTE 9/19/09
-            // Although it does save a round trip,
-            for (Spatial child : children.getArray()) {
-                child.updateGeometricState();
-            }
-        }
+    }
 
+    /**
+     * Merges the (already refreshed) bounds of the children into the world
+     * bound of this node, if required.
+     */
+    void updateWorldBoundIfNeeded() {
         if ((refreshFlags & RF_BOUND) != 0) {
             updateWorldBound();
         }
@@ -279,6 +334,134 @@ public class Node extends Spatial {
         assert refreshFlags == 0;
     }
 
+    /**
+     * Enables or disables parallel refreshing of this branch.
+     * <p>
+     * When a pool is set, {@link #updateGeometricState()} refreshes
+     * independent dirty sibling subtrees concurrently on the pool instead of
+     * walking the whole branch on the calling thread. Only subtrees whose
+     * refresh flags are set are visited, exactly as in the serial walk.
+     * <p>
+     * This is intended for large scene graphs, typically set on the root
+     * node with {@link ForkJoinPool#commonPool()}. The call to
+     * updateGeometricState() itself must still be made from the render
+     * thread, and the scene graph must not be modified while it runs.
+     * Branches below a {@link GeometryGroupNode} (such as a
+     * {@link BatchNode}) and below Node subclasses are always refreshed
+     * by a single thread, but the overridden refresh methods of such
+     * subclasses may run on a pool thread.
+     *
+     * @param pool the pool to refresh on, or null to refresh on the calling
+     *     thread (default=null)
+     */
+    public void setGeometricUpdatePool(ForkJoinPool pool) {
+        this.geometricUpdatePool = pool;
+    }
+
+    /**
+     * Returns the pool used to refresh this branch in parallel.
+     *
+     * @return the pool, or null if this branch is refreshed on the calling
+     *     thread
+     * @see #setGeometricUpdatePool(java.util.concurrent.ForkJoinPool)
+     */
+    public ForkJoinPool getGeometricUpdatePool() {
+        return geometricUpdatePool;
+    }
+
+    /**
+     * Enables or disables the spatial index of this node.
+     * <p>
+     * When enabled, the node maintains a bounding volume hierarchy over its
+     * children, which the {@link com.jme3.renderer.RenderManager} uses to
+     * cull them in less than linear time. This pays off for nodes with many
+     * children that are mostly static, such as the props of a level. The
+     * index is kept up to date by {@link #updateGeometricState()}, from the
+     * same refresh flags as the world bound. It is not saved with the node.
+     * <p>
+     * With an index, visible children may be added to the render queue in a
+     * different order than they are attached.
+     *
+     * @param enabled true to maintain an index, false to discard it
+     *     (default=false)
+     */
+    public void setSpatialIndexEnabled(boolean enabled) {
+        if (enabled == (spatialIndex != null)) {
+            return;
+        }
+        spatialIndex = enabled ? new SpatialIndex(this) : null;
+        setBoundRefresh();
+    }
+
+    /**
+     * Tests whether this node maintains a spatial index.
+     *
+     * @return true if enabled, otherwise false
+     * @see #setSpatialIndexEnabled(boolean)
+     */
+    public boolean isSpatialIndexEnabled() {
+        return spatialIndex != null;
+    }
+
+    /**
+     * Returns the spatial index over the children of this node.
+     *
+     * @return the pre-existing index, or null if disabled
+     * @see #setSpatialIndexEnabled(boolean)
+     */
+    public SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    /**
+     * Enables or disables contiguous transform storage for this branch.
+     * <p>
+     * When enabled, the world transforms of this node and its descendants
+     * are kept in a {@link TransformStore} and refreshed by a linear scan
+     * over it, rather than by following references from spatial to
+     * spatial. The accessors of the spatials return the same values either
+     * way. This pays off for large branches whose transforms change every
+     * frame, and the store can provide their world matrices as instance
+     * data. It is not saved with the node.
+     *
+     * @param enabled true to store the transforms, false to discard the
+     *     store (default=false)
+     */
+    public void setTransformStoreEnabled(boolean enabled) {
+        if (enabled == (ownTransformStore != null)) {
+            return;
+        }
+        if (ownTransformStore != null) {
+            ownTransformStore.clear();
+        }
+        ownTransformStore = enabled ? new TransformStore(this) : null;
+        if (parent != null && parent.transformStore != null) {
+            // Hand the branch over to (or back from) the enclosing store.
+            parent.transformStore.invalidate();
+        }
+        setTransformRefresh();
+    }
+
+    /**
+     * Tests whether this node stores the transforms of its branch.
+     *
+     * @return true if enabled, otherwise false
+     * @see #setTransformStoreEnabled(boolean)
+     */
+    public boolean isTransformStoreEnabled() {
+        return ownTransformStore != null;
+    }
+
+    /**
+     * Returns the transform store of this branch.
+     *
+     * @return the pre-existing store, or null if disabled
+     * @see #setTransformStoreEnabled(boolean)
+     */
+    public TransformStore getTransformStore() {
+        return ownTransformStore;
+    }
+
     /**
      * <code>getTriangleCount</code> returns the number of triangles contained
      * in all sub-branches of this node that contain geometry.
@@ -359,6 +542,9 @@ public class Node extends Spatial {
             }
             child.setParent(this);
             children.add(index, child);
+            if (transformStore != null) {
+                transformStore.invalidate();
+            }
             // XXX: Not entirely correct? Forces bound update up the
             // tree stemming from the attached child. Also forces
             // transform update down the tree-
@@ -435,6 +621,9 @@ public class Node extends Spatial {
         Spatial child = children.remove(index);
         if (child != null) {
             child.setParent(null);
+            if (transformStore != null) {
+                transformStore.invalidate();
+            }
             logger.log(Level.FINE, "{0}: Child removed.", this);
 
             // since a child with a bound was detached;
@@ -756,6 +945,16 @@ public class Node extends Spatial {
         // or not... after all, we might be cloning a root node in which case
         // cloning this list is fine.
         this.updateList = cloner.clone(updateList);
+
+        // The index refers to its node, so the clone needs its own.
+        if (spatialIndex != null) {
+            this.spatialIndex = new SpatialIndex(this);
+            this.refreshFlags |= RF_BOUND;
+        }
+        if (ownTransformStore != null) {
+            this.ownTransformStore = new TransformStore(this);
+            this.refreshFlags |= RF_TRANSFORM;
+        }
     }
 
     @Override
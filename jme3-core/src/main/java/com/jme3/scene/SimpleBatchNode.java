@@ -71,6 +71,9 @@ public class SimpleBatchNode extends BatchNode {
     @Override
     protected void setTransformRefresh() {
         refreshFlags |= RF_TRANSFORM;
+        if (transformStore != null) {
+            transformStore.setDirty(transformSlot);
+        }
         setBoundRefresh();
         for (Batch batch : batches.getArray()) {
             batch.geometry.setTransformRefresh();
@@ -50,8 +50,8 @@ import com.jme3.renderer.queue.RenderQueue.Bucket;
 import com.jme3.renderer.queue.RenderQueue.ShadowMode;
 import com.jme3.scene.control.Control;
 import com.jme3.scene.threadwarden.SceneGraphThreadWarden;
+import com.jme3.util.MathArena;
 import com.jme3.util.SafeArrayList;
-import com.jme3.util.TempVars;
 import com.jme3.util.clone.Cloner;
 import com.jme3.util.clone.IdentityCloneFunction;
 import com.jme3.util.clone.JmeCloneable;
@@ -171,6 +171,12 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
      * updated to reflect the correct state.
      */
     protected transient int refreshFlags = 0;
+    /**
+     * The store holding the world transform of this spatial, if any, and the
+     * index of its slot there.
+     */
+    transient TransformStore transformStore;
+    transient int transformSlot = -1;
 
     /**
      * Set to true if a subclass requires updateLogicalState() even
@@ -281,6 +287,9 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
     protected void setTransformRefresh() {
         assert SceneGraphThreadWarden.assertOnCorrectThread(this);
         refreshFlags |= RF_TRANSFORM;
+        if (transformStore != null) {
+            transformStore.setDirty(transformSlot);
+        }
         setBoundRefresh();
     }
 
@@ -515,27 +524,23 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
      *            the up vector to use - assumed to be a unit vector.
      */
     public void rotateUpTo(Vector3f newUp) {
-        TempVars vars = TempVars.get();
-
-        Vector3f compVecA = vars.vect1;
-        Quaternion q = vars.quat1;
-
-        // First figure out the current up vector.
-        Vector3f upY = compVecA.set(Vector3f.UNIT_Y);
-        Quaternion rot = localTransform.getRotation();
-        rot.multLocal(upY);
-
-        // get angle between vectors
-        float angle = upY.angleBetween(newUp);
-
-        // figure out rotation axis by taking cross product
-        Vector3f rotAxis = upY.crossLocal(newUp).normalizeLocal();
-
-        // Build a rotation quat and apply current local rotation.
-        q.fromAngleNormalAxis(angle, rotAxis);
-        q.mult(rot, rot);
-
-        vars.release();
+        try (MathArena arena = MathArena.open()) {
+            // First figure out the current up vector.
+            Vector3f upY = arena.vector3f(Vector3f.UNIT_Y);
+            Quaternion rot = localTransform.getRotation();
+            rot.multLocal(upY);
+
+            // get angle between vectors
+            float angle = upY.angleBetween(newUp);
+
+            // figure out rotation axis by taking cross product
+            Vector3f rotAxis = upY.crossLocal(newUp).normalizeLocal();
+
+            // Build a rotation quat and apply current local rotation.
+            Quaternion q = arena.quaternion();
+            q.fromAngleNormalAxis(angle, rotAxis);
+            q.mult(rot, rot);
+        }
 
         setTransformRefresh();
     }
@@ -561,18 +566,16 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
     public void lookAt(Vector3f position, Vector3f upVector) {
         Vector3f worldTranslation = getWorldTranslation();
 
-        TempVars vars = TempVars.get();
-
-        Vector3f compVecA = vars.vect4;
-        compVecA.set(position).subtractLocal(worldTranslation);
-        getLocalRotation().lookAt(compVecA, upVector);
-        if (getParent() != null) {
-            Quaternion rot = vars.quat1;
-            rot = rot.set(parent.getWorldRotation()).inverseLocal().multLocal(getLocalRotation());
-            rot.normalizeLocal();
-            setLocalRotation(rot);
+        try (MathArena arena = MathArena.open()) {
+            Vector3f compVecA = arena.vector3f(position).subtractLocal(worldTranslation);
+            getLocalRotation().lookAt(compVecA, upVector);
+            if (getParent() != null) {
+                Quaternion rot = arena.quaternion(parent.getWorldRotation());
+                rot.inverseLocal().multLocal(getLocalRotation());
+                rot.normalizeLocal();
+                setLocalRotation(rot);
+            }
         }
-        vars.release();
         setTransformRefresh();
     }
 
@@ -657,6 +660,11 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
      * In most cases should not be subclassed.
      */
     protected void updateWorldTransforms() {
+        if (transformStore != null && transformStore.getWorld(transformSlot, worldTransform)) {
+            // Already computed by the store.
+            refreshFlags &= ~RF_TRANSFORM;
+            return;
+        }
         if (parent == null) {
             worldTransform.set(localTransform);
             refreshFlags &= ~RF_TRANSFORM;
@@ -667,6 +675,9 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
             worldTransform.combineWithParent(parent.worldTransform);
             refreshFlags &= ~RF_TRANSFORM;
         }
+        if (transformStore != null) {
+            transformStore.setWorld(transformSlot, worldTransform);
+        }
     }
 
     /**
@@ -682,39 +693,9 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
             worldTransform.set(localTransform);
             refreshFlags &= ~RF_TRANSFORM;
         } else {
-            TempVars vars = TempVars.get();
-
-            Spatial[] stack = vars.spatialStack;
-            Spatial rootNode = this;
-            int i = 0;
-            while (true) {
-                Spatial hisParent = rootNode.parent;
-                if (hisParent == null) {
-                    rootNode.worldTransform.set(rootNode.localTransform);
-                    rootNode.refreshFlags &= ~RF_TRANSFORM;
-                    i--;
-                    break;
-                }
-
-                stack[i] = rootNode;
-
-                if ((hisParent.refreshFlags & RF_TRANSFORM) == 0) {
-                    break;
-                }
-
-                rootNode = hisParent;
-                i++;
-            }
-
-            vars.release();
-
-            for (int j = i; j >= 0; j--) {
-                rootNode = stack[j];
-                //rootNode.worldTransform.set(rootNode.localTransform);
-                //rootNode.worldTransform.combineWithParent(rootNode.parent.worldTransform);
-                //rootNode.refreshFlags &= ~RF_TRANSFORM;
-                rootNode.updateWorldTransforms();
-            }
+            // Ancestors are refreshed first, so there is no limit on depth.
+            parent.checkDoTransformUpdate();
+            updateWorldTransforms();
         }
     }
 
@@ -1012,11 +993,11 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
         }else{
             store.set(in);
         }
-        TempVars tempVars = TempVars.get();
-        Quaternion worldRotation = tempVars.quat1.set(getWorldRotation());
-        worldRotation.inverseLocal();
-        store.multLocal(worldRotation);
-        tempVars.release();
+        try (MathArena arena = MathArena.open()) {
+            Quaternion worldRotation = arena.quaternion(getWorldRotation());
+            worldRotation.inverseLocal();
+            store.multLocal(worldRotation);
+        }
         return store;
     }
 
@@ -1315,11 +1296,11 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
      * @return The spatial on which this method is called, e.g <code>this</code>.
      */
     public Spatial rotate(float xAngle, float yAngle, float zAngle) {
-        TempVars vars = TempVars.get();
-        Quaternion q = vars.quat1;
-        q.fromAngles(xAngle, yAngle, zAngle);
-        rotate(q);
-        vars.release();
+        try (MathArena arena = MathArena.open()) {
+            Quaternion q = arena.quaternion();
+            q.fromAngles(xAngle, yAngle, zAngle);
+            rotate(q);
+        }
 
         return this;
     }
@@ -1552,6 +1533,10 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
         this.localOverrides = cloner.clone(localOverrides);
         this.controls = cloner.clone(controls);
 
+        // The clone is not part of the original's subtree.
+        this.transformStore = null;
+        this.transformSlot = -1;
+
         // Cloner doesn't handle maps on its own just yet.
         // Note: this is more advanced cloning than the old clone() method
         // did because it just shallow cloned the map.  In this case, we want
@@ -1724,7 +1709,20 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
      * spatial gets re-parented.
      */
     public void setCullHint(CullHint hint) {
-        cullHint = hint;
+        if (cullHint != hint) {
+            cullHint = hint;
+            invalidateParentIndex();
+        }
+    }
+
+    /**
+     * The spatial index of the parent keeps the children that are never
+     * culled or in the gui bucket apart, so it is rebuilt when they change.
+     */
+    private void invalidateParentIndex() {
+        if (parent != null && parent.getSpatialIndex() != null) {
+            parent.getSpatialIndex().rebuild();
+        }
     }
 
     /**
@@ -1764,7 +1762,10 @@ public abstract class Spatial implements Savable, Cloneable, Collidable,
      *            The bucket to use for this Spatial.
      */
     public void setQueueBucket(RenderQueue.Bucket queueBucket) {
-        this.queueBucket = queueBucket;
+        if (this.queueBucket != queueBucket) {
+            this.queueBucket = queueBucket;
+            invalidateParentIndex();
+        }
     }
 
     /**
@@ -0,0 +1,427 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.queue.RenderQueue;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A bounding volume hierarchy over the children of a {@link Node}, used to
+ * cull wide, flat nodes in less than linear time.
+ * <p>
+ * The hierarchy is maintained by its node during
+ * {@link Node#updateGeometricState()}: it is rebuilt when children are
+ * attached or detached, and refitted (without changing its topology) when
+ * the bounds of the children change. It therefore works best for large,
+ * mostly static sets of children, e.g. the props of a level. Call
+ * {@link #rebuild()} after moving many children far from their original
+ * position to restore the quality of the hierarchy.
+ *
+ * @see Node#setSpatialIndexEnabled(boolean)
+ */
+public final class SpatialIndex {
+
+    /**
+     * The maximum number of children in a leaf of the hierarchy.
+     */
+    private static final int LEAF_SIZE = 4;
+
+    private final Node node;
+    /**
+     * The children array the hierarchy was built from. Attaching or
+     * detaching a child replaces the array of the node.
+     */
+    private Spatial[] children;
+    private boolean rebuildNeeded = true;
+
+    /**
+     * Axis-aligned bounds of each child: minX, minY, minZ, maxX, maxY, maxZ.
+     */
+    private float[] childBounds = new float[0];
+    /**
+     * Child indices in leaf order.
+     */
+    private int[] order = new int[0];
+    /**
+     * Children visited by every query: those without a usable world bound,
+     * and those that must not be rejected by the frustum of the camera
+     * ({@link Spatial.CullHint#Never} and the {@link RenderQueue.Bucket#Gui}
+     * bucket).
+     */
+    private int[] alwaysVisited = new int[0];
+    private int alwaysVisitedCount;
+
+    /**
+     * For a leaf, the first position in {@link #order}; for an interior
+     * node, the index of its first child (the second one follows it).
+     */
+    private int[] nodeFirst = new int[0];
+    /**
+     * The number of children of a leaf, or 0 for an interior node.
+     */
+    private int[] nodeCount = new int[0];
+    private float[] nodeBounds = new float[0];
+    private BoundingBox[] nodeBoxes = new BoundingBox[0];
+    private int nodeTotal;
+
+    SpatialIndex(Node node) {
+        this.node = node;
+    }
+
+    /**
+     * Returns the node whose children are indexed.
+     *
+     * @return the pre-existing node (not null)
+     */
+    public Node getNode() {
+        return node;
+    }
+
+    /**
+     * Requests that the hierarchy be rebuilt from scratch during the next
+     * geometric update of the node.
+     */
+    public void rebuild() {
+        rebuildNeeded = true;
+        node.setBoundRefresh();
+    }
+
+    /**
+     * Visits the children of the node that may intersect the frustum of the
+     * camera.
+     * <p>
+     * The plane state of the camera on entry is used as the starting state,
+     * as during a scene graph traversal. For each potentially visible child,
+     * the visitor receives the plane state to restore on the camera before
+     * culling that child. The plane state of the camera is left undefined.
+     * <p>
+     * If the node itself is never culled or is in the gui bucket, every
+     * child is visited, as {@link Spatial#checkCulling(Camera)} decides
+     * for each of them.
+     * <p>
+     * This does not modify the index, so several threads may query it at
+     * once, each with its own camera.
+     *
+     * @param cam the camera to cull against (not null)
+     * @param visitor receives each potentially visible child with its plane
+     *     state (not null)
+     */
+    public void cull(Camera cam, ObjIntConsumer<Spatial> visitor) {
+        int planeState = cam.getPlaneState();
+        if (node.getCullHint() == Spatial.CullHint.Never
+                || node.getQueueBucket() == RenderQueue.Bucket.Gui) {
+            for (Spatial child : node.children.getArray()) {
+                visitor.accept(child, planeState);
+            }
+            return;
+        }
+        Spatial[] array = children;
+        for (int i = 0; i < alwaysVisitedCount; i++) {
+            visitor.accept(array[alwaysVisited[i]], planeState);
+        }
+        if (nodeTotal > 0) {
+            cull(0, cam, planeState, visitor);
+        }
+    }
+
+    private void cull(int index, Camera cam, int planeState, ObjIntConsumer<Spatial> visitor) {
+        cam.setPlaneState(planeState);
+        if (cam.contains(nodeBoxes[index]) == Camera.FrustumIntersect.Outside) {
+            return;
+        }
+        int state = cam.getPlaneState();
+        int count = nodeCount[index];
+        if (count == 0) {
+            int first = nodeFirst[index];
+            cull(first, cam, state, visitor);
+            cull(first + 1, cam, state, visitor);
+        } else {
+            Spatial[] array = children;
+            int first = nodeFirst[index];
+            for (int i = first; i < first + count; i++) {
+                visitor.accept(array[order[i]], state);
+            }
+        }
+    }
+
+    /**
+     * Brings the hierarchy up to date with the children of the node. Called
+     * by the node once the world bounds of its children are refreshed.
+     */
+    void update() {
+        Spatial[] current = node.children.getArray();
+        if (rebuildNeeded || current != children) {
+            build(current);
+        } else {
+            refit();
+        }
+    }
+
+    private void build(Spatial[] array) {
+        children = array;
+        rebuildNeeded = false;
+
+        int size = array.length;
+        if (childBounds.length < size * 6) {
+            childBounds = new float[size * 6];
+            order = new int[size];
+            alwaysVisited = new int[size];
+        }
+
+        int boundedCount = 0;
+        alwaysVisitedCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (!isAlwaysVisited(array[i]) && storeBounds(array[i].getWorldBound(), i)) {
+                order[boundedCount++] = i;
+            } else {
+                alwaysVisited[alwaysVisitedCount++] = i;
+            }
+        }
+
+        nodeTotal = 0;
+        if (boundedCount == 0) {
+            return;
+        }
+        // Every leaf holds at least one child, and a binary tree with
+        // n leaves has 2n - 1 nodes.
+        int maxNodes = 2 * boundedCount;
+        if (nodeCount.length < maxNodes) {
+            nodeFirst = new int[maxNodes];
+            nodeCount = new int[maxNodes];
+            nodeBounds = new float[maxNodes * 6];
+            BoundingBox[] boxes = new BoundingBox[maxNodes];
+            System.arraycopy(nodeBoxes, 0, boxes, 0, nodeBoxes.length);
+            for (int i = nodeBoxes.length; i < maxNodes; i++) {
+                boxes[i] = new BoundingBox();
+            }
+            nodeBoxes = boxes;
+        }
+
+        nodeTotal = 1;
+        buildNode(0, 0, boundedCount);
+        for (int i = 0; i < nodeTotal; i++) {
+            syncBox(i);
+        }
+    }
+
+    private void buildNode(int index, int from, int to) {
+        computeRangeBounds(from, to, index);
+        if (to - from <= LEAF_SIZE) {
+            nodeFirst[index] = from;
+            nodeCount[index] = to - from;
+            return;
+        }
+
+        // Split at the median of the child centers along the longest axis.
+        float[] nb = nodeBounds;
+        int o = index * 6;
+        float dx = nb[o + 3] - nb[o];
+        float dy = nb[o + 4] - nb[o + 1];
+        float dz = nb[o + 5] - nb[o + 2];
+        int axis = dx >= dy ? (dx >= dz ? 0 : 2) : (dy >= dz ? 1 : 2);
+        int mid = (from + to) >>> 1;
+        select(from, to - 1, mid, axis);
+
+        int left = nodeTotal;
+        nodeTotal += 2;
+        nodeFirst[index] = left;
+        nodeCount[index] = 0;
+        buildNode(left, from, mid);
+        buildNode(left + 1, mid, to);
+    }
+
+    /**
+     * Partially sorts order[lo..hi] so that the element at k has the k-th
+     * smallest center along the given axis (quickselect).
+     */
+    private void select(int lo, int hi, int k, int axis) {
+        while (hi > lo) {
+            float pivot = center(order[(lo + hi) >>> 1], axis);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (center(order[i], axis) < pivot) {
+                    i++;
+                }
+                while (center(order[j], axis) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private float center(int child, int axis) {
+        int o = child * 6 + axis;
+        return childBounds[o] + childBounds[o + 3];
+    }
+
+    private void refit() {
+        Spatial[] array = children;
+        for (int i = 0; i < nodeTotal; i++) {
+            if (nodeCount[i] == 0) {
+                continue;
+            }
+            int first = nodeFirst[i];
+            for (int j = first; j < first + nodeCount[i]; j++) {
+                int child = order[j];
+                if (!storeBounds(array[child].getWorldBound(), child)) {
+                    // The kind of bound changed, the hierarchy must be rebuilt.
+                    build(array);
+                    return;
+                }
+            }
+        }
+
+        // Children are always allocated after their parent, so a reverse
+        // scan refits bottom-up.
+        for (int i = nodeTotal - 1; i >= 0; i--) {
+            int count = nodeCount[i];
+            if (count == 0) {
+                int first = nodeFirst[i];
+                unionNodes(i, first, first + 1);
+            } else {
+                computeRangeBounds(nodeFirst[i], nodeFirst[i] + count, i);
+            }
+            syncBox(i);
+        }
+    }
+
+    /**
+     * Tells whether a child must be visited even outside of the frustum. An
+     * inherited hint or bucket is covered by the check of the node in
+     * {@link #cull(Camera, ObjIntConsumer)}.
+     */
+    private static boolean isAlwaysVisited(Spatial child) {
+        return child.cullHint == Spatial.CullHint.Never
+                || child.queueBucket == RenderQueue.Bucket.Gui;
+    }
+
+    private boolean storeBounds(BoundingVolume bound, int child) {
+        float[] cb = childBounds;
+        int o = child * 6;
+        if (bound instanceof BoundingBox) {
+            BoundingBox box = (BoundingBox) bound;
+            float cx = box.getCenter().x;
+            float cy = box.getCenter().y;
+            float cz = box.getCenter().z;
+            float ex = box.getXExtent();
+            float ey = box.getYExtent();
+            float ez = box.getZExtent();
+            cb[o] = cx - ex;
+            cb[o + 1] = cy - ey;
+            cb[o + 2] = cz - ez;
+            cb[o + 3] = cx + ex;
+            cb[o + 4] = cy + ey;
+            cb[o + 5] = cz + ez;
+            return true;
+        } else if (bound instanceof BoundingSphere) {
+            BoundingSphere sphere = (BoundingSphere) bound;
+            float r = sphere.getRadius();
+            cb[o] = sphere.getCenter().x - r;
+            cb[o + 1] = sphere.getCenter().y - r;
+            cb[o + 2] = sphere.getCenter().z - r;
+            cb[o + 3] = sphere.getCenter().x + r;
+            cb[o + 4] = sphere.getCenter().y + r;
+            cb[o + 5] = sphere.getCenter().z + r;
+            return true;
+        }
+        return false;
+    }
+
+    private void computeRangeBounds(int from, int to, int index) {
+        float[] cb = childBounds;
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        float maxZ = Float.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            int o = order[i] * 6;
+            minX = Math.min(minX, cb[o]);
+            minY = Math.min(minY, cb[o + 1]);
+            minZ = Math.min(minZ, cb[o + 2]);
+            maxX = Math.max(maxX, cb[o + 3]);
+            maxY = Math.max(maxY, cb[o + 4]);
+            maxZ = Math.max(maxZ, cb[o + 5]);
+        }
+        int o = index * 6;
+        nodeBounds[o] = minX;
+        nodeBounds[o + 1] = minY;
+        nodeBounds[o + 2] = minZ;
+        nodeBounds[o + 3] = maxX;
+        nodeBounds[o + 4] = maxY;
+        nodeBounds[o + 5] = maxZ;
+    }
+
+    private void unionNodes(int index, int a, int b) {
+        float[] nb = nodeBounds;
+        int o = index * 6;
+        int oa = a * 6;
+        int ob = b * 6;
+        for (int i = 0; i < 3; i++) {
+            nb[o + i] = Math.min(nb[oa + i], nb[ob + i]);
+            nb[o + 3 + i] = Math.max(nb[oa + 3 + i], nb[ob + 3 + i]);
+        }
+    }
+
+    private void syncBox(int index) {
+        float[] nb = nodeBounds;
+        int o = index * 6;
+        BoundingBox box = nodeBoxes[index];
+        box.getCenter().set(
+                (nb[o] + nb[o + 3]) * 0.5f,
+                (nb[o + 1] + nb[o + 4]) * 0.5f,
+                (nb[o + 2] + nb[o + 5]) * 0.5f);
+        box.setXExtent((nb[o + 3] - nb[o]) * 0.5f);
+        box.setYExtent((nb[o + 4] - nb[o + 1]) * 0.5f);
+        box.setZExtent((nb[o + 5] - nb[o + 2]) * 0.5f);
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import com.jme3.math.Matrix3f;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
+import com.jme3.util.BufferUtils;
+import com.jme3.util.MathArena;
+import java.nio.FloatBuffer;
+
+/**
+ * Contiguous storage for the world transforms of a subtree, refreshed by a
+ * linear scan instead of a recursive walk.
+ * <p>
+ * Each spatial of the subtree is given a slot, in depth-first order so that
+ * a parent always comes before its children. The world transforms are kept
+ * in one float array, and {@link #update()} (called by the owning node
+ * during {@link Node#updateGeometricState()}) recomputes the slots whose
+ * transform changed from front to back. The spatials then simply copy their
+ * world transform out of the store, so their accessors return the same
+ * values as without one.
+ * <p>
+ * The store can also provide the world matrices of all slots in the layout
+ * used by {@link com.jme3.scene.instancing.InstancedGeometry}, ready to be
+ * uploaded as instance data without gathering them from each spatial.
+ * <p>
+ * The slots are assigned again whenever a spatial is attached or detached
+ * anywhere in the subtree. The children of a {@link GeometryGroupNode} are
+ * refreshed by that node, so only the group node itself gets a slot. A
+ * branch whose top node has its own store is left out entirely: that node
+ * takes the first slot of its own store and has none in this one.
+ *
+ * @see Node#setTransformStoreEnabled(boolean)
+ */
+public final class TransformStore {
+
+    /**
+     * Floats per slot in the world transform array: translation (3),
+     * rotation (4) and scale (3).
+     */
+    private static final int STRIDE = 10;
+    /**
+     * Floats per slot in the instance data.
+     */
+    public static final int INSTANCE_SIZE = 16;
+
+    private final Node root;
+    private boolean rebuildNeeded = true;
+    private int count;
+    private Spatial[] spatials = new Spatial[0];
+    private int[] parents = new int[0];
+    private float[] world = new float[0];
+    /**
+     * True for slots whose world transform in the array is out of date.
+     */
+    private boolean[] dirty = new boolean[0];
+    /**
+     * True for slots whose instance data is out of date.
+     */
+    private boolean[] instanceDirty = new boolean[0];
+    private FloatBuffer instanceData;
+
+    TransformStore(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns the node whose subtree is stored.
+     *
+     * @return the pre-existing node (not null)
+     */
+    public Node getNode() {
+        return root;
+    }
+
+    /**
+     * Returns the number of slots, as of the last update.
+     *
+     * @return the count (&ge;0)
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the slot of the specified spatial, as of the last update.
+     *
+     * @param spatial the spatial to look up (not null)
+     * @return the index of its slot, or -1 if it has none
+     */
+    public int getSlot(Spatial spatial) {
+        if (rebuildNeeded || spatial.transformStore != this) {
+            return -1;
+        }
+        return spatial.transformSlot;
+    }
+
+    /**
+     * Returns the spatial in the specified slot, as of the last update.
+     *
+     * @param slot the index of the slot (&ge;0, &lt;size())
+     * @return the pre-existing spatial
+     */
+    public Spatial getSpatial(int slot) {
+        return spatials[slot];
+    }
+
+    /**
+     * Copies the world transform stored in the specified slot.
+     *
+     * @param slot the index of the slot (&ge;0, &lt;size())
+     * @param store storage for the result (not null, modified)
+     * @return the <code>store</code> argument
+     */
+    public Transform getWorldTransform(int slot, Transform store) {
+        readWorld(slot, store);
+        return store;
+    }
+
+    /**
+     * Brings the world transforms up to date, assigning the slots again
+     * first if the subtree changed. Called by the owning node.
+     */
+    public void update() {
+        if (rebuildNeeded) {
+            rebuild();
+        }
+        for (int i = 0; i < count; i++) {
+            if (!dirty[i]) {
+                continue;
+            }
+            int parent = parents[i];
+            if (parent < 0) {
+                // The parent of the subtree is not stored.
+                Spatial spatial = spatials[i];
+                spatial.checkDoTransformUpdate();
+                writeWorld(i, spatial.worldTransform);
+            } else {
+                combine(spatials[i].localTransform, parent, i);
+            }
+            dirty[i] = false;
+            instanceDirty[i] = true;
+        }
+    }
+
+    /**
+     * Returns the world matrices of all slots, 16 floats each in slot
+     * order, encoded like the transforms of an
+     * {@link com.jme3.scene.instancing.InstancedGeometry}. Only the slots
+     * that changed since the previous call are written again.
+     *
+     * @return a direct buffer owned by this store, with its position at 0
+     *     and its limit at the end of the last slot
+     */
+    public FloatBuffer getInstanceData() {
+        update();
+        if (instanceData == null || instanceData.capacity() < count * INSTANCE_SIZE) {
+            instanceData = BufferUtils.createFloatBuffer(Math.max(1, count) * INSTANCE_SIZE);
+            for (int i = 0; i < count; i++) {
+                instanceDirty[i] = true;
+            }
+        }
+        try (MathArena arena = MathArena.open()) {
+            Matrix3f matrix = arena.matrix3f();
+            Quaternion rotation = arena.quaternion();
+            Vector3f vector = arena.vector3f();
+            for (int i = 0; i < count; i++) {
+                if (instanceDirty[i]) {
+                    writeInstance(i, matrix, rotation, vector);
+                    instanceDirty[i] = false;
+                }
+            }
+        }
+        instanceData.limit(count * INSTANCE_SIZE);
+        instanceData.position(0);
+        return instanceData;
+    }
+
+    /**
+     * Requests that the slots be assigned again during the next update.
+     */
+    void invalidate() {
+        rebuildNeeded = true;
+    }
+
+    /**
+     * Marks the world transform of a slot as out of date.
+     */
+    void setDirty(int slot) {
+        if (!rebuildNeeded) {
+            dirty[slot] = true;
+        }
+    }
+
+    /**
+     * Copies the world transform of a slot into the store argument, if it is
+     * up to date.
+     *
+     * @return true if copied, false if the caller must compute it
+     */
+    boolean getWorld(int slot, Transform store) {
+        if (rebuildNeeded || dirty[slot]) {
+            return false;
+        }
+        readWorld(slot, store);
+        return true;
+    }
+
+    /**
+     * Records a world transform computed outside of the store.
+     */
+    void setWorld(int slot, Transform transform) {
+        if (!rebuildNeeded) {
+            writeWorld(slot, transform);
+            dirty[slot] = false;
+            instanceDirty[slot] = true;
+        }
+    }
+
+    /**
+     * Releases all slots. The next update assigns them again.
+     */
+    void clear() {
+        for (int i = 0; i < count; i++) {
+            Spatial spatial = spatials[i];
+            if (spatial.transformStore == this) {
+                spatial.transformStore = null;
+                spatial.transformSlot = -1;
+            }
+            spatials[i] = null;
+        }
+        count = 0;
+        rebuildNeeded = true;
+    }
+
+    private void rebuild() {
+        clear();
+        add(root, -1);
+
+        if (world.length < count * STRIDE) {
+            world = new float[count * STRIDE];
+        }
+        if (dirty.length < count) {
+            dirty = new boolean[count];
+            instanceDirty = new boolean[count];
+        }
+        for (int i = 0; i < count; i++) {
+            dirty[i] = true;
+            instanceDirty[i] = true;
+        }
+        rebuildNeeded = false;
+    }
+
+    private void add(Spatial spatial, int parent) {
+        if (count == spatials.length) {
+            int capacity = Math.max(16, count * 2);
+            Spatial[] newSpatials = new Spatial[capacity];
+            System.arraycopy(spatials, 0, newSpatials, 0, count);
+            spatials = newSpatials;
+            int[] newParents = new int[capacity];
+            System.arraycopy(parents, 0, newParents, 0, count);
+            parents = newParents;
+        }
+        int slot = count++;
+        spatials[slot] = spatial;
+        parents[slot] = parent;
+        spatial.transformStore = this;
+        spatial.transformSlot = slot;
+
+        if (spatial instanceof Node && !(spatial instanceof GeometryGroupNode)) {
+            for (Spatial child : ((Node) spatial).getChildren()) {
+                if (child instanceof Node && ((Node) child).getTransformStore() != null) {
+                    // That branch has its own store.
+                    continue;
+                }
+                add(child, slot);
+            }
+        }
+    }
+
+    /**
+     * Computes the world transform of a slot from its local transform and
+     * the world transform of its parent slot, with the same arithmetic as
+     * {@link Transform#combineWithParent(Transform)}.
+     */
+    private void combine(Transform local, int parentSlot, int slot) {
+        float[] w = world;
+        int p = parentSlot * STRIDE;
+        int o = slot * STRIDE;
+
+        float ptx = w[p], pty = w[p + 1], ptz = w[p + 2];
+        float px = w[p + 3], py = w[p + 4], pz = w[p + 5], pw = w[p + 6];
+        float psx = w[p + 7], psy = w[p + 8], psz = w[p + 9];
+
+        Vector3f scale = local.getScale();
+        w[o + 7] = scale.x * psx;
+        w[o + 8] = scale.y * psy;
+        w[o + 9] = scale.z * psz;
+
+        Quaternion rot = local.getRotation();
+        float qx = rot.getX(), qy = rot.getY(), qz = rot.getZ(), qw = rot.getW();
+        w[o + 3] = px * qw + py * qz - pz * qy + pw * qx;
+        w[o + 4] = -px * qz + py * qw + pz * qx + pw * qy;
+        w[o + 5] = px * qy - py * qx + pz * qw + pw * qz;
+        w[o + 6] = -px * qx - py * qy - pz * qz + pw * qw;
+
+        Vector3f translation = local.getTranslation();
+        float vx = translation.x * psx;
+        float vy = translation.y * psy;
+        float vz = translation.z * psz;
+        float tx, ty, tz;
+        if (vx == 0 && vy == 0 && vz == 0) {
+            tx = 0;
+            ty = 0;
+            tz = 0;
+        } else {
+            tx = pw * pw * vx + 2 * py * pw * vz - 2 * pz * pw * vy + px * px
+                    * vx + 2 * py * px * vy + 2 * pz * px * vz - pz * pz * vx - py
+                    * py * vx;
+            ty = 2 * px * py * vx + py * py * vy + 2 * pz * py * vz + 2 * pw
+                    * pz * vx - pz * pz * vy + pw * pw * vy - 2 * px * pw * vz - px
+                    * px * vy;
+            tz = 2 * px * pz * vx + 2 * py * pz * vy + pz * pz * vz - 2 * pw
+                    * py * vx - py * py * vz + 2 * pw * px * vy - px * px * vz + pw
+                    * pw * vz;
+        }
+        w[o] = tx + ptx;
+        w[o + 1] = ty + pty;
+        w[o + 2] = tz + ptz;
+    }
+
+    private void readWorld(int slot, Transform store) {
+        float[] w = world;
+        int o = slot * STRIDE;
+        store.getTranslation().set(w[o], w[o + 1], w[o + 2]);
+        store.getRotation().set(w[o + 3], w[o + 4], w[o + 5], w[o + 6]);
+        store.getScale().set(w[o + 7], w[o + 8], w[o + 9]);
+    }
+
+    private void writeWorld(int slot, Transform transform) {
+        float[] w = world;
+        int o = slot * STRIDE;
+        Vector3f translation = transform.getTranslation();
+        Quaternion rot = transform.getRotation();
+        Vector3f scale = transform.getScale();
+        w[o] = translation.x;
+        w[o + 1] = translation.y;
+        w[o + 2] = translation.z;
+        w[o + 3] = rot.getX();
+        w[o + 4] = rot.getY();
+        w[o + 5] = rot.getZ();
+        w[o + 6] = rot.getW();
+        w[o + 7] = scale.x;
+        w[o + 8] = scale.y;
+        w[o + 9] = scale.z;
+    }
+
+    /**
+     * Encodes the world matrix of a slot: the columns of the rotation and
+     * scale, then the translation, with the inverse rotation as a
+     * quaternion in the fourth component of each.
+     */
+    private void writeInstance(int slot, Matrix3f matrix, Quaternion rotation, Vector3f vector) {
+        float[] w = world;
+        int o = slot * STRIDE;
+        rotation.set(w[o + 3], w[o + 4], w[o + 5], w[o + 6]);
+        rotation.toRotationMatrix(matrix);
+        matrix.scale(vector.set(w[o + 7], w[o + 8], w[o + 9]));
+
+        int base = slot * INSTANCE_SIZE;
+        FloatBuffer fb = instanceData;
+        for (int column = 0; column < 3; column++) {
+            matrix.getColumn(column, vector);
+            fb.put(base + column * 4, vector.x);
+            fb.put(base + column * 4 + 1, vector.y);
+            fb.put(base + column * 4 + 2, vector.z);
+        }
+        fb.put(base + 12, w[o]);
+        fb.put(base + 13, w[o + 1]);
+        fb.put(base + 14, w[o + 2]);
+
+        matrix.invertLocal();
+        rotation.fromRotationMatrix(matrix);
+        fb.put(base + 3, rotation.getX());
+        fb.put(base + 7, rotation.getY());
+        fb.put(base + 11, rotation.getZ());
+        fb.put(base + 15, rotation.getW());
+    }
+}
@@ -334,6 +334,21 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
     protected transient boolean dataSizeChanged = false;
     protected String name;
 
+    /**
+     * Maximum number of separate dirty ranges, more are merged into one.
+     */
+    private static final int MAX_DIRTY_RANGES = 8;
+    /**
+     * Pairs of first element and end element (exclusive) of the ranges
+     * modified since the last upload, sorted and disjoint, or null.
+     */
+    protected transient int[] dirtyRanges;
+    /**
+     * Number of pairs used in {@link #dirtyRanges}. Zero while an update is
+     * needed means that the whole buffer must be uploaded.
+     */
+    protected transient int numDirtyRanges = 0;
+
     /**
      * Creates an empty, uninitialized buffer.
      * Must call setupData() to initialize.
@@ -710,6 +725,215 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
         setUpdateNeeded();
     }
 
+    /**
+     * Marks a range of elements as modified, after they were changed in the
+     * buffer returned by {@link #getData()}. Unlike
+     * {@link #updateData(java.nio.Buffer)}, only the modified ranges are sent
+     * to the GPU again, unless the whole buffer already needs to be sent.
+     * <p>
+     * Ranges that overlap or touch are merged, and when more than a few
+     * separate ranges are modified they are merged into one range that
+     * covers all of them.
+     *
+     * @param startElement the index of the first modified element
+     * @param numElements the number of modified elements
+     * @throws IllegalArgumentException if the range is not in the buffer
+     */
+    public void updateData(int startElement, int numElements) {
+        if (startElement < 0 || numElements < 0 || startElement + numElements > getNumElements()) {
+            throw new IllegalArgumentException("Range " + startElement + " + " + numElements
+                    + " is outside of the " + getNumElements() + " elements");
+        }
+        if (numElements == 0 || (updateNeeded && numDirtyRanges == 0)) {
+            // nothing modified, or the whole buffer is sent anyway
+            return;
+        }
+        addDirtyRange(startElement, startElement + numElements);
+        updateNeeded = true;
+    }
+
+    /**
+     * Replaces the data with a buffer of the same kind and size, and marks
+     * only the elements that differ from the current data as modified. The
+     * comparison costs a pass over both buffers, which is cheaper than
+     * sending a large buffer when only a few elements changed.
+     * <p>
+     * If the new buffer is the current one, or has a different type or
+     * size, this is the same as {@link #updateData(java.nio.Buffer)}.
+     *
+     * @param data the new data (not null)
+     */
+    public void updateChangedData(Buffer data) {
+        if (id == -1 || this.data == null || data == this.data
+                || data.getClass() != this.data.getClass() || data.limit() != this.data.limit()
+                || (updateNeeded && numDirtyRanges == 0)) {
+            updateData(data);
+            return;
+        }
+        if (data.isReadOnly()) {
+            throw new IllegalArgumentException("VertexBuffer data cannot be read-only.");
+        }
+
+        // pick the type once, so that the comparison is a typed loop
+        int numElements = getNumElements();
+        if (data instanceof FloatBuffer) {
+            diff((FloatBuffer) this.data, (FloatBuffer) data, numElements);
+        } else if (data instanceof ShortBuffer) {
+            diff((ShortBuffer) this.data, (ShortBuffer) data, numElements);
+        } else if (data instanceof ByteBuffer) {
+            diff((ByteBuffer) this.data, (ByteBuffer) data, numElements);
+        } else if (data instanceof IntBuffer) {
+            diff((IntBuffer) this.data, (IntBuffer) data, numElements);
+        } else if (data instanceof DoubleBuffer) {
+            diff((DoubleBuffer) this.data, (DoubleBuffer) data, numElements);
+        } else {
+            updateData(data);
+            return;
+        }
+        this.data = data;
+        if (numDirtyRanges > 0) {
+            updateNeeded = true;
+        }
+    }
+
+    private void diff(FloatBuffer a, FloatBuffer b, int numElements) {
+        int runStart = -1;
+        for (int i = 0, c = 0; i < numElements; i++) {
+            boolean changed = false;
+            for (int end = c + components; c < end; c++) {
+                changed |= Float.floatToRawIntBits(a.get(c)) != Float.floatToRawIntBits(b.get(c));
+            }
+            runStart = markRun(runStart, i, changed);
+        }
+        markRun(runStart, numElements, false);
+    }
+
+    private void diff(ShortBuffer a, ShortBuffer b, int numElements) {
+        int runStart = -1;
+        for (int i = 0, c = 0; i < numElements; i++) {
+            boolean changed = false;
+            for (int end = c + components; c < end; c++) {
+                changed |= a.get(c) != b.get(c);
+            }
+            runStart = markRun(runStart, i, changed);
+        }
+        markRun(runStart, numElements, false);
+    }
+
+    private void diff(ByteBuffer a, ByteBuffer b, int numElements) {
+        int runStart = -1;
+        for (int i = 0, c = 0; i < numElements; i++) {
+            boolean changed = false;
+            for (int end = c + components; c < end; c++) {
+                changed |= a.get(c) != b.get(c);
+            }
+            runStart = markRun(runStart, i, changed);
+        }
+        markRun(runStart, numElements, false);
+    }
+
+    private void diff(IntBuffer a, IntBuffer b, int numElements) {
+        int runStart = -1;
+        for (int i = 0, c = 0; i < numElements; i++) {
+            boolean changed = false;
+            for (int end = c + components; c < end; c++) {
+                changed |= a.get(c) != b.get(c);
+            }
+            runStart = markRun(runStart, i, changed);
+        }
+        markRun(runStart, numElements, false);
+    }
+
+    private void diff(DoubleBuffer a, DoubleBuffer b, int numElements) {
+        int runStart = -1;
+        for (int i = 0, c = 0; i < numElements; i++) {
+            boolean changed = false;
+            for (int end = c + components; c < end; c++) {
+                changed |= Double.doubleToRawLongBits(a.get(c)) != Double.doubleToRawLongBits(b.get(c));
+            }
+            runStart = markRun(runStart, i, changed);
+        }
+        markRun(runStart, numElements, false);
+    }
+
+    /**
+     * Tracks a run of changed elements while diffing, marking it dirty when
+     * it ends at the given element.
+     *
+     * @return the first element of the current run, or -1 if none
+     */
+    private int markRun(int runStart, int element, boolean changed) {
+        if (changed) {
+            return runStart == -1 ? element : runStart;
+        }
+        if (runStart != -1) {
+            addDirtyRange(runStart, element);
+        }
+        return -1;
+    }
+
+    private void addDirtyRange(int start, int end) {
+        if (dirtyRanges == null) {
+            dirtyRanges = new int[MAX_DIRTY_RANGES * 2];
+        }
+        int[] ranges = dirtyRanges;
+
+        // skip the ranges that end before the new one starts
+        int first = 0;
+        while (first < numDirtyRanges && ranges[first * 2 + 1] < start) {
+            first++;
+        }
+        // merge the ranges that overlap or touch the new one
+        int last = first;
+        while (last < numDirtyRanges && ranges[last * 2] <= end) {
+            start = Math.min(start, ranges[last * 2]);
+            end = Math.max(end, ranges[last * 2 + 1]);
+            last++;
+        }
+        int removed = last - first;
+        if (removed == 0 && numDirtyRanges == MAX_DIRTY_RANGES) {
+            // too many separate ranges: cover all of them with one
+            ranges[0] = Math.min(start, ranges[0]);
+            ranges[1] = Math.max(end, ranges[numDirtyRanges * 2 - 1]);
+            numDirtyRanges = 1;
+            return;
+        }
+        System.arraycopy(ranges, last * 2, ranges, (first + 1) * 2, (numDirtyRanges - last) * 2);
+        ranges[first * 2] = start;
+        ranges[first * 2 + 1] = end;
+        numDirtyRanges += 1 - removed;
+    }
+
+    /**
+     * Returns the number of ranges of elements modified with
+     * {@link #updateData(int, int)} since the last upload. Internal use only.
+     *
+     * @return the number of ranges, or 0 if the whole buffer must be sent
+     */
+    public int getNumDirtyRanges() {
+        return updateNeeded ? numDirtyRanges : 0;
+    }
+
+    /**
+     * Returns the first element of a modified range. Internal use only.
+     *
+     * @param range the index of the range, less than {@link #getNumDirtyRanges()}
+     * @return the index of the first modified element
+     */
+    public int getDirtyRangeStart(int range) {
+        return dirtyRanges[range * 2];
+    }
+
+    /**
+     * Returns the end of a modified range. Internal use only.
+     *
+     * @param range the index of the range, less than {@link #getNumDirtyRanges()}
+     * @return the index after the last modified element
+     */
+    public int getDirtyRangeEnd(int range) {
+        return dirtyRanges[range * 2 + 1];
+    }
+
     /**
      * Returns true if the data size of the VertexBuffer has changed.
      * Internal use only.
@@ -720,10 +944,17 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
         return dataSizeChanged;
     }
 
+    @Override
+    public void setUpdateNeeded() {
+        super.setUpdateNeeded();
+        numDirtyRanges = 0;
+    }
+
     @Override
     public void clearUpdateNeeded() {
         super.clearUpdateNeeded();
         dataSizeChanged = false;
+        numDirtyRanges = 0;
     }
 
     /**
@@ -1038,6 +1269,8 @@ public class VertexBuffer extends NativeObject implements Savable, Cloneable {
         VertexBuffer vb = (VertexBuffer) super.clone();
         vb.handleRef = new Object();
         vb.id = -1;
+        vb.dirtyRanges = null;
+        vb.numDirtyRanges = 0;
         if (data != null) {
             // Make sure to pass a read-only buffer to clone so that
             // the position information doesn't get clobbered by another
@@ -335,6 +335,38 @@ public class InstancedGeometry extends Geometry {
         transformInstanceData.updateData(fb);
     }
 
+    /**
+     * Writes the world transforms of the given geometries as the instances
+     * to render, ignoring instances added via {@link #addInstance}. The
+     * geometries are not culled and are not associated with this instanced
+     * geometry. Used to instance geometries that are not attached to an
+     * {@link InstancedNode}.
+     *
+     * @param instances the geometries to render (not null)
+     * @param count the number of geometries to use from the array
+     */
+    public void setInstances(Geometry[] instances, int count) {
+        if (count > getMaxNumInstances()) {
+            setMaxNumInstances(Math.max(count, getMaxNumInstances() * 2));
+        }
+        FloatBuffer fb = (FloatBuffer) transformInstanceData.getData();
+        fb.clear();
+
+        TempVars vars = TempVars.get();
+        {
+            float[] temp = vars.matrixWrite;
+            for (int i = 0; i < count; i++) {
+                updateInstance(instances[i].getWorldMatrix(), temp, 0, vars.tempMat3, vars.quat1);
+                fb.put(temp);
+            }
+        }
+        vars.release();
+
+        fb.flip();
+        numVisibleInstances = count;
+        transformInstanceData.updateData(fb);
+    }
+
     public void deleteInstance(Geometry geom) {
         int idx = InstancedNode.getGeometryStartIndex2(geom);
         InstancedNode.setGeometryStartIndex2(geom, -1);
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene.instancing;
+
+import com.jme3.renderer.Renderer;
+import com.jme3.scene.Geometry;
+import com.jme3.shader.bufferobject.BufferObject;
+import com.jme3.util.clone.Cloner;
+import java.nio.ByteBuffer;
+
+/**
+ * An instanced geometry whose instances are different index ranges of a
+ * mesh holding the vertices and indices of several meshes, submitted as one
+ * multi-draw-indirect call. Each draw reads its world transform from the
+ * instance data row selected by its base instance, so materials render it
+ * through their instancing path.
+ *
+ * @see Renderer#renderMeshIndirect
+ */
+public class MultiDrawGeometry extends InstancedGeometry {
+
+    /**
+     * Size in bytes of a draw command.
+     */
+    public static final int COMMAND_SIZE = 20;
+
+    private BufferObject commands = new BufferObject();
+    private int drawCount;
+
+    /**
+     * Creates a multi-draw geometry without a name.
+     */
+    public MultiDrawGeometry() {
+        super();
+    }
+
+    /**
+     * Creates a multi-draw geometry with the specified name.
+     *
+     * @param name The name of the spatial.
+     */
+    public MultiDrawGeometry(String name) {
+        super(name);
+    }
+
+    /**
+     * Sets the draws to submit, one per geometry.
+     *
+     * @param instances the geometries providing the world transforms (not
+     * null)
+     * @param ranges the first index, index count and base vertex of each
+     * draw in the mesh, 3 ints per draw (not null)
+     * @param count the number of draws
+     */
+    public void setDraws(Geometry[] instances, int[] ranges, int count) {
+        setInstances(instances, count);
+
+        ByteBuffer data = commands.getData();
+        if (data.capacity() < count * COMMAND_SIZE) {
+            commands.initializeEmpty(Math.max(count, data.capacity() / COMMAND_SIZE * 2) * COMMAND_SIZE);
+            data = commands.getData();
+        }
+        data.clear();
+        for (int i = 0; i < count; i++) {
+            data.putInt(ranges[i * 3 + 1]);
+            data.putInt(1);
+            data.putInt(ranges[i * 3]);
+            data.putInt(ranges[i * 3 + 2]);
+            data.putInt(i);
+        }
+        data.flip();
+        commands.setUpdateNeeded();
+        drawCount = count;
+    }
+
+    /**
+     * @return the draw commands, see {@link Renderer#renderMeshIndirect}
+     */
+    public BufferObject getCommands() {
+        return commands;
+    }
+
+    /**
+     * @return the number of draws
+     */
+    public int getDrawCount() {
+        return drawCount;
+    }
+
+    @Override
+    public void cloneFields(Cloner cloner, Object original) {
+        super.cloneFields(cloner, original);
+        commands = new BufferObject();
+        drawCount = 0;
+    }
+}
@@ -64,6 +64,13 @@ public final class Shader extends NativeObject {
      */
     private final ArrayList<Uniform> boundUniforms;
 
+    /**
+     * Buffer blocks bound to {@link UniformBinding}s.
+     *
+     * Managed by the {@link UniformBindingManager}.
+     */
+    private final ArrayList<UniformBinding> boundBufferBlocks;
+
     /**
      * Maps attribute name to the location of the attribute in the shader.
      */
@@ -233,6 +240,7 @@ public final class Shader extends NativeObject {
         bufferBlocks = new ListMap<>();
         attribs = new IntMap<>();
         boundUniforms = new ArrayList<>();
+        boundBufferBlocks = new ArrayList<>();
     }
 
     /**
@@ -253,6 +261,7 @@ public final class Shader extends NativeObject {
         uniforms = null;
         bufferBlocks = null;
         boundUniforms = null;
+        boundBufferBlocks = null;
         attribs = null;
     }
 
@@ -279,6 +288,12 @@ public final class Shader extends NativeObject {
     }
 
     public void addUniformBinding(UniformBinding binding){
+        if (binding.isBufferBlock()) {
+            if (!boundBufferBlocks.contains(binding)) {
+                boundBufferBlocks.add(binding);
+            }
+            return;
+        }
         String uniformName = "g_" + binding.name();
         Uniform uniform = uniforms.get(uniformName);
         if (uniform == null) {
@@ -309,7 +324,7 @@ public final class Shader extends NativeObject {
      */
     public ShaderBufferBlock getBufferBlock(final String name) {
 
-        assert name.startsWith("m_");
+        assert name.startsWith("m_") || name.startsWith("g_");
 
         ShaderBufferBlock block = bufferBlocks.get(name);
 
@@ -363,6 +378,10 @@ public final class Shader extends NativeObject {
         return boundUniforms;
     }
 
+    public ArrayList<UniformBinding> getBoundBufferBlocks() {
+        return boundBufferBlocks;
+    }
+
     public Collection<ShaderSource> getSources(){
         return shaderSourceList;
     }
@@ -407,6 +407,104 @@ public class Uniform extends ShaderVariable {
         updateNeeded = true;
     }
 
+    /**
+     * Copies the value of another uniform into this uniform.
+     * <p>
+     * Like {@link #setValue(com.jme3.shader.VarType, java.lang.Object) },
+     * the uniform is only flagged for update if the value actually changes,
+     * so a snapshot can be restored without redundant uploads.
+     *
+     * @param source the uniform to copy the value from (not null)
+     */
+    public void copyValueFrom(Uniform source) {
+        VarType type = source.varType;
+        if (location == LOC_NOT_DEFINED || type == null) {
+            return;
+        }
+
+        if (varType != null && varType != type) {
+            throw new IllegalArgumentException("Expected a " + varType.name() + " value!");
+        }
+
+        switch (type) {
+            case Matrix3:
+            case Matrix4:
+            case FloatArray:
+            case Vector2Array:
+            case Vector3Array:
+            case Vector4Array:
+            case Matrix3Array:
+            case Matrix4Array:
+                setByCurrentMaterial = true;
+                FloatBuffer src = source.multiData;
+                int length = src.limit();
+                if (varType == type && multiData != null && multiData.limit() == length) {
+                    int i = 0;
+                    while (i < length && multiData.get(i) == src.get(i)) {
+                        i++;
+                    }
+                    if (i == length) {
+                        return;
+                    }
+                }
+                if (multiData == null || multiData.capacity() < length) {
+                    multiData = BufferUtils.createFloatBuffer(length);
+                }
+                multiData.clear();
+                for (int i = 0; i < length; i++) {
+                    multiData.put(i, src.get(i));
+                }
+                multiData.limit(length);
+
+                if (type == VarType.Matrix3) {
+                    if (this.value == null) {
+                        this.value = new Matrix3f((Matrix3f) source.value);
+                    } else {
+                        ((Matrix3f) this.value).set((Matrix3f) source.value);
+                    }
+                } else if (type == VarType.Matrix4) {
+                    if (this.value == null) {
+                        this.value = new Matrix4f((Matrix4f) source.value);
+                    } else {
+                        ((Matrix4f) this.value).set((Matrix4f) source.value);
+                    }
+                } else {
+                    this.value = source.value == src ? multiData : source.value;
+                }
+                break;
+            case IntArray:
+                setByCurrentMaterial = true;
+                IntBuffer srcInts = (IntBuffer) source.value;
+                int count = srcInts.limit();
+                IntBuffer ints = this.value instanceof IntBuffer ? (IntBuffer) this.value : null;
+                if (ints != null && ints.limit() == count) {
+                    int i = 0;
+                    while (i < count && ints.get(i) == srcInts.get(i)) {
+                        i++;
+                    }
+                    if (i == count) {
+                        return;
+                    }
+                }
+                if (ints == null || ints.capacity() < count) {
+                    ints = BufferUtils.createIntBuffer(count);
+                }
+                ints.clear();
+                for (int i = 0; i < count; i++) {
+                    ints.put(i, srcInts.get(i));
+                }
+                ints.limit(count);
+                this.value = ints;
+                break;
+            default:
+                setValue(type, source.value);
+                return;
+        }
+
+        varType = type;
+        updateNeeded = true;
+    }
+
     public void setVector4Length(int length){
         if (location == -1) {
             return;
@@ -202,7 +202,46 @@ public enum UniformBinding {
      * Converts normals from model space to world space.
      * Type: mat3
      */
-    WorldNormalMatrix("mat3");
+    WorldNormalMatrix("mat3"),
+
+    /**
+     * Uniform block with the per-viewport camera state, uploaded only when
+     * the camera, the viewport or the frame changes. Declare it as:
+     * <pre>
+     * layout(std140) uniform g_FrameBlock {
+     *     mat4 g_ViewMatrix;
+     *     mat4 g_ProjectionMatrix;
+     *     mat4 g_ViewProjectionMatrix;
+     *     vec4 g_ViewPort;
+     *     vec3 g_CameraPosition;
+     *     float g_Time;
+     *     vec3 g_CameraDirection;
+     *     float g_Tpf;
+     *     vec2 g_Resolution;
+     *     vec2 g_FrustumNearFar;
+     * };
+     * </pre>
+     * Type: uniform block
+     */
+    FrameBlock,
+
+    /**
+     * Uniform block with the per-object transforms. Declare it as:
+     * <pre>
+     * layout(std140) uniform g_ObjectBlock {
+     *     mat4 g_WorldMatrix;
+     *     mat4 g_WorldViewMatrix;
+     *     mat4 g_WorldViewProjectionMatrix;
+     *     mat3 g_NormalMatrix;
+     *     mat3 g_WorldNormalMatrix;
+     * };
+     * </pre>
+     * Each object gets its own range of a buffer that is reused every frame,
+     * so commands recorded with a {@link com.jme3.renderer.RecordingRenderer}
+     * must be replayed in the frame they were recorded in.
+     * Type: uniform block
+     */
+    ObjectBlock;
     
     String glslType;
 
@@ -216,6 +255,13 @@ public enum UniformBinding {
     public String getGlslType() {
         return glslType;
     }
+
+    /**
+     * @return true if this binding is a uniform block rather than a uniform
+     */
+    public boolean isBufferBlock() {
+        return this == FrameBlock || this == ObjectBlock;
+    }
     
     
 }
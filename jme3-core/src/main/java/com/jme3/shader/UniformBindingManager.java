@@ -1,276 +1,537 @@
-/*
- * Copyright (c) 2009-2021 jMonkeyEngine
- * All rights reserved.
- *
- * Redistribution and use in source and binary forms, with or without
- * modification, are permitted provided that the following conditions are
- * met:
- *
- * * Redistributions of source code must retain the above copyright
- *   notice, this list of conditions and the following disclaimer.
- *
- * * Redistributions in binary form must reproduce the above copyright
- *   notice, this list of conditions and the following disclaimer in the
- *   documentation and/or other materials provided with the distribution.
- *
- * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
- *   may be used to endorse or promote products derived from this software
- *   without specific prior written permission.
- *
- * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
- * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
- * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
- * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
- * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
- * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
- * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
- * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
- * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
- * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
- * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
- */
-package com.jme3.shader;
-
-import com.jme3.material.Material;
-import com.jme3.math.*;
-import com.jme3.renderer.Camera;
-import com.jme3.renderer.RenderManager;
-import com.jme3.system.Timer;
-
-import java.util.ArrayList;
-
-/**
- * <code>UniformBindingManager</code> helps {@link RenderManager} to manage
- * {@link UniformBinding uniform bindings}.
- * 
- * The {@link #updateUniformBindings(com.jme3.shader.Shader)} method will update
- * a given list of uniforms based on the current state
- * of the manager.
- * 
- * @author Kirill Vainer
- */
-public class UniformBindingManager {
-
-    private Timer timer;
-    private float near, far;
-    private Float time, tpf;
-    private int viewX, viewY, viewWidth, viewHeight;
-    private final Vector3f camUp = new Vector3f(),
-            camLeft = new Vector3f(),
-            camDir = new Vector3f(),
-            camLoc = new Vector3f();
-    private final Matrix4f tempMatrix = new Matrix4f();
-    private final Matrix4f viewMatrix = new Matrix4f();
-    private final Matrix4f projMatrix = new Matrix4f();
-    private final Matrix4f viewProjMatrix = new Matrix4f();
-    private final Matrix4f worldMatrix = new Matrix4f();
-    private final Matrix4f worldViewMatrix = new Matrix4f();
-    private final Matrix4f worldViewProjMatrix = new Matrix4f();
-    private final Matrix3f normalMatrix = new Matrix3f();
-    private final Matrix3f worldNormalMatrix = new Matrix3f();
-    private final Matrix4f worldMatrixInv = new Matrix4f();
-    private final Matrix3f worldMatrixInvTrsp = new Matrix3f();
-    private final Matrix4f viewMatrixInv = new Matrix4f();
-    private final Matrix4f projMatrixInv = new Matrix4f();
-    private final Matrix4f viewProjMatrixInv = new Matrix4f();
-    private final Matrix4f worldViewMatrixInv = new Matrix4f();
-    private final Matrix3f normalMatrixInv = new Matrix3f();
-    private final Matrix4f worldViewProjMatrixInv = new Matrix4f();
-    private final Vector4f viewPort = new Vector4f();
-    private final Vector2f resolution = new Vector2f();
-    private final Vector2f resolutionInv = new Vector2f();
-    private final Vector2f nearFar = new Vector2f();
-
-    /**
-     * Internal use only.
-     * Updates the given list of uniforms with {@link UniformBinding uniform bindings}
-     * based on the current world state.
-     *
-     * @param shader (not null)
-     */
-    public void updateUniformBindings(Shader shader) {
-        ArrayList<Uniform> params = shader.getBoundUniforms();
-        for (int i = 0; i < params.size(); i++) {
-            Uniform u = params.get(i);
-            switch (u.getBinding()) {
-                case WorldMatrix:
-                    u.setValue(VarType.Matrix4, worldMatrix);
-                    break;
-                case ViewMatrix:
-                    u.setValue(VarType.Matrix4, viewMatrix);
-                    break;
-                case ProjectionMatrix:
-                    u.setValue(VarType.Matrix4, projMatrix);
-                    break;
-                case ViewProjectionMatrix:
-                    u.setValue(VarType.Matrix4, viewProjMatrix);
-                    break;
-                case WorldViewMatrix:
-                    worldViewMatrix.set(viewMatrix);
-                    worldViewMatrix.multLocal(worldMatrix);
-                    u.setValue(VarType.Matrix4, worldViewMatrix);
-                    break;
-                case NormalMatrix:
-                    tempMatrix.set(viewMatrix);
-                    tempMatrix.multLocal(worldMatrix);
-                    tempMatrix.toRotationMatrix(normalMatrix);
-                    normalMatrix.invertLocal();
-                    normalMatrix.transposeLocal();
-                    u.setValue(VarType.Matrix3, normalMatrix);
-                    break;
-                case WorldNormalMatrix:
-                    tempMatrix.set(worldMatrix);
-                    tempMatrix.toRotationMatrix(worldNormalMatrix);
-                    worldNormalMatrix.invertLocal();
-                    worldNormalMatrix.transposeLocal();
-                    u.setValue(VarType.Matrix3, worldNormalMatrix);
-                    break;
-                case WorldViewProjectionMatrix:
-                    worldViewProjMatrix.set(viewProjMatrix);
-                    worldViewProjMatrix.multLocal(worldMatrix);
-                    u.setValue(VarType.Matrix4, worldViewProjMatrix);
-                    break;
-                case WorldMatrixInverse:
-                    worldMatrixInv.set(worldMatrix);
-                    worldMatrixInv.invertLocal();
-                    u.setValue(VarType.Matrix4, worldMatrixInv);
-                    break;
-                case WorldMatrixInverseTranspose:
-                    worldMatrix.toRotationMatrix(worldMatrixInvTrsp);
-                    worldMatrixInvTrsp.invertLocal().transposeLocal();
-                    u.setValue(VarType.Matrix3, worldMatrixInvTrsp);
-                    break;
-                case ViewMatrixInverse:
-                    viewMatrixInv.set(viewMatrix);
-                    viewMatrixInv.invertLocal();
-                    u.setValue(VarType.Matrix4, viewMatrixInv);
-                    break;
-                case ProjectionMatrixInverse:
-                    projMatrixInv.set(projMatrix);
-                    projMatrixInv.invertLocal();
-                    u.setValue(VarType.Matrix4, projMatrixInv);
-                    break;
-                case ViewProjectionMatrixInverse:
-                    viewProjMatrixInv.set(viewProjMatrix);
-                    viewProjMatrixInv.invertLocal();
-                    u.setValue(VarType.Matrix4, viewProjMatrixInv);
-                    break;
-                case WorldViewMatrixInverse:
-                    worldViewMatrixInv.set(viewMatrix);
-                    worldViewMatrixInv.multLocal(worldMatrix);
-                    worldViewMatrixInv.invertLocal();
-                    u.setValue(VarType.Matrix4, worldViewMatrixInv);
-                    break;
-                case NormalMatrixInverse:
-                    tempMatrix.set(viewMatrix);
-                    tempMatrix.multLocal(worldMatrix);
-                    tempMatrix.toRotationMatrix(normalMatrixInv);
-                    normalMatrixInv.invertLocal();
-                    normalMatrixInv.transposeLocal();
-                    normalMatrixInv.invertLocal();
-                    u.setValue(VarType.Matrix3, normalMatrixInv);
-                    break;
-                case WorldViewProjectionMatrixInverse:
-                    worldViewProjMatrixInv.set(viewProjMatrix);
-                    worldViewProjMatrixInv.multLocal(worldMatrix);
-                    worldViewProjMatrixInv.invertLocal();
-                    u.setValue(VarType.Matrix4, worldViewProjMatrixInv);
-                    break;
-                case ViewPort:
-                    viewPort.set(viewX, viewY, viewWidth, viewHeight);
-                    u.setValue(VarType.Vector4, viewPort);
-                    break;
-                case Resolution:
-                    resolution.set(viewWidth, viewHeight);
-                    u.setValue(VarType.Vector2, resolution);
-                    break;
-                case ResolutionInverse:
-                    resolutionInv.set(1f / viewWidth, 1f / viewHeight);
-                    u.setValue(VarType.Vector2, resolutionInv);
-                    break;
-                case Aspect:
-                    float aspect = ((float) viewWidth) / viewHeight;
-                    u.setValue(VarType.Float, aspect);
-                    break;
-                case FrustumNearFar:
-                    nearFar.set(near, far);
-                    u.setValue(VarType.Vector2, nearFar);
-                    break;
-                case CameraPosition:
-                    u.setValue(VarType.Vector3, camLoc);
-                    break;
-                case CameraDirection:
-                    u.setValue(VarType.Vector3, camDir);
-                    break;
-                case CameraLeft:
-                    u.setValue(VarType.Vector3, camLeft);
-                    break;
-                case CameraUp:
-                    u.setValue(VarType.Vector3, camUp);
-                    break;
-                case Time:
-                    u.setValue(VarType.Float, time);
-                    break;
-                case Tpf:
-                    u.setValue(VarType.Float, tpf);
-                    break;
-                case FrameRate:
-                    u.setValue(VarType.Float, timer.getFrameRate());
-                    break;
-            }
-        }
-    }
-
-    /**
-     * Internal use only. Sets the world matrix to use for future
-     * rendering. This has no effect unless objects are rendered manually
-     * using {@link Material#render(com.jme3.scene.Geometry, com.jme3.renderer.RenderManager) }.
-     * 
-     * @param mat The world matrix to set
-     */
-    public void setWorldMatrix(Matrix4f mat) {
-        worldMatrix.set(mat);
-    }
-
-    /**
-     * Set the timer that should be used to query the time based
-     * {@link UniformBinding}s for material world parameters.
-     * 
-     * @param timer The timer to query time world parameters
-     */
-    public void setTimer(com.jme3.system.Timer timer) {
-        this.timer = timer;
-    }
-
-    public void setCamera(Camera cam, Matrix4f viewMatrix, Matrix4f projMatrix, Matrix4f viewProjMatrix) {
-        this.viewMatrix.set(viewMatrix);
-        this.projMatrix.set(projMatrix);
-        this.viewProjMatrix.set(viewProjMatrix);
-
-        camLoc.set(cam.getLocation());
-        cam.getLeft(camLeft);
-        cam.getUp(camUp);
-        cam.getDirection(camDir);
-
-        near = cam.getFrustumNear();
-        far = cam.getFrustumFar();
-    }
-
-    public void setViewPort(int viewX, int viewY, int viewWidth, int viewHeight) {
-        this.viewX = viewX;
-        this.viewY = viewY;
-        this.viewWidth = viewWidth;
-        this.viewHeight = viewHeight;
-    }
- 
-    /**
-     *  Internal use only.  Called by the RenderManager at the beginning of a
-     *  new application frame.
-     */   
-    public void newFrame() {
-        // Avoid per-material Float allocations and lock in the
-        // time for this frame to avoid inter-frame drift.
-        time = timer.getTimeInSeconds();
-        tpf = timer.getTimePerFrame();
-    }
-}
+/*
+ * Copyright (c) 2009-2021 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.shader;
+
+import com.jme3.material.Material;
+import com.jme3.math.*;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.Limits;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.Renderer;
+import com.jme3.shader.bufferobject.BufferObject;
+import com.jme3.shader.bufferobject.BufferRegion;
+import com.jme3.system.Timer;
+import com.jme3.util.struct.Struct;
+import com.jme3.util.struct.StructStd140BufferObject;
+import com.jme3.util.struct.fields.FloatField;
+import com.jme3.util.struct.fields.Matrix3fField;
+import com.jme3.util.struct.fields.Matrix4fField;
+import com.jme3.util.struct.fields.Vector2fField;
+import com.jme3.util.struct.fields.Vector3fField;
+import com.jme3.util.struct.fields.Vector4fField;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * <code>UniformBindingManager</code> helps {@link RenderManager} to manage
+ * {@link UniformBinding uniform bindings}.
+ * 
+ * The {@link #updateUniformBindings(com.jme3.shader.Shader)} method will update
+ * a given list of uniforms based on the current state
+ * of the manager.
+ * <p>
+ * Shaders that declare the {@link UniformBinding#FrameBlock} and
+ * {@link UniformBinding#ObjectBlock} world parameters get the same values
+ * through std140 uniform buffers instead. Each frame block (one per
+ * viewport) and each object block is written to its own slot of a
+ * per-frame buffer and bound as a range, so commands recorded for several
+ * viewports keep pointing at their own values, see
+ * {@link #updateBufferBlockBindings(com.jme3.shader.Shader, com.jme3.renderer.Renderer)}.
+ * 
+ * @author Kirill Vainer
+ */
+public class UniformBindingManager {
+
+    /**
+     * Binding point of the {@link UniformBinding#FrameBlock} buffer.
+     */
+    public static final int FRAME_BLOCK_BINDING = 0;
+    /**
+     * Binding point of the {@link UniformBinding#ObjectBlock} buffer.
+     */
+    public static final int OBJECT_BLOCK_BINDING = 1;
+    /**
+     * Number of uniform buffer binding points reserved for the blocks
+     * above. Materials whose shader uses one of the blocks bind their own
+     * uniform buffers starting at this unit; shader storage buffers are
+     * not affected.
+     */
+    public static final int RESERVED_BUFFER_UNITS = 2;
+
+    private static final int INITIAL_FRAME_SLOTS = 4;
+    private static final int INITIAL_OBJECT_SLOTS = 64;
+    private static final int DEFAULT_OFFSET_ALIGNMENT = 256;
+
+    private static class FrameBlock implements Struct {
+        final Matrix4fField viewMatrix = new Matrix4fField(0, "g_ViewMatrix", new Matrix4f());
+        final Matrix4fField projMatrix = new Matrix4fField(1, "g_ProjectionMatrix", new Matrix4f());
+        final Matrix4fField viewProjMatrix = new Matrix4fField(2, "g_ViewProjectionMatrix", new Matrix4f());
+        final Vector4fField viewPort = new Vector4fField(3, "g_ViewPort", new Vector4f());
+        final Vector3fField camPosition = new Vector3fField(4, "g_CameraPosition", new Vector3f());
+        final FloatField time = new FloatField(5, "g_Time", 0f);
+        final Vector3fField camDirection = new Vector3fField(6, "g_CameraDirection", new Vector3f());
+        final FloatField tpf = new FloatField(7, "g_Tpf", 0f);
+        final Vector2fField resolution = new Vector2fField(8, "g_Resolution", new Vector2f());
+        final Vector2fField nearFar = new Vector2fField(9, "g_FrustumNearFar", new Vector2f());
+    }
+
+    private static class ObjectBlock implements Struct {
+        final Matrix4fField worldMatrix = new Matrix4fField(0, "g_WorldMatrix", new Matrix4f());
+        final Matrix4fField worldViewMatrix = new Matrix4fField(1, "g_WorldViewMatrix", new Matrix4f());
+        final Matrix4fField worldViewProjMatrix = new Matrix4fField(2, "g_WorldViewProjectionMatrix", new Matrix4f());
+        final Matrix3fField normalMatrix = new Matrix3fField(3, "g_NormalMatrix", new Matrix3f());
+        final Matrix3fField worldNormalMatrix = new Matrix3fField(4, "g_WorldNormalMatrix", new Matrix3f());
+    }
+
+    /**
+     * A uniform buffer holding one aligned slot per written block, reused
+     * from the first slot every frame and doubled when all slots are used.
+     */
+    private static final class BlockSlots {
+        final ArrayList<BufferRegion> regions = new ArrayList<>();
+        final String name;
+        final int initialSlots;
+        BufferObject buffer;
+        int slotSize;
+        int blockSize;
+        int slot;
+        int nextSlot;
+
+        BlockSlots(String name, int initialSlots) {
+            this.name = name;
+            this.initialSlots = initialSlots;
+        }
+
+        /**
+         * Copies the block to the next slot, only that slot is uploaded.
+         */
+        void write(ByteBuffer block, Renderer renderer) {
+            if (buffer == null) {
+                Integer alignment = renderer.getLimits().get(Limits.UniformBufferObjectOffsetAlignment);
+                int align = alignment != null && alignment > 0 ? alignment : DEFAULT_OFFSET_ALIGNMENT;
+                blockSize = block.limit();
+                slotSize = (blockSize + align - 1) / align * align;
+                buffer = new BufferObject();
+                buffer.setName(name);
+            }
+            if (nextSlot == regions.size()) {
+                int count = Math.max(initialSlots, regions.size() * 2);
+                for (int i = regions.size(); i < count; i++) {
+                    regions.add(new BufferRegion(i * slotSize, (i + 1) * slotSize - 1));
+                }
+                // the whole buffer is uploaded again with its new size
+                buffer.setRegions(regions);
+            }
+            slot = nextSlot++;
+            BufferRegion region = buffer.getRegion(slot);
+            region.getData().put(block);
+            region.markDirty();
+            buffer.setUpdateNeeded(false);
+        }
+
+        void bind(Shader shader, Renderer renderer, int bindingPoint) {
+            shader.getBufferBlock(name)
+                    .setBufferObject(ShaderBufferBlock.BufferType.UniformBufferObject, buffer);
+            renderer.setUniformBufferObject(bindingPoint, buffer, slot * slotSize, blockSize);
+        }
+    }
+
+    private final FrameBlock frameBlock = new FrameBlock();
+    private final ObjectBlock objectBlock = new ObjectBlock();
+    private StructStd140BufferObject frameBuffer;
+    private StructStd140BufferObject objectBuffer;
+    private final BlockSlots frameSlots = new BlockSlots("g_FrameBlock", INITIAL_FRAME_SLOTS);
+    private final BlockSlots objectSlots = new BlockSlots("g_ObjectBlock", INITIAL_OBJECT_SLOTS);
+    private boolean frameBlockChanged = true;
+    private boolean objectBlockChanged = true;
+
+    private Timer timer;
+    private float near, far;
+    private Float time, tpf;
+    private int viewX, viewY, viewWidth, viewHeight;
+    private final Vector3f camUp = new Vector3f(),
+            camLeft = new Vector3f(),
+            camDir = new Vector3f(),
+            camLoc = new Vector3f();
+    private final Matrix4f tempMatrix = new Matrix4f();
+    private final Matrix4f viewMatrix = new Matrix4f();
+    private final Matrix4f projMatrix = new Matrix4f();
+    private final Matrix4f viewProjMatrix = new Matrix4f();
+    private final Matrix4f worldMatrix = new Matrix4f();
+    private final Matrix4f worldViewMatrix = new Matrix4f();
+    private final Matrix4f worldViewProjMatrix = new Matrix4f();
+    private final Matrix3f normalMatrix = new Matrix3f();
+    private final Matrix3f worldNormalMatrix = new Matrix3f();
+    private final Matrix4f worldMatrixInv = new Matrix4f();
+    private final Matrix3f worldMatrixInvTrsp = new Matrix3f();
+    private final Matrix4f viewMatrixInv = new Matrix4f();
+    private final Matrix4f projMatrixInv = new Matrix4f();
+    private final Matrix4f viewProjMatrixInv = new Matrix4f();
+    private final Matrix4f worldViewMatrixInv = new Matrix4f();
+    private final Matrix3f normalMatrixInv = new Matrix3f();
+    private final Matrix4f worldViewProjMatrixInv = new Matrix4f();
+    private final Vector4f viewPort = new Vector4f();
+    private final Vector2f resolution = new Vector2f();
+    private final Vector2f resolutionInv = new Vector2f();
+    private final Vector2f nearFar = new Vector2f();
+
+    /**
+     * Internal use only.
+     * Updates the given list of uniforms with {@link UniformBinding uniform bindings}
+     * based on the current world state.
+     *
+     * @param shader (not null)
+     */
+    public void updateUniformBindings(Shader shader) {
+        ArrayList<Uniform> params = shader.getBoundUniforms();
+        for (int i = 0; i < params.size(); i++) {
+            Uniform u = params.get(i);
+            switch (u.getBinding()) {
+                case WorldMatrix:
+                    u.setValue(VarType.Matrix4, worldMatrix);
+                    break;
+                case ViewMatrix:
+                    u.setValue(VarType.Matrix4, viewMatrix);
+                    break;
+                case ProjectionMatrix:
+                    u.setValue(VarType.Matrix4, projMatrix);
+                    break;
+                case ViewProjectionMatrix:
+                    u.setValue(VarType.Matrix4, viewProjMatrix);
+                    break;
+                case WorldViewMatrix:
+                    worldViewMatrix.set(viewMatrix);
+                    worldViewMatrix.multLocal(worldMatrix);
+                    u.setValue(VarType.Matrix4, worldViewMatrix);
+                    break;
+                case NormalMatrix:
+                    tempMatrix.set(viewMatrix);
+                    tempMatrix.multLocal(worldMatrix);
+                    tempMatrix.toRotationMatrix(normalMatrix);
+                    normalMatrix.invertLocal();
+                    normalMatrix.transposeLocal();
+                    u.setValue(VarType.Matrix3, normalMatrix);
+                    break;
+                case WorldNormalMatrix:
+                    tempMatrix.set(worldMatrix);
+                    tempMatrix.toRotationMatrix(worldNormalMatrix);
+                    worldNormalMatrix.invertLocal();
+                    worldNormalMatrix.transposeLocal();
+                    u.setValue(VarType.Matrix3, worldNormalMatrix);
+                    break;
+                case WorldViewProjectionMatrix:
+                    worldViewProjMatrix.set(viewProjMatrix);
+                    worldViewProjMatrix.multLocal(worldMatrix);
+                    u.setValue(VarType.Matrix4, worldViewProjMatrix);
+                    break;
+                case WorldMatrixInverse:
+                    worldMatrixInv.set(worldMatrix);
+                    worldMatrixInv.invertLocal();
+                    u.setValue(VarType.Matrix4, worldMatrixInv);
+                    break;
+                case WorldMatrixInverseTranspose:
+                    worldMatrix.toRotationMatrix(worldMatrixInvTrsp);
+                    worldMatrixInvTrsp.invertLocal().transposeLocal();
+                    u.setValue(VarType.Matrix3, worldMatrixInvTrsp);
+                    break;
+                case ViewMatrixInverse:
+                    viewMatrixInv.set(viewMatrix);
+                    viewMatrixInv.invertLocal();
+                    u.setValue(VarType.Matrix4, viewMatrixInv);
+                    break;
+                case ProjectionMatrixInverse:
+                    projMatrixInv.set(projMatrix);
+                    projMatrixInv.invertLocal();
+                    u.setValue(VarType.Matrix4, projMatrixInv);
+                    break;
+                case ViewProjectionMatrixInverse:
+                    viewProjMatrixInv.set(viewProjMatrix);
+                    viewProjMatrixInv.invertLocal();
+                    u.setValue(VarType.Matrix4, viewProjMatrixInv);
+                    break;
+                case WorldViewMatrixInverse:
+                    worldViewMatrixInv.set(viewMatrix);
+                    worldViewMatrixInv.multLocal(worldMatrix);
+                    worldViewMatrixInv.invertLocal();
+                    u.setValue(VarType.Matrix4, worldViewMatrixInv);
+                    break;
+                case NormalMatrixInverse:
+                    tempMatrix.set(viewMatrix);
+                    tempMatrix.multLocal(worldMatrix);
+                    tempMatrix.toRotationMatrix(normalMatrixInv);
+                    normalMatrixInv.invertLocal();
+                    normalMatrixInv.transposeLocal();
+                    normalMatrixInv.invertLocal();
+                    u.setValue(VarType.Matrix3, normalMatrixInv);
+                    break;
+                case WorldViewProjectionMatrixInverse:
+                    worldViewProjMatrixInv.set(viewProjMatrix);
+                    worldViewProjMatrixInv.multLocal(worldMatrix);
+                    worldViewProjMatrixInv.invertLocal();
+                    u.setValue(VarType.Matrix4, worldViewProjMatrixInv);
+                    break;
+                case ViewPort:
+                    viewPort.set(viewX, viewY, viewWidth, viewHeight);
+                    u.setValue(VarType.Vector4, viewPort);
+                    break;
+                case Resolution:
+                    resolution.set(viewWidth, viewHeight);
+                    u.setValue(VarType.Vector2, resolution);
+                    break;
+                case ResolutionInverse:
+                    resolutionInv.set(1f / viewWidth, 1f / viewHeight);
+                    u.setValue(VarType.Vector2, resolutionInv);
+                    break;
+                case Aspect:
+                    float aspect = ((float) viewWidth) / viewHeight;
+                    u.setValue(VarType.Float, aspect);
+                    break;
+                case FrustumNearFar:
+                    nearFar.set(near, far);
+                    u.setValue(VarType.Vector2, nearFar);
+                    break;
+                case CameraPosition:
+                    u.setValue(VarType.Vector3, camLoc);
+                    break;
+                case CameraDirection:
+                    u.setValue(VarType.Vector3, camDir);
+                    break;
+                case CameraLeft:
+                    u.setValue(VarType.Vector3, camLeft);
+                    break;
+                case CameraUp:
+                    u.setValue(VarType.Vector3, camUp);
+                    break;
+                case Time:
+                    u.setValue(VarType.Float, time);
+                    break;
+                case Tpf:
+                    u.setValue(VarType.Float, tpf);
+                    break;
+                case FrameRate:
+                    u.setValue(VarType.Float, timer.getFrameRate());
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Internal use only.
+     * Binds the uniform buffers of the {@link UniformBinding#FrameBlock}
+     * and {@link UniformBinding#ObjectBlock} bindings used by the shader.
+     * A frame or object block whose values changed since the last call is
+     * written to the next free slot of its per-frame buffer, and only that
+     * slot is uploaded and bound.
+     *
+     * @param shader (not null)
+     * @param renderer the renderer to bind the buffers with (not null)
+     */
+    public void updateBufferBlockBindings(Shader shader, Renderer renderer) {
+        ArrayList<UniformBinding> blocks = shader.getBoundBufferBlocks();
+        for (int i = 0; i < blocks.size(); i++) {
+            UniformBinding binding = blocks.get(i);
+            switch (binding) {
+                case FrameBlock:
+                    if (frameBlockChanged) {
+                        updateFrameBlock(renderer);
+                    }
+                    frameSlots.bind(shader, renderer, FRAME_BLOCK_BINDING);
+                    break;
+                case ObjectBlock:
+                    if (objectBlockChanged) {
+                        updateObjectBlock(renderer);
+                    }
+                    objectSlots.bind(shader, renderer, OBJECT_BLOCK_BINDING);
+                    break;
+            }
+        }
+    }
+
+    private void updateFrameBlock(Renderer renderer) {
+        set(frameBlock.viewMatrix, viewMatrix);
+        set(frameBlock.projMatrix, projMatrix);
+        set(frameBlock.viewProjMatrix, viewProjMatrix);
+        set(frameBlock.viewPort, viewX, viewY, viewWidth, viewHeight);
+        set(frameBlock.camPosition, camLoc);
+        set(frameBlock.time, time != null ? time : 0f);
+        set(frameBlock.camDirection, camDir);
+        set(frameBlock.tpf, tpf != null ? tpf : 0f);
+        set(frameBlock.resolution, viewWidth, viewHeight);
+        set(frameBlock.nearFar, near, far);
+        if (frameBuffer == null) {
+            frameBuffer = new StructStd140BufferObject(frameBlock);
+            frameBuffer.setName("g_FrameBlock");
+        } else {
+            frameBuffer.update(frameBlock);
+        }
+        // frameBuffer only serializes the block, it is never uploaded
+        if (frameBuffer.isUpdateNeeded() || frameSlots.nextSlot == 0) {
+            frameSlots.write(frameBuffer.getData(), renderer);
+            frameBuffer.clearUpdateNeeded();
+        }
+        frameBlockChanged = false;
+    }
+
+    private void updateObjectBlock(Renderer renderer) {
+        set(objectBlock.worldMatrix, worldMatrix);
+        worldViewMatrix.set(viewMatrix);
+        worldViewMatrix.multLocal(worldMatrix);
+        set(objectBlock.worldViewMatrix, worldViewMatrix);
+        worldViewProjMatrix.set(viewProjMatrix);
+        worldViewProjMatrix.multLocal(worldMatrix);
+        set(objectBlock.worldViewProjMatrix, worldViewProjMatrix);
+        worldViewMatrix.toRotationMatrix(normalMatrix);
+        normalMatrix.invertLocal();
+        normalMatrix.transposeLocal();
+        set(objectBlock.normalMatrix, normalMatrix);
+        worldMatrix.toRotationMatrix(worldNormalMatrix);
+        worldNormalMatrix.invertLocal();
+        worldNormalMatrix.transposeLocal();
+        set(objectBlock.worldNormalMatrix, worldNormalMatrix);
+        if (objectBuffer == null) {
+            objectBuffer = new StructStd140BufferObject(objectBlock);
+            objectBuffer.setName("g_ObjectBlock");
+        } else {
+            objectBuffer.update(objectBlock);
+        }
+        // objectBuffer only serializes the block, it is never uploaded
+        if (objectBuffer.isUpdateNeeded() || objectSlots.nextSlot == 0) {
+            objectSlots.write(objectBuffer.getData(), renderer);
+            objectBuffer.clearUpdateNeeded();
+        }
+        objectBlockChanged = false;
+    }
+
+    private static void set(Matrix4fField field, Matrix4f value) {
+        if (!field.getValue().equals(value)) {
+            field.getValueForUpdate().set(value);
+        }
+    }
+
+    private static void set(Matrix3fField field, Matrix3f value) {
+        if (!field.getValue().equals(value)) {
+            field.getValueForUpdate().set(value);
+        }
+    }
+
+    private static void set(Vector4fField field, float x, float y, float z, float w) {
+        Vector4f v = field.getValue();
+        if (v.x != x || v.y != y || v.z != z || v.w != w) {
+            field.getValueForUpdate().set(x, y, z, w);
+        }
+    }
+
+    private static void set(Vector3fField field, Vector3f value) {
+        if (!field.getValue().equals(value)) {
+            field.getValueForUpdate().set(value);
+        }
+    }
+
+    private static void set(Vector2fField field, float x, float y) {
+        Vector2f v = field.getValue();
+        if (v.x != x || v.y != y) {
+            field.getValueForUpdate().set(x, y);
+        }
+    }
+
+    private static void set(FloatField field, float value) {
+        if (field.getValue() != value) {
+            field.setValue(value);
+        }
+    }
+
+    /**
+     * Internal use only. Sets the world matrix to use for future
+     * rendering. This has no effect unless objects are rendered manually
+     * using {@link Material#render(com.jme3.scene.Geometry, com.jme3.renderer.RenderManager) }.
+     * 
+     * @param mat The world matrix to set
+     */
+    public void setWorldMatrix(Matrix4f mat) {
+        if (!worldMatrix.equals(mat)) {
+            worldMatrix.set(mat);
+            objectBlockChanged = true;
+        }
+    }
+
+    /**
+     * Set the timer that should be used to query the time based
+     * {@link UniformBinding}s for material world parameters.
+     * 
+     * @param timer The timer to query time world parameters
+     */
+    public void setTimer(com.jme3.system.Timer timer) {
+        this.timer = timer;
+    }
+
+    public void setCamera(Camera cam, Matrix4f viewMatrix, Matrix4f projMatrix, Matrix4f viewProjMatrix) {
+        this.viewMatrix.set(viewMatrix);
+        this.projMatrix.set(projMatrix);
+        this.viewProjMatrix.set(viewProjMatrix);
+
+        camLoc.set(cam.getLocation());
+        cam.getLeft(camLeft);
+        cam.getUp(camUp);
+        cam.getDirection(camDir);
+
+        near = cam.getFrustumNear();
+        far = cam.getFrustumFar();
+
+        frameBlockChanged = true;
+        objectBlockChanged = true;
+    }
+
+    public void setViewPort(int viewX, int viewY, int viewWidth, int viewHeight) {
+        this.viewX = viewX;
+        this.viewY = viewY;
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        frameBlockChanged = true;
+    }
+ 
+    /**
+     *  Internal use only.  Called by the RenderManager at the beginning of a
+     *  new application frame.
+     */   
+    public void newFrame() {
+        // Avoid per-material Float allocations and lock in the
+        // time for this frame to avoid inter-frame drift.
+        time = timer.getTimeInSeconds();
+        tpf = timer.getTimePerFrame();
+        // the slots of the previous frame are reused
+        frameSlots.nextSlot = 0;
+        frameBlockChanged = true;
+        objectSlots.nextSlot = 0;
+        objectBlockChanged = true;
+    }
+}
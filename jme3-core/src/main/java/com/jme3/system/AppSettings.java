@@ -1461,6 +1461,79 @@ public final class AppSettings extends HashMap<String, Object> {
         putBoolean("GraphicsTrace", trace);
     }
 
+    /**
+     * Determine if the renderer will count its openGL calls by category in its
+     * {@link com.jme3.renderer.Statistics}, which the
+     * {@link com.jme3.app.DetailedProfilerState} then displays per step.
+     *
+     * @return whether the context will count openGL calls or not
+     * @see #setGraphicsCallCounting(boolean)
+     * @see com.jme3.renderer.opengl.GLCallCounter
+     */
+    public boolean isGraphicsCallCounting() {
+        return getBoolean("GraphicsCallCounting");
+    }
+
+    /**
+     * Set whether the renderer will count its openGL calls by category in its
+     * {@link com.jme3.renderer.Statistics}, which the
+     * {@link com.jme3.app.DetailedProfilerState} then displays per step.
+     *
+     * @param counting whether the context will count openGL calls or not
+     * @see #isGraphicsCallCounting()
+     * @see com.jme3.renderer.opengl.GLCallCounter
+     */
+    public void setGraphicsCallCounting(boolean counting) {
+        putBoolean("GraphicsCallCounting", counting);
+    }
+
+    /**
+     * Get the folder where linked shader programs are cached as binaries.
+     *
+     * @return the folder path, or null if shader binaries are not cached
+     * @see #setShaderCacheFolder(java.lang.String)
+     */
+    public String getShaderCacheFolder() {
+        return getString("ShaderCacheFolder");
+    }
+
+    /**
+     * Set a folder where the renderer caches linked shader programs as
+     * driver binaries, when the context supports it. Shader variants
+     * linked in a previous run are then restored instead of compiled.
+     * Default is null (no cache).
+     *
+     * @param folder the folder path, or null to disable the cache
+     * @see com.jme3.renderer.opengl.ProgramBinaryCache
+     */
+    public void setShaderCacheFolder(String folder) {
+        putString("ShaderCacheFolder", folder);
+    }
+
+    /**
+     * Determine whether the renderer compiles shaders asynchronously.
+     *
+     * @return true if shaders are compiled asynchronously, otherwise false
+     * @see #setAsyncShaderCompile(boolean)
+     */
+    public boolean isAsyncShaderCompile() {
+        return getBoolean("AsyncShaderCompile");
+    }
+
+    /**
+     * Set whether the renderer compiles shaders in the background of the
+     * driver when the context supports parallel shader compilation.
+     * Geometries are rendered with the
+     * {@link com.jme3.renderer.RenderManager#setShaderCompileFallback(com.jme3.material.Material)
+     * fallback material}, or skipped, until their shader is ready, instead
+     * of stalling the frame. Default is false.
+     *
+     * @param async true to compile shaders asynchronously
+     */
+    public void setAsyncShaderCompile(boolean async) {
+        putBoolean("AsyncShaderCompile", async);
+    }
+
     /**
      * Determine whether to use full resolution framebuffers on Retina displays.
      *
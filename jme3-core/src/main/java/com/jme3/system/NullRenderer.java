@@ -200,6 +200,11 @@ public class NullRenderer implements Renderer {
     public void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData) {
     }
 
+    @Override
+    public void renderMeshIndirect(Mesh mesh, BufferObject commands, int drawCount,
+            VertexBuffer[] instanceData) {
+    }
+
     @Override
     public void resetGLObjects() {
     }
@@ -323,6 +328,11 @@ public class NullRenderer implements Renderer {
 
     }
 
+    @Override
+    public void setUniformBufferObject(int bindingPoint, BufferObject bufferObject, int offset, int size) {
+
+    }
+
     @Override
     public void deleteFence(GLFence fence) {
 
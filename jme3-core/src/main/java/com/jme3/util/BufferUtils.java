@@ -41,6 +41,7 @@ import java.io.UnsupportedEncodingException;
 import java.lang.ref.PhantomReference;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -48,6 +49,7 @@ import java.nio.DoubleBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -68,6 +70,8 @@ public final class BufferUtils {
     private static final ReferenceQueue<Buffer> removeCollected = new ReferenceQueue<Buffer>();
     private static final ConcurrentHashMap<BufferInfo, BufferInfo> trackedBuffers = new ConcurrentHashMap<BufferInfo, BufferInfo>();
     static ClearReferences cleanupthread;
+    private static final ReferenceQueue<Buffer> borrowedCollected = new ReferenceQueue<Buffer>();
+    private static final Set<BorrowedBuffer> borrowedBuffers = ConcurrentHashMap.newKeySet();
 
     /**
      * A private constructor to inhibit instantiation of this class.
@@ -1317,12 +1321,41 @@ public final class BufferUtils {
      * @param toBeDestroyed the buffer to de-allocate (not null)
      */
     public static void destroyDirectBuffer(Buffer toBeDestroyed) {
-        if (!isDirect(toBeDestroyed)) {
+        if (!isDirect(toBeDestroyed) || isBorrowed(toBeDestroyed)) {
             return;
         }
         allocator.destroyDirectBuffer(toBeDestroyed);
     }
 
+    /**
+     * Marks a direct buffer as a view of memory owned by someone else, for
+     * example a slice of a memory-mapped file. {@link #destroyDirectBuffer(java.nio.Buffer) }
+     * ignores such buffers: destroying a view frees the memory it is a view
+     * of, which other buffers may still be using. The memory is released
+     * once neither the view nor its owner is reachable.
+     *
+     * @param buffer the buffer to mark (not null)
+     */
+    public static void markBorrowed(Buffer buffer) {
+        Reference<? extends Buffer> collected;
+        while ((collected = borrowedCollected.poll()) != null) {
+            borrowedBuffers.remove(collected);
+        }
+        borrowedBuffers.add(new BorrowedBuffer(buffer, borrowedCollected));
+    }
+
+    /**
+     * Test whether the specified buffer was marked with
+     * {@link #markBorrowed(java.nio.Buffer) }.
+     *
+     * @param buffer the buffer to test (not null, unaffected)
+     * @return true if borrowed, otherwise false
+     */
+    public static boolean isBorrowed(Buffer buffer) {
+        return !borrowedBuffers.isEmpty()
+                && borrowedBuffers.contains(new BorrowedBuffer(buffer, null));
+    }
+
     /**
      * Test whether the specified buffer is direct.
      *
@@ -1345,6 +1378,36 @@ public final class BufferUtils {
         }
     }
 
+    /**
+     * A weak reference compared by the identity of its referent.
+     */
+    private static class BorrowedBuffer extends WeakReference<Buffer> {
+
+        private final int hash;
+
+        BorrowedBuffer(Buffer referent, ReferenceQueue<? super Buffer> q) {
+            super(referent, q);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof BorrowedBuffer)) {
+                return false;
+            }
+            Buffer referent = get();
+            return referent != null && referent == ((BorrowedBuffer) obj).get();
+        }
+    }
+
     private static class ClearReferences extends Thread {
 
         ClearReferences() {
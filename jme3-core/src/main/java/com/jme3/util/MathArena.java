@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.util;
+
+import com.jme3.math.Matrix3f;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector2f;
+import com.jme3.math.Vector3f;
+import com.jme3.math.Vector4f;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * A scope of temporary math objects for the current thread, meant to be used
+ * with try-with-resources:
+ * <pre>
+ * try (MathArena arena = MathArena.open()) {
+ *     Vector3f tmp = arena.vector3f();
+ *     Quaternion rot = arena.quaternion();
+ *     ...
+ * }
+ * </pre>
+ * The temporaries are taken from per-thread pools that grow on demand, so
+ * there is no limit on how many are used or on how deeply scopes are nested,
+ * and no allocation happens once the pools have warmed up. Closing a scope
+ * returns every temporary taken from it to the pools, so temporaries must
+ * not be kept or returned past the end of their scope.
+ * <p>
+ * Unlike {@link TempVars}, there is nothing to release individually. Scopes
+ * must still be closed in the reverse order they were opened, which
+ * try-with-resources does naturally.
+ * <p>
+ * In debug mode (see {@link #setDebug(boolean)}), each scope records where
+ * it was opened so that a scope left open is reported when an enclosing
+ * scope is closed or by {@link #checkAllClosed()}, use from another thread
+ * is rejected, and temporaries are filled with NaN when their scope closes
+ * so that leaked references show up quickly. Every scope is stamped with a
+ * generation number that must still be current when it is used. Outside of
+ * debug mode the scope objects are reused per nesting depth, so a stale
+ * reference to a closed scope is only caught once nothing is open at its
+ * depth any more; in debug mode each scope is a new object and any use after
+ * close is rejected.
+ */
+public final class MathArena implements AutoCloseable {
+
+    private static volatile boolean debug = Boolean.getBoolean("jme3.matharena.debug");
+    private static final float[] NAN_MATRIX3 = new float[9];
+    private static final float[] NAN_MATRIX4 = new float[16];
+
+    static {
+        Arrays.fill(NAN_MATRIX3, Float.NaN);
+        Arrays.fill(NAN_MATRIX4, Float.NaN);
+    }
+
+    /**
+     * A growable pool of objects, used like a stack.
+     */
+    private static final class Pool<T> {
+
+        private final Supplier<T> factory;
+        private Object[] items = new Object[8];
+        private int top = 0;
+
+        Pool(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        @SuppressWarnings("unchecked")
+        T take() {
+            if (top == items.length) {
+                Object[] temp = new Object[items.length * 2];
+                System.arraycopy(items, 0, temp, 0, items.length);
+                items = temp;
+            }
+            Object item = items[top];
+            if (item == null) {
+                item = factory.get();
+                items[top] = item;
+            }
+            top++;
+            return (T) item;
+        }
+    }
+
+    /**
+     * The pools and open scopes of one thread.
+     */
+    private static final class ThreadState {
+
+        final Thread thread = Thread.currentThread();
+        final Pool<Vector2f> vector2fs = new Pool<>(Vector2f::new);
+        final Pool<Vector3f> vector3fs = new Pool<>(Vector3f::new);
+        final Pool<Vector4f> vector4fs = new Pool<>(Vector4f::new);
+        final Pool<Quaternion> quaternions = new Pool<>(Quaternion::new);
+        final Pool<Matrix3f> matrix3fs = new Pool<>(Matrix3f::new);
+        final Pool<Matrix4f> matrix4fs = new Pool<>(Matrix4f::new);
+        MathArena[] scopes = new MathArena[8];
+        int[] generations = new int[8];
+        int depth = 0;
+        int lastGeneration = 0;
+    }
+
+    private static final ThreadLocal<ThreadState> threadState = new ThreadLocal<ThreadState>() {
+
+        @Override
+        protected ThreadState initialValue() {
+            return new ThreadState();
+        }
+    };
+
+    private final ThreadState state;
+    private final int level;
+    private int generation;
+    private int vector2fMark;
+    private int vector3fMark;
+    private int vector4fMark;
+    private int quaternionMark;
+    private int matrix3fMark;
+    private int matrix4fMark;
+    private Throwable openedAt;
+
+    private MathArena(ThreadState state, int level) {
+        this.state = state;
+        this.level = level;
+    }
+
+    /**
+     * Opens a new scope on the current thread.
+     *
+     * @return the scope, to be closed when done with its temporaries
+     */
+    public static MathArena open() {
+        ThreadState state = threadState.get();
+        if (state.depth == state.scopes.length) {
+            state.scopes = Arrays.copyOf(state.scopes, state.depth * 2);
+            state.generations = Arrays.copyOf(state.generations, state.depth * 2);
+        }
+        MathArena scope = state.scopes[state.depth];
+        if (scope == null || debug) {
+            // a new object in debug mode, so stale references keep an old generation
+            scope = new MathArena(state, state.depth);
+            state.scopes[state.depth] = scope;
+        }
+        scope.generation = ++state.lastGeneration;
+        state.generations[state.depth] = scope.generation;
+        state.depth++;
+
+        scope.vector2fMark = state.vector2fs.top;
+        scope.vector3fMark = state.vector3fs.top;
+        scope.vector4fMark = state.vector4fs.top;
+        scope.quaternionMark = state.quaternions.top;
+        scope.matrix3fMark = state.matrix3fs.top;
+        scope.matrix4fMark = state.matrix4fs.top;
+        scope.openedAt = debug ? new Throwable("MathArena opened here") : null;
+        return scope;
+    }
+
+    /**
+     * Enables or disables debug checks for scopes opened from now on. Can
+     * also be enabled with the system property
+     * <code>jme3.matharena.debug</code>.
+     *
+     * @param enabled true to enable the checks (default=false)
+     */
+    public static void setDebug(boolean enabled) {
+        debug = enabled;
+    }
+
+    /**
+     * Tests whether debug checks are enabled.
+     *
+     * @return true if enabled
+     */
+    public static boolean isDebug() {
+        return debug;
+    }
+
+    /**
+     * Returns the number of scopes currently open on the calling thread. It
+     * should be zero between frames.
+     *
+     * @return the number of open scopes (&ge;0)
+     */
+    public static int getOpenScopes() {
+        return threadState.get().depth;
+    }
+
+    /**
+     * Verifies that no scope is open on the calling thread, e.g. at the end
+     * of a frame, where a scope that was never closed would otherwise go
+     * unnoticed.
+     *
+     * @throws IllegalStateException if a scope is still open, caused by
+     *     where the outermost one was opened in debug mode
+     */
+    public static void checkAllClosed() {
+        ThreadState state = threadState.get();
+        if (state.depth != 0) {
+            throw new IllegalStateException(state.depth + " MathArena scope(s) have not been closed!",
+                    state.scopes[0].openedAt);
+        }
+    }
+
+    private void checkOpen() {
+        if (openedAt != null && Thread.currentThread() != state.thread) {
+            throw new IllegalStateException("This MathArena belongs to " + state.thread);
+        }
+        if (level >= state.depth || state.generations[level] != generation) {
+            throw new IllegalStateException("This MathArena is closed!");
+        }
+    }
+
+    /**
+     * Takes a temporary 2-D vector.
+     *
+     * @return a vector set to (0,0), valid until this scope is closed
+     */
+    public Vector2f vector2f() {
+        checkOpen();
+        return state.vector2fs.take().set(0f, 0f);
+    }
+
+    /**
+     * Takes a temporary 2-D vector with the given components.
+     *
+     * @param x the X component
+     * @param y the Y component
+     * @return a vector, valid until this scope is closed
+     */
+    public Vector2f vector2f(float x, float y) {
+        checkOpen();
+        return state.vector2fs.take().set(x, y);
+    }
+
+    /**
+     * Takes a temporary vector.
+     *
+     * @return a vector set to (0,0,0), valid until this scope is closed
+     */
+    public Vector3f vector3f() {
+        checkOpen();
+        return state.vector3fs.take().set(0f, 0f, 0f);
+    }
+
+    /**
+     * Takes a temporary vector with the given components.
+     *
+     * @param x the X component
+     * @param y the Y component
+     * @param z the Z component
+     * @return a vector, valid until this scope is closed
+     */
+    public Vector3f vector3f(float x, float y, float z) {
+        checkOpen();
+        return state.vector3fs.take().set(x, y, z);
+    }
+
+    /**
+     * Takes a temporary copy of the given vector.
+     *
+     * @param source the vector to copy (not null, unaffected)
+     * @return a vector, valid until this scope is closed
+     */
+    public Vector3f vector3f(Vector3f source) {
+        checkOpen();
+        return state.vector3fs.take().set(source);
+    }
+
+    /**
+     * Takes a temporary 4-D vector.
+     *
+     * @return a vector set to (0,0,0,0), valid until this scope is closed
+     */
+    public Vector4f vector4f() {
+        checkOpen();
+        return state.vector4fs.take().set(0f, 0f, 0f, 0f);
+    }
+
+    /**
+     * Takes a temporary quaternion.
+     *
+     * @return an identity quaternion, valid until this scope is closed
+     */
+    public Quaternion quaternion() {
+        checkOpen();
+        Quaternion quaternion = state.quaternions.take();
+        quaternion.loadIdentity();
+        return quaternion;
+    }
+
+    /**
+     * Takes a temporary copy of the given quaternion.
+     *
+     * @param source the quaternion to copy (not null, unaffected)
+     * @return a quaternion, valid until this scope is closed
+     */
+    public Quaternion quaternion(Quaternion source) {
+        checkOpen();
+        return state.quaternions.take().set(source);
+    }
+
+    /**
+     * Takes a temporary 3x3 matrix.
+     *
+     * @return an identity matrix, valid until this scope is closed
+     */
+    public Matrix3f matrix3f() {
+        checkOpen();
+        Matrix3f matrix = state.matrix3fs.take();
+        matrix.loadIdentity();
+        return matrix;
+    }
+
+    /**
+     * Takes a temporary 4x4 matrix.
+     *
+     * @return an identity matrix, valid until this scope is closed
+     */
+    public Matrix4f matrix4f() {
+        checkOpen();
+        Matrix4f matrix = state.matrix4fs.take();
+        matrix.loadIdentity();
+        return matrix;
+    }
+
+    /**
+     * Closes this scope, returning its temporaries to the pools.
+     *
+     * @throws IllegalStateException if the scope was already closed or a
+     *     scope opened after it is still open
+     */
+    @Override
+    public void close() {
+        checkOpen();
+        if (state.depth - 1 != level) {
+            MathArena nested = state.scopes[state.depth - 1];
+            throw new IllegalStateException("A MathArena opened in this scope has not been closed!",
+                    nested.openedAt);
+        }
+        if (openedAt != null) {
+            poison(state.vector2fs, vector2fMark);
+            poison(state.vector3fs, vector3fMark);
+            poison(state.vector4fs, vector4fMark);
+            poison(state.quaternions, quaternionMark);
+            poison(state.matrix3fs, matrix3fMark);
+            poison(state.matrix4fs, matrix4fMark);
+            openedAt = null;
+        }
+        state.vector2fs.top = vector2fMark;
+        state.vector3fs.top = vector3fMark;
+        state.vector4fs.top = vector4fMark;
+        state.quaternions.top = quaternionMark;
+        state.matrix3fs.top = matrix3fMark;
+        state.matrix4fs.top = matrix4fMark;
+        state.depth--;
+    }
+
+    private static void poison(Pool<?> pool, int mark) {
+        float nan = Float.NaN;
+        for (int i = mark; i < pool.top; i++) {
+            Object item = pool.items[i];
+            if (item instanceof Vector2f) {
+                ((Vector2f) item).set(nan, nan);
+            } else if (item instanceof Vector3f) {
+                ((Vector3f) item).set(nan, nan, nan);
+            } else if (item instanceof Vector4f) {
+                ((Vector4f) item).set(nan, nan, nan, nan);
+            } else if (item instanceof Quaternion) {
+                ((Quaternion) item).set(nan, nan, nan, nan);
+            } else if (item instanceof Matrix3f) {
+                ((Matrix3f) item).set(NAN_MATRIX3);
+            } else if (item instanceof Matrix4f) {
+                ((Matrix4f) item).set(NAN_MATRIX4);
+            }
+        }
+    }
+}
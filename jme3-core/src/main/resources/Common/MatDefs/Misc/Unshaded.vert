@@ -5,7 +5,7 @@
 
 attribute vec3 inPosition;
 
-#if defined(HAS_COLORMAP) || (defined(HAS_LIGHTMAP) && !defined(SEPARATE_TEXCOORD))
+#if defined(HAS_COLORMAP) || defined(HAS_COLORMAP_ARRAY) || (defined(HAS_LIGHTMAP) && !defined(SEPARATE_TEXCOORD))
     #define NEED_TEXCOORD1
 #endif
 
@@ -1,3 +1,6 @@
+#if defined(COLOR_MAP_ARRAY) && __VERSION__ < 130
+    #extension GL_EXT_texture_array : enable
+#endif
 #import "Common/ShaderLib/GLSLCompat.glsllib"
 #import "Common/ShaderLib/Shadows.glsllib"
 #if defined(PSSM) || defined(FADE)
@@ -24,7 +27,10 @@ varying vec4 projCoord3;
 #endif
 
 #ifdef DISCARD_ALPHA
-    #ifdef COLOR_MAP
+    #ifdef COLOR_MAP_ARRAY
+        uniform sampler2DArray m_ColorMapArray;
+        uniform int m_ColorMapLayer;
+    #elif defined(COLOR_MAP)
         uniform sampler2D m_ColorMap;
     #else    
         uniform sampler2D m_DiffuseMap;
@@ -40,7 +46,9 @@ uniform vec2 m_FadeInfo;
 void main(){   
  
     #ifdef DISCARD_ALPHA
-        #ifdef COLOR_MAP
+        #ifdef COLOR_MAP_ARRAY
+            float alpha = texture2DArray(m_ColorMapArray,vec3(texCoord,float(m_ColorMapLayer))).a;
+        #elif defined(COLOR_MAP)
             float alpha = texture2D(m_ColorMap,texCoord).a;
         #else    
             float alpha = texture2D(m_DiffuseMap,texCoord).a;
@@ -1,8 +1,14 @@
+#if defined(COLOR_MAP_ARRAY) && __VERSION__ < 130
+    #extension GL_EXT_texture_array : enable
+#endif
 #import "Common/ShaderLib/GLSLCompat.glsllib"
 varying vec2 texCoord;
 
 #ifdef DISCARD_ALPHA
-   #ifdef COLOR_MAP
+   #ifdef COLOR_MAP_ARRAY
+      uniform sampler2DArray m_ColorMapArray;
+      uniform int m_ColorMapLayer;
+   #elif defined(COLOR_MAP)
       uniform sampler2D m_ColorMap;
    #else    
       uniform sampler2D m_DiffuseMap;
@@ -13,7 +19,11 @@ varying vec2 texCoord;
 
 void main(){
    #ifdef DISCARD_ALPHA
-       #ifdef COLOR_MAP
+       #ifdef COLOR_MAP_ARRAY
+            if (texture2DArray(m_ColorMapArray, vec3(texCoord, float(m_ColorMapLayer))).a <= m_AlphaDiscardThreshold){
+                discard;
+            }
+       #elif defined(COLOR_MAP)
             if (texture2D(m_ColorMap, texCoord).a <= m_AlphaDiscardThreshold){
                 discard;
             }
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.asset.plugins;
+
+import com.jme3.asset.*;
+import com.jme3.util.BufferInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <code>PackLocator</code> is a locator that looks up resources in a
+ * memory-mapped pack file, as written by <code>jme3tools.pack.AssetPacker</code>.
+ * <p>
+ * The pack holds an index of path hashes sorted for binary search, so
+ * locating an asset neither touches the filesystem nor decompresses
+ * anything. Asset streams read straight from the mapped file.
+ * <p>
+ * The root path must be a valid pack {@link File file}, for example, <br>
+ * <code>C:\My App\assets.jpk</code>
+ * <p>
+ * Pack file layout, big-endian:
+ * <pre>
+ * int    magic ("JMPK")
+ * int    format version
+ * int    entry count
+ * int    reserved
+ * entry count times, sorted by hash then path:
+ *   long hash of the UTF-8 path (see {@link #hashPath(java.lang.String) })
+ *   int  offset of the path in the name table
+ *   int  length of the path in bytes
+ *   long offset of the data in the file
+ *   long length of the data in bytes
+ * name table (UTF-8 paths)
+ * data, each asset aligned on {@link #DATA_ALIGNMENT} bytes
+ * </pre>
+ */
+public class PackLocator implements AssetLocator {
+
+    private static final Logger logger = Logger.getLogger(PackLocator.class.getName());
+
+    public static final int MAGIC = 0x4A4D504B; // "JMPK"
+    public static final int FORMAT_VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int INDEX_ENTRY_SIZE = 32;
+    public static final int DATA_ALIGNMENT = 16;
+
+    /**
+     * Locators are created for each loading thread, they share the mapping
+     * of the same pack. Keyed by path; the entry is replaced when the file's
+     * modification time or size changed, so that a rebuilt pack is mapped
+     * again without keeping the old mapping around.
+     */
+    private static final ConcurrentHashMap<String, Pack> packs = new ConcurrentHashMap<>();
+
+    private Pack pack;
+
+    private static final class Pack {
+
+        final long modified;
+        final long size;
+        final ByteBuffer buffer;
+        final int count;
+        final int namesOffset;
+
+        Pack(File file, long modified, long size) throws IOException {
+            this.modified = modified;
+            this.size = size;
+            MappedByteBuffer mapped;
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Pack files larger than 2 GiB are not supported: " + file);
+                }
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            buffer = mapped.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a pack file: " + file);
+            }
+            if (buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Unsupported pack format version " + buffer.getInt(4) + ": " + file);
+            }
+            count = buffer.getInt(8);
+            long indexEnd = HEADER_SIZE + (long) count * INDEX_ENTRY_SIZE;
+            if (count < 0 || indexEnd > buffer.capacity()) {
+                throw new IOException("Invalid pack entry count " + count + ": " + file);
+            }
+            namesOffset = (int) indexEnd;
+        }
+
+        boolean isCurrent(long modified, long size) {
+            return this.modified == modified && this.size == size;
+        }
+
+        /**
+         * @return The index entry position, or -1 if the path is not packed.
+         */
+        int find(byte[] path) throws IOException {
+            long hash = hashPath(path);
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midHash = buffer.getLong(HEADER_SIZE + mid * INDEX_ENTRY_SIZE);
+                if (midHash < hash) {
+                    low = mid + 1;
+                } else if (midHash > hash) {
+                    high = mid - 1;
+                } else {
+                    // Go back to the first entry with this hash, then
+                    // compare paths to resolve collisions
+                    while (mid > 0 && buffer.getLong(HEADER_SIZE + (mid - 1) * INDEX_ENTRY_SIZE) == hash) {
+                        mid--;
+                    }
+                    for (; mid < count; mid++) {
+                        int entry = HEADER_SIZE + mid * INDEX_ENTRY_SIZE;
+                        if (buffer.getLong(entry) != hash) {
+                            break;
+                        }
+                        if (pathEquals(entry, path)) {
+                            return entry;
+                        }
+                    }
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        private boolean pathEquals(int entry, byte[] path) throws IOException {
+            long offset = namesOffset + (long) buffer.getInt(entry + 8);
+            int length = buffer.getInt(entry + 12);
+            checkBounds(entry, offset, length);
+            if (length != path.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (buffer.get((int) offset + i) != path[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        ByteBuffer slice(int entry) throws IOException {
+            long offset = buffer.getLong(entry + 16);
+            long length = buffer.getLong(entry + 24);
+            checkBounds(entry, offset, length);
+            ByteBuffer data = buffer.duplicate();
+            data.limit((int) (offset + length)).position((int) offset);
+            return data.slice();
+        }
+
+        /**
+         * Rejects an index entry pointing outside the mapped file.
+         */
+        private void checkBounds(int entry, long offset, long length) throws IOException {
+            if (offset < 0 || length < 0 || offset > buffer.capacity() - length) {
+                int index = (entry - HEADER_SIZE) / INDEX_ENTRY_SIZE;
+                throw new IOException("Pack entry " + index + " spans [" + offset + ", "
+                        + (offset + length) + ") outside the " + buffer.capacity() + " byte pack");
+            }
+        }
+    }
+
+    /**
+     * The <code>AssetInfo</code> of a packed asset. Besides a stream, it
+     * gives direct access to the mapped bytes.
+     */
+    public static class PackAssetInfo extends AssetInfo {
+
+        private final ByteBuffer data;
+
+        public PackAssetInfo(AssetManager manager, AssetKey key, ByteBuffer data) {
+            super(manager, key);
+            this.data = data;
+        }
+
+        /**
+         * Returns a read-only view of the asset bytes within the mapped
+         * pack file. The view is a new buffer on each call, positioned at
+         * the start of the asset.
+         *
+         * @return The asset bytes, without copying them.
+         */
+        public ByteBuffer getBuffer() {
+            return data.asReadOnlyBuffer();
+        }
+
+        @Override
+        public InputStream openStream() {
+            return new BufferInputStream(getBuffer());
+        }
+    }
+
+    /**
+     * Hashes a path the same way the pack index does: 64-bit FNV-1a over
+     * its UTF-8 bytes.
+     *
+     * @param path The asset path, without a leading slash
+     * @return The hash of the path
+     */
+    public static long hashPath(String path) {
+        return hashPath(path.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long hashPath(byte[] path) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : path) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * @return the number of pack files currently mapped
+     */
+    static int getMappedPackCount() {
+        return packs.size();
+    }
+
+    @Override
+    public void setRootPath(String rootPath) {
+        File file = new File(rootPath).getAbsoluteFile();
+        long modified = file.lastModified();
+        long size = file.length();
+        try {
+            pack = packs.compute(file.getPath(), (path, current) -> {
+                if (current != null && current.isCurrent(modified, size)) {
+                    return current;
+                }
+                try {
+                    Pack opened = new Pack(file, modified, size);
+                    if (logger.isLoggable(Level.FINE)) {
+                        logger.log(Level.FINE, "Mapped pack file {0} with {1} assets",
+                                new Object[]{file, opened.count});
+                    }
+                    return opened;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw new AssetLoadException("Failed to open pack file: " + rootPath, ex.getCause());
+        }
+    }
+
+    @Override
+    public AssetInfo locate(AssetManager manager, AssetKey key) {
+        String name = key.getName();
+        if (name.startsWith("/")) name = name.substring(1);
+        try {
+            int entry = pack.find(name.getBytes(StandardCharsets.UTF_8));
+            if (entry == -1) {
+                return null;
+            }
+            return new PackAssetInfo(manager, key, pack.slice(entry));
+        } catch (IOException ex) {
+            throw new AssetLoadException("Corrupt pack index for " + key, ex);
+        }
+    }
+}
@@ -33,11 +33,17 @@ package com.jme3.export.binary;
 
 import com.jme3.asset.AssetInfo;
 import com.jme3.asset.AssetManager;
+import com.jme3.asset.plugins.PackLocator;
 import com.jme3.export.*;
 import com.jme3.math.FastMath;
 import java.io.*;
 import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.logging.Level;
@@ -68,7 +74,8 @@ public final class BinaryImporter implements JmeImporter {
 
     public static boolean debug = false;
 
-    private byte[] dataArray;
+    private ByteBuffer data;
+    private boolean slicingBuffers;
     private int aliasWidth;
     private int formatVersion;
 
@@ -106,6 +113,17 @@ public final class BinaryImporter implements JmeImporter {
 
         assetManager = info.getManager();
 
+        if (info instanceof PackLocator.PackAssetInfo) {
+            // Parse the mapped pack in place. The pack is read-only, so
+            // buffers are still copied, but the file as a whole is not.
+            try {
+                return load(((PackLocator.PackAssetInfo) info).getBuffer());
+            } catch (IOException ex) {
+                logger.log(Level.SEVERE, "An error occurred while loading jME binary object", ex);
+                return null;
+            }
+        }
+
         InputStream is = null;
         try {
             is = info.openStream();
@@ -133,124 +151,169 @@ public final class BinaryImporter implements JmeImporter {
     }
 
     public Savable load(InputStream is, ReadListener listener, ByteArrayOutputStream baos) throws IOException {
-        contentTable.clear();
-        BufferedInputStream bis = new BufferedInputStream(is);
-        
-        int numClasses;
-        
-        // Try to read signature
-        int maybeSignature = ByteUtils.readInt(bis);
-        if (maybeSignature == FormatVersion.SIGNATURE){
-            // this is a new version J3O file
-            formatVersion = ByteUtils.readInt(bis);
-            numClasses = ByteUtils.readInt(bis);
-            
-            // check if this binary is from the future
-            if (formatVersion > FormatVersion.VERSION){
-                throw new IOException("The binary file is of newer version than expected! " + 
-                                      formatVersion + " > " + FormatVersion.VERSION);
-            }
-        }else{
-            // this is an old version J3O file
-            // the signature was actually the class count
-            numClasses = maybeSignature;
-            
-            // 0 indicates version before we started adding
-            // version numbers
-            formatVersion = 0; 
-        }
-        
-        int bytes = 4;
-        aliasWidth = ((int)FastMath.log(numClasses, 256) + 1);
-
-        classes.clear();
-        for(int i = 0; i < numClasses; i++) {
-            String alias = readString(bis, aliasWidth);
-            
-            // jME3 NEW: Read class version number
-            int[] classHierarchyVersions;
-            if (formatVersion >= 1){
-                int classHierarchySize = bis.read();
-                classHierarchyVersions = new int[classHierarchySize];
-                for (int j = 0; j < classHierarchySize; j++){
-                    classHierarchyVersions[j] = ByteUtils.readInt(bis);
-                }
-            }else{
-                classHierarchyVersions = new int[]{ 0 };
-            }
-            
-            // read classname and classname size
-            int classLength = ByteUtils.readInt(bis);
-            String className = readString(bis, classLength);
-            
-            BinaryClassObject bco = new BinaryClassObject();
-            bco.alias = alias.getBytes();
-            bco.className = className;
-            bco.classHierarchyVersions = classHierarchyVersions;
-            
-            int fields = ByteUtils.readInt(bis);
-            bytes += (8 + aliasWidth + classLength);
-
-            bco.nameFields = new HashMap<String, BinaryClassField>(fields);
-            bco.aliasFields = new HashMap<Byte, BinaryClassField>(fields);
-            for (int x = 0; x < fields; x++) {
-                byte fieldAlias = (byte)bis.read();
-                byte fieldType = (byte)bis.read();
-
-                int fieldNameLength = ByteUtils.readInt(bis);
-                String fieldName = readString(bis, fieldNameLength);
-                BinaryClassField bcf = new BinaryClassField(fieldName, fieldAlias, fieldType);
-                bco.nameFields.put(fieldName, bcf);
-                bco.aliasFields.put(fieldAlias, bcf);
-                bytes += (6 + fieldNameLength);
-            }
-            classes.put(alias, bco);
-        }
-        if (listener != null) listener.readBytes(bytes);
-
-        int numLocs = ByteUtils.readInt(bis);
-        bytes = 4;
-
-        capsuleTable.clear();
-        locationTable.clear();
-        for(int i = 0; i < numLocs; i++) {
-            int id = ByteUtils.readInt(bis);
-            int loc = ByteUtils.readInt(bis);
-            locationTable.put(id, loc);
-            bytes += 8;
-        }
-
-        @SuppressWarnings("unused")
-        int numbIDs = ByteUtils.readInt(bis); // XXX: NOT CURRENTLY USED
-        int id = ByteUtils.readInt(bis);
-        bytes += 8;
-        if (listener != null) listener.readBytes(bytes);
-
         if (baos == null) {
-                baos = new ByteArrayOutputStream(bytes);
+            baos = new ByteArrayOutputStream(4096);
         } else {
-                baos.reset();
+            baos.reset();
         }
         int size = -1;
         byte[] cache = new byte[4096];
-        while((size = bis.read(cache)) != -1) {
+        while ((size = is.read(cache)) != -1) {
             baos.write(cache, 0, size);
             if (listener != null) listener.readBytes(size);
         }
-        bis = null;
+        return load(ByteBuffer.wrap(baos.toByteArray()));
+    }
 
-        dataArray = baos.toByteArray();
-        baos = null;
+    /**
+     * Loads a J3O file held in a buffer, for example a memory-mapped file.
+     * <p>
+     * The class and location tables and every capsule are parsed in place,
+     * without copying the file into an array first. If the buffer is direct
+     * and writable and the platform is little-endian (the byte order of
+     * buffers in J3O files), the NIO buffers of the loaded savables, such as
+     * vertex and image data, are slices of the given buffer rather than
+     * copies. They keep it, and for a mapped file the mapping, reachable.
+     * Such slices are marked with {@link com.jme3.util.BufferUtils#markBorrowed(java.nio.Buffer) },
+     * so disposing one savable never frees memory that other savables of the
+     * same file still use. Otherwise they are copied into new direct buffers.
+     *
+     * @param buffer The J3O data, between the position and the limit of the
+     * buffer. Neither is modified.
+     * @return The root savable of the file.
+     * @throws IOException If the data is not a J3O file or is truncated.
+     */
+    public Savable load(ByteBuffer buffer) throws IOException {
+        contentTable.clear();
+        ByteBuffer in = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        try {
+            int numClasses;
+
+            // Try to read signature
+            int maybeSignature = in.getInt();
+            if (maybeSignature == FormatVersion.SIGNATURE){
+                // this is a new version J3O file
+                formatVersion = in.getInt();
+                numClasses = in.getInt();
+
+                // check if this binary is from the future
+                if (formatVersion > FormatVersion.VERSION){
+                    throw new IOException("The binary file is of newer version than expected! " +
+                                          formatVersion + " > " + FormatVersion.VERSION);
+                }
+            }else{
+                // this is an old version J3O file
+                // the signature was actually the class count
+                numClasses = maybeSignature;
 
-        Savable rVal = readObject(id);
-        if (debug) {
-            logger.fine("Importer Stats: ");
-            logger.log(Level.FINE, "Tags: {0}", numClasses);
-            logger.log(Level.FINE, "Objects: {0}", numLocs);
-            logger.log(Level.FINE, "Data Size: {0}", dataArray.length);
+                // 0 indicates version before we started adding
+                // version numbers
+                formatVersion = 0;
+            }
+
+            aliasWidth = ((int)FastMath.log(numClasses, 256) + 1);
+
+            classes.clear();
+            for(int i = 0; i < numClasses; i++) {
+                String alias = readString(in, aliasWidth);
+
+                // jME3 NEW: Read class version number
+                int[] classHierarchyVersions;
+                if (formatVersion >= 1){
+                    int classHierarchySize = in.get() & 0xFF;
+                    classHierarchyVersions = new int[classHierarchySize];
+                    for (int j = 0; j < classHierarchySize; j++){
+                        classHierarchyVersions[j] = in.getInt();
+                    }
+                }else{
+                    classHierarchyVersions = new int[]{ 0 };
+                }
+
+                // read classname and classname size
+                int classLength = in.getInt();
+                String className = readString(in, classLength);
+
+                BinaryClassObject bco = new BinaryClassObject();
+                bco.alias = alias.getBytes();
+                bco.className = className;
+                bco.classHierarchyVersions = classHierarchyVersions;
+
+                int fields = in.getInt();
+
+                bco.nameFields = new HashMap<String, BinaryClassField>(fields);
+                bco.aliasFields = new HashMap<Byte, BinaryClassField>(fields);
+                for (int x = 0; x < fields; x++) {
+                    byte fieldAlias = in.get();
+                    byte fieldType = in.get();
+
+                    int fieldNameLength = in.getInt();
+                    String fieldName = readString(in, fieldNameLength);
+                    BinaryClassField bcf = new BinaryClassField(fieldName, fieldAlias, fieldType);
+                    bco.nameFields.put(fieldName, bcf);
+                    bco.aliasFields.put(fieldAlias, bcf);
+                }
+                classes.put(alias, bco);
+            }
+
+            int numLocs = in.getInt();
+
+            capsuleTable.clear();
+            locationTable.clear();
+            for(int i = 0; i < numLocs; i++) {
+                int id = in.getInt();
+                int loc = in.getInt();
+                locationTable.put(id, loc);
+            }
+
+            @SuppressWarnings("unused")
+            int numbIDs = in.getInt(); // XXX: NOT CURRENTLY USED
+            int id = in.getInt();
+
+            data = in.slice().order(ByteOrder.BIG_ENDIAN);
+            slicingBuffers = fastRead && data.isDirect() && !data.isReadOnly();
+
+            Savable rVal = readObject(id);
+            if (debug) {
+                logger.fine("Importer Stats: ");
+                logger.log(Level.FINE, "Tags: {0}", numClasses);
+                logger.log(Level.FINE, "Objects: {0}", numLocs);
+                logger.log(Level.FINE, "Data Size: {0}", data.capacity());
+            }
+            return rVal;
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Unexpected end of J3O data", ex);
+        } finally {
+            data = null;
+            slicingBuffers = false;
         }
-        dataArray = null;
-        return rVal;
+    }
+
+    /**
+     * Loads a J3O file by memory-mapping it, see {@link #load(java.nio.ByteBuffer) }.
+     * The mapping is private (copy-on-write): the loaded buffers can be
+     * modified, the file is not. The mapping is released once none of them
+     * is reachable.
+     * <p>
+     * A private mapping needs the file to be writable. If it is not, the
+     * file is mapped read-only and its buffers are copied.
+     *
+     * @param f The file to load
+     * @return The root savable of the file.
+     * @throws IOException If the file cannot be read or is not a J3O file.
+     */
+    public Savable loadMapped(File f) throws IOException {
+        MappedByteBuffer mapped;
+        if (f.canWrite()) {
+            try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                mapped = channel.map(FileChannel.MapMode.PRIVATE, 0, channel.size());
+            }
+        } else {
+            try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        return load(mapped);
     }
 
     public Savable load(URL f) throws IOException {
@@ -278,10 +341,7 @@ public final class BinaryImporter implements JmeImporter {
     }
 
     public Savable load(byte[] data) throws IOException {
-        ByteArrayInputStream bais = new ByteArrayInputStream(data);
-        Savable rVal = load(bais);
-        bais.close();
-        return rVal;
+        return load(ByteBuffer.wrap(data));
     }
 
     @Override
@@ -298,13 +358,27 @@ public final class BinaryImporter implements JmeImporter {
         return new String(data);
     }
 
+    protected String readString(ByteBuffer in, int length) {
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes);
+    }
+
     protected String readString(int length, int offset) throws IOException {
-        byte[] data = new byte[length];
+        byte[] bytes = new byte[length];
         for(int j = 0; j < length; j++) {
-            data[j] = dataArray[j+offset];
+            bytes[j] = data.get(j+offset);
         }
 
-        return new String(data);
+        return new String(bytes);
+    }
+
+    /**
+     * @return True while loading from a buffer whose NIO buffer data can be
+     * sliced instead of copied.
+     */
+    boolean isSlicingBuffers() {
+        return slicingBuffers;
     }
 
     public Savable readObject(int id) {
@@ -326,13 +400,13 @@ public final class BinaryImporter implements JmeImporter {
                 return null;
             }
 
-            int dataLength = ByteUtils.convertIntFromBytes(dataArray, loc);
+            int dataLength = data.getInt(loc);
             loc+=4;
 
             Savable  out = SavableClassUtil.fromName(bco.className);
 
             BinaryInputCapsule cap = new BinaryInputCapsule(this, out, bco);
-            cap.setContent(dataArray, loc, loc+dataLength);
+            cap.setContent(data, loc, loc+dataLength);
 
             capsuleTable.put(out, cap);
             contentTable.put(id, out);
@@ -167,6 +167,10 @@ public class J3MLoader implements AssetLoader {
     }
 
     private List<TextureOptionValue> parseTextureOptions(final List<String> values) {
+        return parseTextureOptions(values, true);
+    }
+
+    private List<TextureOptionValue> parseTextureOptions(final List<String> values, final boolean warnUnknown) {
         final List<TextureOptionValue> matchList = new ArrayList<>();
 
         if (values.isEmpty() || values.size() == 1) {
@@ -178,7 +182,9 @@ public class J3MLoader implements AssetLoader {
             final String value = values.get(i);
             final TextureOption textureOption = TextureOption.getTextureOption(value);
 
-            if (textureOption == null && !value.contains("\\") && !value.contains("/") && !values.get(0).equals("Flip") && !values.get(0).equals("Repeat")) {
+            if (textureOption == null && !warnUnknown) {
+                continue;
+            } else if (textureOption == null && !value.contains("\\") && !value.contains("/") && !values.get(0).equals("Flip") && !values.get(0).equals("Repeat")) {
                 logger.log(Level.WARNING, "Unknown texture option \"{0}\" encountered for \"{1}\" in material \"{2}\"", new Object[]{value, key, material.getKey().getName()});
             } else if (textureOption != null){
                 final String option = textureOption.getOptionValue(value);
@@ -211,7 +217,34 @@ public class J3MLoader implements AssetLoader {
     private Texture parseTextureType(final VarType type, final String value) {
         final List<String> textureValues = tokenizeTextureValue(value);
         final List<TextureOptionValue> textureOptionValues = parseTextureOptions(textureValues);
+        final TextureKey textureKey = parseTextureKey(type, value, textureValues, textureOptionValues);
+
+        Texture texture;
 
+        try {
+            texture = assetManager.loadTexture(textureKey);
+        } catch (AssetNotFoundException ex){
+            logger.log(Level.WARNING, "Cannot locate {0} for material {1}", new Object[]{textureKey, key});
+            texture = null;
+        }
+
+        if (texture == null){
+            texture = new Texture2D(PlaceholderAssets.getPlaceholderImage(assetManager));
+            texture.setKey(textureKey);
+            texture.setName(textureKey.getName());
+        }
+
+        // Apply texture options to the texture
+        if (!textureOptionValues.isEmpty()) {
+            for (final TextureOptionValue textureOptionValue : textureOptionValues) {
+                textureOptionValue.applyToTexture(texture);
+            }
+        }
+        return texture;
+    }
+
+    private TextureKey parseTextureKey(final VarType type, final String value, final List<String> textureValues,
+                                       final List<TextureOptionValue> textureOptionValues) {
         TextureKey textureKey = null;
 
         // If there is only one token on the value, it must be the path to the texture.
@@ -274,28 +307,30 @@ public class J3MLoader implements AssetLoader {
                 break;
         }
 
-        Texture texture;
-
-        try {
-            texture = assetManager.loadTexture(textureKey);
-        } catch (AssetNotFoundException ex){
-            logger.log(Level.WARNING, "Cannot locate {0} for material {1}", new Object[]{textureKey, key});
-            texture = null;
-        }
-
-        if (texture == null){
-            texture = new Texture2D(PlaceholderAssets.getPlaceholderImage(assetManager));
-            texture.setKey(textureKey);
-            texture.setName(textureKey.getName());
-        }
+        return textureKey;
+    }
 
-        // Apply texture options to the texture
-        if (!textureOptionValues.isEmpty()) {
-            for (final TextureOptionValue textureOptionValue : textureOptionValues) {
-                textureOptionValue.applyToTexture(texture);
+    /**
+     * Starts loading the textures of a material instance in parallel, so
+     * that they are cached or in flight by the time the parameters are
+     * read one by one. Statements that cannot be parsed are left to
+     * {@link #readValueParam(java.lang.String) } to report.
+     */
+    private void prefetchTextures(List<Statement> paramsList) {
+        for (Statement statement : paramsList) {
+            String[] split = statement.getLine().split(":", 2);
+            if (split.length != 2) {
+                continue;
             }
+            MatParam p = material.getMaterialDef().getMaterialParam(split[0].trim());
+            if (p == null || !p.getVarType().isTextureType()) {
+                continue;
+            }
+            List<String> textureValues = tokenizeTextureValue(split[1]);
+            List<TextureOptionValue> textureOptionValues = parseTextureOptions(textureValues, false);
+            // Failures surface again when the parameter itself is read.
+            assetManager.loadAssetAsync(parseTextureKey(p.getVarType(), split[1], textureValues, textureOptionValues));
         }
-        return texture;
     }
 
     private Object readValue(final VarType type, final String value) throws IOException{
@@ -435,6 +470,23 @@ public class J3MLoader implements AssetLoader {
         }
     }
 
+    // ParameterBlock <name> { <param> <param> ... }
+    private void readParamBlock(Statement statement) throws IOException{
+        String[] split = statement.getLine().split(whitespacePattern);
+        if (split.length != 2) {
+            throw new MatParseException("ParameterBlock <name>", statement.getLine(), statement);
+        }
+        List<String> paramNames = new ArrayList<>();
+        for (Statement paramStat : statement.getContents()) {
+            Collections.addAll(paramNames, paramStat.getLine().split(whitespacePattern));
+        }
+        try {
+            materialDef.setParamBlock(split[1], paramNames);
+        } catch (IllegalArgumentException ex) {
+            throw new MatParseException(ex.getMessage(), statement);
+        }
+    }
+
     private void readExtendingMaterialParams(List<Statement> paramsList) throws IOException{
         for (Statement statement : paramsList){
             readValueParam(statement.getLine());
@@ -779,6 +831,7 @@ public class J3MLoader implements AssetLoader {
             String statType = split[0];
             if (extending) {
                 if (statType.equals("MaterialParameters")) {
+                    prefetchTextures(statement.getContents());
                     readExtendingMaterialParams(statement.getContents());
                 } else if (statType.equals("AdditionalRenderState")) {
                     readAdditionalRenderState(statement.getContents());
@@ -792,6 +845,8 @@ public class J3MLoader implements AssetLoader {
                     readTechnique(statement);
                 } else if (statType.equals("MaterialParameters")) {
                     readMaterialParams(statement.getContents());
+                } else if (statType.equals("ParameterBlock")) {
+                    readParamBlock(statement);
                 } else {
                     throw new MatParseException("Expected material statement, got '" + statType + "'", statement);
                 }
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.asset;
+
+import com.jme3.asset.plugins.ClasspathLocator;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that concurrent requests for the same asset run its loader once.
+ */
+public class AsyncAssetLoadingTest {
+
+    private static final String FONT = "Interface/Fonts/Console.fnt";
+
+    private static final AtomicInteger loads = new AtomicInteger();
+    private static volatile CountDownLatch entered;
+    private static volatile CountDownLatch release;
+
+    /**
+     * Counts its invocations and blocks until the test releases it.
+     */
+    public static class BlockingLoader implements AssetLoader {
+        @Override
+        public Object load(AssetInfo assetInfo) throws IOException {
+            loads.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            }
+            return new Object();
+        }
+    }
+
+    private static final String OTHER_FONT = "Interface/Fonts/Default.fnt";
+    private static volatile CyclicBarrier bothLoading;
+    private static final ThreadLocal<Boolean> nested = new ThreadLocal<>();
+
+    /**
+     * Each font needs the other one, once both are being loaded.
+     */
+    public static class CyclicLoader implements AssetLoader {
+        @Override
+        public Object load(AssetInfo assetInfo) throws IOException {
+            loads.incrementAndGet();
+            if (nested.get() != null) {
+                return new Object();
+            }
+            try {
+                bothLoading.await(10, TimeUnit.SECONDS);
+            } catch (Exception ex) {
+                throw new IOException(ex);
+            }
+            String name = assetInfo.getKey().getName();
+            nested.set(Boolean.TRUE);
+            try {
+                assetInfo.getManager().loadAsset(FONT.equals(name) ? OTHER_FONT : FONT);
+            } finally {
+                nested.remove();
+            }
+            return new Object();
+        }
+    }
+
+    private DesktopAssetManager assetManager;
+
+    @Before
+    public void setUp() {
+        loads.set(0);
+        entered = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        assetManager = new DesktopAssetManager();
+        assetManager.registerLocator("/", ClasspathLocator.class);
+        assetManager.registerLoader(BlockingLoader.class, "fnt");
+    }
+
+    @Test
+    public void testConcurrentLoadsRunLoaderOnce() throws Exception {
+        AtomicReference<Object> first = new AtomicReference<>();
+        AtomicReference<Object> second = new AtomicReference<>();
+        Thread a = new Thread(() -> first.set(assetManager.loadAsset(FONT)));
+        Thread b = new Thread(() -> second.set(assetManager.loadAsset(FONT)));
+
+        a.start();
+        Assert.assertTrue(entered.await(10, TimeUnit.SECONDS));
+        b.start();
+        // Give the second thread time to reach the in-flight load.
+        b.join(100);
+        release.countDown();
+        a.join();
+        b.join();
+
+        Assert.assertEquals(1, loads.get());
+        Assert.assertNotNull(first.get());
+        Assert.assertSame(first.get(), second.get());
+    }
+
+    @Test
+    public void testCrossThreadCycleDoesNotDeadlock() throws Exception {
+        bothLoading = new CyclicBarrier(2);
+        assetManager.registerLoader(CyclicLoader.class, "fnt");
+        AtomicReference<Object> first = new AtomicReference<>();
+        AtomicReference<Object> second = new AtomicReference<>();
+        Thread a = new Thread(() -> first.set(assetManager.loadAsset(FONT)));
+        Thread b = new Thread(() -> second.set(assetManager.loadAsset(OTHER_FONT)));
+        a.setDaemon(true);
+        b.setDaemon(true);
+
+        a.start();
+        b.start();
+        a.join(10000);
+        b.join(10000);
+
+        Assert.assertFalse("deadlocked", a.isAlive() || b.isAlive());
+        Assert.assertNotNull(first.get());
+        Assert.assertNotNull(second.get());
+    }
+
+    @Test
+    public void testAsyncRequestsAreCoalesced() throws Exception {
+        AssetKey<Object> key = new AssetKey<>(FONT);
+        CompletableFuture<Object> first = assetManager.loadAssetAsync(key);
+        CompletableFuture<Object> second = assetManager.loadAssetAsync(key);
+        ThreadingManager threading = assetManager.getThreadingManager();
+
+        Assert.assertTrue(entered.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(1, threading.getSubmittedCount());
+        Assert.assertEquals(1, threading.getPendingCount());
+        Assert.assertEquals(0f, threading.getProgress(), 0f);
+
+        release.countDown();
+        Object asset = first.get(10, TimeUnit.SECONDS);
+
+        Assert.assertSame(asset, second.get(10, TimeUnit.SECONDS));
+        Assert.assertSame(asset, assetManager.loadAsset(key));
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(0, threading.getPendingCount());
+        Assert.assertEquals(1f, threading.getProgress(), 0f);
+    }
+
+    @Test
+    public void testCancellingOneRequestKeepsOthers() throws Exception {
+        AssetKey<Object> key = new AssetKey<>(FONT);
+        CompletableFuture<Object> first = assetManager.loadAssetAsync(key);
+        CompletableFuture<Object> second = assetManager.loadAssetAsync(key);
+
+        Assert.assertTrue(entered.await(10, TimeUnit.SECONDS));
+        first.cancel(true);
+        release.countDown();
+
+        Assert.assertTrue(first.isCancelled());
+        Assert.assertNotNull(second.get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testLoadAssetsAsyncKeepsOrder() throws Exception {
+        release.countDown();
+        AssetKey<Object> font = new AssetKey<>(FONT);
+        AssetKey<Object> other = new AssetKey<>("Interface/Fonts/Default.fnt");
+
+        Object[] assets = assetManager.getThreadingManager()
+                .loadAssetsAsync(Arrays.asList(font, other, font))
+                .get(10, TimeUnit.SECONDS).toArray();
+
+        Assert.assertEquals(3, assets.length);
+        Assert.assertSame(assetManager.loadAsset(font), assets[0]);
+        Assert.assertSame(assetManager.loadAsset(other), assets[1]);
+        Assert.assertSame(assets[0], assets[2]);
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testAsyncFailureCompletesExceptionally() throws Exception {
+        CompletableFuture<Object> future = assetManager.loadAssetAsync(new AssetKey<>("Missing/Asset.fnt"));
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            Assert.fail("Expected the load to fail");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof AssetNotFoundException);
+        }
+        Assert.assertEquals(1f, assetManager.getThreadingManager().getProgress(), 0f);
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.asset.cache;
+
+import com.jme3.asset.AssetInfo;
+import com.jme3.asset.AssetKey;
+import com.jme3.asset.AssetLoader;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.asset.ModelKey;
+import com.jme3.asset.TextLoader;
+import com.jme3.asset.plugins.FileLocator;
+import com.jme3.audio.AudioKey;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that {@link DiskAssetCache} serves loader results across asset
+ * managers and notices changed sources and dependencies.
+ */
+public class DiskAssetCacheTest {
+
+    private static final AtomicInteger loads = new AtomicInteger();
+
+    /**
+     * Loads a node named after the file content. A line starting with
+     * "include " appends the text of the named asset.
+     */
+    public static class NodeLoader implements AssetLoader {
+        @Override
+        public Object load(AssetInfo assetInfo) throws IOException {
+            loads.incrementAndGet();
+            StringBuilder name = new StringBuilder();
+            try (InputStream in = assetInfo.openStream();
+                    Scanner scanner = new Scanner(in, "UTF-8")) {
+                while (scanner.hasNextLine()) {
+                    String line = scanner.nextLine();
+                    if (line.startsWith("include ")) {
+                        name.append(((String) assetInfo.getManager().loadAsset(line.substring(8))).trim());
+                    } else {
+                        name.append(line);
+                    }
+                }
+            }
+            return new Node(name.toString());
+        }
+    }
+
+    private File sources;
+    private File cacheDir;
+
+    @Before
+    public void setUp() throws IOException {
+        loads.set(0);
+        sources = Files.createTempDirectory("sources").toFile();
+        cacheDir = Files.createTempDirectory("cache").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        delete(sources);
+        delete(cacheDir);
+    }
+
+    private static void delete(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private void writeSource(String name, String content) throws IOException {
+        Files.write(new File(sources, name).toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Simulates a new run of the application, with empty memory caches.
+     */
+    private Spatial load(String name) {
+        return load(name, sources);
+    }
+
+    private Spatial load(String name, File root) {
+        DesktopAssetManager assetManager = new DesktopAssetManager();
+        assetManager.registerLocator(root.getAbsolutePath(), FileLocator.class);
+        assetManager.registerLoader(NodeLoader.class, "node");
+        assetManager.registerLoader(TextLoader.class, "txt");
+        assetManager.setDiskCache(new DiskAssetCache(cacheDir));
+        return assetManager.loadModel(new ModelKey(name));
+    }
+
+    @Test
+    public void testLaterRunsImportFromDisk() throws IOException {
+        writeSource("a.node", "hello");
+
+        Assert.assertEquals("hello", load("a.node").getName());
+        Assert.assertEquals("hello", load("a.node").getName());
+        Assert.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testChangedSourceIsReloaded() throws IOException {
+        writeSource("a.node", "hello");
+        load("a.node");
+
+        writeSource("a.node", "world");
+        Assert.assertEquals("world", load("a.node").getName());
+        Assert.assertEquals("world", load("a.node").getName());
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testChangedDependencyIsReloaded() throws IOException {
+        writeSource("a.node", "include b.txt");
+        writeSource("b.txt", "first");
+        Assert.assertEquals("first", load("a.node").getName());
+        Assert.assertEquals("first", load("a.node").getName());
+        Assert.assertEquals(1, loads.get());
+
+        writeSource("b.txt", "second");
+        Assert.assertEquals("second", load("a.node").getName());
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testRootsHaveTheirOwnEntries() throws IOException {
+        File other = Files.createTempDirectory("other").toFile();
+        try {
+            writeSource("a.node", "hello");
+            Files.write(new File(other, "a.node").toPath(), "world".getBytes(StandardCharsets.UTF_8));
+
+            Assert.assertEquals("hello", load("a.node").getName());
+            Assert.assertEquals("world", load("a.node", other).getName());
+            Assert.assertEquals("hello", load("a.node").getName());
+            Assert.assertEquals("world", load("a.node", other).getName());
+            Assert.assertEquals(2, loads.get());
+        } finally {
+            delete(other);
+        }
+    }
+
+    @Test
+    public void testAssetsThatCannotBeStoredAreSkipped() {
+        DiskAssetCache cache = new DiskAssetCache(cacheDir);
+        Assert.assertTrue(cache.accepts(new ModelKey("a.node")));
+        Assert.assertFalse(cache.accepts(new ModelKey("a.j3o")));
+        Assert.assertFalse(cache.accepts(new AssetKey<>("Shaders/a.frag")));
+        Assert.assertFalse(cache.accepts(new AssetKey<>("Models/a.bin")));
+        Assert.assertFalse(cache.accepts(new AudioKey("Sound/a.ogg", true)));
+        Assert.assertTrue(cache.accepts(new AudioKey("Sound/a.ogg", false)));
+    }
+
+    @Test
+    public void testCorruptEntryIsReplaced() throws IOException {
+        writeSource("a.node", "hello");
+        load("a.node");
+        for (File entry : cacheDir.listFiles()) {
+            Files.write(entry.toPath(), new byte[]{1, 2, 3});
+        }
+
+        Assert.assertEquals("hello", load("a.node").getName());
+        Assert.assertEquals("hello", load("a.node").getName());
+        Assert.assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.asset.cache;
+
+import com.jme3.asset.AssetKey;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.asset.plugins.ClasspathLocator;
+import com.jme3.asset.TextLoader;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture2D;
+import com.jme3.texture.image.ColorSpace;
+import com.jme3.util.BufferUtils;
+import java.nio.ByteBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies the size accounting and eviction of {@link MemoryBudgetAssetCache}.
+ */
+public class MemoryBudgetAssetCacheTest {
+
+    private static final int KB = 1024;
+
+    private static ByteBuffer direct(int bytes) {
+        return BufferUtils.createByteBuffer(bytes);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        MemoryBudgetAssetCache cache = new MemoryBudgetAssetCache(Long.MAX_VALUE, 3 * KB);
+        AssetKey<ByteBuffer> a = new AssetKey<>("a");
+        AssetKey<ByteBuffer> b = new AssetKey<>("b");
+        AssetKey<ByteBuffer> c = new AssetKey<>("c");
+
+        cache.addToCache(a, direct(KB));
+        cache.addToCache(b, direct(KB));
+        cache.addToCache(c, direct(KB));
+        Assert.assertEquals(3 * KB, cache.getNativeBytes());
+
+        // Touch "a" so that "b" becomes the least recently used
+        Assert.assertNotNull(cache.getFromCache(a));
+        cache.addToCache(new AssetKey<>("d"), direct(KB));
+
+        Assert.assertNull(cache.getFromCache(b));
+        Assert.assertNotNull(cache.getFromCache(a));
+        Assert.assertNotNull(cache.getFromCache(c));
+        Assert.assertEquals(3, cache.getAssetCount());
+        Assert.assertEquals(3 * KB, cache.getNativeBytes());
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertEquals(3, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testLeastFrequentlyUsedIsEvicted() {
+        MemoryBudgetAssetCache cache = new MemoryBudgetAssetCache(Long.MAX_VALUE, 2 * KB);
+        cache.setEvictionPolicy(MemoryBudgetAssetCache.EvictionPolicy.LeastFrequentlyUsed);
+        AssetKey<ByteBuffer> a = new AssetKey<>("a");
+        AssetKey<ByteBuffer> b = new AssetKey<>("b");
+
+        cache.addToCache(a, direct(KB));
+        cache.addToCache(b, direct(KB));
+        cache.getFromCache(a);
+        cache.getFromCache(a);
+        cache.getFromCache(b);
+        cache.addToCache(new AssetKey<>("c"), direct(KB));
+
+        // "b" was used once after "a", but less often
+        Assert.assertNotNull(cache.getFromCache(a));
+        Assert.assertNull(cache.getFromCache(b));
+    }
+
+    @Test
+    public void testPinnedAssetsAreKept() {
+        MemoryBudgetAssetCache cache = new MemoryBudgetAssetCache(Long.MAX_VALUE, KB);
+        AssetKey<ByteBuffer> a = new AssetKey<>("a");
+        AssetKey<ByteBuffer> b = new AssetKey<>("b");
+        cache.pin(a);
+
+        cache.addToCache(a, direct(KB));
+        cache.addToCache(b, direct(KB));
+
+        Assert.assertNotNull(cache.getFromCache(a));
+        Assert.assertNull(cache.getFromCache(b));
+
+        // Over budget with only pinned assets, unpinning evicts right away
+        cache.setBudget(Long.MAX_VALUE, 0);
+        Assert.assertNotNull(cache.getFromCache(a));
+        cache.unpin(a);
+        Assert.assertNull(cache.getFromCache(a));
+        Assert.assertEquals(0, cache.getNativeBytes());
+    }
+
+    @Test
+    public void testTextureSizeIsEstimated() {
+        MemoryBudgetAssetCache cache = new MemoryBudgetAssetCache();
+        Image image = new Image(Image.Format.RGBA8, 16, 16, direct(16 * 16 * 4), ColorSpace.sRGB);
+        Texture2D texture = new Texture2D(image);
+        AssetKey<Texture2D> key = new AssetKey<>("texture");
+
+        cache.addToCache(key, texture);
+        Assert.assertEquals(16 * 16 * 4, cache.getNativeBytes());
+        Assert.assertTrue(cache.getHeapBytes() > 0);
+
+        // The same image shared by a second texture is counted again,
+        // since each asset is measured on its own
+        cache.addToCache(new AssetKey<>("other"), new Texture2D(image));
+        Assert.assertEquals(2 * 16 * 16 * 4, cache.getNativeBytes());
+
+        Assert.assertTrue(cache.deleteFromCache(key));
+        Assert.assertEquals(16 * 16 * 4, cache.getNativeBytes());
+        cache.clearCache();
+        Assert.assertEquals(0, cache.getNativeBytes());
+        Assert.assertEquals(0, cache.getHeapBytes());
+    }
+
+    @Test
+    public void testReplacesAssetManagerCache() {
+        DesktopAssetManager assetManager = new DesktopAssetManager();
+        assetManager.registerLocator("/", ClasspathLocator.class);
+        assetManager.registerLoader(TextLoader.class, "fnt");
+        MemoryBudgetAssetCache cache = new MemoryBudgetAssetCache(Long.MAX_VALUE, Long.MAX_VALUE);
+        assetManager.setCache(SimpleAssetCache.class, cache);
+
+        Object font = assetManager.loadAsset("Interface/Fonts/Console.fnt");
+
+        Assert.assertSame(cache, assetManager.getCache(SimpleAssetCache.class));
+        Assert.assertEquals(1, cache.getAssetCount());
+        Assert.assertSame(font, assetManager.loadAsset("Interface/Fonts/Console.fnt"));
+        Assert.assertEquals(1, cache.getHitCount());
+
+        // Shrinking the budget evicts the text
+        cache.setBudget(0, Long.MAX_VALUE);
+        Assert.assertEquals(0, cache.getAssetCount());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.asset.plugins;
+
+import com.jme3.asset.AssetInfo;
+import com.jme3.asset.AssetKey;
+import com.jme3.asset.AssetLoadException;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.asset.TextLoader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import jme3tools.pack.AssetPacker;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Packs a directory with {@link AssetPacker} and reads it back through
+ * {@link PackLocator}.
+ */
+public class PackLocatorTest {
+
+    private File assets;
+    private File pack;
+    private DesktopAssetManager assetManager;
+
+    @Before
+    public void setUp() throws IOException {
+        assets = Files.createTempDirectory("assets").toFile();
+        pack = File.createTempFile("assets", ".jpk");
+        write("Textures/readme.txt", "packed text");
+        write("Models/Deep/Nested/model.txt", "nested");
+        write("empty.txt", "");
+        for (int i = 0; i < 500; i++) {
+            write("Many/asset" + i + ".txt", "asset " + i);
+        }
+        Assert.assertEquals(503, AssetPacker.pack(assets, pack));
+
+        assetManager = new DesktopAssetManager();
+        assetManager.registerLocator(pack.getPath(), PackLocator.class);
+        assetManager.registerLoader(TextLoader.class, "txt");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(assets.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+        pack.delete();
+    }
+
+    private void write(String path, String content) throws IOException {
+        File file = new File(assets, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testLoadsPackedAssets() {
+        Assert.assertEquals("packed text\n", assetManager.loadAsset("Textures/readme.txt"));
+        Assert.assertEquals("nested\n", assetManager.loadAsset("/Models/Deep/Nested/model.txt"));
+        Assert.assertEquals("", assetManager.loadAsset("empty.txt"));
+        for (int i = 0; i < 500; i++) {
+            Assert.assertEquals("asset " + i + "\n", assetManager.loadAsset("Many/asset" + i + ".txt"));
+        }
+    }
+
+    @Test
+    public void testMissingAssetIsNotLocated() {
+        Assert.assertNull(assetManager.locateAsset(new AssetKey<>("Textures/missing.txt")));
+        Assert.assertNull(assetManager.locateAsset(new AssetKey<>("Textures")));
+    }
+
+    @Test
+    public void testBufferViewsTheMappedFile() throws IOException {
+        AssetInfo info = assetManager.locateAsset(new AssetKey<>("Many/asset42.txt"));
+        Assert.assertTrue(info instanceof PackLocator.PackAssetInfo);
+
+        ByteBuffer data = ((PackLocator.PackAssetInfo) info).getBuffer();
+        Assert.assertTrue(data.isDirect());
+        Assert.assertTrue(data.isReadOnly());
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        Assert.assertEquals("asset 42", new String(bytes, StandardCharsets.UTF_8));
+        // Each call gets its own view
+        Assert.assertEquals(bytes.length, ((PackLocator.PackAssetInfo) info).getBuffer().remaining());
+    }
+
+    @Test
+    public void testRebuiltPackReplacesTheMapping() throws IOException {
+        PackLocator locator = new PackLocator();
+        locator.setRootPath(pack.getPath());
+        int mapped = PackLocator.getMappedPackCount();
+        ByteBuffer old = ((PackLocator.PackAssetInfo) locator.locate(assetManager,
+                new AssetKey<>("Textures/readme.txt"))).getBuffer();
+
+        write("Textures/readme.txt", "rebuilt text");
+        AssetPacker.pack(assets, pack);
+        // make sure the rebuild is noticed even on coarse timestamps
+        Assert.assertTrue(pack.setLastModified(pack.lastModified() + 2000));
+
+        locator = new PackLocator();
+        locator.setRootPath(pack.getPath());
+        Assert.assertEquals(mapped, PackLocator.getMappedPackCount());
+        ByteBuffer data = ((PackLocator.PackAssetInfo) locator.locate(assetManager,
+                new AssetKey<>("Textures/readme.txt"))).getBuffer();
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        Assert.assertEquals("rebuilt text", new String(bytes, StandardCharsets.UTF_8));
+
+        // the old pack was replaced, not rewritten under its mapping
+        bytes = new byte[old.remaining()];
+        old.get(bytes);
+        Assert.assertEquals("packed text", new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEntryOutsideThePackIsRejected() throws IOException {
+        byte[] bytes = Files.readAllBytes(pack.toPath());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int count = buffer.getInt(8);
+        for (int i = 0; i < count; i++) {
+            // data length of every entry
+            buffer.putLong(PackLocator.HEADER_SIZE + i * PackLocator.INDEX_ENTRY_SIZE + 24, Long.MAX_VALUE);
+        }
+        File corrupt = File.createTempFile("corrupt", ".jpk");
+        try {
+            Files.write(corrupt.toPath(), bytes);
+            PackLocator locator = new PackLocator();
+            locator.setRootPath(corrupt.getPath());
+            try {
+                locator.locate(assetManager, new AssetKey<>("Textures/readme.txt"));
+                Assert.fail("Expected an AssetLoadException");
+            } catch (AssetLoadException ex) {
+                Assert.assertTrue(ex.getCause() instanceof IOException);
+            }
+        } finally {
+            corrupt.delete();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.export.binary;
+
+import com.jme3.asset.AssetInfo;
+import com.jme3.asset.ModelKey;
+import com.jme3.asset.plugins.PackLocator;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.VertexBuffer.Type;
+import com.jme3.scene.shape.Box;
+import com.jme3.util.BufferUtils;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies loading J3O data from buffers, in place or by copy.
+ */
+public class BinaryImporterBufferTest {
+
+    private Mesh mesh;
+    private byte[] j3o;
+
+    @Before
+    public void setUp() throws IOException {
+        mesh = new Box(1, 2, 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BinaryExporter().save(mesh, out);
+        j3o = out.toByteArray();
+    }
+
+    private static ByteBuffer direct(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+
+    private void assertSameMesh(Mesh loaded) {
+        Assert.assertEquals(mesh.getVertexCount(), loaded.getVertexCount());
+        Assert.assertEquals(mesh.getTriangleCount(), loaded.getTriangleCount());
+        for (Type type : new Type[]{Type.Position, Type.Normal, Type.TexCoord, Type.Index}) {
+            Assert.assertEquals(type.name(), mesh.getBuffer(type).getData().rewind(),
+                    loaded.getBuffer(type).getData().rewind());
+        }
+    }
+
+    private static float firstPositionX(Mesh loaded) {
+        return ((FloatBuffer) loaded.getBuffer(Type.Position).getData()).get(0);
+    }
+
+    @Test
+    public void testLoadsFromArrayAndStream() throws IOException {
+        assertSameMesh((Mesh) new BinaryImporter().load(j3o));
+        assertSameMesh((Mesh) new BinaryImporter().load(new ByteArrayInputStream(j3o)));
+    }
+
+    @Test
+    public void testDirectBufferIsSliced() throws IOException {
+        Assume.assumeTrue(BinaryImporter.canUseFastBuffers());
+        ByteBuffer source = direct(j3o);
+        Mesh loaded = (Mesh) new BinaryImporter().load(source);
+        assertSameMesh(loaded);
+        Assert.assertEquals(0, source.position());
+
+        // The position data is a view of the source
+        for (int i = 0; i < source.limit(); i++) {
+            source.put(i, (byte) 0);
+        }
+        Assert.assertEquals(0f, firstPositionX(loaded), 0f);
+    }
+
+    @Test
+    public void testReadOnlyBufferIsCopied() throws IOException {
+        ByteBuffer source = direct(j3o).asReadOnlyBuffer();
+        Mesh loaded = (Mesh) new BinaryImporter().load(source);
+        assertSameMesh(loaded);
+
+        FloatBuffer positions = (FloatBuffer) loaded.getBuffer(Type.Position).getData();
+        Assert.assertTrue(positions.isDirect());
+        Assert.assertFalse(positions.isReadOnly());
+    }
+
+    @Test
+    public void testLoadsMappedFile() throws IOException {
+        File file = File.createTempFile("mesh", ".j3o");
+        try {
+            Files.write(file.toPath(), j3o);
+            Mesh loaded = (Mesh) new BinaryImporter().loadMapped(file);
+            assertSameMesh(loaded);
+
+            // The private mapping can be modified without touching the file
+            FloatBuffer positions = (FloatBuffer) loaded.getBuffer(Type.Position).getData();
+            positions.put(0, 42f);
+            Assert.assertArrayEquals(j3o, Files.readAllBytes(file.toPath()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testDestroyingSlicedBufferKeepsMapping() throws IOException {
+        Assume.assumeTrue(BinaryImporter.canUseFastBuffers());
+        Node scene = new Node("scene");
+        scene.attachChild(new Geometry("first", new Box(1, 1, 1)));
+        scene.attachChild(new Geometry("second", mesh));
+        File file = File.createTempFile("scene", ".j3o");
+        try {
+            new BinaryExporter().save(scene, file);
+            Node loaded = (Node) new BinaryImporter().loadMapped(file);
+            Mesh first = ((Geometry) loaded.getChild("first")).getMesh();
+            Mesh second = ((Geometry) loaded.getChild("second")).getMesh();
+            Assert.assertTrue(BufferUtils.isBorrowed(first.getBuffer(Type.Position).getData()));
+
+            // What VertexBuffer.deleteNativeBuffers() does on dispose
+            for (Type type : Type.values()) {
+                if (first.getBuffer(type) != null) {
+                    BufferUtils.destroyDirectBuffer(first.getBuffer(type).getData());
+                }
+            }
+            assertSameMesh(second);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLoadsPackedAsset() {
+        ByteBuffer mapped = direct(j3o).asReadOnlyBuffer();
+        AssetInfo info = new PackLocator.PackAssetInfo(null, new ModelKey("mesh.j3o"), mapped);
+
+        assertSameMesh((Mesh) new BinaryImporter().load(info));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedDataFails() throws IOException {
+        ByteBuffer source = ByteBuffer.wrap(j3o, 0, 10);
+        new BinaryImporter().load(source);
+    }
+}
@@ -62,6 +62,41 @@ public class LightSortTest {
         assert list.get(3) instanceof PointLight;       // ... and point is 1 unit away.
     }
     
+    @Test
+    public void testSharedLightsKeepDistancesPerList() {
+        PointLight left = new PointLight(new Vector3f(-10, 0, 0));
+        PointLight right = new PointLight(new Vector3f(10, 0, 0));
+        Geometry a = new Geometry("a", new Mesh());
+        a.setLocalTranslation(-9, 0, 0);
+        a.updateGeometricState();
+        Geometry b = new Geometry("b", new Mesh());
+        b.setLocalTranslation(9, 0, 0);
+        b.updateGeometricState();
+
+        LightList listA = new LightList(a);
+        listA.add(right);
+        listA.add(left);
+        LightList listB = new LightList(b);
+        listB.add(left);
+        listB.add(right);
+
+        listA.sort(true);
+        listB.sort(true);
+        // sorting b must not disturb the distances a sorts by
+        listA.sort(false);
+
+        assert listA.get(0) == left;
+        assert listB.get(0) == right;
+
+        // distances follow their light when one is removed
+        PointLight near = new PointLight(new Vector3f(-9, 0, 0));
+        listA.add(near);
+        listA.remove(left);
+        listA.sort(false);
+        assert listA.get(0) == near;
+        assert listA.get(1) == right;
+    }
+
     @Test
     public void testSceneGraphSort() {
         Node n = new Node("node");
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.material;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.light.LightList;
+import com.jme3.math.ColorRGBA;
+import com.jme3.renderer.Caps;
+import com.jme3.renderer.RenderManager;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import com.jme3.shader.Shader;
+import com.jme3.shader.ShaderBufferBlock;
+import com.jme3.shader.UniformBindingManager;
+import com.jme3.shader.VarType;
+import com.jme3.shader.bufferobject.BufferObject;
+import com.jme3.shader.bufferobject.BufferRegion;
+import com.jme3.shader.bufferobject.DirtyRegionsIterator;
+import com.jme3.system.NullRenderer;
+import com.jme3.system.TestUtil;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Verifies that material parameters declared in a <code>ParameterBlock</code>
+ * are packed into a std140 uniform buffer instead of individual uniforms.
+ */
+public class MatParamBlockTest {
+
+    private Shader usedShader;
+    private BufferObject boundBuffer;
+    private int boundUnit = -1;
+    private final NullRenderer renderer = new NullRenderer() {
+        @Override
+        public void setShader(Shader shader) {
+            usedShader = shader;
+        }
+
+        @Override
+        public void setUniformBufferObject(int bindingPoint, BufferObject bufferObject) {
+            boundUnit = bindingPoint;
+            boundBuffer = bufferObject;
+        }
+    };
+    private final RenderManager renderManager = TestUtil.createRenderManager(renderer);
+    private final Geometry geometry = new Geometry("Geometry", new Box(1, 1, 1));
+    private final LightList lightList = new LightList(geometry);
+
+    private Material createMaterial() {
+        return createMaterial("param-block.j3md");
+    }
+
+    private Material createMaterial(String matDef) {
+        AssetManager assetManager = TestUtil.createAssetManager();
+        Material material = new Material(assetManager, matDef);
+        geometry.setMaterial(material);
+        Node root = new Node("Root Node");
+        root.attachChild(geometry);
+        root.updateGeometricState();
+        return material;
+    }
+
+    private void render(Material material) {
+        material.render(geometry, lightList, renderManager);
+    }
+
+    /**
+     * Simulates the renderer uploading the dirty regions of the buffer.
+     */
+    private static void upload(BufferObject bufferObject) {
+        DirtyRegionsIterator it = bufferObject.getDirtyRegions();
+        BufferRegion region;
+        while (it.hasNext() && (region = it.next()) != null) {
+            region.clearDirty();
+        }
+        bufferObject.clearUpdateNeeded();
+    }
+
+    private static int countDirtyRegions(BufferObject bufferObject) {
+        int count = 0;
+        DirtyRegionsIterator it = bufferObject.getDirtyRegions();
+        while (it.hasNext() && it.next() != null) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testParamsArePackedIntoBlock() {
+        Material material = createMaterial();
+        material.setColor("Color", new ColorRGBA(0.1f, 0.2f, 0.3f, 0.4f));
+        render(material);
+
+        assertNotNull(boundBuffer);
+        // the shader uses no frame or object block, no unit is reserved
+        assertEquals(0, boundUnit);
+        ShaderBufferBlock block = usedShader.getBufferBlockMap().get("m_Params");
+        assertNotNull(block);
+        assertSame(boundBuffer, block.getBufferObject());
+        assertEquals(ShaderBufferBlock.BufferType.UniformBufferObject, block.getType());
+        assertNull(usedShader.getUniformMap().get("m_Color"));
+        assertNull(usedShader.getUniformMap().get("m_Shininess"));
+
+        // std140: vec4 at 0, float at 16, vec3 at 32
+        ByteBuffer data = boundBuffer.getData();
+        assertEquals(48, data.limit());
+        assertEquals(0.1f, data.getFloat(0), 0f);
+        assertEquals(0.4f, data.getFloat(12), 0f);
+        assertEquals(1f, data.getFloat(16), 0f);
+        assertEquals(0f, data.getFloat(32), 0f);
+    }
+
+    @Test
+    public void testUnitsAreReservedForFrameBlock() {
+        Material material = createMaterial("param-block-frame.j3md");
+        render(material);
+
+        assertEquals(UniformBindingManager.RESERVED_BUFFER_UNITS, boundUnit);
+        assertSame(boundBuffer, usedShader.getBufferBlockMap().get("m_Params").getBufferObject());
+    }
+
+    @Test
+    public void testOnlyChangedParamsAreUploaded() {
+        Material material = createMaterial();
+        render(material);
+        BufferObject bufferObject = boundBuffer;
+        upload(bufferObject);
+
+        render(material);
+        assertFalse(bufferObject.isUpdateNeeded());
+        assertEquals(0, countDirtyRegions(bufferObject));
+
+        material.setFloat("Shininess", 8f);
+        render(material);
+        assertTrue(bufferObject.isUpdateNeeded());
+        assertEquals(1, countDirtyRegions(bufferObject));
+        BufferRegion region = bufferObject.getRegion(1);
+        assertTrue(region.isDirty());
+        assertEquals(8f, bufferObject.getData().getFloat(16), 0f);
+    }
+
+    @Test
+    public void testClearedParamIsZeroed() {
+        Material material = createMaterial();
+        material.setColor("Color", ColorRGBA.Red);
+        render(material);
+        upload(boundBuffer);
+
+        material.clearParam("Color");
+        render(material);
+        assertEquals(1, countDirtyRegions(boundBuffer));
+        assertEquals(0f, boundBuffer.getData().getFloat(0), 0f);
+    }
+
+    @Test
+    public void testOverridesAreFoldedIntoBlock() {
+        Material material = createMaterial();
+        material.setFloat("Shininess", 2f);
+        MatParamOverride worldOverride = new MatParamOverride(VarType.Float, "Shininess", 4f);
+        geometry.addMatParamOverride(worldOverride);
+        geometry.getParent().updateGeometricState();
+        render(material);
+        assertNull(usedShader.getUniformMap().get("m_Shininess"));
+        assertEquals(4f, boundBuffer.getData().getFloat(16), 0f);
+
+        MatParamOverride forcedOverride = new MatParamOverride(VarType.Float, "Shininess", 8f);
+        renderManager.addForcedMatParam(forcedOverride);
+        render(material);
+        assertEquals(8f, boundBuffer.getData().getFloat(16), 0f);
+
+        forcedOverride.setEnabled(false);
+        render(material);
+        assertEquals(4f, boundBuffer.getData().getFloat(16), 0f);
+
+        worldOverride.setValue(null);
+        render(material);
+        assertEquals(0f, boundBuffer.getData().getFloat(16), 0f);
+
+        geometry.clearMatParamOverrides();
+        geometry.getParent().updateGeometricState();
+        render(material);
+        assertEquals(2f, boundBuffer.getData().getFloat(16), 0f);
+    }
+
+    @Test
+    public void testFallbackToUniformsWithoutUboSupport() {
+        renderer.getCaps().remove(Caps.UniformBufferObject);
+        Material material = createMaterial();
+        material.setColor("Color", ColorRGBA.Red);
+        render(material);
+
+        assertNull(boundBuffer);
+        assertTrue(usedShader.getBufferBlockMap().isEmpty());
+        assertEquals(ColorRGBA.Red, usedShader.getUniformMap().get("m_Color").getValue());
+        assertEquals(1f, usedShader.getUniformMap().get("m_Shininess").getValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTextureParamIsRejected() {
+        MaterialDef def = new MaterialDef(TestUtil.createAssetManager(), "Test");
+        def.addMaterialParam(VarType.Texture2D, "ColorMap", null);
+        def.setParamBlock("Params", Collections.singletonList("ColorMap"));
+    }
+}
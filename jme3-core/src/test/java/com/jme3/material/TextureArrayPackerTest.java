@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.material;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.light.LightList;
+import com.jme3.renderer.RenderManager;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.shape.Box;
+import com.jme3.shader.Shader;
+import com.jme3.system.NullRenderer;
+import com.jme3.system.TestUtil;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import com.jme3.texture.Texture2D;
+import com.jme3.texture.TextureArray;
+import com.jme3.texture.image.ColorSpace;
+import com.jme3.util.BufferUtils;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Verifies that {@link TextureArrayPacker} packs compatible material
+ * textures into shared texture array pages.
+ */
+public class TextureArrayPackerTest {
+
+    private final AssetManager assetManager = TestUtil.createAssetManager();
+
+    private static Texture2D createTexture(int size) {
+        Image image = new Image(Image.Format.RGBA8, size, size,
+                BufferUtils.createByteBuffer(size * size * 4), ColorSpace.sRGB);
+        return new Texture2D(image);
+    }
+
+    private Material createMaterial(Texture2D colorMap) {
+        Material material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        material.setTexture("ColorMap", colorMap);
+        return material;
+    }
+
+    @Test
+    public void testMaterialsShareAPage() {
+        TextureArrayPacker packer = new TextureArrayPacker();
+        Material first = createMaterial(createTexture(4));
+        Material second = createMaterial(createTexture(4));
+        assertTrue(packer.apply(first));
+        assertTrue(packer.apply(second));
+
+        assertNull(first.getParam("ColorMap"));
+        TextureArray page = (TextureArray) first.getParamValue("ColorMapArray");
+        assertSame(page, second.getParamValue("ColorMapArray"));
+        assertEquals(0, (int) first.getParamValue("ColorMapLayer"));
+        assertEquals(1, (int) second.getParamValue("ColorMapLayer"));
+        assertEquals(2, page.getImage().getData().size());
+        assertEquals(1, packer.getPages().size());
+
+        // nothing left to pack
+        assertFalse(packer.apply(first));
+    }
+
+    @Test
+    public void testSameTextureIsPackedOnce() {
+        TextureArrayPacker packer = new TextureArrayPacker();
+        Texture2D texture = createTexture(4);
+        packer.apply(createMaterial(texture));
+        Material material = createMaterial(texture);
+        packer.apply(material);
+        assertEquals(0, (int) material.getParamValue("ColorMapLayer"));
+        assertEquals(1, packer.getPages().get(0).getImage().getData().size());
+    }
+
+    @Test
+    public void testSameImageWithOtherSamplerIsPackedAgain() {
+        TextureArrayPacker packer = new TextureArrayPacker();
+        Texture2D texture = createTexture(4);
+        Texture2D nearest = new Texture2D(texture.getImage());
+        nearest.setMagFilter(Texture.MagFilter.Nearest);
+        TextureArrayPacker.Layer a = packer.pack(texture);
+        TextureArrayPacker.Layer b = packer.pack(nearest);
+        assertNotSame(a.getPage(), b.getPage());
+        assertEquals(Texture.MagFilter.Nearest, b.getPage().getMagFilter());
+        assertSame(a, packer.pack(texture));
+        assertSame(b, packer.pack(nearest));
+    }
+
+    @Test
+    public void testIncompatibleTexturesUseSeparatePages() {
+        TextureArrayPacker packer = new TextureArrayPacker(2);
+        TextureArrayPacker.Layer a = packer.pack(createTexture(4));
+        TextureArrayPacker.Layer b = packer.pack(createTexture(8));
+        assertNotSame(a.getPage(), b.getPage());
+
+        Texture2D nearest = createTexture(4);
+        nearest.setMagFilter(Texture.MagFilter.Nearest);
+        assertNotSame(a.getPage(), packer.pack(nearest).getPage());
+
+        // the first page is full after its second layer
+        assertSame(a.getPage(), packer.pack(createTexture(4)).getPage());
+        TextureArrayPacker.Layer d = packer.pack(createTexture(4));
+        assertNotSame(a.getPage(), d.getPage());
+        assertEquals(0, d.getIndex());
+        assertEquals(4, packer.getPages().size());
+    }
+
+    @Test
+    public void testShaderSamplesTheArray() {
+        final Shader[] used = new Shader[1];
+        NullRenderer renderer = new NullRenderer() {
+            @Override
+            public void setShader(Shader shader) {
+                used[0] = shader;
+            }
+        };
+        RenderManager renderManager = TestUtil.createRenderManager(renderer);
+        Geometry geometry = new Geometry("Geometry", new Box(1, 1, 1));
+        Material material = createMaterial(createTexture(4));
+        new TextureArrayPacker().apply(material);
+        geometry.setMaterial(material);
+        geometry.updateGeometricState();
+
+        material.render(geometry, new LightList(geometry), renderManager);
+        String defines = used[0].getSources().iterator().next().getDefines();
+        assertTrue(defines.contains("HAS_COLORMAP_ARRAY"));
+        assertFalse(defines.contains("HAS_COLORMAP "));
+
+        // alpha tested shadows sample the array as well
+        material.setFloat("AlphaDiscardThreshold", 0.5f);
+        for (String technique : new String[]{"PreShadow", "PostShadow"}) {
+            material.selectTechnique(technique, renderManager);
+            material.render(geometry, new LightList(geometry), renderManager);
+            defines = used[0].getSources().iterator().next().getDefines();
+            assertTrue(technique, defines.contains("COLOR_MAP_ARRAY"));
+            assertFalse(technique, defines.contains("COLOR_MAP "));
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.profile;
+
+import com.jme3.app.SimpleApplication;
+import com.jme3.app.state.AppState;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.font.BitmapFont;
+import com.jme3.light.DirectionalLight;
+import com.jme3.light.PointLight;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.control.AbstractControl;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Quad;
+import com.jme3.system.AppSettings;
+import com.jme3.system.NullContext;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Runs a reference scene headlessly and verifies that the frame loop does not
+ * allocate once it has warmed up.
+ */
+public class AllocationProfilerTest {
+
+    private static final int WARMUP_FRAMES = 300;
+    private static final int MEASURED_FRAMES = 300;
+    /**
+     * Average bytes allowed per frame, leaving some slack for JIT and
+     * counter noise.
+     */
+    private static final long MAX_BYTES_PER_FRAME = 64;
+
+    @Test
+    public void testSteadyStateFrameAllocations() throws InterruptedException {
+        AllocationProfiler profiler = new AllocationProfiler();
+        Assume.assumeTrue(profiler.isSupported());
+
+        ReferenceApp app = new ReferenceApp(profiler);
+        app.runHeadless();
+
+        Assert.assertNull("Application failed", app.error);
+        Assert.assertEquals(MEASURED_FRAMES, app.measuredFrames);
+        Assert.assertTrue("Frame loop allocates: " + app.report,
+                app.bytesPerFrame <= MAX_BYTES_PER_FRAME);
+    }
+
+    /**
+     * A small scene that exercises controls, lighting, culling, sorting and
+     * camera movement.
+     */
+    private static class ReferenceApp extends SimpleApplication {
+
+        private final AllocationProfiler profiler;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final Vector3f camLocation = new Vector3f();
+        private volatile Throwable error;
+        private int frame;
+        private float angle;
+        private long measuredFrames;
+        private long bytesPerFrame;
+        private String report;
+
+        ReferenceApp(AllocationProfiler profiler) {
+            super(new AppState[0]);
+            this.profiler = profiler;
+        }
+
+        void runHeadless() throws InterruptedException {
+            AppSettings appSettings = new AppSettings(true);
+            appSettings.setAudioRenderer(null);
+            appSettings.setFrameRate(2000);
+            setSettings(appSettings);
+            setAssetManager(new DesktopAssetManager(true));
+
+            NullContext nullContext = new NullContext();
+            nullContext.setSettings(appSettings);
+            nullContext.setSystemListener(this);
+            context = nullContext;
+            nullContext.create(false);
+
+            boolean finished = done.await(60, TimeUnit.SECONDS);
+            // The loop is gone already if it failed.
+            stop(finished && error == null);
+            Assert.assertTrue("Timed out", finished);
+        }
+
+        @Override
+        protected BitmapFont loadGuiFont() {
+            // Nothing displays text, and fonts need an image loader.
+            return null;
+        }
+
+        @Override
+        public void simpleInitApp() {
+            setAppProfiler(profiler);
+
+            Material unshaded = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+            unshaded.setColor("Color", ColorRGBA.Blue);
+            Material lit = new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md");
+
+            Box box = new Box(0.4f, 0.4f, 0.4f);
+            for (int x = -5; x < 5; x++) {
+                Node row = new Node("row" + x);
+                for (int z = -5; z < 5; z++) {
+                    Geometry geometry = new Geometry("box", box);
+                    geometry.setMaterial((x + z) % 2 == 0 ? unshaded : lit);
+                    geometry.setLocalTranslation(x, 0, z);
+                    geometry.addControl(new SpinControl());
+                    row.attachChild(geometry);
+                }
+                rootNode.attachChild(row);
+            }
+            rootNode.addLight(new DirectionalLight(new Vector3f(-1, -1, -1).normalizeLocal()));
+            PointLight light = new PointLight(new Vector3f(0, 2, 0), 4f);
+            rootNode.addLight(light);
+
+            Geometry overlay = new Geometry("overlay", new Quad(10, 10));
+            overlay.setMaterial(unshaded);
+            guiNode.attachChild(overlay);
+        }
+
+        @Override
+        public void simpleUpdate(float tpf) {
+            angle += 0.01f;
+            camLocation.set(FastMath.cos(angle) * 10f, 5f, FastMath.sin(angle) * 10f);
+            cam.setLocation(camLocation);
+            cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        }
+
+        @Override
+        public void update() {
+            super.update();
+            frame++;
+            if (frame == WARMUP_FRAMES) {
+                profiler.reset();
+            } else if (frame == WARMUP_FRAMES + MEASURED_FRAMES) {
+                measuredFrames = profiler.getFrameCount();
+                bytesPerFrame = profiler.getAverageFrameBytes();
+                report = profiler.toString();
+                done.countDown();
+            }
+        }
+
+        @Override
+        public void handleError(String errMsg, Throwable t) {
+            error = t == null ? new RuntimeException(errMsg) : t;
+            done.countDown();
+            super.handleError(errMsg, t);
+        }
+    }
+
+    private static class SpinControl extends AbstractControl {
+
+        @Override
+        protected void controlUpdate(float tpf) {
+            spatial.rotate(0f, tpf, 0f);
+        }
+
+        @Override
+        protected void controlRender(RenderManager rm, ViewPort vp) {
+        }
+    }
+}
@@ -0,0 +1,550 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.light.DirectionalLight;
+import com.jme3.light.PointLight;
+import com.jme3.material.Material;
+import com.jme3.material.RenderState.BlendMode;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.opengl.GL;
+import com.jme3.renderer.opengl.GL2;
+import com.jme3.renderer.opengl.GLExt;
+import com.jme3.renderer.opengl.GLFbo;
+import com.jme3.renderer.opengl.GLRenderer;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.TestUtil;
+import com.jme3.system.Timer;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture2D;
+import com.jme3.texture.image.ColorSpace;
+import com.jme3.util.BufferUtils;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that recording frames with a {@link RecordingRenderer} and
+ * replaying the {@link CommandBuffer} issues the same GL calls, with the same
+ * uniform values, as rendering directly with a {@link GLRenderer}.
+ */
+public class CommandBufferTest {
+
+    private static final int FRAMES = 6;
+
+    /**
+     * A GL implementation that answers queries with plausible values and
+     * traces every call made after the renderer is initialized.
+     */
+    private static final class TracingGL implements InvocationHandler {
+
+        private final List<String> calls = new ArrayList<>();
+        private final Map<String, Map<String, Integer>> locations = new HashMap<>();
+        private int nextName = 1;
+        private boolean tracing;
+
+        GLRenderer createRenderer() {
+            Object gl = Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{GL2.class, GLExt.class, GLFbo.class}, this);
+            GLRenderer renderer = new GLRenderer((GL) gl, (GLExt) gl, (GLFbo) gl);
+            renderer.initialize();
+            tracing = true;
+            return renderer;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if (tracing) {
+                calls.add(describe(name, args));
+            }
+            switch (name) {
+                case "glGetString":
+                    int pname = (Integer) args[0];
+                    if (pname == GL.GL_VERSION) {
+                        return "2.1";
+                    } else if (pname == GL.GL_SHADING_LANGUAGE_VERSION) {
+                        return "1.20";
+                    }
+                    return "";
+                case "glGetInteger":
+                    ((IntBuffer) args[1]).put(0, (Integer) args[0] == GL.GL_FRAMEBUFFER_BINDING ? 0 : 16);
+                    return null;
+                case "glGetFloat":
+                    ((FloatBuffer) args[1]).put(0, 1f);
+                    return null;
+                case "glGetShader":
+                case "glGetProgram":
+                    ((IntBuffer) args[2]).put(0, (Integer) args[1] == GL.GL_INFO_LOG_LENGTH ? 0 : 1);
+                    return null;
+                case "glCreateShader":
+                case "glCreateProgram":
+                    return nextName++;
+                case "glGetUniformLocation":
+                case "glGetAttribLocation":
+                    // locations are numbered per program and kind of variable
+                    String program = name + " " + args[0];
+                    Map<String, Integer> variables = locations.get(program);
+                    if (variables == null) {
+                        variables = new HashMap<>();
+                        locations.put(program, variables);
+                    }
+                    Integer location = variables.get((String) args[1]);
+                    if (location == null) {
+                        location = variables.size();
+                        variables.put((String) args[1], location);
+                    }
+                    return location;
+                case "glCheckFramebufferStatusEXT":
+                    return GLFbo.GL_FRAMEBUFFER_COMPLETE_EXT;
+                default:
+                    break;
+            }
+            if (name.startsWith("glGen") && args.length == 1 && args[0] instanceof IntBuffer) {
+                IntBuffer names = (IntBuffer) args[0];
+                for (int i = names.position(); i < names.limit(); i++) {
+                    names.put(i, nextName++);
+                }
+                return null;
+            }
+            Class<?> type = method.getReturnType();
+            if (type == int.class) {
+                return 0;
+            } else if (type == long.class) {
+                return 0L;
+            } else if (type == boolean.class) {
+                return false;
+            } else if (type == float.class) {
+                return 0f;
+            } else if (type == String.class) {
+                return "";
+            }
+            return null;
+        }
+
+        private static String describe(String name, Object[] args) {
+            StringBuilder sb = new StringBuilder(name).append('(');
+            if (args != null) {
+                for (int i = 0; i < args.length; i++) {
+                    if (i > 0) {
+                        sb.append(", ");
+                    }
+                    Object arg = args[i];
+                    if (arg instanceof FloatBuffer) {
+                        FloatBuffer buffer = (FloatBuffer) arg;
+                        sb.append('[');
+                        for (int j = buffer.position(); j < buffer.limit(); j++) {
+                            sb.append(buffer.get(j)).append(' ');
+                        }
+                        sb.append(']');
+                    } else if (arg instanceof IntBuffer) {
+                        IntBuffer buffer = (IntBuffer) arg;
+                        sb.append("ints ").append(buffer.remaining());
+                    } else if (arg instanceof ShortBuffer || arg instanceof ByteBuffer) {
+                        sb.append("buffer ").append(((java.nio.Buffer) arg).remaining());
+                    } else if (arg instanceof Object[]) {
+                        sb.append(Arrays.toString((Object[]) arg));
+                    } else {
+                        sb.append(arg);
+                    }
+                }
+            }
+            return sb.append(')').toString();
+        }
+    }
+
+    /**
+     * The materials of one test run, shared by all scenes of the run.
+     */
+    private static final class Materials {
+
+        final Material[] list;
+
+        Materials(AssetManager assetManager) {
+            Image image = new Image(Image.Format.RGBA8, 2, 2, BufferUtils.createByteBuffer(16), ColorSpace.Linear);
+            Material plain = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+            plain.setColor("Color", ColorRGBA.Blue);
+            Material textured = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+            textured.setTexture("ColorMap", new Texture2D(image));
+            Material lit = new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md");
+            lit.setBoolean("UseMaterialColors", true);
+            lit.setColor("Diffuse", ColorRGBA.Orange);
+            Material blended = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+            blended.setColor("Color", new ColorRGBA(1f, 0f, 0f, 0.5f));
+            blended.getAdditionalRenderState().setBlendMode(BlendMode.Alpha);
+            list = new Material[]{plain, textured, lit, blended};
+        }
+
+        /**
+         * Selects the techniques up front. Otherwise the sort order of the
+         * first frame depends on which thread selects them first.
+         */
+        void selectTechniques(RenderManager renderManager) {
+            for (Material material : list) {
+                material.selectTechnique("Default", renderManager);
+            }
+        }
+
+        void animate(int frame) {
+            list[0].setColor("Color", new ColorRGBA(frame / 10f, 0f, 1f, 1f));
+            list[2].setColor("Diffuse", new ColorRGBA(1f, frame / 10f, 0f, 1f));
+        }
+    }
+
+    private static void assertSameCalls(int frame, List<String> expected, List<String> actual) {
+        int count = Math.min(expected.size(), actual.size());
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals("Frame " + frame + ", call " + i, expected.get(i), actual.get(i));
+        }
+        Assert.assertEquals("Frame " + frame, expected.size(), actual.size());
+    }
+
+    private static RenderManager createRenderManager(Renderer renderer) {
+        RenderManager renderManager = TestUtil.createRenderManager(renderer);
+        renderManager.setTimer(new Timer() {
+            @Override
+            public long getTime() {
+                return 0L;
+            }
+
+            @Override
+            public long getResolution() {
+                return 1000L;
+            }
+
+            @Override
+            public float getFrameRate() {
+                return 60f;
+            }
+
+            @Override
+            public float getTimePerFrame() {
+                return 0.016f;
+            }
+
+            @Override
+            public void update() {
+            }
+
+            @Override
+            public void reset() {
+            }
+        });
+        return renderManager;
+    }
+
+    private static Node createScene(Materials materials, int count) {
+        Mesh mesh = new Box(0.5f, 0.5f, 0.5f);
+        Node root = new Node("root");
+        for (int i = 0; i < count; i++) {
+            Geometry geom = new Geometry("geom" + i, mesh);
+            Material material = materials.list[i % materials.list.length];
+            geom.setMaterial(material);
+            if (material == materials.list[3]) {
+                geom.setQueueBucket(Bucket.Transparent);
+            }
+            geom.setLocalTranslation((i % 8) * 2f - 7f, (i / 8) * 2f - 5f, 0f);
+            root.attachChild(geom);
+        }
+        root.addLight(new DirectionalLight(new Vector3f(-1f, -2f, -3f).normalizeLocal(), ColorRGBA.White));
+        root.addLight(new PointLight(new Vector3f(0f, 0f, 4f), ColorRGBA.Green, 20f));
+        return root;
+    }
+
+    private static void update(Node scene, int frame) {
+        for (int i = 0; i < scene.getQuantity(); i++) {
+            scene.getChild(i).setLocalRotation(scene.getChild(i).getLocalRotation()
+                    .fromAngles(frame * 0.1f, i * 0.05f, 0f));
+        }
+        scene.updateLogicalState(0.016f);
+        scene.updateGeometricState();
+    }
+
+    private static Camera createCamera(float angle) {
+        Camera cam = new Camera(640, 480);
+        cam.setFrustumPerspective(60f, 640f / 480f, 1f, 100f);
+        cam.setLocation(new Vector3f(FastMath.sin(angle) * 20f, 0f, FastMath.cos(angle) * 20f));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        return cam;
+    }
+
+    private static ViewPort createView(RenderManager renderManager, Node scene, float angle) {
+        ViewPort view = renderManager.createMainView("view" + angle, createCamera(angle));
+        view.setClearFlags(true, true, true);
+        view.setBackgroundColor(ColorRGBA.DarkGray);
+        view.attachScene(scene);
+        return view;
+    }
+
+    @Test
+    public void testReplayMatchesDirectRendering() {
+        TracingGL direct = new TracingGL();
+        Materials directMaterials = new Materials(TestUtil.createAssetManager());
+        Node directScene = createScene(directMaterials, 40);
+        RenderManager directManager = createRenderManager(direct.createRenderer());
+        createView(directManager, directScene, 0f);
+        createView(directManager, directScene, 0.5f);
+
+        TracingGL replayed = new TracingGL();
+        Materials replayedMaterials = new Materials(TestUtil.createAssetManager());
+        Node replayedScene = createScene(replayedMaterials, 40);
+        GLRenderer target = replayed.createRenderer();
+        CommandBuffer buffer = new CommandBuffer();
+        RenderManager recordingManager = createRenderManager(new RecordingRenderer(target, buffer));
+        createView(recordingManager, replayedScene, 0f);
+        createView(recordingManager, replayedScene, 0.5f);
+
+        for (int frame = 0; frame < FRAMES; frame++) {
+            directMaterials.animate(frame);
+            update(directScene, frame);
+            directManager.render(0.016f, true);
+
+            replayedMaterials.animate(frame);
+            update(replayedScene, frame);
+            int calls = replayed.calls.size();
+            buffer.reset();
+            recordingManager.render(0.016f, true);
+            Assert.assertTrue(buffer.size() > 0);
+            Assert.assertEquals("Recording issued GL calls", calls, replayed.calls.size());
+            buffer.replay(target);
+
+            assertSameCalls(frame, direct.calls, replayed.calls);
+        }
+
+        int draws = 0;
+        for (String call : direct.calls) {
+            if (call.startsWith("glDraw")) {
+                draws++;
+            }
+        }
+        Assert.assertTrue(draws >= FRAMES * 2 * 40);
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        TracingGL direct = new TracingGL();
+        Materials directMaterials = new Materials(TestUtil.createAssetManager());
+        Node[] directScenes = {createScene(directMaterials, 64), createScene(directMaterials, 64)};
+        RenderManager directManager = createRenderManager(direct.createRenderer());
+        for (int i = 0; i < directScenes.length; i++) {
+            createView(directManager, directScenes[i], i * 0.5f);
+        }
+        directMaterials.selectTechniques(directManager);
+
+        // One render manager per recording thread, materials shared by all.
+        TracingGL replayed = new TracingGL();
+        Materials replayedMaterials = new Materials(TestUtil.createAssetManager());
+        Node[] replayedScenes = {createScene(replayedMaterials, 64), createScene(replayedMaterials, 64)};
+        GLRenderer target = replayed.createRenderer();
+        CommandBuffer[] buffers = new CommandBuffer[replayedScenes.length];
+        RenderManager[] recordingManagers = new RenderManager[replayedScenes.length];
+        for (int i = 0; i < replayedScenes.length; i++) {
+            buffers[i] = new CommandBuffer();
+            recordingManagers[i] = createRenderManager(new RecordingRenderer(target, buffers[i]));
+            createView(recordingManagers[i], replayedScenes[i], i * 0.5f);
+        }
+        replayedMaterials.selectTechniques(recordingManagers[0]);
+
+        ExecutorService executor = Executors.newFixedThreadPool(replayedScenes.length);
+        try {
+            for (int frame = 0; frame < FRAMES; frame++) {
+                directMaterials.animate(frame);
+                for (Node scene : directScenes) {
+                    update(scene, frame);
+                }
+                directManager.render(0.016f, true);
+
+                replayedMaterials.animate(frame);
+                for (Node scene : replayedScenes) {
+                    update(scene, frame);
+                }
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> tasks = new ArrayList<>();
+                for (int i = 0; i < recordingManagers.length; i++) {
+                    final CommandBuffer buffer = buffers[i];
+                    final RenderManager manager = recordingManagers[i];
+                    tasks.add(executor.submit(() -> {
+                        start.await();
+                        buffer.reset();
+                        manager.render(0.016f, true);
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+                for (CommandBuffer buffer : buffers) {
+                    buffer.replay(target);
+                }
+
+                assertSameCalls(frame, direct.calls, replayed.calls);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Records a shadow-like pass, forcing the PreShadow technique, and a main
+     * pass over the same scene and materials, each on its own render manager.
+     */
+    private static final class ForcedTechniqueRun {
+
+        final TracingGL gl = new TracingGL();
+        final Materials materials = new Materials(TestUtil.createAssetManager());
+        final Node scene = createScene(materials, 64);
+        final GLRenderer target = gl.createRenderer();
+        final CommandBuffer[] buffers = {new CommandBuffer(), new CommandBuffer()};
+        final RenderManager[] managers = new RenderManager[buffers.length];
+
+        ForcedTechniqueRun() {
+            for (int i = 0; i < buffers.length; i++) {
+                managers[i] = createRenderManager(new RecordingRenderer(target, buffers[i]));
+                createView(managers[i], scene, 0f);
+            }
+            managers[0].setForcedTechnique("PreShadow");
+            materials.selectTechniques(managers[1]);
+        }
+
+        void update(int frame) {
+            materials.animate(frame);
+            CommandBufferTest.update(scene, frame);
+            for (CommandBuffer buffer : buffers) {
+                buffer.reset();
+            }
+        }
+
+        void replay() {
+            for (CommandBuffer buffer : buffers) {
+                buffer.replay(target);
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentForcedTechniqueRecording() throws Exception {
+        ForcedTechniqueRun sequential = new ForcedTechniqueRun();
+        ForcedTechniqueRun concurrent = new ForcedTechniqueRun();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrent.managers.length);
+        try {
+            for (int frame = 0; frame < FRAMES * 4; frame++) {
+                sequential.update(frame);
+                for (RenderManager manager : sequential.managers) {
+                    manager.render(0.016f, true);
+                }
+                sequential.replay();
+
+                concurrent.update(frame);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> tasks = new ArrayList<>();
+                for (RenderManager manager : concurrent.managers) {
+                    tasks.add(executor.submit(() -> {
+                        start.await();
+                        manager.render(0.016f, true);
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+                concurrent.replay();
+
+                assertSameCalls(frame, sequential.gl.calls, concurrent.gl.calls);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (Material material : concurrent.materials.list) {
+            Assert.assertEquals("Default", material.getActiveTechnique().getDef().getName());
+        }
+    }
+
+    @Test
+    public void testBufferReuse() {
+        TracingGL gl = new TracingGL();
+        GLRenderer target = gl.createRenderer();
+        CommandBuffer buffer = new CommandBuffer();
+        RecordingRenderer recorder = new RecordingRenderer(target, buffer);
+
+        recorder.setViewPort(1, 2, 3, 4);
+        recorder.setBackgroundColor(ColorRGBA.Red);
+        recorder.clearBuffers(true, false, true);
+        recorder.setDepthRange(0.25f, 0.75f);
+        Assert.assertEquals(4, buffer.size());
+        Assert.assertTrue(gl.calls.isEmpty());
+
+        buffer.replay(target);
+        Assert.assertTrue(gl.calls.contains("glViewport(1, 2, 3, 4)"));
+        Assert.assertTrue(gl.calls.contains("glClearColor(1.0, 0.0, 0.0, 1.0)"));
+        Assert.assertTrue(gl.calls.contains("glDepthRange(0.25, 0.75)"));
+
+        // a buffer can be replayed more than once, the renderer then skips
+        // the redundant state changes
+        gl.calls.clear();
+        buffer.replay(target);
+        Assert.assertFalse(gl.calls.isEmpty());
+        for (String call : gl.calls) {
+            Assert.assertFalse(call, call.startsWith("glViewport") || call.startsWith("glClearColor"));
+        }
+
+        gl.calls.clear();
+        buffer.reset();
+        Assert.assertTrue(buffer.isEmpty());
+        buffer.replay(target);
+        Assert.assertTrue(gl.calls.isEmpty());
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.control.AbstractControl;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.TestUtil;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that culling with {@link RenderManager#setCullingPool} queues the
+ * same geometries, in the same order, as the serial path.
+ */
+public class ParallelCullingTest {
+
+    private ForkJoinPool pool;
+    private RenderManager serialManager;
+    private RenderManager parallelManager;
+    private ViewPort serialView;
+    private ViewPort parallelView;
+    private Material material;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+        AssetManager assetManager = TestUtil.createAssetManager();
+        material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+
+        serialManager = TestUtil.createRenderManager();
+        parallelManager = TestUtil.createRenderManager();
+        parallelManager.setCullingPool(pool);
+        serialView = serialManager.createMainView("serial", createCamera());
+        parallelView = parallelManager.createMainView("parallel", createCamera());
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private static Camera createCamera() {
+        Camera cam = new Camera(640, 480);
+        cam.setFrustumPerspective(60f, 640f / 480f, 1f, 200f);
+        cam.setLocation(new Vector3f(0f, 0f, 60f));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        return cam;
+    }
+
+    private Node createScene() {
+        Random random = new Random(11);
+        Mesh mesh = new Box(0.5f, 0.5f, 0.5f);
+        Node root = new Node("root");
+
+        // Wide node, split into several ranges.
+        Node flat = new Node("flat");
+        root.attachChild(flat);
+        for (int i = 0; i < 400; i++) {
+            flat.attachChild(createGeometry("flat" + i, mesh, random, 150f));
+        }
+
+        // Nested nodes, some large enough to be forked.
+        for (int i = 0; i < 6; i++) {
+            Node branch = new Node("branch" + i);
+            root.attachChild(branch);
+            for (int j = 0; j < 3 + i; j++) {
+                Node twig = new Node("twig" + i + "_" + j);
+                branch.attachChild(twig);
+                for (int k = 0; k < 1 + j * 2; k++) {
+                    Geometry geom = createGeometry("geom" + i + "_" + j + "_" + k, mesh, random, 80f);
+                    if (k % 4 == 3) {
+                        geom.setQueueBucket(Bucket.Transparent);
+                    }
+                    twig.attachChild(geom);
+                }
+            }
+        }
+
+        // Branches with controls are handled on the calling thread.
+        Node controlled = new Node("controlled");
+        controlled.addControl(new ThreadCheckControl());
+        root.attachChild(controlled);
+        for (int i = 0; i < 20; i++) {
+            Geometry geom = createGeometry("controlled" + i, mesh, random, 80f);
+            geom.addControl(new ThreadCheckControl());
+            controlled.attachChild(geom);
+        }
+
+        Geometry hidden = createGeometry("hidden", mesh, random, 10f);
+        hidden.setCullHint(Spatial.CullHint.Always);
+        flat.attachChild(hidden);
+
+        root.updateGeometricState();
+        return root;
+    }
+
+    private Geometry createGeometry(String name, Mesh mesh, Random random, float extent) {
+        Geometry geom = new Geometry(name, mesh);
+        geom.setMaterial(material);
+        geom.setLocalTranslation(
+                (random.nextFloat() * 2f - 1f) * extent,
+                (random.nextFloat() * 2f - 1f) * extent,
+                (random.nextFloat() * 2f - 1f) * extent);
+        return geom;
+    }
+
+    @Test
+    public void testSameQueue() {
+        Node serialScene = createScene();
+        Node parallelScene = createScene();
+
+        for (int frame = 0; frame < 3; frame++) {
+            serialManager.renderScene(serialScene, serialView);
+            parallelManager.renderScene(parallelScene, parallelView);
+
+            int total = 0;
+            for (Bucket bucket : new Bucket[]{Bucket.Opaque, Bucket.Transparent}) {
+                GeometryList expected = serialView.getQueue().getList(bucket);
+                GeometryList actual = parallelView.getQueue().getList(bucket);
+                Assert.assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    Assert.assertEquals(expected.get(i).getName(), actual.get(i).getName());
+                }
+                total += actual.size();
+            }
+            // Some, but not all, geometries must have been culled.
+            Assert.assertTrue(total > 0);
+            Assert.assertTrue(total < 400 + 20 + 100);
+
+            serialView.getQueue().clear();
+            parallelView.getQueue().clear();
+
+            serialScene.rotate(0f, 0.3f, 0f);
+            parallelScene.rotate(0f, 0.3f, 0f);
+            serialScene.updateGeometricState();
+            parallelScene.updateGeometricState();
+        }
+    }
+
+    @Test
+    public void testSerialFallback() {
+        // A single geometry is not worth distributing.
+        Geometry geom = createGeometry("single", new Box(1f, 1f, 1f), new Random(1), 1f);
+        geom.updateGeometricState();
+        parallelManager.renderScene(geom, parallelView);
+        Assert.assertEquals(1, parallelView.getQueue().getList(Bucket.Opaque).size());
+        Assert.assertSame(pool, parallelManager.getCullingPool());
+    }
+
+    /**
+     * Fails if its render callback is invoked on a pool thread.
+     */
+    private static class ThreadCheckControl extends AbstractControl {
+
+        private final Thread owner = Thread.currentThread();
+
+        @Override
+        protected void controlUpdate(float tpf) {
+        }
+
+        @Override
+        protected void controlRender(RenderManager rm, ViewPort vp) {
+            Assert.assertSame(owner, Thread.currentThread());
+        }
+    }
+}
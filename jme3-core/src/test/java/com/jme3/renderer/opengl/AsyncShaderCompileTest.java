@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.opengl;
+
+import com.jme3.light.LightList;
+import com.jme3.material.Material;
+import com.jme3.renderer.Caps;
+import com.jme3.renderer.RenderManager;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import com.jme3.shader.Shader;
+import com.jme3.shader.Shader.ShaderType;
+import com.jme3.system.NullRenderer;
+import com.jme3.system.TestUtil;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that shaders compiled asynchronously don't stall rendering and
+ * that materials fall back while they compile.
+ */
+public class AsyncShaderCompileTest {
+
+    /**
+     * A GL implementation that supports parallel shader compilation and
+     * records the shader calls.
+     */
+    private static final class FakeGL implements InvocationHandler {
+
+        private final List<String> calls = new ArrayList<>();
+        private int completionStatus;
+        private int nextName = 1;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            switch (name) {
+                case "glGetString":
+                    int pname = (Integer) args[0];
+                    if (pname == GL.GL_VERSION) {
+                        return "2.1";
+                    } else if (pname == GL.GL_SHADING_LANGUAGE_VERSION) {
+                        return "1.20";
+                    } else if (pname == GL.GL_EXTENSIONS) {
+                        return "GL_KHR_parallel_shader_compile";
+                    }
+                    return "Fake";
+                case "glGetInteger":
+                    ((IntBuffer) args[1]).put(0, (Integer) args[0] == GL.GL_FRAMEBUFFER_BINDING ? 0 : 16);
+                    return null;
+                case "glGetFloat":
+                    ((FloatBuffer) args[1]).put(0, 1f);
+                    return null;
+                case "glGetShader":
+                    calls.add(name);
+                    ((IntBuffer) args[2]).put(0, (Integer) args[1] == GL.GL_INFO_LOG_LENGTH ? 0 : 1);
+                    return null;
+                case "glGetProgram":
+                    int param = (Integer) args[1];
+                    calls.add(param == GLExt.GL_COMPLETION_STATUS_KHR ? "completion" : name);
+                    int value = param == GL.GL_INFO_LOG_LENGTH ? 0
+                            : param == GLExt.GL_COMPLETION_STATUS_KHR ? completionStatus : 1;
+                    ((IntBuffer) args[2]).put(0, value);
+                    return null;
+                case "glCreateShader":
+                case "glCreateProgram":
+                    return nextName++;
+                case "glCompileShader":
+                case "glLinkProgram":
+                case "glUseProgram":
+                    calls.add(name);
+                    return null;
+                default:
+                    break;
+            }
+            if (name.startsWith("glGen") && args.length == 1 && args[0] instanceof IntBuffer) {
+                IntBuffer names = (IntBuffer) args[0];
+                for (int i = names.position(); i < names.limit(); i++) {
+                    names.put(i, nextName++);
+                }
+                return null;
+            }
+            Class<?> type = method.getReturnType();
+            if (type == int.class) {
+                return 0;
+            } else if (type == long.class) {
+                return 0L;
+            } else if (type == boolean.class) {
+                return false;
+            } else if (type == float.class) {
+                return 0f;
+            } else if (type == String.class) {
+                return "";
+            }
+            return null;
+        }
+
+        GLRenderer createRenderer() {
+            Object gl = Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{GL4.class, GLExt.class, GLFbo.class}, this);
+            GLRenderer renderer = new GLRenderer((GL) gl, (GLExt) gl, (GLFbo) gl);
+            renderer.initialize();
+            renderer.setAsyncShaderCompile(true);
+            calls.clear();
+            return renderer;
+        }
+    }
+
+    private static Shader createShader() {
+        Shader shader = new Shader();
+        shader.addSource(ShaderType.Vertex, "test.vert", "void main() { gl_Position = vec4(0.0); }", "", "GLSL100");
+        shader.addSource(ShaderType.Fragment, "test.frag", "void main() { gl_FragColor = vec4(1.0); }", "", "GLSL100");
+        return shader;
+    }
+
+    @Test
+    public void testCompilationIsPolled() {
+        FakeGL fake = new FakeGL();
+        GLRenderer renderer = fake.createRenderer();
+        Assert.assertTrue(renderer.getCaps().contains(Caps.ParallelShaderCompile));
+        Shader shader = createShader();
+
+        // submitted without querying any status
+        Assert.assertFalse(renderer.isShaderReady(shader));
+        Assert.assertEquals(Arrays.asList("glCompileShader", "glCompileShader", "glLinkProgram"), fake.calls);
+        Assert.assertEquals(1, renderer.getStatistics().getPendingShaderCompiles());
+
+        fake.calls.clear();
+        Assert.assertFalse(renderer.isShaderReady(shader));
+        Assert.assertEquals(Arrays.asList("completion"), fake.calls);
+
+        fake.completionStatus = GL.GL_TRUE;
+        Assert.assertTrue(renderer.isShaderReady(shader));
+
+        fake.calls.clear();
+        renderer.setShader(shader);
+        Assert.assertFalse(fake.calls.contains("glCompileShader"));
+        Assert.assertTrue(fake.calls.contains("glGetShader"));
+        Assert.assertTrue(fake.calls.contains("glUseProgram"));
+        Assert.assertFalse(shader.isUpdateNeeded());
+        Assert.assertEquals(0, renderer.getStatistics().getPendingShaderCompiles());
+        Assert.assertTrue(renderer.isShaderReady(shader));
+    }
+
+    @Test
+    public void testDeletingPendingShader() {
+        FakeGL fake = new FakeGL();
+        GLRenderer renderer = fake.createRenderer();
+        Shader shader = createShader();
+        Assert.assertFalse(renderer.isShaderReady(shader));
+
+        renderer.deleteShader(shader);
+        Assert.assertEquals(0, renderer.getStatistics().getPendingShaderCompiles());
+        Assert.assertEquals(-1, shader.getId());
+    }
+
+    @Test
+    public void testSynchronousWithoutAsyncMode() {
+        FakeGL fake = new FakeGL();
+        GLRenderer renderer = fake.createRenderer();
+        renderer.setAsyncShaderCompile(false);
+        Shader shader = createShader();
+        Assert.assertTrue(renderer.isShaderReady(shader));
+        Assert.assertTrue(fake.calls.isEmpty());
+    }
+
+    @Test
+    public void testMaterialFallsBackWhileCompiling() {
+        List<String> usedShaders = new ArrayList<>();
+        NullRenderer renderer = new NullRenderer() {
+            @Override
+            public boolean isShaderReady(Shader shader) {
+                return !shader.getSources().iterator().next().getName().contains("Lighting");
+            }
+
+            @Override
+            public void setShader(Shader shader) {
+                usedShaders.add(shader.getSources().iterator().next().getName());
+            }
+        };
+        RenderManager renderManager = TestUtil.createRenderManager(renderer);
+        Geometry geometry = new Geometry("Geometry", new Box(1, 1, 1));
+        Material material = new Material(TestUtil.createAssetManager(), "Common/MatDefs/Light/Lighting.j3md");
+        geometry.setMaterial(material);
+        Node root = new Node("Root Node");
+        root.attachChild(geometry);
+        root.updateGeometricState();
+        LightList lights = new LightList(geometry);
+
+        // skipped by default
+        material.render(geometry, lights, renderManager);
+        Assert.assertTrue(usedShaders.isEmpty());
+
+        Material fallback = new Material(TestUtil.createAssetManager(), "Common/MatDefs/Misc/Unshaded.j3md");
+        renderManager.setShaderCompileFallback(fallback);
+        material.render(geometry, lights, renderManager);
+        Assert.assertEquals(1, usedShaders.size());
+        Assert.assertTrue(usedShaders.get(0).contains("Unshaded"));
+    }
+}
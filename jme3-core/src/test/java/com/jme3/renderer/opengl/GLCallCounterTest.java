@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.opengl;
+
+import com.jme3.app.DetailedProfiler;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.Vector3f;
+import com.jme3.profile.AppStep;
+import com.jme3.profile.VpStep;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.Statistics;
+import com.jme3.renderer.Statistics.GLCallType;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.TestUtil;
+import com.jme3.system.Timer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that a {@link GLCallCounter} reports the GL calls of a
+ * {@link GLRenderer} by category and viewport step.
+ */
+public class GLCallCounterTest {
+
+    private static final int GEOMETRIES = 5;
+
+    /**
+     * A GL implementation that answers queries with plausible values.
+     */
+    private static final class FakeGL implements InvocationHandler {
+
+        private final Map<String, Integer> locations = new HashMap<>();
+        private int nextName = 1;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            switch (name) {
+                case "glGetString":
+                    int pname = (Integer) args[0];
+                    if (pname == GL.GL_VERSION) {
+                        return "2.1";
+                    } else if (pname == GL.GL_SHADING_LANGUAGE_VERSION) {
+                        return "1.20";
+                    }
+                    return "";
+                case "glGetInteger":
+                    ((IntBuffer) args[1]).put(0, (Integer) args[0] == GL.GL_FRAMEBUFFER_BINDING ? 0 : 16);
+                    return null;
+                case "glGetFloat":
+                    ((FloatBuffer) args[1]).put(0, 1f);
+                    return null;
+                case "glGetShader":
+                case "glGetProgram":
+                    ((IntBuffer) args[2]).put(0, (Integer) args[1] == GL.GL_INFO_LOG_LENGTH ? 0 : 1);
+                    return null;
+                case "glCreateShader":
+                case "glCreateProgram":
+                    return nextName++;
+                case "glGetUniformLocation":
+                case "glGetAttribLocation":
+                    String variable = name + " " + args[0] + " " + args[1];
+                    Integer location = locations.get(variable);
+                    if (location == null) {
+                        location = locations.size() % 16;
+                        locations.put(variable, location);
+                    }
+                    return location;
+                default:
+                    break;
+            }
+            if (name.startsWith("glGen") && args.length == 1 && args[0] instanceof IntBuffer) {
+                IntBuffer names = (IntBuffer) args[0];
+                for (int i = names.position(); i < names.limit(); i++) {
+                    names.put(i, nextName++);
+                }
+                return null;
+            }
+            Class<?> type = method.getReturnType();
+            if (type == int.class) {
+                return 0;
+            } else if (type == long.class) {
+                return 0L;
+            } else if (type == boolean.class) {
+                return false;
+            } else if (type == float.class) {
+                return 0f;
+            } else if (type == String.class) {
+                return "";
+            }
+            return null;
+        }
+    }
+
+    private static GLRenderer createRenderer() {
+        Object fake = Proxy.newProxyInstance(GLCallCounterTest.class.getClassLoader(),
+                new Class<?>[]{GL2.class, GLExt.class, GLFbo.class}, new FakeGL());
+        GLCallCounter counter = new GLCallCounter();
+        GL gl = (GL) counter.wrap(fake, GL.class, GL2.class);
+        GLExt glext = (GLExt) counter.wrap(fake, GLExt.class);
+        GLFbo glfbo = (GLFbo) counter.wrap(fake, GLFbo.class);
+        GLRenderer renderer = new GLRenderer(gl, glext, glfbo);
+        counter.setStatistics(renderer.getStatistics());
+        renderer.initialize();
+        return renderer;
+    }
+
+    private static RenderManager createRenderManager(GLRenderer renderer) {
+        RenderManager renderManager = TestUtil.createRenderManager(renderer);
+        renderManager.setTimer(new Timer() {
+            @Override
+            public long getTime() {
+                return 0L;
+            }
+
+            @Override
+            public long getResolution() {
+                return 1000L;
+            }
+
+            @Override
+            public float getFrameRate() {
+                return 60f;
+            }
+
+            @Override
+            public float getTimePerFrame() {
+                return 0.016f;
+            }
+
+            @Override
+            public void update() {
+            }
+
+            @Override
+            public void reset() {
+            }
+        });
+
+        Camera cam = new Camera(640, 480);
+        cam.setFrustumPerspective(60f, 640f / 480f, 1f, 100f);
+        cam.setLocation(new Vector3f(0f, 0f, 20f));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        ViewPort view = renderManager.createMainView("Main", cam);
+        view.setClearFlags(true, true, true);
+
+        Material material = new Material(TestUtil.createAssetManager(), "Common/MatDefs/Misc/Unshaded.j3md");
+        material.setColor("Color", ColorRGBA.Blue);
+        Node scene = new Node("root");
+        for (int i = 0; i < GEOMETRIES; i++) {
+            Geometry geom = new Geometry("geom" + i, new Box(0.5f, 0.5f, 0.5f));
+            geom.setMaterial(material);
+            geom.setLocalTranslation(i * 2f - 4f, 0f, 0f);
+            scene.attachChild(geom);
+        }
+        scene.updateGeometricState();
+        view.attachScene(scene);
+        return renderManager;
+    }
+
+    @Test
+    public void testGetType() {
+        Assert.assertEquals(GLCallType.Draw, GLCallCounter.getType("glDrawRangeElements"));
+        Assert.assertEquals(GLCallType.Draw, GLCallCounter.getType("glDrawArraysInstancedARB"));
+        Assert.assertEquals(GLCallType.FrameBuffer, GLCallCounter.getType("glBindFramebufferEXT"));
+        Assert.assertEquals(GLCallType.FrameBuffer, GLCallCounter.getType("glDrawBuffers"));
+        Assert.assertEquals(GLCallType.Shader, GLCallCounter.getType("glUseProgram"));
+        Assert.assertEquals(GLCallType.Uniform, GLCallCounter.getType("glUniformMatrix4"));
+        Assert.assertEquals(GLCallType.Texture, GLCallCounter.getType("glBindTexture"));
+        Assert.assertEquals(GLCallType.Buffer, GLCallCounter.getType("glBindBuffer"));
+        Assert.assertEquals(GLCallType.Buffer, GLCallCounter.getType("glEnableVertexAttribArray"));
+        Assert.assertEquals(GLCallType.State, GLCallCounter.getType("glBlendFunc"));
+        Assert.assertEquals(GLCallType.State, GLCallCounter.getType("glViewport"));
+        Assert.assertEquals(GLCallType.Other, GLCallCounter.getType("glClear"));
+    }
+
+    @Test
+    public void testCallsPerStep() {
+        GLRenderer renderer = createRenderer();
+        RenderManager renderManager = createRenderManager(renderer);
+        DetailedProfiler profiler = new DetailedProfiler();
+        profiler.setRenderer(renderer);
+        renderManager.setAppProfiler(profiler);
+        Statistics statistics = renderer.getStatistics();
+
+        for (int frame = 0; frame < 2; frame++) {
+            statistics.clearFrame();
+            profiler.appStep(AppStep.BeginFrame);
+            renderManager.render(0.016f, true);
+            profiler.appStep(AppStep.EndFrame);
+
+            Assert.assertEquals(GEOMETRIES, statistics.getGLCalls(GLCallType.Draw));
+            Assert.assertEquals(GEOMETRIES, statistics.getGLCalls(VpStep.RenderBucket, GLCallType.Draw));
+            Assert.assertEquals(0, statistics.getGLCalls(null, GLCallType.Draw));
+            // the renderer only binds the shader again if it changed
+            Assert.assertEquals(frame == 0 ? 1 : 0, statistics.getGLCalls(GLCallType.Shader));
+            Assert.assertTrue(statistics.getGLCalls(GLCallType.Uniform) > 0);
+        }
+        Assert.assertEquals(2 * GEOMETRIES, statistics.getTotalGLCalls(GLCallType.Draw));
+
+        DetailedProfiler.StatLine opaque = profiler.getStats()
+                .get(AppStep.RenderMainViewPorts + "/Main/FlushQueue/Opaque Bucket");
+        Assert.assertNotNull(opaque);
+        Assert.assertEquals(GEOMETRIES, opaque.getGLCalls(GLCallType.Draw));
+        Assert.assertEquals(0, opaque.getGLCalls(GLCallType.Shader));
+        Assert.assertTrue(opaque.getGLCalls() > GEOMETRIES);
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.opengl;
+
+import com.jme3.renderer.Caps;
+import com.jme3.shader.Shader;
+import com.jme3.shader.Shader.ShaderType;
+import com.jme3.util.BufferUtils;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that {@link GLRenderer} restores linked programs from a
+ * {@link ProgramBinaryCache} instead of compiling them again.
+ */
+public class ProgramBinaryCacheTest {
+
+    private static final int BINARY_FORMAT = 42;
+
+    /**
+     * A GL 4 implementation that supports program binaries and records the
+     * shader calls.
+     */
+    private static final class FakeGL implements InvocationHandler {
+
+        private final List<String> calls = new ArrayList<>();
+        private boolean rejectBinaries;
+        private int linkStatus = 1;
+        private int nextName = 1;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            switch (name) {
+                case "glGetString":
+                    int pname = (Integer) args[0];
+                    if (pname == GL.GL_VERSION) {
+                        return "2.1";
+                    } else if (pname == GL.GL_SHADING_LANGUAGE_VERSION) {
+                        return "1.20";
+                    } else if (pname == GL.GL_EXTENSIONS) {
+                        return "GL_ARB_get_program_binary";
+                    }
+                    return "Fake";
+                case "glGetInteger":
+                    ((IntBuffer) args[1]).put(0, (Integer) args[0] == GL.GL_FRAMEBUFFER_BINDING ? 0 : 16);
+                    return null;
+                case "glGetFloat":
+                    ((FloatBuffer) args[1]).put(0, 1f);
+                    return null;
+                case "glGetShader":
+                    ((IntBuffer) args[2]).put(0, (Integer) args[1] == GL.GL_INFO_LOG_LENGTH ? 0 : 1);
+                    return null;
+                case "glGetProgram":
+                    int param = (Integer) args[1];
+                    int value = param == GL.GL_INFO_LOG_LENGTH ? 0
+                            : param == GL.GL_LINK_STATUS ? linkStatus
+                            : param == GL4.GL_PROGRAM_BINARY_LENGTH ? 4 : 1;
+                    ((IntBuffer) args[2]).put(0, value);
+                    return null;
+                case "glCreateShader":
+                case "glCreateProgram":
+                    return nextName++;
+                case "glCompileShader":
+                case "glLinkProgram":
+                    calls.add(name);
+                    linkStatus = 1;
+                    return null;
+                case "glGetProgramBinary":
+                    calls.add(name);
+                    ((IntBuffer) args[1]).put(0, 4);
+                    ((IntBuffer) args[2]).put(0, BINARY_FORMAT);
+                    ((ByteBuffer) args[3]).putInt(0, 0xCAFE);
+                    return null;
+                case "glProgramBinary":
+                    calls.add(name);
+                    Assert.assertEquals(BINARY_FORMAT, args[1]);
+                    Assert.assertEquals(0xCAFE, ((ByteBuffer) args[2]).getInt(0));
+                    linkStatus = rejectBinaries ? 0 : 1;
+                    return null;
+                default:
+                    break;
+            }
+            if (name.startsWith("glGen") && args.length == 1 && args[0] instanceof IntBuffer) {
+                IntBuffer names = (IntBuffer) args[0];
+                for (int i = names.position(); i < names.limit(); i++) {
+                    names.put(i, nextName++);
+                }
+                return null;
+            }
+            Class<?> type = method.getReturnType();
+            if (type == int.class) {
+                return 0;
+            } else if (type == long.class) {
+                return 0L;
+            } else if (type == boolean.class) {
+                return false;
+            } else if (type == float.class) {
+                return 0f;
+            } else if (type == String.class) {
+                return "";
+            }
+            return null;
+        }
+
+        GLRenderer createRenderer(ProgramBinaryCache cache) {
+            Object gl = Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{GL4.class, GLExt.class, GLFbo.class}, this);
+            GLRenderer renderer = new GLRenderer((GL) gl, (GLExt) gl, (GLFbo) gl);
+            renderer.initialize();
+            renderer.setProgramBinaryCache(cache);
+            calls.clear();
+            return renderer;
+        }
+    }
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final File directory;
+
+    public ProgramBinaryCacheTest() throws IOException {
+        directory = Files.createTempDirectory("programbinaries").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        delete(directory);
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static ByteBuffer createBinary() {
+        ByteBuffer data = BufferUtils.createByteBuffer(1);
+        data.put((byte) 1).flip();
+        return data;
+    }
+
+    private static Shader createShader(String defines) {
+        Shader shader = new Shader();
+        shader.addSource(ShaderType.Vertex, "test.vert", "void main() { gl_Position = vec4(0.0); }", defines, "GLSL100");
+        shader.addSource(ShaderType.Fragment, "test.frag", "void main() { gl_FragColor = vec4(1.0); }", defines, "GLSL100");
+        return shader;
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        ProgramBinaryCache cache = new ProgramBinaryCache(directory);
+        String key = ProgramBinaryCache.computeKey("driver", Arrays.asList("a", "b"));
+        Assert.assertNull(cache.load(key));
+
+        ByteBuffer data = BufferUtils.createByteBuffer(3);
+        data.put((byte) 1).put((byte) 2).put((byte) 3).flip();
+        cache.save(key, 7, data);
+
+        ProgramBinaryCache.ProgramBinary binary = new ProgramBinaryCache(directory).load(key);
+        Assert.assertEquals(7, binary.getFormat());
+        Assert.assertEquals(3, binary.getData().remaining());
+        Assert.assertEquals(3, binary.getData().get(2));
+    }
+
+    @Test
+    public void testKeyDependsOnSourcesAndDriver() {
+        String key = ProgramBinaryCache.computeKey("driver", Arrays.asList("a", "b"));
+        Assert.assertEquals(key, ProgramBinaryCache.computeKey("driver", Arrays.asList("a", "b")));
+        Assert.assertNotEquals(key, ProgramBinaryCache.computeKey("driver", Arrays.asList("ab")));
+        Assert.assertNotEquals(key, ProgramBinaryCache.computeKey("driver 2", Arrays.asList("a", "b")));
+    }
+
+    @Test
+    public void testPreloadServesEntriesFromMemory() {
+        ProgramBinaryCache cache = new ProgramBinaryCache(directory);
+        String key = ProgramBinaryCache.computeKey("driver", Arrays.asList("a"));
+        ByteBuffer data = BufferUtils.createByteBuffer(1);
+        cache.save(key, 7, data);
+
+        ProgramBinaryCache preloaded = new ProgramBinaryCache(directory);
+        preloaded.preload(DIRECT).join();
+        Assert.assertTrue(new File(directory, key + ".bin").delete());
+        Assert.assertNotNull(preloaded.load(key));
+        // released once used
+        Assert.assertNull(preloaded.load(key));
+    }
+
+    @Test
+    public void testReleasePreloadedDropsUnusedEntries() {
+        ProgramBinaryCache cache = new ProgramBinaryCache(directory);
+        String key = ProgramBinaryCache.computeKey("driver", Arrays.asList("a"));
+        cache.save(key, 7, createBinary());
+
+        cache.preload(DIRECT).join();
+        cache.releasePreloaded();
+        Assert.assertTrue(new File(directory, key + ".bin").delete());
+        Assert.assertNull(cache.load(key));
+    }
+
+    @Test
+    public void testEntriesOfOtherDriversAreDeleted() {
+        String key = ProgramBinaryCache.computeKey("driver", Arrays.asList("a"));
+        new ProgramBinaryCache(directory).save(key, 7, createBinary());
+
+        ProgramBinaryCache cache = new ProgramBinaryCache(directory);
+        cache.setDriver("driver 1");
+        Assert.assertNull(cache.load(key));
+        cache.save(key, 7, createBinary());
+        Assert.assertNotNull(cache.load(key));
+        Assert.assertEquals(1, directory.listFiles().length);
+
+        // after a driver update
+        cache = new ProgramBinaryCache(directory);
+        cache.setDriver("driver 2");
+        Assert.assertNull(cache.load(key));
+        Assert.assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void testUnusedEntriesExpire() {
+        String key = ProgramBinaryCache.computeKey("driver", Arrays.asList("a"));
+        String unused = ProgramBinaryCache.computeKey("driver", Arrays.asList("b"));
+        ProgramBinaryCache cache = new ProgramBinaryCache(directory);
+        cache.setDriver("driver");
+        cache.save(key, 7, createBinary());
+        cache.save(unused, 7, createBinary());
+        File[] folders = directory.listFiles();
+        Assert.assertEquals(1, folders.length);
+        long old = System.currentTimeMillis() - 2 * ProgramBinaryCache.DEFAULT_MAX_UNUSED_AGE;
+        Assert.assertTrue(new File(folders[0], key + ".bin").setLastModified(old));
+        Assert.assertTrue(new File(folders[0], unused + ".bin").setLastModified(old));
+        // used entries are kept
+        Assert.assertNotNull(cache.load(key));
+
+        cache = new ProgramBinaryCache(directory);
+        cache.setDriver("driver");
+        Assert.assertNotNull(cache.load(key));
+        Assert.assertNull(cache.load(unused));
+    }
+
+    @Test
+    public void testCorruptEntryIsRemoved() throws IOException {
+        ProgramBinaryCache cache = new ProgramBinaryCache(directory);
+        String key = ProgramBinaryCache.computeKey("driver", Arrays.asList("a"));
+        File file = new File(directory, key + ".bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{1, 2, 3});
+        }
+        Assert.assertNull(cache.load(key));
+        Assert.assertFalse(file.exists());
+    }
+
+    @Test
+    public void testInvalidLengthIsRejected() throws IOException {
+        ProgramBinaryCache cache = new ProgramBinaryCache(directory);
+        for (int length : new int[]{-1, 2, Integer.MAX_VALUE}) {
+            String key = ProgramBinaryCache.computeKey("driver", Arrays.asList("a"));
+            cache.save(key, 7, createBinary());
+            File file = new File(directory, key + ".bin");
+            try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+                // the length follows magic, version and format
+                out.seek(12);
+                out.writeInt(length);
+            }
+            Assert.assertNull(cache.load(key));
+            Assert.assertFalse(file.exists());
+        }
+
+        // entries are dropped by the preload as well
+        String key = ProgramBinaryCache.computeKey("driver", Arrays.asList("b"));
+        cache.save(key, 7, createBinary());
+        File file = new File(directory, key + ".bin");
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.seek(12);
+            out.writeInt(Integer.MAX_VALUE);
+        }
+        cache.preload(DIRECT).join();
+        Assert.assertFalse(file.exists());
+        Assert.assertNull(cache.load(key));
+    }
+
+    @Test
+    public void testRendererRestoresLinkedPrograms() {
+        ProgramBinaryCache cache = new ProgramBinaryCache(directory);
+        FakeGL fake = new FakeGL();
+        GLRenderer renderer = fake.createRenderer(cache);
+        Assert.assertTrue(renderer.getCaps().contains(Caps.ProgramBinary));
+
+        renderer.setShader(createShader(""));
+        Assert.assertEquals(Arrays.asList("glCompileShader", "glCompileShader", "glLinkProgram",
+                "glGetProgramBinary"), fake.calls);
+
+        // next run, same variant
+        fake = new FakeGL();
+        renderer = fake.createRenderer(new ProgramBinaryCache(directory));
+        renderer.setShader(createShader(""));
+        Assert.assertEquals(Arrays.asList("glProgramBinary"), fake.calls);
+
+        // another variant is compiled
+        fake.calls.clear();
+        renderer.setShader(createShader("#define FOO 1\n"));
+        Assert.assertTrue(fake.calls.contains("glLinkProgram"));
+    }
+
+    @Test
+    public void testRejectedBinaryIsRecompiled() {
+        FakeGL fake = new FakeGL();
+        fake.createRenderer(new ProgramBinaryCache(directory)).setShader(createShader(""));
+
+        fake = new FakeGL();
+        fake.rejectBinaries = true;
+        GLRenderer renderer = fake.createRenderer(new ProgramBinaryCache(directory));
+        renderer.setShader(createShader(""));
+        Assert.assertEquals(Arrays.asList("glProgramBinary", "glCompileShader", "glCompileShader",
+                "glLinkProgram", "glGetProgramBinary"), fake.calls);
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.opengl;
+
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.Caps;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.VertexBuffer.Type;
+import com.jme3.scene.VertexBuffer.Usage;
+import com.jme3.system.TestUtil;
+import com.jme3.system.Timer;
+import com.jme3.util.BufferUtils;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that the {@link GLRenderer} streams the updates of
+ * {@link Usage#Stream} vertex buffers through a persistently mapped
+ * {@link StreamBufferRing}, or orphans their storage when buffer storage is
+ * not supported.
+ */
+public class StreamBufferRingTest {
+
+    /**
+     * A GL 4 implementation that answers queries with plausible values and
+     * records the buffer calls.
+     */
+    private static final class FakeGL implements InvocationHandler {
+
+        private final String extensions;
+        private final Map<String, Integer> locations = new HashMap<>();
+        private final List<String> calls = new ArrayList<>();
+        private final List<Long> pointerOffsets = new ArrayList<>();
+        private final List<Long> drawOffsets = new ArrayList<>();
+        private ByteBuffer mapped;
+        private int nextName = 1;
+
+        FakeGL(String extensions) {
+            this.extensions = extensions;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            switch (name) {
+                case "glGetString":
+                    int pname = (Integer) args[0];
+                    if (pname == GL.GL_VERSION) {
+                        return "2.1";
+                    } else if (pname == GL.GL_SHADING_LANGUAGE_VERSION) {
+                        return "1.20";
+                    } else if (pname == GL.GL_EXTENSIONS) {
+                        return extensions;
+                    }
+                    return "";
+                case "glGetInteger":
+                    ((IntBuffer) args[1]).put(0, (Integer) args[0] == GL.GL_FRAMEBUFFER_BINDING ? 0 : 16);
+                    return null;
+                case "glGetFloat":
+                    ((FloatBuffer) args[1]).put(0, 1f);
+                    return null;
+                case "glGetShader":
+                case "glGetProgram":
+                    ((IntBuffer) args[2]).put(0, (Integer) args[1] == GL.GL_INFO_LOG_LENGTH ? 0 : 1);
+                    return null;
+                case "glCreateShader":
+                case "glCreateProgram":
+                    return nextName++;
+                case "glGetUniformLocation":
+                case "glGetAttribLocation":
+                    String variable = name + " " + args[0] + " " + args[1];
+                    Integer location = locations.get(variable);
+                    if (location == null) {
+                        location = locations.size() % 16;
+                        locations.put(variable, location);
+                    }
+                    return location;
+                case "glBufferData":
+                    calls.add(name + (args[1] instanceof Long ? " orphan " + args[1] : " data"));
+                    return null;
+                case "glBufferSubData":
+                case "glBufferStorage":
+                    calls.add(name);
+                    return null;
+                case "glMapBufferRange":
+                    calls.add(name);
+                    mapped = ByteBuffer.allocateDirect((int) (long) (Long) args[2]).order(ByteOrder.nativeOrder());
+                    return mapped;
+                case "glFenceSync":
+                    calls.add(name);
+                    return new GLFence(nextName++, null);
+                case "glClientWaitSync":
+                    calls.add(name);
+                    return GL4.GL_ALREADY_SIGNALED;
+                case "glVertexAttribPointer":
+                    pointerOffsets.add((Long) args[5]);
+                    return null;
+                case "glDrawRangeElements":
+                    drawOffsets.add((Long) args[5]);
+                    return null;
+                default:
+                    break;
+            }
+            if (name.startsWith("glGen") && args.length == 1 && args[0] instanceof IntBuffer) {
+                IntBuffer names = (IntBuffer) args[0];
+                for (int i = names.position(); i < names.limit(); i++) {
+                    names.put(i, nextName++);
+                }
+                return null;
+            }
+            Class<?> type = method.getReturnType();
+            if (type == int.class) {
+                return 0;
+            } else if (type == long.class) {
+                return 0L;
+            } else if (type == boolean.class) {
+                return false;
+            } else if (type == float.class) {
+                return 0f;
+            } else if (type == String.class) {
+                return "";
+            }
+            return null;
+        }
+
+        GLRenderer createRenderer() {
+            Object gl = Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{GL4.class, GLExt.class, GLFbo.class}, this);
+            GLRenderer renderer = new GLRenderer((GL) gl, (GLExt) gl, (GLFbo) gl);
+            renderer.initialize();
+            calls.clear();
+            return renderer;
+        }
+    }
+
+    private static RenderManager createRenderManager(GLRenderer renderer, Mesh mesh) {
+        RenderManager renderManager = TestUtil.createRenderManager(renderer);
+        renderManager.setTimer(new Timer() {
+            @Override
+            public long getTime() {
+                return 0L;
+            }
+
+            @Override
+            public long getResolution() {
+                return 1000L;
+            }
+
+            @Override
+            public float getFrameRate() {
+                return 60f;
+            }
+
+            @Override
+            public float getTimePerFrame() {
+                return 0.016f;
+            }
+
+            @Override
+            public void update() {
+            }
+
+            @Override
+            public void reset() {
+            }
+        });
+
+        Camera cam = new Camera(640, 480);
+        cam.setFrustumPerspective(60f, 640f / 480f, 1f, 100f);
+        cam.setLocation(new Vector3f(0f, 0f, 10f));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        ViewPort view = renderManager.createMainView("Main", cam);
+
+        Geometry geom = new Geometry("stream", mesh);
+        geom.setMaterial(new Material(TestUtil.createAssetManager(), "Common/MatDefs/Misc/Unshaded.j3md"));
+        Node scene = new Node("root");
+        scene.attachChild(geom);
+        scene.updateGeometricState();
+        view.attachScene(scene);
+        return renderManager;
+    }
+
+    private static Mesh createMesh() {
+        Mesh mesh = new Mesh();
+        mesh.setBuffer(Type.Position, 3, new float[]{0f, 0f, 0f, 1f, 0f, 0f, 0f, 1f, 0f});
+        mesh.setBuffer(Type.Index, 3, new short[]{0, 1, 2});
+        mesh.getBuffer(Type.Position).setUsage(Usage.Stream);
+        mesh.getBuffer(Type.Index).setUsage(Usage.Stream);
+        mesh.updateBound();
+        return mesh;
+    }
+
+    private static void update(Mesh mesh, int frame) {
+        VertexBuffer positions = mesh.getBuffer(Type.Position);
+        FloatBuffer data = (FloatBuffer) positions.getData();
+        data.put(0, frame);
+        positions.updateData(data);
+        mesh.getBuffer(Type.Index).setUpdateNeeded();
+    }
+
+    @Test
+    public void testPersistentRing() {
+        FakeGL gl = new FakeGL("GL_ARB_buffer_storage");
+        GLRenderer renderer = gl.createRenderer();
+        Assert.assertTrue(renderer.getCaps().contains(Caps.BufferStorage));
+        Mesh mesh = createMesh();
+        RenderManager renderManager = createRenderManager(renderer, mesh);
+
+        // the first upload is a regular one
+        renderManager.render(0.016f, true);
+        Assert.assertFalse(gl.calls.contains("glBufferStorage"));
+        Assert.assertEquals(Long.valueOf(0), gl.pointerOffsets.get(gl.pointerOffsets.size() - 1));
+
+        for (int frame = 1; frame <= 4; frame++) {
+            gl.calls.clear();
+            update(mesh, frame);
+            renderManager.render(0.016f, true);
+
+            long offset = (frame - 1) % StreamBufferRing.SEGMENTS * 256L;
+            Assert.assertEquals(offset, (long) gl.pointerOffsets.get(gl.pointerOffsets.size() - 1));
+            Assert.assertEquals(offset, (long) gl.drawOffsets.get(gl.drawOffsets.size() - 1));
+            // the data was written through the mapping of the position ring
+            Assert.assertFalse(gl.calls.contains("glBufferData data"));
+            Assert.assertFalse(gl.calls.contains("glBufferSubData"));
+            if (frame == 1) {
+                Assert.assertTrue(gl.calls.contains("glBufferStorage"));
+                Assert.assertFalse(gl.calls.contains("glFenceSync"));
+            } else {
+                Assert.assertFalse(gl.calls.contains("glBufferStorage"));
+                Assert.assertTrue(gl.calls.contains("glFenceSync"));
+            }
+            // the first segment is written again after it was fenced
+            Assert.assertEquals(frame == 4, gl.calls.contains("glClientWaitSync"));
+        }
+    }
+
+    @Test
+    public void testRingData() {
+        FakeGL gl = new FakeGL("GL_ARB_buffer_storage");
+        GLRenderer renderer = gl.createRenderer();
+        Mesh mesh = createMesh();
+        RenderManager renderManager = createRenderManager(renderer, mesh);
+        renderManager.render(0.016f, true);
+
+        for (int frame = 1; frame <= 4; frame++) {
+            update(mesh, frame);
+            renderer.updateBufferData(mesh.getBuffer(Type.Position));
+            int segment = (frame - 1) % StreamBufferRing.SEGMENTS;
+            Assert.assertEquals(frame, gl.mapped.getFloat(segment * 256), 0f);
+            Assert.assertEquals(1f, gl.mapped.getFloat(segment * 256 + 12), 0f);
+        }
+    }
+
+    @Test
+    public void testOrphaning() {
+        FakeGL gl = new FakeGL("");
+        GLRenderer renderer = gl.createRenderer();
+        Assert.assertFalse(renderer.getCaps().contains(Caps.BufferStorage));
+        Mesh mesh = createMesh();
+        RenderManager renderManager = createRenderManager(renderer, mesh);
+        renderManager.render(0.016f, true);
+
+        gl.calls.clear();
+        update(mesh, 1);
+        renderManager.render(0.016f, true);
+        Assert.assertFalse(gl.calls.contains("glBufferStorage"));
+        Assert.assertTrue(gl.calls.contains("glBufferData orphan 36"));
+        Assert.assertTrue(gl.calls.contains("glBufferData orphan 6"));
+        Assert.assertEquals(2, Collections.frequency(gl.calls, "glBufferSubData"));
+        Assert.assertEquals(Long.valueOf(0), gl.drawOffsets.get(gl.drawOffsets.size() - 1));
+    }
+}
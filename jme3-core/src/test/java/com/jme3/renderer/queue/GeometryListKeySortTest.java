@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.queue;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.material.TechniqueDef;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.shape.Box;
+import com.jme3.system.TestUtil;
+import com.jme3.texture.Image;
+import com.jme3.texture.Image.Format;
+import com.jme3.texture.Texture2D;
+import com.jme3.texture.image.ColorSpace;
+import com.jme3.util.BufferUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that sorting a {@link GeometryList} by sort keys gives exactly
+ * the order of the comparator-based sort.
+ */
+public class GeometryListKeySortTest {
+
+    private final Mesh mesh = new Box(1f, 1f, 1f);
+    private final Camera cam = new Camera(640, 480);
+    private final Random random = new Random(7);
+    private Material[] materials;
+
+    @Before
+    public void setUp() {
+        AssetManager assetManager = TestUtil.createAssetManager();
+        RenderManager renderManager = TestUtil.createRenderManager();
+        cam.setFrustumPerspective(45f, 640f / 480f, 1f, 1000f);
+        cam.setLocation(new Vector3f(0f, 0f, 50f));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+
+        List<Material> list = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Material mat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+            Image image = new Image(Format.RGBA8, 1, 1, BufferUtils.createByteBuffer(4), ColorSpace.Linear);
+            image.setId(i * 1000 + 1);
+            mat.setTexture("ColorMap", new Texture2D(image));
+            mat.setBoolean("VertexColor", i % 2 == 0);
+            mat.selectTechnique(TechniqueDef.DEFAULT_TECHNIQUE_NAME, renderManager);
+            list.add(mat);
+        }
+        Material lighting = new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md");
+        lighting.selectTechnique(TechniqueDef.DEFAULT_TECHNIQUE_NAME, renderManager);
+        list.add(lighting);
+        // No technique selected, so its sort id stays -1.
+        list.add(new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md"));
+        materials = list.toArray(new Material[0]);
+    }
+
+    private List<Geometry> createGeometries(int count) {
+        List<Geometry> geometries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Geometry geom = new Geometry("geom" + i, mesh);
+            geom.setMaterial(materials[random.nextInt(materials.length)]);
+            if (i % 10 == 0 && i > 0) {
+                // Share a position with another geometry to produce ties.
+                geom.setLocalTranslation(geometries.get(random.nextInt(i)).getLocalTranslation());
+            } else {
+                geom.setLocalTranslation((random.nextFloat() - 0.5f) * 100f,
+                        (random.nextFloat() - 0.5f) * 100f, (random.nextFloat() - 0.5f) * 100f);
+            }
+            geom.updateGeometricState();
+            geometries.add(geom);
+        }
+        return geometries;
+    }
+
+    private void assertSameOrder(GeometryList expected, GeometryList actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertSame("index " + i, expected.get(i), actual.get(i));
+        }
+    }
+
+    private void sortAndCompare(GeometryComparator comparator, List<Geometry> input,
+            GeometryList reference, GeometryList keyed) {
+        reference.clear();
+        keyed.clear();
+        for (Geometry geom : input) {
+            geom.queueDistance = Float.NEGATIVE_INFINITY;
+            reference.add(geom);
+        }
+        comparator.setCamera(cam);
+        reference.sort();
+        for (Geometry geom : input) {
+            geom.queueDistance = Float.NEGATIVE_INFINITY;
+            keyed.add(geom);
+        }
+        keyed.sort();
+        assertSameOrder(reference, keyed);
+    }
+
+    private void checkComparator(GeometryComparator comparator) {
+        for (int count : new int[]{2, 20, 500, 5000}) {
+            List<Geometry> input = createGeometries(count);
+            GeometryList reference = new GeometryList(comparator);
+            GeometryList keyed = new GeometryList(comparator);
+            keyed.setKeySortEnabled(true);
+            Assert.assertTrue(keyed.isKeySortEnabled());
+
+            sortAndCompare(comparator, input, reference, keyed);
+            // Same input again: the previous order is reused.
+            sortAndCompare(comparator, input, reference, keyed);
+            // Move the camera so the previous order is no longer valid.
+            cam.setLocation(new Vector3f(30f, 10f, -40f));
+            cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+            sortAndCompare(comparator, input, reference, keyed);
+            // Different input order and size.
+            Collections.shuffle(input, random);
+            input.remove(input.size() - 1);
+            sortAndCompare(comparator, input, reference, keyed);
+
+            cam.setLocation(new Vector3f(0f, 0f, 50f));
+            cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        }
+    }
+
+    @Test
+    public void testOpaqueComparator() {
+        checkComparator(new OpaqueComparator());
+    }
+
+    @Test
+    public void testTransparentComparator() {
+        checkComparator(new TransparentComparator());
+    }
+
+    @Test
+    public void testGuiComparator() {
+        checkComparator(new GuiComparator());
+    }
+
+    @Test
+    public void testSortableBits() {
+        float[] values = {Float.NEGATIVE_INFINITY, -1e30f, -2f, -1f, -Float.MIN_VALUE,
+            -0f, 0f, Float.MIN_VALUE, 1f, 2f, 1e30f, Float.POSITIVE_INFINITY};
+        for (int i = 1; i < values.length; i++) {
+            int previous = SortKeyComparator.toSortableBits(values[i - 1]);
+            int current = SortKeyComparator.toSortableBits(values[i]);
+            Assert.assertEquals(Float.compare(values[i - 1] + 0f, values[i] + 0f),
+                    Integer.compareUnsigned(previous, current));
+        }
+    }
+}
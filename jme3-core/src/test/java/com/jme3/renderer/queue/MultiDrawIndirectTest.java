@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.queue;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.Caps;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.VertexBuffer.Type;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Sphere;
+import com.jme3.shader.bufferobject.BufferObject;
+import com.jme3.system.NullRenderer;
+import com.jme3.system.TestUtil;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that multi-draw-indirect submission merges geometries sharing a
+ * material and vertex format into one draw, even with different meshes.
+ */
+public class MultiDrawIndirectTest {
+
+    /**
+     * Records the draw calls and the commands of the indirect draws.
+     */
+    private static class RecordingRenderer extends NullRenderer {
+
+        final List<String> draws = new ArrayList<>();
+        final List<int[]> commands = new ArrayList<>();
+        Mesh arena;
+
+        @Override
+        public void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData) {
+            draws.add("mesh");
+        }
+
+        @Override
+        public void renderMeshIndirect(Mesh mesh, BufferObject commandBuffer, int drawCount,
+                VertexBuffer[] instanceData) {
+            draws.add("indirect" + drawCount);
+            Assert.assertNotNull(instanceData);
+            arena = mesh;
+            ByteBuffer data = commandBuffer.getData();
+            Assert.assertEquals(drawCount * 20, data.limit());
+            for (int i = 0; i < drawCount; i++) {
+                int[] command = new int[5];
+                for (int j = 0; j < 5; j++) {
+                    command[j] = data.getInt((i * 5 + j) * 4);
+                }
+                commands.add(command);
+            }
+        }
+    }
+
+    private AssetManager assetManager;
+    private RecordingRenderer renderer;
+    private RenderManager renderManager;
+    private final Camera cam = new Camera(640, 480);
+    private final RenderQueue queue = new RenderQueue();
+
+    @Before
+    public void setUp() {
+        assetManager = TestUtil.createAssetManager();
+        renderer = new RecordingRenderer();
+        renderManager = TestUtil.createRenderManager(renderer);
+        renderManager.setMultiDrawIndirect(true);
+        cam.setFrustumPerspective(45f, 640f / 480f, 1f, 1000f);
+        cam.setLocation(new Vector3f(0f, 0f, 100f));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        renderManager.setCamera(cam, false);
+    }
+
+    private static Geometry createGeometry(Mesh mesh, Material material, float x) {
+        Geometry geom = new Geometry("geom", mesh);
+        geom.setMaterial(material);
+        geom.setLocalTranslation(x, 0f, 0f);
+        return geom;
+    }
+
+    private List<String> render(Node scene) {
+        scene.updateGeometricState();
+        for (int i = 0; i < scene.getQuantity(); i++) {
+            queue.addToQueue((Geometry) scene.getChild(i), Bucket.Opaque);
+        }
+        renderer.draws.clear();
+        renderer.commands.clear();
+        queue.renderQueue(Bucket.Opaque, renderManager, cam);
+        return new ArrayList<>(renderer.draws);
+    }
+
+    @Test
+    public void testDifferentMeshesShareADraw() {
+        Mesh box = new Box(1f, 1f, 1f);
+        Mesh sphere = new Sphere(8, 8, 1f);
+        Material material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        Node scene = new Node("scene");
+        for (int i = 0; i < 3; i++) {
+            scene.attachChild(createGeometry(box, material, i * 3f));
+            scene.attachChild(createGeometry(sphere, material, -i * 3f));
+        }
+
+        Assert.assertEquals("[indirect6]", render(scene).toString());
+        Assert.assertNull(material.getParam("UseInstancing"));
+
+        int boxIndices = box.getIndexBuffer().size();
+        int sphereIndices = sphere.getIndexBuffer().size();
+        int boxes = 0;
+        for (int i = 0; i < renderer.commands.size(); i++) {
+            int[] command = renderer.commands.get(i);
+            Assert.assertEquals(1, command[1]);
+            Assert.assertEquals(i, command[4]);
+            if (command[0] == boxIndices) {
+                boxes++;
+                assertRange(renderer.arena, box, command);
+            } else {
+                Assert.assertEquals(sphereIndices, command[0]);
+                assertRange(renderer.arena, sphere, command);
+            }
+        }
+        Assert.assertEquals(3, boxes);
+
+        // The meshes are not copied again.
+        Mesh arena = renderer.arena;
+        Assert.assertEquals("[indirect6]", render(scene).toString());
+        Assert.assertSame(arena, renderer.arena);
+    }
+
+    @Test
+    public void testViewportsShareTheArenas() {
+        Mesh box = new Box(1f, 1f, 1f);
+        Material material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        Node scene = new Node("scene");
+        for (int i = 0; i < 3; i++) {
+            scene.attachChild(createGeometry(box, material, i * 3f));
+        }
+        Assert.assertEquals("[indirect3]", render(scene).toString());
+        Mesh arena = renderer.arena;
+
+        // The queue of another viewport draws from the same arena.
+        RenderQueue other = new RenderQueue();
+        for (int i = 0; i < scene.getQuantity(); i++) {
+            other.addToQueue((Geometry) scene.getChild(i), Bucket.Opaque);
+        }
+        renderer.draws.clear();
+        other.renderQueue(Bucket.Opaque, renderManager, cam);
+        Assert.assertEquals("[indirect3]", renderer.draws.toString());
+        Assert.assertSame(arena, renderer.arena);
+        Assert.assertEquals(1, renderManager.getMultiDrawArenas().getArenaCount());
+        Assert.assertEquals(box.getVertexCount(), renderManager.getMultiDrawArenas()
+                .getArena(box).getVertexCount());
+
+        // Disabling releases the arenas.
+        renderManager.setMultiDrawIndirect(false);
+        renderManager.setMultiDrawIndirect(true);
+        Assert.assertEquals(0, renderManager.getMultiDrawArenas().getArenaCount());
+        Assert.assertEquals("[indirect3]", render(scene).toString());
+        Assert.assertNotSame(arena, renderer.arena);
+    }
+
+    private static void assertRange(Mesh arena, Mesh source, int[] command) {
+        IndexBuffer sourceIndices = source.getIndexBuffer();
+        IndexBuffer arenaIndices = arena.getIndexBuffer();
+        for (int i = 0; i < command[0]; i++) {
+            Assert.assertEquals(sourceIndices.get(i), arenaIndices.get(command[2] + i));
+        }
+        FloatBuffer sourcePositions = source.getFloatBuffer(Type.Position);
+        FloatBuffer arenaPositions = arena.getFloatBuffer(Type.Position);
+        for (int i = 0; i < source.getVertexCount() * 3; i++) {
+            Assert.assertEquals(sourcePositions.get(i), arenaPositions.get(command[3] * 3 + i), 0f);
+        }
+    }
+
+    private static void assertRange(MultiDrawArena arena, Mesh source, int[] range) {
+        assertRange(arena.getMesh(), source, new int[]{range[1], 1, range[0], range[2], 0});
+    }
+
+    @Test
+    public void testUnusedMeshesAreReleased() {
+        Mesh box = new Box(1f, 1f, 1f);
+        Mesh sphere = new Sphere(8, 8, 1f);
+        MultiDrawArena arena = new MultiDrawArena(box);
+        arena.getRange(box, 1);
+        arena.getRange(sphere, 1);
+        assertRange(arena, box, arena.getRange(box, 2));
+
+        // The sphere holds most of the data, so the arena is compacted.
+        arena.releaseUnused(2);
+        Assert.assertEquals(1, arena.getMeshCount());
+        Assert.assertEquals(box.getVertexCount(), arena.getVertexCount());
+        assertRange(arena, box, arena.getRange(box, 3));
+
+        // A released mesh is appended again when requested.
+        assertRange(arena, sphere, arena.getRange(sphere, 3));
+        Assert.assertEquals(box.getVertexCount() + sphere.getVertexCount(), arena.getVertexCount());
+    }
+
+    @Test
+    public void testDifferentMaterialsAreNotMerged() {
+        Mesh box = new Box(1f, 1f, 1f);
+        Material first = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        Material second = first.clone();
+        Node scene = new Node("scene");
+        for (int i = 0; i < 4; i++) {
+            scene.attachChild(createGeometry(box, i < 3 ? first : second, i * 3f));
+        }
+        Assert.assertEquals("[indirect3, mesh]", render(scene).toString());
+    }
+
+    @Test
+    public void testFallsBackWithoutSupport() {
+        renderer.getCaps().remove(Caps.MultiDrawIndirect);
+        Mesh box = new Box(1f, 1f, 1f);
+        Material material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        Node scene = new Node("scene");
+        for (int i = 0; i < 3; i++) {
+            scene.attachChild(createGeometry(box, material, i * 3f));
+        }
+        Assert.assertEquals("[mesh, mesh, mesh]", render(scene).toString());
+    }
+}
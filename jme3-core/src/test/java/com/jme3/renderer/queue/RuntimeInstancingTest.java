@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.renderer.queue;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.light.DirectionalLight;
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Sphere;
+import com.jme3.system.NullRenderer;
+import com.jme3.system.TestUtil;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that runtime instancing merges geometries sharing a mesh and
+ * material into instanced draws, and leaves the materials unchanged.
+ */
+public class RuntimeInstancingTest {
+
+    /**
+     * Records the instance count of every draw call, and checks that the
+     * watched materials are not modified while drawing.
+     */
+    private static class RecordingRenderer extends NullRenderer {
+
+        final List<Integer> draws = new ArrayList<>();
+        final List<Material> watched = new ArrayList<>();
+
+        @Override
+        public void renderMesh(Mesh mesh, int lod, int count, VertexBuffer[] instanceData) {
+            Assert.assertEquals(count > 1, instanceData != null);
+            for (Material material : watched) {
+                Assert.assertNull(material.getParam("UseInstancing"));
+            }
+            draws.add(count);
+        }
+    }
+
+    private AssetManager assetManager;
+    private RecordingRenderer renderer;
+    private RenderManager renderManager;
+    private final Camera cam = new Camera(640, 480);
+    private final RenderQueue queue = new RenderQueue();
+
+    @Before
+    public void setUp() {
+        assetManager = TestUtil.createAssetManager();
+        renderer = new RecordingRenderer();
+        renderManager = TestUtil.createRenderManager(renderer);
+        cam.setFrustumPerspective(45f, 640f / 480f, 1f, 1000f);
+        cam.setLocation(new Vector3f(0f, 0f, 100f));
+        cam.lookAt(Vector3f.ZERO, Vector3f.UNIT_Y);
+        renderManager.setCamera(cam, false);
+    }
+
+    private Geometry createGeometry(Mesh mesh, Material material, float x) {
+        Geometry geom = new Geometry("geom", mesh);
+        geom.setMaterial(material);
+        geom.setLocalTranslation(x, 0f, 0f);
+        return geom;
+    }
+
+    private List<Integer> render(Node scene) {
+        scene.updateGeometricState();
+        for (int i = 0; i < scene.getQuantity(); i++) {
+            queue.addToQueue((Geometry) scene.getChild(i), Bucket.Opaque);
+        }
+        renderer.draws.clear();
+        queue.renderQueue(Bucket.Opaque, renderManager, cam);
+        return new ArrayList<>(renderer.draws);
+    }
+
+    @Test
+    public void testInstancing() {
+        Mesh box = new Box(1f, 1f, 1f);
+        Mesh sphere = new Sphere(8, 8, 1f);
+        Material unshaded = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        Material lit = new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md");
+        Node scene = new Node("scene");
+        scene.addLight(new DirectionalLight(new Vector3f(0f, -1f, 0f)));
+        for (int i = 0; i < 10; i++) {
+            scene.attachChild(createGeometry(box, unshaded, i * 3f));
+            scene.attachChild(createGeometry(box, lit, i * 3f));
+        }
+        scene.attachChild(createGeometry(sphere, unshaded, -5f));
+        Geometry never = createGeometry(box, unshaded, 5f);
+        never.setBatchHint(Geometry.BatchHint.Never);
+        scene.attachChild(never);
+
+        renderer.watched.add(unshaded);
+        renderer.watched.add(lit);
+        Assert.assertEquals(22, render(scene).size());
+
+        renderManager.setRuntimeInstancing(true);
+        Assert.assertTrue(renderManager.isRuntimeInstancing());
+        List<Integer> draws = render(scene);
+        draws.sort(null);
+        Assert.assertEquals("[1, 1, 10, 10]", draws.toString());
+        Assert.assertNull(unshaded.getParam("UseInstancing"));
+        Assert.assertNull(lit.getParam("UseInstancing"));
+
+        // Rendering again reuses the batches.
+        draws = render(scene);
+        Assert.assertEquals(4, draws.size());
+    }
+
+    @Test
+    public void testDifferentLightsAreNotMerged() {
+        Mesh box = new Box(1f, 1f, 1f);
+        Material lit = new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md");
+        Node scene = new Node("scene");
+        for (int i = 0; i < 6; i++) {
+            Geometry geom = createGeometry(box, lit, i * 3f);
+            if (i % 2 == 0) {
+                geom.addLight(new DirectionalLight(Vector3f.UNIT_X.negate()));
+            }
+            scene.attachChild(geom);
+        }
+        renderManager.setRuntimeInstancing(true);
+        List<Integer> draws = render(scene);
+        // The three geometries without lights share a draw, the others
+        // each have their own light.
+        draws.sort(null);
+        Assert.assertEquals("[1, 1, 1, 3]", draws.toString());
+    }
+}
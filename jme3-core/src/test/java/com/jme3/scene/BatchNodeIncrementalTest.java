@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Sphere;
+import com.jme3.system.TestUtil;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that incremental batching of a {@link BatchNode} produces the
+ * same triangles as a full rebatch while geometries are added, moved and
+ * removed.
+ */
+public class BatchNodeIncrementalTest {
+
+    private final Random random = new Random(3);
+    private Material red;
+    private Material blue;
+
+    @Before
+    public void setUp() {
+        AssetManager assetManager = TestUtil.createAssetManager();
+        red = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        red.setColor("Color", ColorRGBA.Red);
+        blue = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        blue.setColor("Color", ColorRGBA.Blue);
+    }
+
+    private Geometry createGeometry(Mesh mesh, Material material) {
+        Geometry geom = new Geometry("geom", mesh);
+        geom.setMaterial(material);
+        geom.setLocalTranslation(random.nextFloat() * 100f, random.nextFloat() * 100f, random.nextFloat() * 100f);
+        return geom;
+    }
+
+    /**
+     * Collects the non-degenerate triangles of all batches as sorted strings.
+     */
+    private static List<String> triangles(BatchNode node) {
+        List<String> result = new ArrayList<>();
+        for (BatchNode.Batch batch : node.batches) {
+            Mesh mesh = batch.getGeometry().getMesh();
+            FloatBuffer positions = mesh.getFloatBuffer(VertexBuffer.Type.Position);
+            IndexBuffer indices = mesh.getIndexBuffer();
+            for (int i = 0; i < mesh.getTriangleCount() * 3; i += 3) {
+                int a = indices.get(i);
+                int b = indices.get(i + 1);
+                int c = indices.get(i + 2);
+                if (a == b && b == c) {
+                    continue;
+                }
+                StringBuilder sb = new StringBuilder(batch.getGeometry().getMaterial().getParam("Color").toString());
+                for (int v : new int[]{a, b, c}) {
+                    sb.append(String.format(" (%.3f %.3f %.3f)",
+                            positions.get(v * 3), positions.get(v * 3 + 1), positions.get(v * 3 + 2)));
+                }
+                result.add(sb.toString());
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private static void assertSameTriangles(BatchNode incremental) {
+        BatchNode full = new BatchNode("full");
+        for (Spatial child : incremental.getChildren()) {
+            if (!incremental.isBatch(child)) {
+                full.attachChild(child.clone(false));
+            }
+        }
+        full.batch();
+        full.updateGeometricState();
+        incremental.updateGeometricState();
+        Assert.assertEquals(triangles(full), triangles(incremental));
+
+        // The batch bounds must cover every batched geometry.
+        for (Spatial child : incremental.getChildren()) {
+            if (child instanceof Geometry && ((Geometry) child).isGrouped()) {
+                Geometry batchGeom = incremental.batchesByGeom.get(child).getGeometry();
+                Vector3f center = child.getWorldBound().getCenter();
+                Assert.assertTrue(batchGeom.getWorldBound().contains(center));
+            }
+        }
+    }
+
+    /**
+     * Simulates the renderer sending the buffers of a batch to the GPU.
+     */
+    private static void upload(Mesh mesh) {
+        for (VertexBuffer vb : mesh.getBufferList().getArray()) {
+            if (vb.getId() == -1) {
+                vb.setId(1);
+            }
+            vb.clearUpdateNeeded();
+        }
+    }
+
+    @Test
+    public void testAppendSendsOnlyNewVertices() {
+        Mesh box = new Box(1f, 1f, 1f);
+        BatchNode node = new BatchNode("batch");
+        node.setIncrementalBatching(true);
+        for (int i = 0; i < 50; i++) {
+            node.attachChild(createGeometry(box, red));
+        }
+        node.batch();
+        node.updateGeometricState();
+        Mesh batchMesh = node.batches.get(0).getGeometry().getMesh();
+        upload(batchMesh);
+
+        node.attachChild(createGeometry(box, red));
+        node.batch();
+        node.updateGeometricState();
+        Assert.assertSame(batchMesh, node.batches.get(0).getGeometry().getMesh());
+        int firstVertex = 50 * box.getVertexCount();
+        for (VertexBuffer vb : batchMesh.getBufferList().getArray()) {
+            Assert.assertTrue(vb.getBufferType().name(), vb.isUpdateNeeded());
+            if (vb.getBufferType() == VertexBuffer.Type.Index) {
+                Assert.assertTrue(vb.hasDataSizeChanged());
+            } else {
+                Assert.assertEquals(vb.getBufferType().name(), 1, vb.getNumDirtyRanges());
+                Assert.assertEquals(firstVertex, vb.getDirtyRangeStart(0));
+                Assert.assertEquals(firstVertex + box.getVertexCount(), vb.getDirtyRangeEnd(0));
+            }
+        }
+        assertSameTriangles(node);
+
+        // moving a geometry only sends its own vertices
+        upload(batchMesh);
+        Geometry moved = (Geometry) node.getChild(10);
+        moved.move(1f, 2f, 3f);
+        node.updateGeometricState();
+        VertexBuffer positions = batchMesh.getBuffer(VertexBuffer.Type.Position);
+        Assert.assertEquals(1, positions.getNumDirtyRanges());
+        Assert.assertEquals(moved.startIndex, positions.getDirtyRangeStart(0));
+        Assert.assertEquals(moved.startIndex + box.getVertexCount(), positions.getDirtyRangeEnd(0));
+        Assert.assertFalse(batchMesh.getBuffer(VertexBuffer.Type.TexCoord).isUpdateNeeded());
+    }
+
+    @Test
+    public void testAddMoveRemove() {
+        Mesh box = new Box(1f, 1f, 1f);
+        BatchNode node = new BatchNode("batch");
+        node.setIncrementalBatching(true);
+        Assert.assertTrue(node.isIncrementalBatching());
+        List<Geometry> geometries = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Geometry geom = createGeometry(box, red);
+            node.attachChild(geom);
+            geometries.add(geom);
+        }
+        node.batch();
+        node.updateGeometricState();
+        Assert.assertEquals(1, node.batches.size());
+        Geometry batchGeom = node.batches.get(0).getGeometry();
+        Mesh batchMesh = batchGeom.getMesh();
+        assertSameTriangles(node);
+
+        // Appending within the slack keeps the batch mesh.
+        for (int i = 0; i < 10; i++) {
+            Geometry geom = createGeometry(box, red);
+            node.attachChild(geom);
+            geometries.add(geom);
+        }
+        node.batch();
+        Assert.assertSame(batchGeom, node.batches.get(0).getGeometry());
+        Assert.assertSame(batchMesh, batchGeom.getMesh());
+        Assert.assertEquals(60 * 12, batchGeom.getTriangleCount());
+        assertSameTriangles(node);
+
+        // Appending beyond the slack grows the batch.
+        for (int i = 0; i < 40; i++) {
+            Geometry geom = createGeometry(box, red);
+            node.attachChild(geom);
+            geometries.add(geom);
+        }
+        node.batch();
+        Assert.assertSame(batchGeom, node.batches.get(0).getGeometry());
+        assertSameTriangles(node);
+
+        // Move some geometries.
+        for (int i = 0; i < 10; i++) {
+            geometries.get(random.nextInt(geometries.size())).move(5f, -3f, 2f);
+        }
+        assertSameTriangles(node);
+
+        // Remove geometries, they get tombstoned.
+        for (int i = 0; i < 30; i++) {
+            geometries.remove(random.nextInt(geometries.size())).removeFromParent();
+        }
+        assertSameTriangles(node);
+        Assert.assertEquals(1, node.batches.size());
+
+        // Compaction happens during the logical update.
+        node.updateLogicalState(0f);
+        Assert.assertEquals(geometries.size() * 12, node.batches.get(0).getGeometry().getTriangleCount());
+        assertSameTriangles(node);
+        geometries.get(0).move(1f, 1f, 1f);
+        assertSameTriangles(node);
+    }
+
+    @Test
+    public void testRemovedPointsAreNotDrawn() {
+        Mesh points = new Mesh();
+        points.setMode(Mesh.Mode.Points);
+        points.setBuffer(VertexBuffer.Type.Position, 3, new float[]{0f, 0f, 0f, 1f, 0f, 0f, 0f, 1f, 1f});
+        points.setBuffer(VertexBuffer.Type.Index, 1, new short[]{0, 1, 2});
+        points.updateCounts();
+        points.updateBound();
+        BatchNode node = new BatchNode("batch");
+        node.setIncrementalBatching(true);
+        List<Geometry> geometries = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Geometry geom = createGeometry(points, red);
+            node.attachChild(geom);
+            geometries.add(geom);
+        }
+        node.batch();
+        node.updateGeometricState();
+        Mesh batchMesh = node.batches.get(0).getGeometry().getMesh();
+        Assert.assertEquals(Mesh.Mode.Points, batchMesh.getMode());
+        upload(batchMesh);
+
+        Geometry removed = geometries.remove(4);
+        int firstVertex = removed.startIndex;
+        removed.removeFromParent();
+        node.updateGeometricState();
+
+        // the indices of the removed points reference culled vertices only
+        FloatBuffer positions = batchMesh.getFloatBuffer(VertexBuffer.Type.Position);
+        IndexBuffer indices = batchMesh.getIndexBuffer();
+        int culled = 0;
+        for (int i = 0; i < batchMesh.getTriangleCount(); i++) {
+            int v = indices.get(i);
+            if (Float.isNaN(positions.get(v * 3))) {
+                culled++;
+            } else {
+                Assert.assertTrue(v < firstVertex || v >= firstVertex + points.getVertexCount());
+            }
+        }
+        Assert.assertEquals(points.getVertexCount(), culled);
+        VertexBuffer pvb = batchMesh.getBuffer(VertexBuffer.Type.Position);
+        Assert.assertEquals(1, pvb.getNumDirtyRanges());
+        Assert.assertEquals(firstVertex, pvb.getDirtyRangeStart(0));
+
+        // the batch bound ignores the culled vertices
+        for (Geometry geom : geometries) {
+            Assert.assertTrue(node.batches.get(0).getGeometry().getWorldBound()
+                    .contains(geom.getWorldBound().getCenter()));
+        }
+        Assert.assertFalse(Float.isNaN(node.batches.get(0).getGeometry().getWorldBound().getCenter().x));
+    }
+
+    @Test
+    public void testMaterialAndMeshChanges() {
+        Mesh box = new Box(1f, 1f, 1f);
+        BatchNode node = new BatchNode("batch");
+        node.setIncrementalBatching(true);
+        List<Geometry> geometries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Geometry geom = createGeometry(box, red);
+            node.attachChild(geom);
+            geometries.add(geom);
+        }
+        node.batch();
+
+        Geometry recolored = geometries.get(3);
+        recolored.setMaterial(blue);
+        Assert.assertFalse(recolored.isGrouped());
+        Geometry reshaped = geometries.get(7);
+        reshaped.setMesh(new Sphere(6, 6, 1f));
+        Assert.assertFalse(reshaped.isGrouped());
+
+        node.batch();
+        Assert.assertTrue(recolored.isGrouped());
+        Assert.assertTrue(reshaped.isGrouped());
+        Assert.assertEquals(2, node.batches.size());
+        assertSameTriangles(node);
+
+        // Detaching everything leaves an empty batch that gets dropped.
+        for (Geometry geom : geometries) {
+            if (geom.getMaterial() == blue) {
+                geom.removeFromParent();
+            }
+        }
+        node.updateLogicalState(0f);
+        Assert.assertEquals(1, node.batches.size());
+        assertSameTriangles(node);
+    }
+}
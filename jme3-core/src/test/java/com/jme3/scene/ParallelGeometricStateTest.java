@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.light.PointLight;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.shape.Box;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that refreshing a scene graph in parallel via
+ * {@link Node#setGeometricUpdatePool(java.util.concurrent.ForkJoinPool)}
+ * produces the same world state as the serial refresh.
+ */
+public class ParallelGeometricStateTest {
+
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Builds a tree with deep and wide branches, and a light whose distance
+     * sort order differs between geometries.
+     */
+    private static Node createScene(long seed) {
+        Random random = new Random(seed);
+        Mesh mesh = new Box(0.5f, 0.5f, 0.5f);
+        Node root = new Node("root");
+        root.addLight(new PointLight(new Vector3f(10f, 0f, 0f), 50f));
+        root.addLight(new PointLight(new Vector3f(-10f, 0f, 0f), 50f));
+
+        for (int i = 0; i < 8; i++) {
+            Node branch = new Node("branch" + i);
+            branch.setLocalTranslation(random.nextFloat() * 20f, 0f, random.nextFloat() * 20f);
+            root.attachChild(branch);
+            for (int j = 0; j < 6; j++) {
+                Node twig = new Node("twig" + i + "_" + j);
+                twig.setLocalRotation(new Quaternion().fromAngleAxis(
+                        random.nextFloat() * FastMath.TWO_PI, Vector3f.UNIT_Y));
+                branch.attachChild(twig);
+                for (int k = 0; k < 10; k++) {
+                    Geometry geom = new Geometry("geom" + i + "_" + j + "_" + k, mesh);
+                    geom.setLocalTranslation(random.nextFloat() * 4f, random.nextFloat() * 4f, 0f);
+                    twig.attachChild(geom);
+                }
+            }
+        }
+
+        // A wide node, so that children are also split into ranges.
+        Node flat = new Node("flat");
+        root.attachChild(flat);
+        for (int i = 0; i < 500; i++) {
+            Geometry geom = new Geometry("flat" + i, mesh);
+            geom.setLocalTranslation(random.nextFloat() * 100f, 0f, random.nextFloat() * 100f);
+            flat.attachChild(geom);
+        }
+        return root;
+    }
+
+    private static List<Spatial> flatten(Node root) {
+        final List<Spatial> result = new ArrayList<>();
+        root.depthFirstTraversal(new SceneGraphVisitor() {
+            @Override
+            public void visit(Spatial spatial) {
+                result.add(spatial);
+            }
+        });
+        return result;
+    }
+
+    private static void assertSameState(Node expectedRoot, Node actualRoot) {
+        List<Spatial> expected = flatten(expectedRoot);
+        List<Spatial> actual = flatten(actualRoot);
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Spatial e = expected.get(i);
+            Spatial a = actual.get(i);
+            Assert.assertEquals(e.getName(), a.getName());
+            Assert.assertEquals(e.getName(), 0, a.refreshFlags);
+            Assert.assertEquals(e.getName(), e.getWorldTransform(), a.getWorldTransform());
+
+            BoundingBox eb = (BoundingBox) e.getWorldBound();
+            BoundingBox ab = (BoundingBox) a.getWorldBound();
+            Assert.assertEquals(e.getName(), eb.getCenter(), ab.getCenter());
+            Assert.assertEquals(e.getName(), eb.getExtent(null), ab.getExtent(null));
+
+            Assert.assertEquals(e.getName(), e.getWorldLightList().size(), a.getWorldLightList().size());
+            for (int j = 0; j < e.getWorldLightList().size(); j++) {
+                PointLight el = (PointLight) e.getWorldLightList().get(j);
+                PointLight al = (PointLight) a.getWorldLightList().get(j);
+                Assert.assertEquals(e.getName(), el.getPosition(), al.getPosition());
+            }
+        }
+    }
+
+    @Test
+    public void testInitialRefresh() {
+        Node serial = createScene(1);
+        Node parallel = createScene(1);
+        parallel.setGeometricUpdatePool(pool);
+
+        serial.updateGeometricState();
+        parallel.updateGeometricState();
+        assertSameState(serial, parallel);
+    }
+
+    @Test
+    public void testDirtySubtrees() {
+        Node serial = createScene(2);
+        Node parallel = createScene(2);
+        parallel.setGeometricUpdatePool(pool);
+        serial.updateGeometricState();
+        parallel.updateGeometricState();
+
+        // Move a few unrelated spatials at different depths.
+        Random random = new Random(3);
+        List<Spatial> serialSpatials = flatten(serial);
+        List<Spatial> parallelSpatials = flatten(parallel);
+        for (int frame = 0; frame < 5; frame++) {
+            for (int n = 0; n < 20; n++) {
+                int index = 1 + random.nextInt(serialSpatials.size() - 1);
+                Vector3f offset = new Vector3f(random.nextFloat(), random.nextFloat(), random.nextFloat());
+                serialSpatials.get(index).move(offset);
+                parallelSpatials.get(index).move(offset);
+            }
+            serial.updateGeometricState();
+            parallel.updateGeometricState();
+            assertSameState(serial, parallel);
+        }
+    }
+
+    @Test
+    public void testRootMoved() {
+        Node serial = createScene(4);
+        Node parallel = createScene(4);
+        parallel.setGeometricUpdatePool(pool);
+        serial.updateGeometricState();
+        parallel.updateGeometricState();
+
+        serial.rotate(0f, 1f, 0f);
+        parallel.rotate(0f, 1f, 0f);
+        serial.updateGeometricState();
+        parallel.updateGeometricState();
+        assertSameState(serial, parallel);
+    }
+
+    /**
+     * Branches with a {@link TransformStore} are forked as their own tasks,
+     * their stores must still be refreshed.
+     */
+    @Test
+    public void testTransformStores() {
+        Node serial = createScene(5);
+        Node parallel = createScene(5);
+        parallel.setGeometricUpdatePool(pool);
+        List<Node> branches = new ArrayList<>();
+        for (Spatial child : parallel.getChildren()) {
+            ((Node) child).setTransformStoreEnabled(true);
+            branches.add((Node) child);
+        }
+        serial.updateGeometricState();
+        parallel.updateGeometricState();
+        assertSameState(serial, parallel);
+
+        Random random = new Random(6);
+        List<Spatial> serialSpatials = flatten(serial);
+        List<Spatial> parallelSpatials = flatten(parallel);
+        for (int frame = 0; frame < 3; frame++) {
+            for (int n = 0; n < 20; n++) {
+                int index = 1 + random.nextInt(serialSpatials.size() - 1);
+                Vector3f offset = new Vector3f(random.nextFloat(), random.nextFloat(), random.nextFloat());
+                serialSpatials.get(index).move(offset);
+                parallelSpatials.get(index).move(offset);
+            }
+            serial.updateGeometricState();
+            parallel.updateGeometricState();
+            assertSameState(serial, parallel);
+
+            Transform stored = new Transform();
+            for (Node branch : branches) {
+                TransformStore store = branch.getTransformStore();
+                Assert.assertEquals(branch.getName(), flatten(branch).size(), store.size());
+                for (Spatial spatial : flatten(branch)) {
+                    int slot = store.getSlot(spatial);
+                    Assert.assertTrue(spatial.getName(), slot >= 0);
+                    Assert.assertEquals(spatial.getName(), spatial.getWorldTransform(),
+                            store.getWorldTransform(slot, stored));
+                }
+            }
+        }
+    }
+}
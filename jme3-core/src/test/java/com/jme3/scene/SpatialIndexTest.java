@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.GeometryList;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.scene.shape.Box;
+import com.jme3.scene.shape.Sphere;
+import com.jme3.system.TestUtil;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that culling through a {@link SpatialIndex} queues the same
+ * geometries as the linear traversal, while the index is kept up to date
+ * with moving, attached and detached children.
+ */
+public class SpatialIndexTest {
+
+    private Material material;
+    private RenderManager renderManager;
+    private ViewPort viewPort;
+    private Camera cam;
+    private final Random random = new Random(5);
+
+    @Before
+    public void setUp() {
+        AssetManager assetManager = TestUtil.createAssetManager();
+        material = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        renderManager = TestUtil.createRenderManager();
+        cam = new Camera(640, 480);
+        cam.setFrustumPerspective(45f, 640f / 480f, 1f, 300f);
+        viewPort = renderManager.createMainView("test", cam);
+    }
+
+    private Geometry createGeometry(String name, Mesh mesh) {
+        Geometry geom = new Geometry(name, mesh);
+        geom.setMaterial(material);
+        geom.setLocalTranslation(randomPosition());
+        return geom;
+    }
+
+    private Vector3f randomPosition() {
+        return new Vector3f(
+                (random.nextFloat() * 2f - 1f) * 500f,
+                (random.nextFloat() * 2f - 1f) * 20f,
+                (random.nextFloat() * 2f - 1f) * 500f);
+    }
+
+    private Set<String> queued(Node scene) {
+        return queued(scene, Bucket.Opaque);
+    }
+
+    private Set<String> queued(Node scene, Bucket bucket) {
+        scene.updateGeometricState();
+        renderManager.renderScene(scene, viewPort);
+        GeometryList list = viewPort.getQueue().getList(bucket);
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < list.size(); i++) {
+            names.add(list.get(i).getName());
+        }
+        Assert.assertEquals("duplicate geometries queued", list.size(), names.size());
+        viewPort.getQueue().clear();
+        return names;
+    }
+
+    private void lookFrom(Vector3f location, Vector3f target) {
+        cam.setLocation(location);
+        cam.lookAt(target, Vector3f.UNIT_Y);
+    }
+
+    @Test
+    public void testMatchesLinearCulling() {
+        Mesh box = new Box(1f, 1f, 1f);
+        Mesh sphere = new Sphere(6, 6, 1f);
+        Node linear = new Node("linear");
+        Node indexed = new Node("indexed");
+        indexed.setSpatialIndexEnabled(true);
+        Assert.assertTrue(indexed.isSpatialIndexEnabled());
+        for (int i = 0; i < 3000; i++) {
+            Geometry geom = createGeometry("geom" + i, i % 3 == 0 ? sphere : box);
+            linear.attachChild(geom);
+            indexed.attachChild(geom.clone(false));
+        }
+        // A nested node inside the index.
+        Node group = new Node("group");
+        group.attachChild(createGeometry("nested", box));
+        linear.attachChild(group);
+        indexed.attachChild(group.clone(false));
+
+        Vector3f[] targets = {Vector3f.ZERO, new Vector3f(400f, 0f, 400f), new Vector3f(-300f, 0f, 100f)};
+        for (Vector3f target : targets) {
+            lookFrom(new Vector3f(0f, 50f, 0f).addLocal(target.mult(0.2f)), target);
+            Set<String> expected = queued(linear);
+            Set<String> actual = queued(indexed);
+            Assert.assertFalse(expected.isEmpty());
+            Assert.assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        Mesh box = new Box(1f, 1f, 1f);
+        Node linear = new Node("linear");
+        Node indexed = new Node("indexed");
+        indexed.setSpatialIndexEnabled(true);
+        List<Geometry> linearGeoms = new ArrayList<>();
+        List<Geometry> indexedGeoms = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Geometry geom = createGeometry("geom" + i, box);
+            Geometry copy = geom.clone(false);
+            linear.attachChild(geom);
+            indexed.attachChild(copy);
+            linearGeoms.add(geom);
+            indexedGeoms.add(copy);
+        }
+        lookFrom(new Vector3f(0f, 30f, 0f), new Vector3f(100f, 0f, 50f));
+        Assert.assertEquals(queued(linear), queued(indexed));
+
+        for (int frame = 0; frame < 10; frame++) {
+            // Move some children, possibly in or out of view.
+            for (int n = 0; n < 50; n++) {
+                int index = random.nextInt(linearGeoms.size());
+                Vector3f position = randomPosition();
+                linearGeoms.get(index).setLocalTranslation(position);
+                indexedGeoms.get(index).setLocalTranslation(position);
+            }
+            // Attach and detach some children.
+            Geometry added = createGeometry("added" + frame, box);
+            linear.attachChild(added);
+            indexed.attachChild(added.clone(false));
+            int removed = random.nextInt(linear.getQuantity());
+            linearGeoms.remove(linear.detachChildAt(removed));
+            indexedGeoms.remove(indexed.detachChildAt(removed));
+
+            Assert.assertEquals(queued(linear), queued(indexed));
+        }
+    }
+
+    @Test
+    public void testNeverCulledChildren() {
+        Mesh box = new Box(1f, 1f, 1f);
+        Node linear = new Node("linear");
+        Node indexed = new Node("indexed");
+        indexed.setSpatialIndexEnabled(true);
+        for (int i = 0; i < 1000; i++) {
+            Geometry geom = createGeometry("geom" + i, box);
+            if (i % 100 == 0) {
+                // e.g. a sky, far outside of the frustum
+                geom.setCullHint(Spatial.CullHint.Never);
+            }
+            linear.attachChild(geom);
+            indexed.attachChild(geom.clone(false));
+        }
+        lookFrom(new Vector3f(0f, 30f, 0f), new Vector3f(100f, 0f, 50f));
+        Set<String> expected = queued(linear);
+        for (int i = 0; i < 1000; i += 100) {
+            Assert.assertTrue(expected.contains("geom" + i));
+        }
+        Assert.assertEquals(expected, queued(indexed));
+
+        // changing the hint of an indexed child is picked up
+        linear.getChild(1).setCullHint(Spatial.CullHint.Never);
+        indexed.getChild(1).setCullHint(Spatial.CullHint.Never);
+        linear.getChild(0).setCullHint(Spatial.CullHint.Inherit);
+        indexed.getChild(0).setCullHint(Spatial.CullHint.Inherit);
+        expected = queued(linear);
+        Assert.assertTrue(expected.contains("geom1"));
+        Assert.assertEquals(expected, queued(indexed));
+
+        // an indexed node that is never culled does not cull its children
+        linear.setCullHint(Spatial.CullHint.Never);
+        indexed.setCullHint(Spatial.CullHint.Never);
+        expected = queued(linear);
+        Assert.assertEquals(1000, expected.size());
+        Assert.assertEquals(expected, queued(indexed));
+    }
+
+    @Test
+    public void testGuiChildren() {
+        Mesh box = new Box(5f, 5f, 1f);
+        Node linear = new Node("linear");
+        Node indexed = new Node("indexed");
+        indexed.setSpatialIndexEnabled(true);
+        for (int i = 0; i < 200; i++) {
+            Geometry geom = createGeometry("geom" + i, box);
+            if (i % 10 == 0) {
+                // screen coordinates, rejected by the 3D frustum
+                geom.setQueueBucket(Bucket.Gui);
+                geom.setLocalTranslation(20f + i, 20f + i, 0f);
+            }
+            linear.attachChild(geom);
+            indexed.attachChild(geom.clone(false));
+        }
+        lookFrom(new Vector3f(0f, 30f, 0f), new Vector3f(-100f, 0f, -400f));
+        Set<String> expected = queued(linear, Bucket.Gui);
+        Assert.assertEquals(20, expected.size());
+        Assert.assertEquals(expected, queued(indexed, Bucket.Gui));
+
+        // a gui node is culled against the screen, not through the index
+        linear.setQueueBucket(Bucket.Gui);
+        indexed.setQueueBucket(Bucket.Gui);
+        expected = queued(linear, Bucket.Gui);
+        Assert.assertEquals(expected, queued(indexed, Bucket.Gui));
+    }
+
+    @Test
+    public void testSublinearQuery() {
+        Mesh box = new Box(1f, 1f, 1f);
+        Node indexed = new Node("indexed");
+        indexed.setSpatialIndexEnabled(true);
+        for (int i = 0; i < 4000; i++) {
+            indexed.attachChild(createGeometry("geom" + i, box));
+        }
+        indexed.updateGeometricState();
+
+        // Look at a corner of the world from close by.
+        lookFrom(new Vector3f(480f, 10f, 480f), new Vector3f(500f, 0f, 500f));
+        cam.setPlaneState(0);
+        final int[] visited = new int[1];
+        indexed.getSpatialIndex().cull(cam, (child, planeState) -> visited[0]++);
+        Assert.assertTrue("visited " + visited[0], visited[0] < indexed.getQuantity() / 10);
+
+        indexed.setSpatialIndexEnabled(false);
+        Assert.assertNull(indexed.getSpatialIndex());
+    }
+}
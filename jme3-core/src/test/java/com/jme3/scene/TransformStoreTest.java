@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Matrix3f;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.shape.Box;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that a branch with a {@link TransformStore} gets the same world
+ * transforms as an identical branch without one.
+ */
+public class TransformStoreTest {
+
+    private final Random random = new Random(3);
+    private final Mesh mesh = new Box(0.5f, 0.5f, 0.5f);
+
+    /**
+     * Builds a small hierarchy and records its spatials in creation order, so
+     * that two hierarchies built with the same seed can be compared.
+     */
+    private Node createTree(List<Spatial> spatials, List<Node> nodes) {
+        Node root = new Node("root");
+        nodes.add(root);
+        spatials.add(root);
+        for (int i = 0; i < 4; i++) {
+            Node branch = new Node("branch" + i);
+            root.attachChild(branch);
+            nodes.add(branch);
+            spatials.add(branch);
+            for (int j = 0; j < 3; j++) {
+                Node leaf = new Node("leaf" + i + j);
+                branch.attachChild(leaf);
+                nodes.add(leaf);
+                spatials.add(leaf);
+                for (int k = 0; k < 3; k++) {
+                    Geometry geom = new Geometry("geom" + i + j + k, mesh);
+                    leaf.attachChild(geom);
+                    spatials.add(geom);
+                }
+            }
+        }
+        return root;
+    }
+
+    private void assertSameWorldTransforms(List<Spatial> expected, List<Spatial> actual) {
+        for (int i = 0; i < expected.size(); i++) {
+            Transform e = expected.get(i).getWorldTransform();
+            Transform a = actual.get(i).getWorldTransform();
+            String name = actual.get(i).getName();
+            Assert.assertTrue(name, e.getTranslation().isSimilar(a.getTranslation(), 1e-4f));
+            Assert.assertTrue(name, e.getRotation().isSimilar(a.getRotation(), 1e-5f));
+            Assert.assertTrue(name, e.getScale().isSimilar(a.getScale(), 1e-5f));
+        }
+    }
+
+    @Test
+    public void testMatchesRegularTransforms() {
+        List<Spatial> plainSpatials = new ArrayList<>();
+        List<Node> plainNodes = new ArrayList<>();
+        Node plainRoot = createTree(plainSpatials, plainNodes);
+        List<Spatial> storedSpatials = new ArrayList<>();
+        List<Node> storedNodes = new ArrayList<>();
+        Node storedRoot = createTree(storedSpatials, storedNodes);
+
+        // The stored branch hangs below a moving parent, like in a scene.
+        Node plainScene = new Node("scene");
+        plainScene.attachChild(plainRoot);
+        Node storedScene = new Node("scene");
+        storedScene.attachChild(storedRoot);
+        storedRoot.setTransformStoreEnabled(true);
+
+        for (int frame = 0; frame < 50; frame++) {
+            if (frame == 20) {
+                // A nested store takes over part of the branch.
+                storedNodes.get(1).setTransformStoreEnabled(true);
+            }
+            if (frame == 40) {
+                storedNodes.get(1).setTransformStoreEnabled(false);
+            }
+            if (frame % 10 == 5) {
+                float angle = random.nextFloat();
+                plainScene.setLocalRotation(new Quaternion().fromAngles(0f, angle, 0f));
+                storedScene.setLocalRotation(new Quaternion().fromAngles(0f, angle, 0f));
+            }
+
+            for (int change = 0; change < 10; change++) {
+                int index = random.nextInt(plainSpatials.size());
+                Vector3f translation = new Vector3f(random.nextFloat() * 10f, random.nextFloat(), -random.nextFloat());
+                Quaternion rotation = new Quaternion().fromAngles(random.nextFloat(), random.nextFloat() * FastMath.PI, 0f);
+                float scale = 0.5f + random.nextFloat();
+                for (List<Spatial> spatials : new List[] { plainSpatials, storedSpatials }) {
+                    Spatial spatial = spatials.get(index);
+                    spatial.setLocalTranslation(translation);
+                    spatial.setLocalRotation(rotation);
+                    spatial.setLocalScale(scale, 1f, scale);
+                }
+            }
+
+            if (frame % 3 == 0) {
+                // Move a geometry to another leaf.
+                int from = plainSpatials.size() - 1 - random.nextInt(12);
+                int to = 2 + random.nextInt(plainNodes.size() - 2);
+                if (plainSpatials.get(from) instanceof Geometry) {
+                    plainNodes.get(to).attachChild(plainSpatials.get(from));
+                    storedNodes.get(to).attachChild(storedSpatials.get(from));
+                }
+            }
+
+            // Read a world transform between updates.
+            int index = random.nextInt(plainSpatials.size());
+            Assert.assertTrue(plainSpatials.get(index).getWorldTranslation()
+                    .isSimilar(storedSpatials.get(index).getWorldTranslation(), 1e-4f));
+
+            plainScene.updateGeometricState();
+            storedScene.updateGeometricState();
+            assertSameWorldTransforms(plainSpatials, storedSpatials);
+        }
+    }
+
+    @Test
+    public void testSlotsFollowTheBranch() {
+        List<Spatial> spatials = new ArrayList<>();
+        Node root = createTree(spatials, new ArrayList<>());
+        root.setTransformStoreEnabled(true);
+        root.updateGeometricState();
+
+        TransformStore store = root.getTransformStore();
+        Assert.assertEquals(spatials.size(), store.size());
+        for (Spatial spatial : spatials) {
+            int slot = store.getSlot(spatial);
+            Assert.assertSame(spatial, store.getSpatial(slot));
+            if (spatial.getParent() != null) {
+                Assert.assertTrue("parents come first", store.getSlot(spatial.getParent()) < slot);
+            }
+        }
+
+        Spatial detached = spatials.get(spatials.size() - 1);
+        detached.removeFromParent();
+        root.updateGeometricState();
+        Assert.assertEquals(spatials.size() - 1, store.size());
+        Assert.assertEquals(-1, store.getSlot(detached));
+
+        Node clone = (Node) root.clone(false);
+        Assert.assertNotSame(store, clone.getTransformStore());
+        Assert.assertEquals(-1, store.getSlot(clone.getChild(0)));
+        clone.updateGeometricState();
+        Assert.assertEquals(store.size(), clone.getTransformStore().size());
+
+        root.setTransformStoreEnabled(false);
+        Assert.assertNull(root.getTransformStore());
+        Assert.assertEquals(-1, store.getSlot(spatials.get(1)));
+    }
+
+    @Test
+    public void testNestedStoreKeepsItsBranch() {
+        List<Spatial> spatials = new ArrayList<>();
+        List<Node> nodes = new ArrayList<>();
+        Node root = createTree(spatials, nodes);
+        root.setTransformStoreEnabled(true);
+        Node branch = nodes.get(1);
+        branch.setTransformStoreEnabled(true);
+        root.updateGeometricState();
+
+        TransformStore store = root.getTransformStore();
+        TransformStore nested = branch.getTransformStore();
+        Assert.assertEquals(-1, store.getSlot(branch));
+        Assert.assertEquals(0, nested.getSlot(branch));
+        Assert.assertEquals(spatials.size() - nested.size(), store.size());
+        for (Spatial child : branch.getChildren()) {
+            Assert.assertEquals(-1, store.getSlot(child));
+            Assert.assertTrue(nested.getSlot(child) > 0);
+        }
+
+        branch.setTransformStoreEnabled(false);
+        root.updateGeometricState();
+        Assert.assertEquals(spatials.size(), store.size());
+        Assert.assertTrue(store.getSlot(branch) > 0);
+    }
+
+    @Test
+    public void testInstanceDataMatchesWorldMatrices() {
+        List<Spatial> spatials = new ArrayList<>();
+        Node root = createTree(spatials, new ArrayList<>());
+        for (Spatial spatial : spatials) {
+            spatial.setLocalTranslation(random.nextFloat(), random.nextFloat(), random.nextFloat());
+            spatial.setLocalRotation(new Quaternion().fromAngles(random.nextFloat(), random.nextFloat(), 0f));
+            spatial.setLocalScale(1f + random.nextFloat());
+        }
+        root.setTransformStoreEnabled(true);
+        root.updateGeometricState();
+
+        TransformStore store = root.getTransformStore();
+        FloatBuffer data = store.getInstanceData();
+        Assert.assertEquals(store.size() * TransformStore.INSTANCE_SIZE, data.limit());
+
+        float[] expected = new float[TransformStore.INSTANCE_SIZE];
+        for (Spatial spatial : spatials) {
+            if (!(spatial instanceof Geometry)) {
+                continue;
+            }
+            encode(((Geometry) spatial).getWorldMatrix(), expected);
+            int base = store.getSlot(spatial) * TransformStore.INSTANCE_SIZE;
+            for (int i = 0; i < expected.length; i++) {
+                Assert.assertEquals(spatial.getName() + "[" + i + "]", expected[i], data.get(base + i), 1e-4f);
+            }
+        }
+    }
+
+    /**
+     * Encodes a world matrix the way InstancedGeometry does.
+     */
+    private static void encode(Matrix4f worldMatrix, float[] store) {
+        Matrix3f rotation = worldMatrix.toRotationMatrix();
+        rotation.invertLocal();
+        Quaternion quat = new Quaternion().fromRotationMatrix(rotation);
+        store[0] = worldMatrix.m00;
+        store[1] = worldMatrix.m10;
+        store[2] = worldMatrix.m20;
+        store[3] = quat.getX();
+        store[4] = worldMatrix.m01;
+        store[5] = worldMatrix.m11;
+        store[6] = worldMatrix.m21;
+        store[7] = quat.getY();
+        store[8] = worldMatrix.m02;
+        store[9] = worldMatrix.m12;
+        store[10] = worldMatrix.m22;
+        store[11] = quat.getZ();
+        store[12] = worldMatrix.m03;
+        store[13] = worldMatrix.m13;
+        store[14] = worldMatrix.m23;
+        store[15] = quat.getW();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.scene;
+
+import com.jme3.renderer.opengl.GL;
+import com.jme3.renderer.opengl.GLExt;
+import com.jme3.renderer.opengl.GLFbo;
+import com.jme3.renderer.opengl.GLRenderer;
+import com.jme3.scene.VertexBuffer.Type;
+import com.jme3.util.BufferUtils;
+import java.lang.reflect.Proxy;
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies the tracking of modified element ranges in {@link VertexBuffer}
+ * and their partial upload by the {@link GLRenderer}.
+ */
+public class VertexBufferDirtyRangeTest {
+
+    private static VertexBuffer createUploadedBuffer(int vertices) {
+        Mesh mesh = new Mesh();
+        mesh.setBuffer(Type.Position, 3, new float[vertices * 3]);
+        VertexBuffer vb = mesh.getBuffer(Type.Position);
+        // pretend the buffer was sent to the GPU
+        vb.setId(1);
+        vb.clearUpdateNeeded();
+        return vb;
+    }
+
+    private static int[] ranges(VertexBuffer vb) {
+        int[] ranges = new int[vb.getNumDirtyRanges() * 2];
+        for (int i = 0; i < vb.getNumDirtyRanges(); i++) {
+            ranges[i * 2] = vb.getDirtyRangeStart(i);
+            ranges[i * 2 + 1] = vb.getDirtyRangeEnd(i);
+        }
+        return ranges;
+    }
+
+    @Test
+    public void testMergeRanges() {
+        VertexBuffer vb = createUploadedBuffer(100);
+        vb.updateData(10, 5);
+        vb.updateData(40, 10);
+        vb.updateData(0, 2);
+        Assert.assertTrue(vb.isUpdateNeeded());
+        Assert.assertArrayEquals(new int[]{0, 2, 10, 15, 40, 50}, ranges(vb));
+
+        // touching and overlapping ranges are merged
+        vb.updateData(15, 5);
+        vb.updateData(2, 3);
+        Assert.assertArrayEquals(new int[]{0, 5, 10, 20, 40, 50}, ranges(vb));
+        vb.updateData(4, 40);
+        Assert.assertArrayEquals(new int[]{0, 50}, ranges(vb));
+
+        vb.clearUpdateNeeded();
+        Assert.assertEquals(0, vb.getNumDirtyRanges());
+    }
+
+    @Test
+    public void testTooManyRanges() {
+        VertexBuffer vb = createUploadedBuffer(100);
+        for (int i = 0; i < 8; i++) {
+            vb.updateData(i * 10 + 5, 1);
+        }
+        Assert.assertEquals(8, vb.getNumDirtyRanges());
+        vb.updateData(90, 2);
+        Assert.assertArrayEquals(new int[]{5, 92}, ranges(vb));
+    }
+
+    @Test
+    public void testFullUpdateWins() {
+        VertexBuffer vb = createUploadedBuffer(100);
+        vb.updateData(10, 5);
+        vb.updateData(vb.getData());
+        Assert.assertTrue(vb.isUpdateNeeded());
+        Assert.assertEquals(0, vb.getNumDirtyRanges());
+        vb.updateData(20, 5);
+        Assert.assertEquals(0, vb.getNumDirtyRanges());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRangeOutside() {
+        createUploadedBuffer(10).updateData(8, 3);
+    }
+
+    @Test
+    public void testChangedData() {
+        Mesh mesh = new Mesh();
+        float[] positions = new float[30];
+        mesh.setBuffer(Type.Position, 3, positions);
+        VertexBuffer vb = mesh.getBuffer(Type.Position);
+        vb.setId(1);
+        vb.clearUpdateNeeded();
+
+        positions[4] = 1f;
+        positions[5] = 1f;
+        positions[27] = 2f;
+        mesh.setBuffer(Type.Position, 3, positions);
+        Assert.assertTrue(vb.isUpdateNeeded());
+        Assert.assertArrayEquals(new int[]{1, 2, 9, 10}, ranges(vb));
+        Assert.assertEquals(2f, ((FloatBuffer) vb.getData()).get(27), 0f);
+
+        // the same data is not sent again
+        vb.clearUpdateNeeded();
+        mesh.setBuffer(Type.Position, 3, positions);
+        Assert.assertFalse(vb.isUpdateNeeded());
+
+        // a different size is a full update
+        mesh.setBuffer(Type.Position, 3, new float[33]);
+        Assert.assertTrue(vb.isUpdateNeeded());
+        Assert.assertEquals(0, vb.getNumDirtyRanges());
+    }
+
+    @Test
+    public void testPartialUpload() {
+        final List<String> calls = new ArrayList<>();
+        Object gl = Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{GL.class, GLExt.class, GLFbo.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("glGenBuffers")) {
+                        ((IntBuffer) args[0]).put(0, 1);
+                    } else if (name.equals("glBufferData")) {
+                        calls.add(name + " " + ((Buffer) args[1]).remaining());
+                    } else if (name.equals("glBufferSubData")) {
+                        calls.add(name + " " + args[1] + " " + ((Buffer) args[2]).remaining());
+                    }
+                    return null;
+                });
+        GLRenderer renderer = new GLRenderer((GL) gl, (GLExt) gl, (GLFbo) gl);
+
+        VertexBuffer vb = new VertexBuffer(Type.Position);
+        vb.setupData(VertexBuffer.Usage.Dynamic, 3, VertexBuffer.Format.Float,
+                BufferUtils.createFloatBuffer(300));
+        renderer.updateBufferData(vb);
+        Assert.assertEquals(Arrays.asList("glBufferData 300"), calls);
+
+        calls.clear();
+        vb.updateData(10, 2);
+        vb.updateData(50, 1);
+        renderer.updateBufferData(vb);
+        Assert.assertEquals(Arrays.asList("glBufferSubData 120 6", "glBufferSubData 600 3"), calls);
+        Assert.assertFalse(vb.isUpdateNeeded());
+        Assert.assertEquals(0, vb.getData().position());
+        Assert.assertEquals(300, vb.getData().limit());
+
+        calls.clear();
+        vb.updateData(vb.getData());
+        renderer.updateBufferData(vb);
+        Assert.assertEquals(Arrays.asList("glBufferData 300"), calls);
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.shader;
+
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.shader.bufferobject.BufferObject;
+import com.jme3.shader.bufferobject.BufferRegion;
+import com.jme3.shader.bufferobject.DirtyRegionsIterator;
+import com.jme3.system.NanoTimer;
+import com.jme3.system.NullRenderer;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Verifies the frame and object uniform blocks of the
+ * {@link UniformBindingManager}.
+ */
+public class UniformBindingManagerBlockTest {
+
+    private final BufferObject[] bound = new BufferObject[2];
+    private final int[] boundOffsets = new int[2];
+    private final int[] boundSizes = new int[2];
+    private int boundOffset = -1, boundSize = -1;
+    private final NullRenderer renderer = new NullRenderer() {
+        @Override
+        public void setUniformBufferObject(int bindingPoint, BufferObject bufferObject) {
+            bound[bindingPoint] = bufferObject;
+        }
+
+        @Override
+        public void setUniformBufferObject(int bindingPoint, BufferObject bufferObject, int offset, int size) {
+            bound[bindingPoint] = bufferObject;
+            boundOffsets[bindingPoint] = offset;
+            boundSizes[bindingPoint] = size;
+            if (bindingPoint == UniformBindingManager.OBJECT_BLOCK_BINDING) {
+                boundOffset = offset;
+                boundSize = size;
+            }
+        }
+    };
+    private final UniformBindingManager manager = new UniformBindingManager();
+    private final Camera cam = new Camera(640, 480);
+
+    private Shader createShader() {
+        Shader shader = new Shader();
+        shader.addUniformBinding(UniformBinding.FrameBlock);
+        shader.addUniformBinding(UniformBinding.ObjectBlock);
+        shader.addUniformBinding(UniformBinding.WorldMatrix);
+        return shader;
+    }
+
+    private void setCamera() {
+        cam.setLocation(new Vector3f(1, 2, 3));
+        cam.update();
+        manager.setCamera(cam, cam.getViewMatrix(), cam.getProjectionMatrix(), cam.getViewProjectionMatrix());
+        manager.setViewPort(0, 0, 640, 480);
+    }
+
+    /**
+     * Simulates the renderer uploading the dirty regions of the buffer.
+     */
+    private static void upload(BufferObject bufferObject) {
+        DirtyRegionsIterator it = bufferObject.getDirtyRegions();
+        BufferRegion region;
+        while (it.hasNext() && (region = it.next()) != null) {
+            region.clearDirty();
+        }
+        bufferObject.clearUpdateNeeded();
+    }
+
+    @Test
+    public void testBlocksAreBound() {
+        Shader shader = createShader();
+        setCamera();
+        manager.updateBufferBlockBindings(shader, renderer);
+
+        BufferObject frame = bound[UniformBindingManager.FRAME_BLOCK_BINDING];
+        BufferObject object = bound[UniformBindingManager.OBJECT_BLOCK_BINDING];
+        assertNotNull(frame);
+        assertNotNull(object);
+        assertSame(frame, shader.getBufferBlockMap().get("g_FrameBlock").getBufferObject());
+        assertSame(object, shader.getBufferBlockMap().get("g_ObjectBlock").getBufferObject());
+
+        // block bindings are not uniforms
+        assertEquals(1, shader.getBoundUniforms().size());
+        assertNull(shader.getUniformMap().get("g_FrameBlock"));
+
+        // 3 mat4, vec4, vec3 + float, vec3 + float, vec2 + vec2, in the first slot
+        ByteBuffer data = frame.getData();
+        assertEquals(0, boundOffsets[UniformBindingManager.FRAME_BLOCK_BINDING]);
+        assertEquals(256, boundSizes[UniformBindingManager.FRAME_BLOCK_BINDING]);
+        assertEquals(1f, data.getFloat(208), 0f);
+        assertEquals(3f, data.getFloat(216), 0f);
+        assertEquals(640f, data.getFloat(240), 0f);
+        assertEquals(cam.getFrustumFar(), data.getFloat(252), 0f);
+
+        // 3 mat4, 2 mat3, in the first slot of the object buffer
+        assertEquals(0, boundOffset);
+        assertEquals(288, boundSize);
+        assertEquals(1f, object.getData().getFloat(0), 0f);
+    }
+
+    @Test
+    public void testUnchangedBlocksAreNotUploaded() {
+        Shader shader = createShader();
+        setCamera();
+        manager.updateBufferBlockBindings(shader, renderer);
+        BufferObject frame = bound[UniformBindingManager.FRAME_BLOCK_BINDING];
+        BufferObject object = bound[UniformBindingManager.OBJECT_BLOCK_BINDING];
+        upload(frame);
+        upload(object);
+
+        // same camera for the next viewport, same world matrix
+        setCamera();
+        manager.setWorldMatrix(Matrix4f.IDENTITY);
+        manager.updateBufferBlockBindings(shader, renderer);
+        assertFalse(frame.isUpdateNeeded());
+        assertFalse(object.isUpdateNeeded());
+
+        // a new object only changes the object block
+        Matrix4f world = new Matrix4f();
+        world.setTranslation(5, 0, 0);
+        manager.setWorldMatrix(world);
+        manager.updateBufferBlockBindings(shader, renderer);
+        assertFalse(frame.isUpdateNeeded());
+        assertTrue(object.isUpdateNeeded());
+        // the new object gets the next slot, only that slot is uploaded
+        assertEquals(512, boundOffset);
+        assertFalse(object.getRegion(0).isDirty());
+        assertTrue(object.getRegion(1).isDirty());
+        // column 3 of the world matrix holds the translation
+        assertEquals(5f, object.getData().getFloat(512 + 48), 0f);
+        assertEquals(0f, object.getData().getFloat(48), 0f);
+    }
+
+    @Test
+    public void testEachViewPortGetsItsOwnFrameSlot() {
+        Shader shader = createShader();
+        setCamera();
+        manager.updateBufferBlockBindings(shader, renderer);
+        BufferObject frame = bound[UniformBindingManager.FRAME_BLOCK_BINDING];
+
+        // a second viewport with another camera, as recorded before replay
+        Camera other = new Camera(320, 240);
+        other.setLocation(new Vector3f(7, 8, 9));
+        other.update();
+        manager.setCamera(other, other.getViewMatrix(), other.getProjectionMatrix(),
+                other.getViewProjectionMatrix());
+        manager.setViewPort(0, 0, 320, 240);
+        manager.updateBufferBlockBindings(shader, renderer);
+        assertSame(frame, bound[UniformBindingManager.FRAME_BLOCK_BINDING]);
+        assertEquals(256, boundOffsets[UniformBindingManager.FRAME_BLOCK_BINDING]);
+
+        // the first viewport's values are still in place for its commands
+        assertEquals(1f, frame.getData().getFloat(208), 0f);
+        assertEquals(640f, frame.getData().getFloat(240), 0f);
+        assertEquals(7f, frame.getData().getFloat(256 + 208), 0f);
+        assertEquals(320f, frame.getData().getFloat(256 + 240), 0f);
+
+        manager.setTimer(new NanoTimer());
+        manager.newFrame();
+        manager.updateBufferBlockBindings(shader, renderer);
+        assertEquals(0, boundOffsets[UniformBindingManager.FRAME_BLOCK_BINDING]);
+        assertEquals(7f, frame.getData().getFloat(208), 0f);
+    }
+
+    @Test
+    public void testObjectSlotsAreReusedEachFrame() {
+        Shader shader = createShader();
+        manager.setTimer(new NanoTimer());
+        setCamera();
+        for (int i = 0; i < 100; i++) {
+            Matrix4f world = new Matrix4f();
+            world.setTranslation(i, 0, 0);
+            manager.setWorldMatrix(world);
+            manager.updateBufferBlockBindings(shader, renderer);
+            assertEquals(i * 512, boundOffset);
+        }
+        BufferObject object = bound[UniformBindingManager.OBJECT_BLOCK_BINDING];
+        // the buffer grew without losing the slots written before
+        assertTrue(object.getData().limit() >= 100 * 512);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, object.getData().getFloat(i * 512 + 48), 0f);
+        }
+
+        manager.newFrame();
+        manager.updateBufferBlockBindings(shader, renderer);
+        assertSame(object, bound[UniformBindingManager.OBJECT_BLOCK_BINDING]);
+        assertEquals(0, boundOffset);
+        assertEquals(99f, object.getData().getFloat(48), 0f);
+    }
+}
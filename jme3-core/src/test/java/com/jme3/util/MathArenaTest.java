@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jme3.util;
+
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Node;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies the scoping rules of {@link MathArena}.
+ */
+public class MathArenaTest {
+
+    @After
+    public void tearDown() {
+        MathArena.setDebug(false);
+    }
+
+    @Test
+    public void testTemporariesAreReusedAcrossScopes() {
+        Vector3f first;
+        try (MathArena arena = MathArena.open()) {
+            first = arena.vector3f(1f, 2f, 3f);
+        }
+        try (MathArena arena = MathArena.open()) {
+            Vector3f second = arena.vector3f();
+            Assert.assertSame(first, second);
+            Assert.assertEquals(Vector3f.ZERO, second);
+            Assert.assertTrue(arena.quaternion().isIdentity());
+            Assert.assertTrue(arena.matrix4f().isIdentity());
+        }
+        Assert.assertEquals(0, MathArena.getOpenScopes());
+    }
+
+    @Test
+    public void testNestingIsUnbounded() {
+        MathArena[] scopes = new MathArena[100];
+        Vector3f[] vectors = new Vector3f[scopes.length];
+        for (int i = 0; i < scopes.length; i++) {
+            scopes[i] = MathArena.open();
+            vectors[i] = scopes[i].vector3f(i, i, i);
+        }
+        Assert.assertEquals(scopes.length, MathArena.getOpenScopes());
+        for (int i = scopes.length - 1; i >= 0; i--) {
+            Assert.assertEquals(i, vectors[i].x, 0f);
+            scopes[i].close();
+        }
+        Assert.assertEquals(0, MathArena.getOpenScopes());
+    }
+
+    @Test
+    public void testOutOfOrderCloseIsRejected() {
+        MathArena outer = MathArena.open();
+        MathArena inner = MathArena.open();
+        try {
+            outer.close();
+            Assert.fail("Expected an IllegalStateException");
+        } catch (IllegalStateException exception) {
+            // expected
+        }
+        inner.close();
+        outer.close();
+        try {
+            outer.close();
+            Assert.fail("Expected an IllegalStateException");
+        } catch (IllegalStateException exception) {
+            // expected
+        }
+        Assert.assertEquals(0, MathArena.getOpenScopes());
+    }
+
+    @Test
+    public void testDebugModePoisonsReleasedTemporaries() {
+        MathArena.setDebug(true);
+        Vector3f vector;
+        Quaternion quaternion;
+        Matrix4f matrix;
+        try (MathArena arena = MathArena.open()) {
+            vector = arena.vector3f(1f, 2f, 3f);
+            quaternion = arena.quaternion();
+            matrix = arena.matrix4f();
+        }
+        Assert.assertTrue(Float.isNaN(vector.x));
+        Assert.assertTrue(Float.isNaN(quaternion.getW()));
+        Assert.assertTrue(Float.isNaN(matrix.m33));
+
+        MathArena outer = MathArena.open();
+        MathArena inner = MathArena.open();
+        try {
+            outer.close();
+            Assert.fail("Expected an IllegalStateException");
+        } catch (IllegalStateException exception) {
+            Assert.assertNotNull("should report where the leaked scope was opened",
+                    exception.getCause());
+        }
+        inner.close();
+        outer.close();
+    }
+
+    @Test
+    public void testStaleScopeIsRejectedInDebugMode() {
+        MathArena.setDebug(true);
+        MathArena stale = MathArena.open();
+        stale.close();
+        // a new scope at the same depth must not revive the stale one
+        try (MathArena current = MathArena.open()) {
+            Assert.assertNotSame(stale, current);
+            try {
+                stale.vector3f();
+                Assert.fail("Expected an IllegalStateException");
+            } catch (IllegalStateException exception) {
+                // expected
+            }
+            Assert.assertEquals(1f, current.vector2f(1f, 2f).x, 0f);
+        }
+    }
+
+    @Test
+    public void testUnclosedTopLevelScopeIsReported() {
+        MathArena.setDebug(true);
+        MathArena.checkAllClosed();
+        MathArena leaked = MathArena.open();
+        try {
+            MathArena.checkAllClosed();
+            Assert.fail("Expected an IllegalStateException");
+        } catch (IllegalStateException exception) {
+            Assert.assertNotNull("should report where the leaked scope was opened",
+                    exception.getCause());
+        }
+        leaked.close();
+        MathArena.checkAllClosed();
+    }
+
+    @Test
+    public void testDeepSceneGraphTransforms() {
+        // TempVars.spatialStack used to limit this to 32 levels.
+        Node root = new Node("root");
+        Node leaf = root;
+        for (int i = 0; i < 100; i++) {
+            Node child = new Node("child" + i);
+            child.setLocalTranslation(1f, 0f, 0f);
+            leaf.attachChild(child);
+            leaf = child;
+        }
+        Assert.assertEquals(100f, leaf.getWorldTranslation().x, 1e-3f);
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2009-2026 jMonkeyEngine
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * * Redistributions of source code must retain the above copyright
+ *   notice, this list of conditions and the following disclaimer.
+ *
+ * * Redistributions in binary form must reproduce the above copyright
+ *   notice, this list of conditions and the following disclaimer in the
+ *   documentation and/or other materials provided with the distribution.
+ *
+ * * Neither the name of 'jMonkeyEngine' nor the names of its contributors
+ *   may be used to endorse or promote products derived from this software
+ *   without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package jme3tools.pack;
+
+import com.jme3.asset.plugins.PackLocator;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Builds the pack files read by {@link PackLocator} from a directory of
+ * assets. The asset paths in the pack are relative to that directory,
+ * exactly as a {@link com.jme3.asset.plugins.FileLocator} rooted there
+ * would resolve them.
+ * <p>
+ * It can run from the command line or a Gradle <code>JavaExec</code> task:
+ * <pre>
+ * task packAssets(type: JavaExec) {
+ *     classpath = sourceSets.main.runtimeClasspath
+ *     mainClass = 'jme3tools.pack.AssetPacker'
+ *     args 'assets', "$buildDir/assets.jpk"
+ * }
+ * </pre>
+ */
+public class AssetPacker {
+
+    private static final Logger logger = Logger.getLogger(AssetPacker.class.getName());
+
+    private static final class Entry implements Comparable<Entry> {
+
+        final Path file;
+        final byte[] path;
+        final long hash;
+        final long length;
+        int nameOffset;
+        long dataOffset;
+
+        Entry(Path file, String path) throws IOException {
+            this.file = file;
+            this.path = path.getBytes(StandardCharsets.UTF_8);
+            this.hash = PackLocator.hashPath(path);
+            this.length = Files.size(file);
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int result = Long.compare(hash, other.hash);
+            for (int i = 0; result == 0 && i < Math.min(path.length, other.path.length); i++) {
+                result = Integer.compare(path[i] & 0xff, other.path[i] & 0xff);
+            }
+            return result != 0 ? result : Integer.compare(path.length, other.path.length);
+        }
+    }
+
+    /**
+     * A private constructor to inhibit instantiation of this class.
+     */
+    private AssetPacker() {
+    }
+
+    /**
+     * Packs all the files under a directory into a pack file.
+     *
+     * @param assetsDir The root directory of the assets
+     * @param packFile The pack file to write, replaced if it exists
+     * @return The number of packed assets
+     * @throws IOException If a file cannot be read or the pack written,
+     * or if the pack would exceed 2 GiB.
+     */
+    public static int pack(File assetsDir, File packFile) throws IOException {
+        Path root = assetsDir.toPath();
+        Path output = packFile.toPath().toAbsolutePath();
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(file) && !file.toAbsolutePath().equals(output)) {
+                    String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+                    entries.add(new Entry(file, path));
+                }
+            }
+        }
+        Collections.sort(entries);
+
+        long namesOffset = PackLocator.HEADER_SIZE + (long) entries.size() * PackLocator.INDEX_ENTRY_SIZE;
+        int namesLength = 0;
+        for (Entry entry : entries) {
+            entry.nameOffset = namesLength;
+            namesLength += entry.path.length;
+        }
+        long offset = namesOffset + namesLength;
+        for (Entry entry : entries) {
+            offset = align(offset);
+            entry.dataOffset = offset;
+            offset += entry.length;
+        }
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("The assets in " + assetsDir + " exceed the 2 GiB pack limit");
+        }
+
+        // Write to a temporary file and move it over the pack, so that a
+        // locator still mapping the old pack never sees it change.
+        File temp = File.createTempFile("pack", ".tmp", output.getParent().toFile());
+        try {
+            write(entries, temp);
+            try {
+                Files.move(temp.toPath(), output, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp.toPath(), output, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+        } finally {
+            if (temp != null) {
+                temp.delete();
+            }
+        }
+        return entries.size();
+    }
+
+    private static void write(List<Entry> entries, File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file.toPath()), 1 << 16))) {
+            out.writeInt(PackLocator.MAGIC);
+            out.writeInt(PackLocator.FORMAT_VERSION);
+            out.writeInt(entries.size());
+            out.writeInt(0);
+            for (Entry entry : entries) {
+                out.writeLong(entry.hash);
+                out.writeInt(entry.nameOffset);
+                out.writeInt(entry.path.length);
+                out.writeLong(entry.dataOffset);
+                out.writeLong(entry.length);
+            }
+            for (Entry entry : entries) {
+                out.write(entry.path);
+            }
+            for (Entry entry : entries) {
+                pad(out, entry.dataOffset - out.size());
+                Files.copy(entry.file, out);
+            }
+        }
+    }
+
+    private static long align(long offset) {
+        int alignment = PackLocator.DATA_ALIGNMENT;
+        return (offset + alignment - 1) / alignment * alignment;
+    }
+
+    private static void pad(OutputStream out, long count) throws IOException {
+        for (long i = 0; i < count; i++) {
+            out.write(0);
+        }
+    }
+
+    /**
+     * Packs a directory from the command line.
+     *
+     * @param args The assets directory and the pack file to write
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: AssetPacker <assets directory> <pack file>");
+            System.exit(2);
+        }
+        try {
+            int count = pack(new File(args[0]), new File(args[1]));
+            logger.log(Level.INFO, "Packed {0} assets into {1}", new Object[]{count, args[1]});
+        } catch (IOException ex) {
+            logger.log(Level.SEVERE, "Failed to pack " + args[0], ex);
+            System.exit(1);
+        }
+    }
+}
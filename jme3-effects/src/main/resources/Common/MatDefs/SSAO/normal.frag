@@ -1,3 +1,6 @@
+#if defined(COLORMAP_ARRAY_ALPHA) && __VERSION__ < 130
+    #extension GL_EXT_texture_array : enable
+#endif
 #import "Common/ShaderLib/GLSLCompat.glsllib"
 varying vec3 normal;
 varying vec2 texCoord;
@@ -11,11 +14,16 @@ varying vec2 texCoord;
     uniform sampler2D m_ColorMap;
 #endif
 
+#ifdef COLORMAP_ARRAY_ALPHA
+    uniform sampler2DArray m_ColorMapArray;
+    uniform int m_ColorMapLayer;
+#endif
+
 #ifdef BASECOLORMAP_ALPHA
     uniform sampler2D m_BaseColorMap;
 #endif
 
-#if defined DIFFUSEMAP_ALPHA || defined COLORMAP_ALPHA || defined BASECOLORMAP_ALPHA
+#if defined DIFFUSEMAP_ALPHA || defined COLORMAP_ALPHA || defined COLORMAP_ARRAY_ALPHA || defined BASECOLORMAP_ALPHA
     uniform float m_AlphaDiscardThreshold;
 #endif
 
@@ -32,6 +40,11 @@ void main(void)
             discard;
         }
     #endif
+    #ifdef COLORMAP_ARRAY_ALPHA
+        if(texture2DArray(m_ColorMapArray,vec3(texCoord,float(m_ColorMapLayer))).a<m_AlphaDiscardThreshold){
+            discard;
+        }
+    #endif
     #ifdef BASECOLORMAP_ALPHA
         if(texture2D(m_BaseColorMap,texCoord).a<m_AlphaDiscardThreshold){
             discard;
@@ -50,6 +50,7 @@ import com.jme3.renderer.opengl.GL;
 import com.jme3.renderer.opengl.GL2;
 import com.jme3.renderer.opengl.GL3;
 import com.jme3.renderer.opengl.GL4;
+import com.jme3.renderer.opengl.GLCallCounter;
 import com.jme3.renderer.opengl.GLDebug;
 import com.jme3.renderer.opengl.GLExt;
 import com.jme3.renderer.opengl.GLFbo;
@@ -57,7 +58,9 @@ import com.jme3.renderer.opengl.GLRenderer;
 import com.jme3.renderer.opengl.GLTiming;
 import com.jme3.renderer.opengl.GLTimingState;
 import com.jme3.renderer.opengl.GLTracer;
+import com.jme3.renderer.opengl.ProgramBinaryCache;
 import com.jme3.system.*;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -316,7 +319,22 @@ public abstract class LwjglContext implements JmeContext {
                     glext = (GLExt) GLTracer.createDesktopGlTracer(glext, GLExt.class);
                     glfbo = (GLFbo) GLTracer.createDesktopGlTracer(glfbo, GLFbo.class);
                 }
+                GLCallCounter callCounter = null;
+                if (settings.isGraphicsCallCounting()) {
+                    callCounter = new GLCallCounter();
+                    gl = (GL) callCounter.wrap(gl, GL.class, GL2.class, GL3.class, GL4.class);
+                    glext = (GLExt) callCounter.wrap(glext, GLExt.class);
+                    glfbo = (GLFbo) callCounter.wrap(glfbo, GLFbo.class);
+                }
                 renderer = new GLRenderer(gl, glext, glfbo);
+                if (callCounter != null) {
+                    callCounter.setStatistics(renderer.getStatistics());
+                }
+                if (settings.getShaderCacheFolder() != null) {
+                    ((GLRenderer) renderer).setProgramBinaryCache(
+                            new ProgramBinaryCache(new File(settings.getShaderCacheFolder())));
+                }
+                ((GLRenderer) renderer).setAsyncShaderCompile(settings.isAsyncShaderCompile());
             }
             renderer.initialize();
         } else {
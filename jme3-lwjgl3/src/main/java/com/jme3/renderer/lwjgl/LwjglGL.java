@@ -114,6 +114,38 @@ public class LwjglGL extends LwjglRender implements GL, GL2, GL3, GL4 {
         GL32.glDeleteSync(sync.getFenceId());
     }
 
+    @Override
+    public void glBufferStorage(final int target, final long size, final int flags) {
+        GL44.glBufferStorage(target, size, flags);
+    }
+
+    @Override
+    public ByteBuffer glMapBufferRange(final int target, final long offset, final long length, final int access) {
+        return GL30.glMapBufferRange(target, offset, length, access);
+    }
+
+    @Override
+    public void glProgramParameteri(final int program, final int pname, final int value) {
+        GL41.glProgramParameteri(program, pname, value);
+    }
+
+    @Override
+    public void glGetProgramBinary(final int program, final IntBuffer length, final IntBuffer binaryFormat,
+                                   final ByteBuffer binary) {
+        GL41.glGetProgramBinary(program, length, binaryFormat, binary);
+    }
+
+    @Override
+    public void glProgramBinary(final int program, final int binaryFormat, final ByteBuffer binary) {
+        GL41.glProgramBinary(program, binaryFormat, binary);
+    }
+
+    @Override
+    public void glMultiDrawElementsIndirect(final int mode, final int type, final long indirect,
+                                            final int drawCount, final int stride) {
+        GL43.glMultiDrawElementsIndirect(mode, type, indirect, drawCount, stride);
+    }
+
     @Override
     public void glBlendEquationSeparate(final int colorMode, final int alphaMode) {
         GL20.glBlendEquationSeparate(colorMode, alphaMode);
@@ -694,6 +726,12 @@ public class LwjglGL extends LwjglRender implements GL, GL2, GL3, GL4 {
         GL30.glBindBufferBase(target, index, buffer);
     }
 
+    @Override
+    public void glBindBufferRange(final int target, final int index, final int buffer, final long offset,
+            final long size) {
+        GL30.glBindBufferRange(target, index, buffer, offset, size);
+    }
+
     @Override
     public void glUniformBlockBinding(final int program, final int uniformBlockIndex, final int uniformBlockBinding) {
         GL31.glUniformBlockBinding(program, uniformBlockIndex, uniformBlockBinding);
@@ -59,6 +59,7 @@ import com.jme3.util.BufferAllocatorFactory;
 import com.jme3.util.LWJGLBufferAllocator;
 import com.jme3.util.LWJGLBufferAllocator.ConcurrentLWJGLBufferAllocator;
 import static com.jme3.util.LWJGLBufferAllocator.PROPERTY_CONCURRENT_BUFFER_ALLOCATOR;
+import java.io.File;
 import java.nio.IntBuffer;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -247,8 +248,22 @@ public abstract class LwjglContext implements JmeContext {
                 glfbo = (GLFbo) GLTracer.createDesktopGlTracer(glfbo, GLFbo.class);
             }
 
+            GLCallCounter callCounter = null;
+            if (settings.isGraphicsCallCounting()) {
+                callCounter = new GLCallCounter();
+                gl = (GL) callCounter.wrap(gl, GL.class, GL2.class, GL3.class, GL4.class);
+                glext = (GLExt) callCounter.wrap(glext, GLExt.class);
+                glfbo = (GLFbo) callCounter.wrap(glfbo, GLFbo.class);
+            }
+
             this.renderer = new GLRenderer(gl, glext, glfbo);
+            if (callCounter != null) callCounter.setStatistics(this.renderer.getStatistics());
             if (this.settings.isGraphicsDebug()) ((GLRenderer)this.renderer).setDebugEnabled(true);
+            if (settings.getShaderCacheFolder() != null) {
+                ((GLRenderer) this.renderer).setProgramBinaryCache(
+                        new ProgramBinaryCache(new File(settings.getShaderCacheFolder())));
+            }
+            ((GLRenderer) this.renderer).setAsyncShaderCompile(settings.isAsyncShaderCompile());
         }
         this.renderer.initialize();
 
@@ -199,6 +199,7 @@ public class GltfLoader implements AssetLoader {
 
             customContentManager.init(this);
 
+            prefetchImages();
             readSkins();
             readCameras();
 
@@ -878,6 +879,24 @@ public class GltfLoader implements AssetLoader {
         return adapter.getMaterial();
     }
 
+    /**
+     * Starts loading the external images in parallel, so that they are
+     * cached or in flight by the time the materials read them. Embedded
+     * images are decoded from the buffers when read.
+     */
+    private void prefetchImages() {
+        if (images == null) {
+            return;
+        }
+        for (JsonElement image : images) {
+            String uri = getAsString(image.getAsJsonObject(), "uri");
+            if (uri != null && !uri.startsWith("data:")) {
+                // Failures surface again when the image itself is read.
+                info.getManager().loadAssetAsync(new TextureKey(info.getKey().getFolder() + decodeUri(uri), false));
+            }
+        }
+    }
+
     public void readCameras() throws IOException {
         if (cameras == null) {
             return;